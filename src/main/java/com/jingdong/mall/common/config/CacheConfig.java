@@ -0,0 +1,93 @@
+package com.jingdong.mall.common.config;
+
+import com.jingdong.mall.common.response.EncodedResponse;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.model.dto.response.OrderSubmitResponse;
+import com.jingdong.mall.model.dto.response.ProductDetailResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 本地缓存配置
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * 商品详情缓存：缓存组装好的 ProductDetailResponse，按估算字节数限制容量
+     */
+    @Bean
+    public LocalCache<Integer, ProductDetailResponse> productDetailCache(
+            @Value("${mall.cache.product-detail.max-bytes:67108864}") long maxBytes,
+            @Value("${mall.cache.product-detail.ttl-seconds:60}") long ttlSeconds) {
+        return new LocalCache<>("productDetail", maxBytes, ttlSeconds * 1000, CacheConfig::estimateSize);
+    }
+
+    /**
+     * 商品详情响应字节缓存：缓存序列化好的 Result<ProductDetailResponse>，按商品统计命中率找出热点商品
+     */
+    @Bean
+    public LocalCache<Integer, EncodedResponse> productDetailBytesCache(
+            @Value("${mall.cache.product-detail-bytes.max-bytes:33554432}") long maxBytes,
+            @Value("${mall.cache.product-detail.ttl-seconds:60}") long ttlSeconds) {
+        return new LocalCache<>("productDetailBytes", maxBytes, ttlSeconds * 1000, EncodedResponse::size, true);
+    }
+
+    /**
+     * 商品列表总数缓存：按筛选条件签名缓存 COUNT(*) 结果，权重为1（容量即条数）
+     */
+    @Bean
+    public LocalCache<String, Long> productCountCache(
+            @Value("${mall.cache.product-count.max-entries:10000}") long maxEntries,
+            @Value("${mall.cache.product-count.ttl-seconds:30}") long ttlSeconds) {
+        return new LocalCache<>("productCount", maxEntries, ttlSeconds * 1000, count -> 1);
+    }
+
+    /**
+     * 购物车角标数量缓存：用户ID -> 购物车商品总数量，由加购、修改、删除、下单增量维护，权重为1（容量即用户数）
+     */
+    @Bean
+    public LocalCache<Long, Integer> cartCountCache(
+            @Value("${mall.cache.cart-count.max-entries:100000}") long maxEntries,
+            @Value("${mall.cache.cart-count.ttl-seconds:600}") long ttlSeconds) {
+        return new LocalCache<>("cartCount", maxEntries, ttlSeconds * 1000, count -> 1);
+    }
+
+    /**
+     * 异步下单状态缓存："用户ID:订单号" -> 受理/处理状态，供客户端轮询，权重为1（容量即提交数）
+     * 过期或被淘汰后按订单是否已入库判断结果
+     */
+    @Bean
+    public LocalCache<String, OrderSubmitResponse> orderSubmitCache(
+            @Value("${mall.cache.order-submit.max-entries:100000}") long maxEntries,
+            @Value("${mall.cache.order-submit.ttl-seconds:600}") long ttlSeconds) {
+        return new LocalCache<>("orderSubmit", maxEntries, ttlSeconds * 1000, status -> 1);
+    }
+
+    /**
+     * 估算商品详情占用的内存（字节），只需数量级准确
+     */
+    private static long estimateSize(ProductDetailResponse detail) {
+        long size = 1024; // 对象头、商品参数等固定部分
+        size += stringSize(detail.getName()) + stringSize(detail.getDesc()) + stringSize(detail.getDetailHtml());
+        if (detail.getMainImages() != null) {
+            for (String image : detail.getMainImages()) {
+                size += stringSize(image);
+            }
+        }
+        if (detail.getSpecs() != null) {
+            for (ProductDetailResponse.ProductSpec spec : detail.getSpecs()) {
+                size += 64 + (spec.getValues() != null ? spec.getValues().size() * 64L : 0);
+            }
+        }
+        if (detail.getSkus() != null) {
+            size += detail.getSkus().size() * 512L;
+        }
+        return size;
+    }
+
+    private static long stringSize(String value) {
+        return value == null ? 0 : 40 + value.length() * 2L;
+    }
+}
@@ -51,6 +51,7 @@ public enum ErrorCode {
     BUY_NOW_SPEC_INVALID(2012, "商品规格不合法"),
     SKU_INVALID(2013,"SKU不合法"),
     SKU_NOT_IN_CART(2014,"SKU不在购物车内"),
+    PRODUCT_CURSOR_INVALID(2020, "分页游标不合法或与排序方式不匹配"),
 
     // 订单相关 (3000-3999)
     ORDER_NOT_EXIST(3001, "订单不存在"),
@@ -70,6 +71,8 @@ public enum ErrorCode {
     ORDER_CANNOT_PAY(3015, "订单不能支付"),
     ORDER_LIST_GET_FAILED(3016,"订单列表获取失败"),
     ORDER_NOT_USER(3017,"该订单不属于你"),
+    ORDER_CURSOR_INVALID(3018, "订单分页游标无效"),
+    ORDER_SYSTEM_BUSY(3019, "当前下单人数过多，请稍后重试"),
 
 
     // 新增地址相关错误码（地址管理：4000-4999）
@@ -116,7 +119,8 @@ public enum ErrorCode {
     // 商品分类相关 (2014-2019)
     CATEGORY_NAME_EXIST(2014, "分类名称已存在"),
     CATEGORY_CREATE_FAILED(2015, "创建分类失败"),
-    CATEGORY_PARAM_ERROR(2016, "分类参数不合法");
+    CATEGORY_PARAM_ERROR(2016, "分类参数不合法"),
+    CATEGORY_PARENT_NOT_EXIST(2017, "上级分类不存在或已禁用");
     ;
 
 
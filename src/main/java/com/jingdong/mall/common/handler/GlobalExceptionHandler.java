@@ -1,6 +1,7 @@
 package com.jingdong.mall.common.handler;
 
 import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.common.exception.ErrorCode;
 import com.jingdong.mall.common.response.Result;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -66,6 +67,10 @@ public class GlobalExceptionHandler {
      * 根据业务错误码确定HTTP状态码
      */
     private HttpStatus determineHttpStatus(Integer businessCode) {
+        // 下单排队已满：503，客户端应稍后重试而不是立即重复提交
+        if (ErrorCode.ORDER_SYSTEM_BUSY.getCode().equals(businessCode)) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
         // 可以根据业务错误码范围分配HTTP状态码
         if (businessCode >= 1000 && businessCode < 2000) {
             // 用户相关错误：400 Bad Request
@@ -0,0 +1,107 @@
+package com.jingdong.mall.common.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON字符串数组列（如商品主图main_images、标签tags）与 List<String> 之间的转换
+ * 1. 查询时直接映射为不可变List，业务代码不再逐行调用ObjectMapper解析
+ * 2. 解析结果按原始JSON缓存，相同的值只解析一次，且多行共享同一个List对象
+ * 3. 解析失败时记录日志并返回空列表，不影响整行数据的加载
+ * 返回的List被缓存共享，调用方不能修改（修改会抛出UnsupportedOperationException）。
+ * 不全局注册，需要在映射中对具体的列显式指定（@Result的typeHandler属性），避免误用于其它List属性。
+ */
+@Slf4j
+public class JsonStringListTypeHandler extends BaseTypeHandler<List<String>> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+
+    // 解析缓存的最大条数，超过后整体清空重新累积（商品数量有限，正常不会触发）
+    private static final int MAX_CACHE_SIZE = 100_000;
+
+    // 原始JSON -> 解析结果
+    private static final Map<String, List<String>> CACHE = new ConcurrentHashMap<>();
+
+    // 数组元素驻留：不同商品的相同图片地址、标签共享同一个String
+    private static final Map<String, String> VALUES = new ConcurrentHashMap<>();
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, List<String> parameter, JdbcType jdbcType)
+            throws SQLException {
+        try {
+            ps.setString(i, OBJECT_MAPPER.writeValueAsString(parameter));
+        } catch (JsonProcessingException e) {
+            throw new SQLException("序列化JSON数组失败", e);
+        }
+    }
+
+    @Override
+    public List<String> getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return parse(rs.getString(columnName));
+    }
+
+    @Override
+    public List<String> getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return parse(rs.getString(columnIndex));
+    }
+
+    @Override
+    public List<String> getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return parse(cs.getString(columnIndex));
+    }
+
+    /**
+     * 解析JSON字符串数组，空值返回空列表
+     */
+    public static List<String> parse(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        List<String> cached = CACHE.get(json);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<String> parsed = doParse(json);
+        if (CACHE.size() >= MAX_CACHE_SIZE) {
+            CACHE.clear();
+            VALUES.clear();
+        }
+        List<String> existing = CACHE.putIfAbsent(json, parsed);
+        return existing != null ? existing : parsed;
+    }
+
+    private static List<String> doParse(String json) {
+        try {
+            List<String> values = OBJECT_MAPPER.readValue(json, STRING_LIST);
+            if (values == null || values.isEmpty()) {
+                return List.of();
+            }
+            List<String> interned = new ArrayList<>(values.size());
+            for (String value : values) {
+                if (value != null) {
+                    interned.add(VALUES.computeIfAbsent(value, v -> v));
+                }
+            }
+            return List.copyOf(interned);
+        } catch (JsonProcessingException e) {
+            log.warn("解析JSON数组失败: {}", json);
+            return List.of();
+        }
+    }
+}
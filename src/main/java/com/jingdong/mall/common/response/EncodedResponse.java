@@ -0,0 +1,66 @@
+package com.jingdong.mall.common.response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 已序列化的响应体（UTF-8 JSON字节，较大的响应同时保存gzip压缩结果）
+ * 热点接口缓存序列化结果，命中时直接写出字节，不再组装DTO和调用Jackson
+ */
+public final class EncodedResponse {
+
+    // 超过该字节数的响应预先压缩
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final String version;
+
+    private final byte[] json;
+
+    // 压缩后的JSON，响应较小时为null
+    private final byte[] gzip;
+
+    private EncodedResponse(String version, byte[] json, byte[] gzip) {
+        this.version = version;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    /**
+     * @param version 内容版本号（ETag）
+     * @param json 序列化后的JSON字节
+     */
+    public static EncodedResponse of(String version, byte[] json) {
+        return new EncodedResponse(version, json, json.length >= GZIP_MIN_BYTES ? gzip(json) : null);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * 占用的字节数（缓存容量计算用）
+     */
+    public long size() {
+        return 64 + json.length + (gzip != null ? gzip.length : 0);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
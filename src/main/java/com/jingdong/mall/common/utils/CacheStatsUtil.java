@@ -0,0 +1,36 @@
+package com.jingdong.mall.common.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Slf4j
+public class CacheStatsUtil {
+
+    private final List<LocalCache<?, ?>> caches;
+
+    public CacheStatsUtil(List<LocalCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    // 每个缓存输出的热点键数
+    private static final int TOP_KEYS = 10;
+
+    /**
+     * 每5分钟输出一次本地缓存的命中率、容量和淘汰统计，以及请求最多的键的命中率
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void logCacheStats() {
+        for (LocalCache<?, ?> cache : caches) {
+            log.info("本地缓存统计: {}", cache.stats());
+            for (LocalCache.KeyStats<?> stats : cache.topKeyStats(TOP_KEYS)) {
+                log.info("本地缓存热点键: cache={}, key={}, hits={}, misses={}, hitRate={}%",
+                        cache.getName(), stats.key(), stats.hits(), stats.misses(),
+                        String.format("%.2f", stats.hitRate() * 100));
+            }
+        }
+    }
+}
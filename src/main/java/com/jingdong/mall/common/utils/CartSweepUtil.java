@@ -0,0 +1,76 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.mapper.ShoppingCartMapper;
+import com.jingdong.mall.model.entity.ShoppingCart;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class CartSweepUtil {
+
+    // 每批删除的购物车条目数
+    private static final int BATCH_SIZE = 500;
+
+    private final ShoppingCartMapper shoppingCartMapper;
+
+    private final LocalCache<Long, Integer> cartCountCache;
+
+    // SKU或商品下架多少天后清理购物车中的对应条目，宽限期内重新上架的条目保留
+    @Value("${mall.cart.sweep-grace-days:7}")
+    private int graceDays;
+
+    public CartSweepUtil(ShoppingCartMapper shoppingCartMapper, LocalCache<Long, Integer> cartCountCache) {
+        this.shoppingCartMapper = shoppingCartMapper;
+        this.cartCountCache = cartCountCache;
+    }
+
+    /**
+     * 每天凌晨4点清理指向失效SKU的购物车条目
+     * 按主键分批查询、删除，每批一条DELETE语句，避免长时间锁住购物车表
+     * 秒 分 时 日 月 周
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void sweepDeadSkuItems() {
+        long start = System.currentTimeMillis();
+        LocalDateTime before = LocalDateTime.now().minusDays(graceDays);
+        Set<Long> affectedUsers = new HashSet<>();
+        int deleted = 0;
+        long lastId = 0;
+        while (true) {
+            List<ShoppingCart> items = shoppingCartMapper.selectDeadSkuItems(lastId, before, BATCH_SIZE);
+            if (items.isEmpty()) {
+                break;
+            }
+            List<Long> ids = items.stream().map(ShoppingCart::getId).collect(Collectors.toList());
+            try {
+                deleted += shoppingCartMapper.deleteDeadSkuItems(ids, before);
+                items.forEach(item -> affectedUsers.add(item.getUserId()));
+            } catch (Exception e) {
+                log.error("清理失效购物车条目失败，跳过本批 {} 个条目，下次继续清理", ids.size(), e);
+            }
+            lastId = ids.get(ids.size() - 1);
+            if (items.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+
+        // 被清理用户的角标数量下次读取时重新统计
+        affectedUsers.forEach(cartCountCache::invalidate);
+
+        if (deleted > 0) {
+            log.info("清理失效购物车条目完成，删除 {} 个条目，涉及 {} 个用户，耗时 {} ms",
+                    deleted, affectedUsers.size(), System.currentTimeMillis() - start);
+        } else {
+            log.debug("没有需要清理的失效购物车条目");
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductCategory;
+import com.jingdong.mall.model.entity.ProductSku;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 商品目录快照（上架商品、上架SKU、启用的分类）
+ * 1. 按商品ID、SKU ID建立索引，每个商品的SKU按价格升序预先分组；分类组织成分类树（CategoryTree）；
+ *    商品另按最低价排序、按分类分组，价格排序的商品列表直接在这两个索引上分页
+ * 2. SKU规格字段只保存在字典编码的列式存储（SkuAttributeStore）中，快照持有的SKU对象不引用规格字符串；
+ *    按ID查询SKU时复制一份并从列式存储填回规格字段，规格筛选和可选值统计直接在编码上进行
+ * 3. 快照不可变，增量变化通过 withChanges 生成新快照（写时复制），由持有方原子替换
+ * 快照中的商品对象被所有请求共享，调用方不能修改；构建快照时传入的SKU对象由快照接管（规格字段会被清空）。
+ */
+public final class CatalogSnapshot {
+
+    private static final Comparator<ProductSku> SKU_ORDER = Comparator
+            .comparing(ProductSku::getPrice, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ProductSku::getId);
+
+    /**
+     * 商品按最低价升序：NULL在前，价格相同按ID升序（与MySQL的 ORDER BY min_price, id 一致，降序即整体反转）
+     */
+    public static final Comparator<Product> PRODUCT_PRICE_ORDER = Comparator
+            .comparing(Product::getMinPrice, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Product::getId);
+
+    private final Map<Integer, Product> products;
+
+    // 全部上架商品（按PRODUCT_PRICE_ORDER排序，不可变）
+    private final List<Product> productsByPrice;
+
+    // 分类ID -> 直接挂在该分类下的上架商品（不含子分类，按PRODUCT_PRICE_ORDER排序，不可变）
+    private final Map<Integer, List<Product>> productsByCategory;
+
+    // SKU ID -> 上架SKU（规格字段为null，取值在skuAttributes中）
+    private final Map<Integer, ProductSku> skus;
+
+    // 商品ID -> 上架SKU列表（按价格升序，不可变，规格字段为null）
+    private final Map<Integer, List<ProductSku>> skusByProduct;
+
+    // 分类树（分类有变化时整体重建）
+    private final CategoryTree categoryTree;
+
+    // SKU规格列式存储（SKU有变化时只对受影响的商品重新编码）
+    private final SkuAttributeStore skuAttributes;
+
+    private CatalogSnapshot(Map<Integer, Product> products, List<Product> productsByPrice,
+                            Map<Integer, List<Product>> productsByCategory, Map<Integer, ProductSku> skus,
+                            Map<Integer, List<ProductSku>> skusByProduct, CategoryTree categoryTree,
+                            SkuAttributeStore skuAttributes) {
+        this.products = products;
+        this.productsByPrice = productsByPrice;
+        this.productsByCategory = productsByCategory;
+        this.skus = skus;
+        this.skusByProduct = skusByProduct;
+        this.categoryTree = categoryTree;
+        this.skuAttributes = skuAttributes;
+    }
+
+    /**
+     * 全量构建快照，非上架状态的商品和SKU会被忽略
+     */
+    public static CatalogSnapshot of(List<Product> products, List<ProductSku> skus, List<ProductCategory> categories) {
+        Map<Integer, Product> productMap = new HashMap<>(products.size() * 2);
+        for (Product product : products) {
+            if (isActive(product.getIsActive())) {
+                productMap.put(product.getId(), product);
+            }
+        }
+
+        Map<Integer, ProductSku> skuMap = new HashMap<>(skus.size() * 2);
+        for (ProductSku sku : skus) {
+            if (isActive(sku.getIsActive())) {
+                skuMap.put(sku.getId(), sku);
+            }
+        }
+
+        Map<Integer, List<ProductSku>> grouped = new HashMap<>();
+        for (ProductSku sku : skuMap.values()) {
+            grouped.computeIfAbsent(sku.getProductId(), k -> new ArrayList<>()).add(sku);
+        }
+        Map<Integer, List<ProductSku>> skusByProduct = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((productId, list) -> skusByProduct.put(productId, sorted(list)));
+
+        // 规格字段编码进列式存储后从SKU对象上清空
+        SkuAttributeStore skuAttributes = buildSkuAttributes(skusByProduct);
+        skuMap.values().forEach(CatalogSnapshot::clearSpecs);
+
+        List<Product> productsByPrice = new ArrayList<>(productMap.values());
+        productsByPrice.sort(PRODUCT_PRICE_ORDER);
+        Map<Integer, List<Product>> productsByCategory = new HashMap<>();
+        for (Product product : productsByPrice) {
+            if (product.getCategoryId() != null) {
+                productsByCategory.computeIfAbsent(product.getCategoryId(), k -> new ArrayList<>()).add(product);
+            }
+        }
+        productsByCategory.replaceAll((categoryId, list) -> List.copyOf(list));
+        return new CatalogSnapshot(productMap, List.copyOf(productsByPrice), productsByCategory,
+                skuMap, skusByProduct, toCategoryTree(categories), skuAttributes);
+    }
+
+    /**
+     * 在当前快照上应用增量变化，返回新快照（当前快照不变）
+     * @param changedProducts 有变化的商品（包括已下架的，下架即从快照中删除）
+     * @param changedSkus 有变化的SKU（包括已下架的）
+     * @param categories 全部启用的分类（分类数量少，每次整体替换），为null表示不变
+     */
+    public CatalogSnapshot withChanges(List<Product> changedProducts, List<ProductSku> changedSkus,
+                                       List<ProductCategory> categories) {
+        Map<Integer, Product> productMap = products;
+        List<Product> productsByPriceList = productsByPrice;
+        Map<Integer, List<Product>> productsByCategoryMap = productsByCategory;
+        if (!changedProducts.isEmpty()) {
+            productMap = new HashMap<>(products);
+            Set<Integer> changedIds = new HashSet<>(changedProducts.size() * 2);
+            Set<Integer> affectedCategories = new HashSet<>();
+            for (Product product : changedProducts) {
+                Product old = isActive(product.getIsActive())
+                        ? productMap.put(product.getId(), product)
+                        : productMap.remove(product.getId());
+                changedIds.add(product.getId());
+                affectedCategories.add(product.getCategoryId());
+                if (old != null) {
+                    affectedCategories.add(old.getCategoryId());
+                }
+            }
+            affectedCategories.remove(null);
+
+            // 价格索引只对变化的商品排序，再与去掉这些商品的原索引归并；分类索引只重建受影响的分类
+            List<Product> changedByPrice = new ArrayList<>(changedIds.size());
+            for (Integer productId : changedIds) {
+                Product current = productMap.get(productId);
+                if (current != null) {
+                    changedByPrice.add(current);
+                }
+            }
+            changedByPrice.sort(PRODUCT_PRICE_ORDER);
+            productsByPriceList = mergeByPrice(productsByPrice, changedIds, changedByPrice);
+
+            productsByCategoryMap = new HashMap<>(productsByCategory);
+            for (Integer categoryId : affectedCategories) {
+                List<Product> additions = new ArrayList<>();
+                for (Product product : changedByPrice) {
+                    if (categoryId.equals(product.getCategoryId())) {
+                        additions.add(product);
+                    }
+                }
+                List<Product> merged = mergeByPrice(productsByCategory.getOrDefault(categoryId, List.of()),
+                        changedIds, additions);
+                if (merged.isEmpty()) {
+                    productsByCategoryMap.remove(categoryId);
+                } else {
+                    productsByCategoryMap.put(categoryId, merged);
+                }
+            }
+        }
+
+        Map<Integer, ProductSku> skuMap = skus;
+        Map<Integer, List<ProductSku>> skusByProductMap = skusByProduct;
+        SkuAttributeStore skuAttributeStore = skuAttributes;
+        if (!changedSkus.isEmpty()) {
+            skuMap = new HashMap<>(skus);
+            Set<Integer> affectedProducts = new HashSet<>();
+            for (ProductSku sku : changedSkus) {
+                ProductSku old = isActive(sku.getIsActive())
+                        ? skuMap.put(sku.getId(), sku)
+                        : skuMap.remove(sku.getId());
+                affectedProducts.add(sku.getProductId());
+                if (old != null) {
+                    affectedProducts.add(old.getProductId());
+                }
+            }
+
+            // 只重新分组受影响商品的SKU列表
+            Set<Integer> changedIds = new HashSet<>(changedSkus.size() * 2);
+            for (ProductSku sku : changedSkus) {
+                changedIds.add(sku.getId());
+            }
+            Map<Integer, List<ProductSku>> regrouped = new HashMap<>();
+            for (Integer productId : affectedProducts) {
+                List<ProductSku> list = new ArrayList<>(skusByProduct.getOrDefault(productId, List.of()));
+                list.removeIf(sku -> changedIds.contains(sku.getId()));
+                regrouped.put(productId, list);
+            }
+            for (ProductSku sku : changedSkus) {
+                ProductSku current = skuMap.get(sku.getId());
+                if (current != null) {
+                    regrouped.get(current.getProductId()).add(current);
+                }
+            }
+
+            // 受影响商品的完整行交给列式存储重新编码：变化的SKU自带规格，未变化的从当前存储读回
+            //（只修改库存等非规格字段时列式存储不变）
+            Map<Integer, List<ProductSku>> changedRows = new HashMap<>(regrouped.size() * 2);
+            for (Map.Entry<Integer, List<ProductSku>> entry : regrouped.entrySet()) {
+                entry.getValue().sort(SKU_ORDER);
+                List<ProductSku> rows = new ArrayList<>(entry.getValue().size());
+                for (ProductSku sku : entry.getValue()) {
+                    rows.add(changedIds.contains(sku.getId()) ? sku : withSpecs(sku, skuAttributes));
+                }
+                changedRows.put(entry.getKey(), rows);
+            }
+            skuAttributeStore = skuAttributes.withProducts(changedRows);
+
+            skusByProductMap = new HashMap<>(skusByProduct);
+            for (Map.Entry<Integer, List<ProductSku>> entry : regrouped.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    skusByProductMap.remove(entry.getKey());
+                } else {
+                    skusByProductMap.put(entry.getKey(), List.copyOf(entry.getValue()));
+                }
+            }
+            for (ProductSku sku : changedSkus) {
+                clearSpecs(sku);
+            }
+        }
+
+        CategoryTree tree = categories != null ? toCategoryTree(categories) : categoryTree;
+        return new CatalogSnapshot(productMap, productsByPriceList, productsByCategoryMap,
+                skuMap, skusByProductMap, tree, skuAttributeStore);
+    }
+
+    /**
+     * 上架商品，不存在或已下架时返回null
+     */
+    public Product getProduct(Integer productId) {
+        return products.get(productId);
+    }
+
+    /**
+     * 按PRODUCT_PRICE_ORDER排序的上架商品
+     * @param categoryIds 分类范围（已包含子分类），为null表示不限分类
+     * @param minPrice 最低价下限，为null表示不限
+     * @param maxPrice 最低价上限，为null表示不限；指定任一价格条件时没有价格的商品不匹配（与SQL中NULL比较的结果一致）
+     * @return 不可修改的列表
+     */
+    public List<Product> getProductsByPrice(Collection<Integer> categoryIds, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (categoryIds == null) {
+            return priceRange(productsByPrice, minPrice, maxPrice);
+        }
+
+        // 各分类按价格切出区间；只有一个分类有商品时直接返回该区间，否则合并后重新排序
+        List<List<Product>> slices = new ArrayList<>();
+        int total = 0;
+        for (Integer categoryId : categoryIds) {
+            List<Product> slice = priceRange(productsByCategory.getOrDefault(categoryId, List.of()), minPrice, maxPrice);
+            if (!slice.isEmpty()) {
+                slices.add(slice);
+                total += slice.size();
+            }
+        }
+        if (slices.size() <= 1) {
+            return slices.isEmpty() ? List.of() : slices.get(0);
+        }
+        List<Product> result = new ArrayList<>(total);
+        slices.forEach(result::addAll);
+        result.sort(PRODUCT_PRICE_ORDER);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 上架SKU（每次返回带规格字段的新对象），不存在或已下架时返回null
+     */
+    public ProductSku getSku(Integer skuId) {
+        ProductSku sku = skus.get(skuId);
+        return sku != null ? withSpecs(sku, skuAttributes) : null;
+    }
+
+    /**
+     * 商品的上架SKU列表（按价格升序，每次返回带规格字段的新对象）
+     */
+    public List<ProductSku> getProductSkus(Integer productId) {
+        List<ProductSku> list = skusByProduct.get(productId);
+        if (list == null) {
+            return List.of();
+        }
+        List<ProductSku> result = new ArrayList<>(list.size());
+        for (ProductSku sku : list) {
+            result.add(withSpecs(sku, skuAttributes));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 启用的分类，不存在或已禁用时返回null
+     */
+    public ProductCategory getCategory(Integer categoryId) {
+        return categoryTree.getCategory(categoryId);
+    }
+
+    /**
+     * 启用分类组成的分类树
+     */
+    public CategoryTree getCategoryTree() {
+        return categoryTree;
+    }
+
+    /**
+     * SKU规格列式存储（同一商品的行按价格升序）
+     */
+    public SkuAttributeStore getSkuAttributes() {
+        return skuAttributes;
+    }
+
+    public Collection<Product> products() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    public Collection<ProductCategory> categories() {
+        return categoryTree.categories();
+    }
+
+    public int productCount() {
+        return products.size();
+    }
+
+    public int skuCount() {
+        return skus.size();
+    }
+
+    private static SkuAttributeStore buildSkuAttributes(Map<Integer, List<ProductSku>> skusByProduct) {
+        List<ProductSku> rows = new ArrayList<>();
+        for (List<ProductSku> list : skusByProduct.values()) {
+            rows.addAll(list);
+        }
+        return SkuAttributeStore.of(rows);
+    }
+
+    /**
+     * 两个按PRODUCT_PRICE_ORDER排序的列表归并，base中ID在removedIds里的商品跳过
+     */
+    private static List<Product> mergeByPrice(List<Product> base, Set<Integer> removedIds, List<Product> additions) {
+        List<Product> merged = new ArrayList<>(base.size() + additions.size());
+        int j = 0;
+        for (Product product : base) {
+            if (removedIds.contains(product.getId())) {
+                continue;
+            }
+            while (j < additions.size() && PRODUCT_PRICE_ORDER.compare(additions.get(j), product) < 0) {
+                merged.add(additions.get(j++));
+            }
+            merged.add(product);
+        }
+        while (j < additions.size()) {
+            merged.add(additions.get(j++));
+        }
+        return List.copyOf(merged);
+    }
+
+    /**
+     * 在按PRODUCT_PRICE_ORDER排序的列表上二分出最低价在[minPrice, maxPrice]内的区间
+     */
+    private static List<Product> priceRange(List<Product> sorted, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return sorted;
+        }
+        // NULL排在最前，有价格条件时从第一个有价格的商品开始
+        int from = minPrice != null
+                ? firstIndex(sorted, p -> p.getMinPrice() != null && p.getMinPrice().compareTo(minPrice) >= 0)
+                : firstIndex(sorted, p -> p.getMinPrice() != null);
+        int to = maxPrice != null
+                ? firstIndex(sorted, p -> p.getMinPrice() != null && p.getMinPrice().compareTo(maxPrice) > 0)
+                : sorted.size();
+        return from < to ? sorted.subList(from, to) : List.of();
+    }
+
+    /**
+     * 第一个满足条件的位置（条件在有序列表上单调：前面不满足、后面都满足），都不满足时返回size
+     */
+    private static int firstIndex(List<Product> sorted, Predicate<Product> condition) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (condition.test(sorted.get(mid))) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static List<ProductSku> sorted(List<ProductSku> list) {
+        list.sort(SKU_ORDER);
+        return List.copyOf(list);
+    }
+
+    private static CategoryTree toCategoryTree(List<ProductCategory> categories) {
+        List<ProductCategory> active = new ArrayList<>(categories.size());
+        for (ProductCategory category : categories) {
+            if (isActive(category.getIsActive())) {
+                active.add(category);
+            }
+        }
+        return CategoryTree.of(active);
+    }
+
+    /**
+     * 复制SKU并从列式存储填回规格字段
+     */
+    private static ProductSku withSpecs(ProductSku sku, SkuAttributeStore store) {
+        ProductSku copy = new ProductSku();
+        copy.setId(sku.getId());
+        copy.setProductId(sku.getProductId());
+        copy.setSkuCode(sku.getSkuCode());
+        copy.setPrice(sku.getPrice());
+        copy.setStock(sku.getStock());
+        copy.setSalesCount(sku.getSalesCount());
+        copy.setIsActive(sku.getIsActive());
+        copy.setCreatedTime(sku.getCreatedTime());
+        copy.setUpdatedTime(sku.getUpdatedTime());
+        store.readSpecs(copy);
+        return copy;
+    }
+
+    /**
+     * 清空SKU的规格字段（取值已编码进列式存储）
+     */
+    private static void clearSpecs(ProductSku sku) {
+        sku.setOs(null);
+        sku.setCpu(null);
+        sku.setRam(null);
+        sku.setStorage(null);
+        sku.setGpu(null);
+        sku.setSsdCapacity(null);
+        sku.setGpuChip(null);
+        sku.setVramCapacity(null);
+    }
+
+    private static boolean isActive(Integer isActive) {
+        return Integer.valueOf(1).equals(isActive);
+    }
+}
@@ -0,0 +1,130 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.model.entity.ProductCategory;
+
+import java.util.*;
+
+/**
+ * 商品分类树（启用的分类）
+ * 1. 按parent_id组织父子关系，同级分类按 sort_order、id 排序
+ * 2. 构建时预先计算每个分类的子树ID集合（自身+全部子孙），按分类筛选商品时直接取用，不需要逐层递归查询
+ * 3. 上级分类不存在或已禁用的分类当作一级分类处理
+ * 分类树构建后不可变，可被多个线程同时读取。
+ */
+public final class CategoryTree {
+
+    // 一级分类的父ID
+    public static final int ROOT_ID = 0;
+
+    private static final Comparator<ProductCategory> CATEGORY_ORDER = Comparator
+            .comparing(ProductCategory::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ProductCategory::getId);
+
+    private final Map<Integer, ProductCategory> categories;
+
+    // 分类ID（一级分类为ROOT_ID） -> 子分类列表（不可变，已排序）
+    private final Map<Integer, List<ProductCategory>> children;
+
+    // 分类ID -> 子树ID列表（不可变，第一个元素是分类自身）
+    private final Map<Integer, List<Integer>> subtreeIds;
+
+    private CategoryTree(Map<Integer, ProductCategory> categories, Map<Integer, List<ProductCategory>> children,
+                         Map<Integer, List<Integer>> subtreeIds) {
+        this.categories = categories;
+        this.children = children;
+        this.subtreeIds = subtreeIds;
+    }
+
+    /**
+     * 构建分类树
+     * @param categories 启用的分类
+     */
+    public static CategoryTree of(Collection<ProductCategory> categories) {
+        // 1. 按ID建立索引
+        Map<Integer, ProductCategory> categoryMap = new HashMap<>(categories.size() * 2);
+        for (ProductCategory category : categories) {
+            categoryMap.put(category.getId(), category);
+        }
+
+        // 2. 按父ID分组（上级分类不在树中时挂到根下）
+        Map<Integer, List<ProductCategory>> grouped = new HashMap<>();
+        for (ProductCategory category : categoryMap.values()) {
+            grouped.computeIfAbsent(parentOf(category, categoryMap), k -> new ArrayList<>()).add(category);
+        }
+        Map<Integer, List<ProductCategory>> children = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((parentId, list) -> {
+            list.sort(CATEGORY_ORDER);
+            children.put(parentId, List.copyOf(list));
+        });
+
+        // 3. 从根开始深度优先遍历，后序汇总每个分类的子树ID
+        Map<Integer, List<Integer>> subtreeIds = new HashMap<>(categoryMap.size() * 2);
+        for (ProductCategory root : children.getOrDefault(ROOT_ID, List.of())) {
+            collectSubtree(root.getId(), children, subtreeIds);
+        }
+        // 父子关系成环的分类从根遍历不到，只包含自身
+        for (Integer id : categoryMap.keySet()) {
+            subtreeIds.putIfAbsent(id, List.of(id));
+        }
+
+        return new CategoryTree(categoryMap, children, subtreeIds);
+    }
+
+    /**
+     * 启用的分类，不存在或已禁用时返回null
+     */
+    public ProductCategory getCategory(Integer categoryId) {
+        return categories.get(categoryId);
+    }
+
+    /**
+     * 直接子分类（按排序序号），传入ROOT_ID返回一级分类
+     */
+    public List<ProductCategory> getChildren(Integer categoryId) {
+        return children.getOrDefault(categoryId, List.of());
+    }
+
+    /**
+     * 分类及其全部子孙分类的ID，分类不在树中时返回空列表
+     */
+    public List<Integer> getSubtreeIds(Integer categoryId) {
+        return subtreeIds.getOrDefault(categoryId, List.of());
+    }
+
+    public Collection<ProductCategory> categories() {
+        return Collections.unmodifiableCollection(categories.values());
+    }
+
+    public boolean contains(Integer categoryId) {
+        return categories.containsKey(categoryId);
+    }
+
+    public int size() {
+        return categories.size();
+    }
+
+    private static List<Integer> collectSubtree(Integer categoryId, Map<Integer, List<ProductCategory>> children,
+                                                Map<Integer, List<Integer>> subtreeIds) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(categoryId);
+        // 先占位，防止数据异常成环时无限递归
+        subtreeIds.put(categoryId, List.of(categoryId));
+        for (ProductCategory child : children.getOrDefault(categoryId, List.of())) {
+            if (!subtreeIds.containsKey(child.getId())) {
+                ids.addAll(collectSubtree(child.getId(), children, subtreeIds));
+            }
+        }
+        List<Integer> result = List.copyOf(ids);
+        subtreeIds.put(categoryId, result);
+        return result;
+    }
+
+    private static int parentOf(ProductCategory category, Map<Integer, ProductCategory> categoryMap) {
+        Integer parentId = category.getParentId();
+        if (parentId == null || parentId == ROOT_ID || parentId.equals(category.getId())
+                || !categoryMap.containsKey(parentId)) {
+            return ROOT_ID;
+        }
+        return parentId;
+    }
+}
@@ -0,0 +1,51 @@
+package com.jingdong.mall.common.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页游标编解码工具
+ * 游标是排序键（如 创建时间 + ID）拼接后的Base64URL字符串，对客户端不透明，客户端只需原样传回
+ */
+public final class CursorUtil {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorUtil() {
+    }
+
+    /**
+     * 把排序键编码为游标
+     * @param parts 排序键，按排序优先级依次传入（不能包含"|"）
+     */
+    public static String encode(Object... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(parts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     * @param cursor 游标
+     * @param expectedParts 排序键个数
+     * @return 排序键字符串数组，游标格式不合法时返回null
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            return parts.length == expectedParts ? parts : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
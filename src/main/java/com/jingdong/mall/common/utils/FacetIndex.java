@@ -0,0 +1,254 @@
+package com.jingdong.mall.common.utils;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * 分面位图索引
+ * 每个文档按ID排序后分配一个序号，每个 维度=值 对应一个位图（long数组，第i位表示第i个文档），
+ * 另外每个文档可以带一个数值（如价格）用于区间筛选和区间计数。
+ * 筛选条件之间求交集、统计各取值的数量都只是位运算，不产生数据库查询。
+ * 索引构建后不可变，可被多个线程同时读取。
+ */
+public final class FacetIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    // 序号 -> 文档ID（升序）
+    private final int[] docIds;
+
+    // 维度 -> 取值 -> 位图
+    private final Map<String, Map<String, long[]>> dimensions;
+
+    // 序号 -> 数值（没有数值时为NaN）
+    private final double[] numbers;
+
+    private final long[] all;
+
+    private FacetIndex(int[] docIds, Map<String, Map<String, long[]>> dimensions, double[] numbers) {
+        this.docIds = docIds;
+        this.dimensions = dimensions;
+        this.numbers = numbers;
+        BitSet allDocs = new BitSet(docIds.length);
+        allDocs.set(0, docIds.length);
+        this.all = toWords(allDocs, docIds.length);
+    }
+
+    public int size() {
+        return docIds.length;
+    }
+
+    /**
+     * 全部文档
+     */
+    public long[] all() {
+        return all;
+    }
+
+    /**
+     * 指定的文档（不在索引中的ID忽略）
+     */
+    public long[] select(Collection<Integer> ids) {
+        BitSet bits = new BitSet(docIds.length);
+        for (Integer id : ids) {
+            int ordinal = Arrays.binarySearch(docIds, id);
+            if (ordinal >= 0) {
+                bits.set(ordinal);
+            }
+        }
+        return toWords(bits, docIds.length);
+    }
+
+    /**
+     * 满足条件的文档
+     */
+    public long[] select(IntPredicate docFilter) {
+        BitSet bits = new BitSet(docIds.length);
+        for (int i = 0; i < docIds.length; i++) {
+            if (docFilter.test(docIds[i])) {
+                bits.set(i);
+            }
+        }
+        return toWords(bits, docIds.length);
+    }
+
+    /**
+     * 维度取值等于value的文档
+     */
+    public long[] match(String dimension, String value) {
+        long[] bits = dimensions.getOrDefault(dimension, Map.of()).get(value);
+        return bits != null ? bits : new long[all.length];
+    }
+
+    /**
+     * 文档是否在位图中（不在索引中的ID返回false）
+     */
+    public boolean contains(long[] bits, int docId) {
+        int ordinal = Arrays.binarySearch(docIds, docId);
+        return ordinal >= 0 && (ordinal >>> 6) < bits.length && (bits[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * 数值在 [min, max] 范围内的文档，边界为null表示不限制；没有数值的文档不匹配
+     */
+    public long[] range(Double min, Double max) {
+        BitSet bits = new BitSet(docIds.length);
+        for (int i = 0; i < numbers.length; i++) {
+            double number = numbers[i];
+            if (Double.isNaN(number)) {
+                continue;
+            }
+            if ((min == null || number >= min) && (max == null || number <= max)) {
+                bits.set(i);
+            }
+        }
+        return toWords(bits, docIds.length);
+    }
+
+    /**
+     * 统计维度各取值在mask中的文档数（数量为0的取值不返回），按取值排序
+     */
+    public Map<String, Integer> counts(String dimension, long[] mask) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        Map<String, long[]> values = dimensions.get(dimension);
+        if (values == null) {
+            return result;
+        }
+        for (Map.Entry<String, long[]> entry : new TreeMap<>(values).entrySet()) {
+            int count = intersectCount(entry.getValue(), mask);
+            if (count > 0) {
+                result.put(entry.getKey(), count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 统计mask中数值落在各区间的文档数
+     * @param boundaries 区间边界（升序），n个边界划分出n+1个区间：(-∞, b0), [b0, b1), ..., [bn-1, +∞)
+     */
+    public int[] rangeCounts(double[] boundaries, long[] mask) {
+        int[] counts = new int[boundaries.length + 1];
+        for (int w = 0; w < mask.length; w++) {
+            long word = mask[w];
+            while (word != 0) {
+                int ordinal = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                double number = numbers[ordinal];
+                if (Double.isNaN(number)) {
+                    continue;
+                }
+                int bucket = 0;
+                while (bucket < boundaries.length && number >= boundaries[bucket]) {
+                    bucket++;
+                }
+                counts[bucket]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 位图求交集（返回新数组）
+     */
+    public static long[] and(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a[i] & b[i];
+        }
+        return result;
+    }
+
+    /**
+     * 位图求并集（返回新数组）
+     */
+    public static long[] or(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            result[i] |= b[i];
+        }
+        return result;
+    }
+
+    /**
+     * 位图中的文档数
+     */
+    public static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static int intersectCount(long[] a, long[] b) {
+        int count = 0;
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    private static long[] toWords(BitSet bits, int size) {
+        long[] words = Arrays.copyOf(bits.toLongArray(), (size + 63) >>> 6);
+        return words.length == 0 ? EMPTY : words;
+    }
+
+    /**
+     * 分面索引构建器
+     */
+    public static final class Builder {
+
+        private final int[] docIds;
+
+        private final Map<String, Map<String, BitSet>> dimensions = new HashMap<>();
+
+        private final double[] numbers;
+
+        /**
+         * @param ids 全部文档ID
+         */
+        public Builder(Collection<Integer> ids) {
+            this.docIds = ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+            this.numbers = new double[docIds.length];
+            Arrays.fill(numbers, Double.NaN);
+        }
+
+        /**
+         * 为文档添加一个维度取值（同一维度可以有多个取值），不在文档列表中的ID或空值忽略
+         */
+        public Builder addValue(int docId, String dimension, String value) {
+            int ordinal = Arrays.binarySearch(docIds, docId);
+            if (ordinal >= 0 && value != null && !value.trim().isEmpty()) {
+                dimensions.computeIfAbsent(dimension, k -> new HashMap<>())
+                        .computeIfAbsent(value, k -> new BitSet(docIds.length))
+                        .set(ordinal);
+            }
+            return this;
+        }
+
+        /**
+         * 设置文档的数值
+         */
+        public Builder setNumber(int docId, double number) {
+            int ordinal = Arrays.binarySearch(docIds, docId);
+            if (ordinal >= 0) {
+                numbers[ordinal] = number;
+            }
+            return this;
+        }
+
+        public FacetIndex build() {
+            Map<String, Map<String, long[]>> built = new HashMap<>();
+            for (Map.Entry<String, Map<String, BitSet>> dimension : dimensions.entrySet()) {
+                Map<String, long[]> values = new HashMap<>();
+                for (Map.Entry<String, BitSet> value : dimension.getValue().entrySet()) {
+                    values.put(value.getKey(), toWords(value.getValue(), docIds.length));
+                }
+                built.put(dimension.getKey(), values);
+            }
+            return new FacetIndex(docIds, built, numbers);
+        }
+    }
+}
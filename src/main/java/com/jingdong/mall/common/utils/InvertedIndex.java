@@ -0,0 +1,306 @@
+package com.jingdong.mall.common.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * 内存倒排索引（BM25排序）
+ * 1. 每个词的倒排表按文档ID升序存储为 (ID差值, 词频) 的变长整数编码字节数组，内存占用约为int数组的1/3
+ * 2. 索引数据整体不可变，更新时只重新编码受影响的词，生成新快照后原子替换；查询无锁，总是读到完整的快照
+ * 3. 查询时要求文档包含全部查询词，按BM25得分降序返回
+ */
+public class InvertedIndex {
+
+    // BM25参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), 0);
+
+    /**
+     * 全量重建索引
+     * @param documents 文档ID -> 分词结果
+     */
+    public synchronized void rebuild(Map<Integer, List<String>> documents) {
+        Map<String, PostingBuilder> builders = new HashMap<>();
+        Map<Integer, DocInfo> docs = new HashMap<>(documents.size() * 2);
+        long totalLength = 0;
+
+        // 按文档ID升序写入，保证倒排表有序
+        for (Integer docId : new TreeSet<>(documents.keySet())) {
+            List<String> tokens = documents.get(docId);
+            if (tokens == null || tokens.isEmpty()) {
+                continue;
+            }
+            Map<String, Integer> termFreqs = countTerms(tokens);
+            for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+                builders.computeIfAbsent(entry.getKey(), k -> new PostingBuilder()).add(docId, entry.getValue());
+            }
+            docs.put(docId, new DocInfo(tokens.size(), termFreqs.keySet().toArray(new String[0])));
+            totalLength += tokens.size();
+        }
+
+        Map<String, Posting> postings = new HashMap<>(builders.size() * 2);
+        for (Map.Entry<String, PostingBuilder> entry : builders.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().build());
+        }
+        snapshot = new Snapshot(postings, docs, totalLength);
+    }
+
+    /**
+     * 增量更新文档
+     * @param documents 文档ID -> 分词结果，分词结果为空表示删除该文档
+     */
+    public synchronized void update(Map<Integer, List<String>> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        Snapshot current = snapshot;
+        Map<Integer, DocInfo> docs = new HashMap<>(current.docs);
+        long totalLength = current.totalLength;
+
+        // 1. 汇总每个受影响的词需要删除和写入的文档
+        Map<String, Set<Integer>> removals = new HashMap<>();
+        Map<String, Map<Integer, Integer>> additions = new HashMap<>();
+        for (Map.Entry<Integer, List<String>> entry : documents.entrySet()) {
+            Integer docId = entry.getKey();
+            DocInfo old = docs.remove(docId);
+            if (old != null) {
+                totalLength -= old.length;
+                for (String term : old.terms) {
+                    removals.computeIfAbsent(term, k -> new HashSet<>()).add(docId);
+                }
+            }
+
+            List<String> tokens = entry.getValue();
+            if (tokens == null || tokens.isEmpty()) {
+                continue;
+            }
+            Map<String, Integer> termFreqs = countTerms(tokens);
+            for (Map.Entry<String, Integer> termFreq : termFreqs.entrySet()) {
+                additions.computeIfAbsent(termFreq.getKey(), k -> new HashMap<>()).put(docId, termFreq.getValue());
+            }
+            docs.put(docId, new DocInfo(tokens.size(), termFreqs.keySet().toArray(new String[0])));
+            totalLength += tokens.size();
+        }
+
+        // 2. 只重新编码受影响的词，其余倒排表直接复用
+        Map<String, Posting> postings = new HashMap<>(current.postings);
+        Set<String> affectedTerms = new HashSet<>(removals.keySet());
+        affectedTerms.addAll(additions.keySet());
+        for (String term : affectedTerms) {
+            TreeMap<Integer, Integer> merged = new TreeMap<>();
+            Posting old = current.postings.get(term);
+            if (old != null) {
+                int[][] decoded = old.decode();
+                Set<Integer> removed = removals.getOrDefault(term, Set.of());
+                for (int i = 0; i < decoded[0].length; i++) {
+                    if (!removed.contains(decoded[0][i])) {
+                        merged.put(decoded[0][i], decoded[1][i]);
+                    }
+                }
+            }
+            merged.putAll(additions.getOrDefault(term, Map.of()));
+
+            if (merged.isEmpty()) {
+                postings.remove(term);
+            } else {
+                PostingBuilder builder = new PostingBuilder();
+                merged.forEach(builder::add);
+                postings.put(term, builder.build());
+            }
+        }
+
+        snapshot = new Snapshot(postings, docs, totalLength);
+    }
+
+    /**
+     * 查询包含全部查询词的文档，按BM25得分降序排列
+     * @param queryTerms 查询分词结果
+     * @param limit 最多返回的文档数
+     * @return 文档ID列表
+     */
+    public List<Integer> search(List<String> queryTerms, int limit) {
+        Snapshot current = snapshot;
+        Set<String> terms = new LinkedHashSet<>(queryTerms);
+        if (terms.isEmpty() || current.docs.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 1. 取出所有查询词的倒排表，任一词不存在则没有结果
+        List<Posting> postings = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Posting posting = current.postings.get(term);
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            postings.add(posting);
+        }
+
+        // 2. 从最短的倒排表开始求交集
+        postings.sort(Comparator.comparingInt(p -> p.docCount));
+        int[][] first = postings.get(0).decode();
+        int[] candidates = first[0];
+        double[] scores = new double[candidates.length];
+        double avgLength = (double) current.totalLength / current.docs.size();
+        int totalDocs = current.docs.size();
+        int candidateCount = candidates.length;
+        addScores(current, postings.get(0), candidates, first[1], candidateCount, scores, avgLength, totalDocs);
+
+        for (int p = 1; p < postings.size() && candidateCount > 0; p++) {
+            Posting posting = postings.get(p);
+            int[][] decoded = posting.decode();
+            int[] freqs = new int[candidateCount];
+            int kept = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                int index = Arrays.binarySearch(decoded[0], candidates[i]);
+                if (index >= 0) {
+                    candidates[kept] = candidates[i];
+                    scores[kept] = scores[i];
+                    freqs[kept] = decoded[1][index];
+                    kept++;
+                }
+            }
+            candidateCount = kept;
+            addScores(current, posting, candidates, freqs, candidateCount, scores, avgLength, totalDocs);
+        }
+
+        // 3. 按得分降序排序，得分相同时新文档（ID大）在前
+        Integer[] order = new Integer[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            order[i] = i;
+        }
+        final int[] docIds = candidates;
+        final double[] finalScores = scores;
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Double.compare(finalScores[b], finalScores[a]);
+            return cmp != 0 ? cmp : Integer.compare(docIds[b], docIds[a]);
+        });
+
+        List<Integer> result = new ArrayList<>(Math.min(limit, candidateCount));
+        for (int i = 0; i < candidateCount && i < limit; i++) {
+            result.add(docIds[order[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 索引中的文档数
+     */
+    public int size() {
+        return snapshot.docs.size();
+    }
+
+    /**
+     * 索引中的词数
+     */
+    public int termCount() {
+        return snapshot.postings.size();
+    }
+
+    private void addScores(Snapshot current, Posting posting, int[] docIds, int[] freqs, int count,
+                           double[] scores, double avgLength, int totalDocs) {
+        double idf = Math.log(1 + (totalDocs - posting.docCount + 0.5) / (posting.docCount + 0.5));
+        for (int i = 0; i < count; i++) {
+            DocInfo doc = current.docs.get(docIds[i]);
+            double tf = freqs[i];
+            double norm = K1 * (1 - B + B * doc.length / avgLength);
+            scores[i] += idf * tf * (K1 + 1) / (tf + norm);
+        }
+    }
+
+    private static Map<String, Integer> countTerms(List<String> tokens) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : tokens) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+        return termFreqs;
+    }
+
+    /**
+     * 索引快照（不可变）
+     */
+    private record Snapshot(Map<String, Posting> postings, Map<Integer, DocInfo> docs, long totalLength) {
+    }
+
+    /**
+     * 文档信息：分词总数和去重后的词（删除文档时用）
+     */
+    private record DocInfo(int length, String[] terms) {
+    }
+
+    /**
+     * 压缩倒排表
+     */
+    private static final class Posting {
+        private final byte[] data;
+        private final int docCount;
+
+        private Posting(byte[] data, int docCount) {
+            this.data = data;
+            this.docCount = docCount;
+        }
+
+        /**
+         * 解码为 [文档ID数组, 词频数组]
+         */
+        private int[][] decode() {
+            int[] docIds = new int[docCount];
+            int[] freqs = new int[docCount];
+            int pos = 0;
+            int docId = 0;
+            for (int i = 0; i < docCount; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                int freq = 0;
+                shift = 0;
+                do {
+                    b = data[pos++];
+                    freq |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                docId += delta;
+                docIds[i] = docId;
+                freqs[i] = freq;
+            }
+            return new int[][]{docIds, freqs};
+        }
+    }
+
+    /**
+     * 倒排表编码器，文档ID必须升序写入
+     */
+    private static final class PostingBuilder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int lastDocId;
+        private int docCount;
+
+        private void add(int docId, int freq) {
+            writeVarInt(docId - lastDocId);
+            writeVarInt(freq);
+            lastDocId = docId;
+            docCount++;
+        }
+
+        private Posting build() {
+            return new Posting(out.toByteArray(), docCount);
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.jingdong.mall.common.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * 进程内本地缓存
+ * 1. 按权重（估算字节数）限制容量，超出时淘汰最久未访问的条目（近似LRU）；
+ *    读取不加锁，只在条目上记录访问时间，写入和淘汰在 this 上同步
+ * 2. 条目写入后超过TTL即失效
+ * 3. 同一个键同时只有一个线程执行加载，其它线程等待结果，避免缓存失效瞬间大量请求打到数据库；
+ *    加载期间该键被修改或删除时丢弃这次加载的结果，只影响这一个键
+ * 4. 统计命中、未命中、淘汰次数，可选按键统计命中率（用于找出热点键）
+ * 缓存的值会被多个请求共享，调用方不能修改取到的对象。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LocalCache<K, V> {
+
+    // 最多按键统计的键数，超过后新出现的键不再统计
+    private static final int MAX_STATS_KEYS = 10000;
+
+    // 淘汰时一次淘汰到容量的这个比例以下，摊薄按访问时间排序的开销
+    private static final double EVICT_TO_RATIO = 0.9;
+
+    private final String name;
+
+    private final long maxWeight;
+
+    private final long ttlMillis;
+
+    private final ToLongFunction<V> weigher;
+
+    // 缓存条目；读取不加锁，写入在 this 上同步，读取时只会删除已失效的条目（按条目做条件删除）
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // 访问时钟：每次写入加2并记为条目的访问时间，读取时把条目的访问时间记为当前时钟+1，
+    // 读取比之前的所有写入都新，同一写入间隔内的读取不再区分先后；只有写入修改时钟，读取不争用
+    private final AtomicLong clock = new AtomicLong();
+
+    // 正在加载的键；加载期间该键被修改或删除时，这次加载被作废并移出，后来的请求重新加载
+    private final Map<K, Load<V>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalWeight = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // 按键统计的命中/未命中次数，为null表示不按键统计
+    private final Map<K, LongAdder[]> keyStats;
+
+    /**
+     * @param name 缓存名称（用于日志）
+     * @param maxWeight 最大总权重
+     * @param ttlMillis 条目有效期（毫秒）
+     * @param weigher 计算单个值的权重
+     */
+    public LocalCache(String name, long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this(name, maxWeight, ttlMillis, weigher, false);
+    }
+
+    /**
+     * @param name 缓存名称（用于日志）
+     * @param maxWeight 最大总权重
+     * @param ttlMillis 条目有效期（毫秒）
+     * @param weigher 计算单个值的权重
+     * @param trackKeyStats 是否按键统计命中率
+     */
+    public LocalCache(String name, long maxWeight, long ttlMillis, ToLongFunction<V> weigher, boolean trackKeyStats) {
+        if (maxWeight <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("缓存容量和有效期必须大于0");
+        }
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.keyStats = trackKeyStats ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * 获取缓存，未命中时调用loader加载并写入缓存
+     * loader抛出的异常会原样抛给所有等待该键的调用方，异常结果不缓存
+     */
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Load<V> load = new Load<>();
+        Load<V> existing = loading.putIfAbsent(key, load);
+        if (existing != null) {
+            // 其它线程正在加载，等待其结果
+            return join(existing.future);
+        }
+
+        try {
+            // 拿到加载权后再检查一次，避免刚好错过其它线程写入的结果
+            V value = lookup(key, false, null);
+            if (value == null) {
+                value = loader.apply(key);
+                if (value != null) {
+                    putIfNotCancelled(key, value, load);
+                }
+            }
+            load.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    /**
+     * 获取缓存，未命中或已过期时返回null
+     */
+    public V getIfPresent(K key) {
+        return lookup(key, true, null);
+    }
+
+    /**
+     * 获取缓存，未命中、已过期或值不满足条件时返回null（不满足条件的值会被删除，并计为未命中）
+     * @param valid 值是否仍然可用（如版本号是否一致）
+     */
+    public V getIfPresent(K key, Predicate<V> valid) {
+        return lookup(key, true, valid);
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(K key, V value) {
+        long weight = Math.max(1, weigher.applyAsLong(value));
+        if (weight > maxWeight) {
+            // 单个值超过缓存容量时不缓存
+            return;
+        }
+        synchronized (this) {
+            putEntry(key, value, weight);
+        }
+    }
+
+    /**
+     * 原子地修改已缓存的值（如计数增减），未命中或已过期时不做任何事，下次读取时重新加载
+     * 同时作废该键正在进行的加载，避免修改前读到的旧值在修改之后写入缓存。修改不延长有效期。
+     * @param remapping 根据旧值计算新值，返回null表示删除
+     */
+    public void computeIfPresent(K key, UnaryOperator<V> remapping) {
+        synchronized (this) {
+            cancelLoad(key);
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return;
+            }
+            if (entry.expireAt <= System.currentTimeMillis()) {
+                removeEntry(key, entry);
+                return;
+            }
+            V value = remapping.apply(entry.value);
+            if (value == null) {
+                removeEntry(key, entry);
+                return;
+            }
+            long weight = Math.max(1, weigher.applyAsLong(value));
+            if (entries.replace(key, entry, new Entry<>(value, weight, entry.expireAt, entry.accessedAt))) {
+                totalWeight.addAndGet(weight - entry.weight);
+            }
+        }
+    }
+
+    /**
+     * 删除指定键，同时作废该键正在进行的加载
+     */
+    public void invalidate(K key) {
+        synchronized (this) {
+            cancelLoad(key);
+            Entry<V> old = entries.remove(key);
+            if (old != null) {
+                totalWeight.addAndGet(-old.weight);
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            for (Load<V> load : loading.values()) {
+                load.cancelled = true;
+            }
+            loading.clear();
+            for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+                removeEntry(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return totalWeight.get();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 缓存统计信息（用于日志）
+     */
+    public String stats() {
+        long hitCount = hitCount();
+        long requestCount = hitCount + missCount();
+        double hitRate = requestCount == 0 ? 0 : (double) hitCount / requestCount;
+        return String.format("cache=%s, size=%d, weight=%d/%d, hits=%d, misses=%d, hitRate=%.2f%%, evictions=%d",
+                name, size(), weight(), maxWeight, hitCount, missCount(), hitRate * 100, evictionCount());
+    }
+
+    /**
+     * 按键的命中统计，按请求次数降序
+     * @param limit 最多返回的键数
+     */
+    public List<KeyStats<K>> topKeyStats(int limit) {
+        List<KeyStats<K>> result = new ArrayList<>();
+        if (keyStats == null) {
+            return result;
+        }
+        for (Map.Entry<K, LongAdder[]> entry : keyStats.entrySet()) {
+            result.add(new KeyStats<>(entry.getKey(), entry.getValue()[0].sum(), entry.getValue()[1].sum()));
+        }
+        result.sort(Comparator.comparingLong((KeyStats<K> stats) -> stats.hits() + stats.misses()).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 加载结果写入缓存，加载期间该键被修改或删除时丢弃（与cancelLoad在this上互斥）
+     */
+    private void putIfNotCancelled(K key, V value, Load<V> load) {
+        long weight = Math.max(1, weigher.applyAsLong(value));
+        if (weight > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            if (!load.cancelled) {
+                putEntry(key, value, weight);
+            }
+        }
+    }
+
+    /**
+     * 作废该键正在进行的加载并移出，之后的请求不再等待它，而是重新加载（调用方持有this锁）
+     */
+    private void cancelLoad(K key) {
+        Load<V> load = loading.remove(key);
+        if (load != null) {
+            load.cancelled = true;
+        }
+    }
+
+    /**
+     * 写入条目，超出容量时淘汰（调用方持有this锁）
+     */
+    private void putEntry(K key, V value, long weight) {
+        Entry<V> entry = new Entry<>(value, weight, System.currentTimeMillis() + ttlMillis, clock.addAndGet(2));
+        Entry<V> old = entries.put(key, entry);
+        if (old != null) {
+            totalWeight.addAndGet(-old.weight);
+        }
+        if (totalWeight.addAndGet(weight) > maxWeight) {
+            evict();
+        }
+    }
+
+    /**
+     * 按访问时间从旧到新淘汰，直到总权重降到容量的 EVICT_TO_RATIO 以下（调用方持有this锁）
+     */
+    private void evict() {
+        // 先记下访问时间再排序，排序期间读取线程仍会更新条目的访问时间
+        List<Candidate<K, V>> candidates = new ArrayList<>(entries.size());
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            candidates.add(new Candidate<>(entry.getKey(), entry.getValue(), entry.getValue().accessedAt));
+        }
+        candidates.sort(Comparator.comparingLong(Candidate::accessedAt));
+
+        long target = (long) (maxWeight * EVICT_TO_RATIO);
+        for (Candidate<K, V> candidate : candidates) {
+            if (totalWeight.get() <= target) {
+                return;
+            }
+            if (removeEntry(candidate.key(), candidate.entry())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * 条目仍是entry时删除并扣减权重，已被替换或删除时不做任何事
+     */
+    private boolean removeEntry(K key, Entry<V> entry) {
+        if (entries.remove(key, entry)) {
+            totalWeight.addAndGet(-entry.weight);
+            return true;
+        }
+        return false;
+    }
+
+    private V lookup(K key, boolean recordStats, Predicate<V> valid) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expireAt > System.currentTimeMillis() && (valid == null || valid.test(entry.value))) {
+                // 同一写入间隔内已记录过访问时间的条目不再写，热点键的读取不反复写同一缓存行
+                long accessedAt = clock.get() + 1;
+                if (entry.accessedAt != accessedAt) {
+                    entry.accessedAt = accessedAt;
+                }
+                if (recordStats) {
+                    hits.increment();
+                    recordKey(key, 0);
+                }
+                return entry.value;
+            }
+            removeEntry(key, entry);
+        }
+        if (recordStats) {
+            misses.increment();
+            recordKey(key, 1);
+        }
+        return null;
+    }
+
+    private void recordKey(K key, int index) {
+        if (keyStats == null) {
+            return;
+        }
+        LongAdder[] counters = keyStats.get(key);
+        if (counters == null) {
+            if (keyStats.size() >= MAX_STATS_KEYS) {
+                return;
+            }
+            counters = keyStats.computeIfAbsent(key, k -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        }
+        counters[index].increment();
+    }
+
+    /**
+     * 单个键的命中统计
+     */
+    public record KeyStats<K>(K key, long hits, long misses) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 一次正在进行的加载
+     */
+    private static final class Load<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        // 加载期间该键被修改或删除（在this上同步读写）
+        private boolean cancelled;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expireAt;
+
+        // 最近访问时间（访问时钟的值）
+        private volatile long accessedAt;
+
+        private Entry(V value, long weight, long expireAt, long accessedAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+            this.accessedAt = accessedAt;
+        }
+    }
+
+    private record Candidate<K, V>(K key, Entry<V> entry, long accessedAt) {
+    }
+}
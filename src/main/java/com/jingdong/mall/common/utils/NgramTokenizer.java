@@ -0,0 +1,104 @@
+package com.jingdong.mall.common.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜索分词工具（中文按字切分为一元和二元词，英文和数字分别按连续字母、连续数字切分为单词）
+ * 例如 "拯救者Y9000P 游戏本" 建索引时切分为：拯 拯救 救 救者 者 y 9 90 900 9000 p 游 游戏 戏 戏本 本
+ * 查询时中文只使用二元词（单个汉字时使用一元词），配合"全部词命中"的检索即可近似实现子串匹配。
+ * 英文和数字建索引时额外切出单词的各个前缀，查询时输入到一半的单词（len、thinkp、406）也能匹配。
+ */
+public final class NgramTokenizer {
+
+    // 建索引时切出前缀的最大长度（按字符数），更长的前缀只能匹配完整单词
+    private static final int MAX_PREFIX_LENGTH = 20;
+
+    private NgramTokenizer() {
+    }
+
+    /**
+     * 建索引用分词
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询用分词
+     */
+    public static List<String> tokenizeForQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean forIndex) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = normalized.codePointAt(i);
+            int start = i;
+            if (isCjk(codePoint)) {
+                // 连续的中文片段
+                List<String> chars = new ArrayList<>();
+                while (i < length && isCjk(normalized.codePointAt(i))) {
+                    int cp = normalized.codePointAt(i);
+                    chars.add(new String(Character.toChars(cp)));
+                    i += Character.charCount(cp);
+                }
+                appendCjkTokens(tokens, chars, forIndex);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                // 连续的字母或连续的数字作为一个单词，字母数字交界处切开（rtx4060 -> rtx 4060）
+                boolean digit = Character.isDigit(codePoint);
+                int chars = 0;
+                while (i < length && isWordPart(normalized, i, digit)) {
+                    i += Character.charCount(normalized.codePointAt(i));
+                    chars++;
+                    if (forIndex && chars <= MAX_PREFIX_LENGTH && i < length && isWordPart(normalized, i, digit)) {
+                        // 单词的前缀（不含完整单词本身）
+                        tokens.add(normalized.substring(start, i));
+                    }
+                }
+                tokens.add(normalized.substring(start, i));
+            } else {
+                // 空格、标点等分隔符
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static void appendCjkTokens(List<String> tokens, List<String> chars, boolean forIndex) {
+        if (chars.size() == 1) {
+            tokens.add(chars.get(0));
+            return;
+        }
+        for (int i = 0; i < chars.size(); i++) {
+            if (forIndex) {
+                tokens.add(chars.get(i));
+            }
+            if (i + 1 < chars.size()) {
+                tokens.add(chars.get(i) + chars.get(i + 1));
+            }
+        }
+    }
+
+    private static boolean isWordPart(String text, int index, boolean digit) {
+        int codePoint = text.codePointAt(index);
+        return !isCjk(codePoint) && Character.isLetterOrDigit(codePoint) && Character.isDigit(codePoint) == digit;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,56 @@
+package com.jingdong.mall.common.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 待付款订单到期时间轮
+ * 订单创建后登记到期时间，支付或取消后移除，由 OrderTimeoutUtil 每秒推进并取消到期订单。
+ * 时间轮：1秒/格，每层60格，共3层（1分钟、1小时、60小时）。
+ */
+@Component
+public class OrderExpiryWheel {
+
+    // 订单支付超时时间（秒）
+    public static final int PAY_TIMEOUT_SECONDS = 1800;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(1000, 60, 3, System.currentTimeMillis());
+
+    /**
+     * 登记订单到期时间
+     * @param orderSn 订单号
+     * @param expireTime 到期时间
+     * @return 已经到期时返回false，调用方需立即处理
+     */
+    public boolean register(String orderSn, LocalDateTime expireTime) {
+        return wheel.add(orderSn, toEpochMilli(expireTime));
+    }
+
+    /**
+     * 移除订单（已支付或已取消）
+     */
+    public void unregister(String orderSn) {
+        wheel.remove(orderSn);
+    }
+
+    /**
+     * 推进到当前时间，返回到期的订单号
+     */
+    public List<String> pollExpired() {
+        return wheel.advance(System.currentTimeMillis());
+    }
+
+    /**
+     * 当前登记的订单数
+     */
+    public int size() {
+        return wheel.size();
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,68 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.mapper.OrderSnLeaseMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单号生成器租约
+ * 1. 启动时读取本机器ID上次持久化的租约截止时间，等待时钟越过后才允许生成订单号
+ *    （重启前生成的订单号时间戳都不超过该时间，重启后即使时钟回拨也不会重复）
+ * 2. 定期把租约延长到当前时间之后 leaseMillis，先写库再放开生成器，生成器不会用到未持久化的时间戳
+ * 续期失败（如数据库不可用）时租约到期后生成订单号会等待，超时后抛出异常
+ */
+@Component
+@Slf4j
+public class OrderSnLease {
+
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+
+    private final OrderSnLeaseMapper orderSnLeaseMapper;
+
+    private final long workerId;
+
+    // 每次续期后租约领先当前时间的毫秒数，也是重启后最多需要等待的时间
+    @Value("${mall.order-sn.lease-ms:3000}")
+    private long leaseMillis;
+
+    public OrderSnLease(SnowflakeIdGenerator snowflakeIdGenerator, OrderSnLeaseMapper orderSnLeaseMapper,
+                        @Value("${mall.order-sn.worker-id:0}") long workerId) {
+        this.snowflakeIdGenerator = snowflakeIdGenerator;
+        this.orderSnLeaseMapper = orderSnLeaseMapper;
+        this.workerId = workerId;
+    }
+
+    /**
+     * 启动时等待时钟越过上次的租约，再取得新租约
+     */
+    @PostConstruct
+    public void init() throws InterruptedException {
+        Long previousLeaseUntil = orderSnLeaseMapper.selectLeaseUntil(workerId);
+        if (previousLeaseUntil != null) {
+            long waitMillis = previousLeaseUntil - System.currentTimeMillis();
+            if (waitMillis > 0) {
+                log.info("等待时钟越过上次的订单号租约: workerId={}, 等待{}毫秒", workerId, waitMillis);
+            }
+            snowflakeIdGenerator.awaitClockPast(previousLeaseUntil);
+        }
+        renew();
+    }
+
+    /**
+     * 续期：先持久化新的截止时间，再允许生成器使用到该时间
+     */
+    @Scheduled(fixedDelayString = "${mall.order-sn.lease-renew-interval-ms:1000}")
+    public void renew() {
+        long leaseUntil = System.currentTimeMillis() + leaseMillis;
+        try {
+            orderSnLeaseMapper.upsertLeaseUntil(workerId, leaseUntil);
+        } catch (Exception e) {
+            log.error("订单号租约续期失败: workerId={}", workerId, e);
+            return;
+        }
+        snowflakeIdGenerator.extendLease(leaseUntil);
+    }
+}
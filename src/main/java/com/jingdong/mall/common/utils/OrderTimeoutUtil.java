@@ -0,0 +1,146 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.mapper.OrderMapper;
+import com.jingdong.mall.mapper.StockReservationMapper;
+import com.jingdong.mall.model.entity.Order;
+import com.jingdong.mall.model.entity.StockReservation;
+import com.jingdong.mall.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Component
+@Slf4j
+public class OrderTimeoutUtil {
+
+    // 每批取消的订单数
+    private static final int BATCH_SIZE = 100;
+
+    // 启动时每次加载的待付款订单数
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    // 取消失败的订单重试间隔（秒）
+    private static final int RETRY_DELAY_SECONDS = 60;
+
+    private final OrderExpiryWheel orderExpiryWheel;
+
+    private final OrderService orderService;
+
+    private final OrderMapper orderMapper;
+
+    private final StockReservationMapper stockReservationMapper;
+
+    // 兜底扫描只处理过期超过该时间的预占，正常情况下它们已由时间轮取消
+    @Value("${mall.order.timeout-sweep-grace-seconds:120}")
+    private int sweepGraceSeconds;
+
+    public OrderTimeoutUtil(OrderExpiryWheel orderExpiryWheel, OrderService orderService, OrderMapper orderMapper,
+                            StockReservationMapper stockReservationMapper) {
+        this.orderExpiryWheel = orderExpiryWheel;
+        this.orderService = orderService;
+        this.orderMapper = orderMapper;
+        this.stockReservationMapper = stockReservationMapper;
+    }
+
+    /**
+     * 启动时按主键分页加载所有待付款订单，重建时间轮
+     * 加载时已经超时的订单直接批量取消
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildExpiryWheel() {
+        List<String> expiredOrderSns = new ArrayList<>();
+        int loaded = 0;
+        long lastId = 0;
+        while (true) {
+            List<Order> orders = orderMapper.selectPendingAfterId(lastId, LOAD_PAGE_SIZE);
+            for (Order order : orders) {
+                LocalDateTime expireTime = order.getCreatedTime().plusSeconds(OrderExpiryWheel.PAY_TIMEOUT_SECONDS);
+                if (!orderExpiryWheel.register(order.getOrderSn(), expireTime)) {
+                    expiredOrderSns.add(order.getOrderSn());
+                }
+                lastId = order.getId();
+            }
+            loaded += orders.size();
+            if (orders.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        log.info("订单超时时间轮重建完成: 待付款订单={}, 已超时={}", loaded, expiredOrderSns.size());
+        cancelInBatches(expiredOrderSns);
+    }
+
+    /**
+     * 每秒推进一次时间轮，取消到期的待付款订单并释放预占库存
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void cancelTimeoutOrders() {
+        List<String> expiredOrderSns = orderExpiryWheel.pollExpired();
+        if (!expiredOrderSns.isEmpty()) {
+            cancelInBatches(expiredOrderSns);
+        }
+    }
+
+    /**
+     * 兜底扫描：低频查询已过期仍为预占中的库存预占，取消对应的订单
+     * 时间轮只保存在创建订单的实例内存中，该实例宕机后不再启动时其登记的到期时间就丢失了，由任意实例的扫描补上；
+     * 多个实例同时扫描时，条件更新保证订单只被取消一次
+     */
+    @Scheduled(fixedDelayString = "${mall.order.timeout-sweep-interval-ms:300000}",
+            initialDelayString = "${mall.order.timeout-sweep-interval-ms:300000}")
+    public void sweepExpiredReservations() {
+        // 1. 按主键分页收集过期预占对应的订单号
+        LocalDateTime expireBefore = LocalDateTime.now().minusSeconds(sweepGraceSeconds);
+        Set<String> orderSns = new LinkedHashSet<>();
+        long lastId = 0;
+        while (true) {
+            List<StockReservation> reservations =
+                    stockReservationMapper.selectExpiredReservedAfterId(expireBefore, lastId, LOAD_PAGE_SIZE);
+            for (StockReservation reservation : reservations) {
+                orderSns.add(reservation.getOrderSn());
+                lastId = reservation.getId();
+            }
+            if (reservations.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+        }
+        if (orderSns.isEmpty()) {
+            return;
+        }
+
+        // 2. 取消订单（只取消仍为待付款的订单）并释放预占
+        log.warn("兜底扫描发现 {} 个订单的库存预占已过期未释放", orderSns.size());
+        cancelInBatches(new ArrayList<>(orderSns));
+    }
+
+    private void cancelInBatches(List<String> orderSns) {
+        int totalCancelled = 0;
+        for (int from = 0; from < orderSns.size(); from += BATCH_SIZE) {
+            List<String> batch = orderSns.subList(from, Math.min(from + BATCH_SIZE, orderSns.size()));
+            try {
+                // 已支付或已取消的订单会被跳过
+                totalCancelled += orderService.cancelTimeoutOrders(batch);
+            } catch (Exception e) {
+                // 取消失败时重新登记，稍后重试
+                log.error("超时订单取消失败，{}秒后重试: {}", RETRY_DELAY_SECONDS, batch, e);
+                LocalDateTime retryTime = LocalDateTime.now().plusSeconds(RETRY_DELAY_SECONDS);
+                for (String orderSn : batch) {
+                    orderExpiryWheel.register(orderSn, retryTime);
+                }
+            }
+        }
+
+        if (totalCancelled > 0) {
+            log.info("超时未支付订单处理完成，共取消 {} 个订单", totalCancelled);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.jingdong.mall.common.utils;
+
+import java.util.*;
+
+/**
+ * 前缀联想索引（搜索框自动补全）
+ * 1. 所有联想键规范化后排序，字符连续存放在一个char数组中，按偏移量定位，避免每个键一个String对象
+ * 2. 以某前缀开头的键在排序后是连续的一段，二分查找即可定位
+ * 3. 在这一段上用线段树（区间最大权重）配合优先队列取权重最高的前k个，耗时只与k和树高有关，与匹配的键数无关
+ * 索引构建后不可变，可被多个线程同时读取；数据变化时重新构建后整体替换。
+ */
+public final class PrefixSuggester {
+
+    private static final PrefixSuggester EMPTY = new Builder().build();
+
+    // 所有键的字符，键i为 keyChars[keyOffsets[i], keyOffsets[i + 1])
+    private final char[] keyChars;
+    private final int[] keyOffsets;
+
+    // 键i对应的展示文本序号和权重
+    private final int[] displayIds;
+    private final long[] weights;
+
+    private final String[] displays;
+
+    // 线段树，节点存放区间内权重最大的键序号
+    private final int[] tree;
+
+    private final int size;
+
+    private PrefixSuggester(char[] keyChars, int[] keyOffsets, int[] displayIds, long[] weights, String[] displays) {
+        this.keyChars = keyChars;
+        this.keyOffsets = keyOffsets;
+        this.displayIds = displayIds;
+        this.weights = weights;
+        this.displays = displays;
+        this.size = weights.length;
+        this.tree = new int[Math.max(1, size * 2)];
+        if (size > 0) {
+            // 自底向上构建：叶子在 [size, 2 * size)
+            for (int i = 0; i < size; i++) {
+                tree[size + i] = i;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                tree[i] = better(tree[i << 1], tree[i << 1 | 1]);
+            }
+        }
+    }
+
+    public static PrefixSuggester empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 联想键数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 估算占用的内存字节数（不含对象头）
+     */
+    public long memoryBytes() {
+        long bytes = (long) keyChars.length * 2 + (long) keyOffsets.length * 4
+                + (long) displayIds.length * 4 + (long) weights.length * 8 + (long) tree.length * 4;
+        for (String display : displays) {
+            bytes += 40 + display.length() * 2L;
+        }
+        return bytes;
+    }
+
+    /**
+     * 查询以prefix开头的联想词，按权重降序返回，展示文本相同的只返回一次
+     * @param prefix 用户输入（会先规范化）
+     * @param limit 最多返回条数
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || size == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // 1. 二分查找以前缀开头的键区间 [from, to)
+        int from = lowerBound(normalized, false);
+        int to = lowerBound(normalized, true);
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+
+        // 2. 每次取出权重最大的区间，输出其最大值后把区间拆成左右两半放回队列
+        PriorityQueue<int[]> queue = new PriorityQueue<>(
+                (a, b) -> Long.compare(weights[b[2]], weights[a[2]]));
+        queue.add(new int[]{from, to - 1, rangeMax(from, to - 1)});
+
+        List<String> result = new ArrayList<>(limit);
+        Set<Integer> seen = new HashSet<>();
+        while (!queue.isEmpty() && result.size() < limit) {
+            int[] range = queue.poll();
+            int best = range[2];
+            if (seen.add(displayIds[best])) {
+                result.add(displays[displayIds[best]]);
+            }
+            if (range[0] < best) {
+                queue.add(new int[]{range[0], best - 1, rangeMax(range[0], best - 1)});
+            }
+            if (best < range[1]) {
+                queue.add(new int[]{best + 1, range[1], rangeMax(best + 1, range[1])});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 规范化：去掉首尾空白、连续空白合并为一个空格、转小写
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 第一个 键 >= prefix（afterPrefix=false）或 第一个 键 > 所有以prefix开头的键（afterPrefix=true）的位置
+     */
+    private int lowerBound(String prefix, boolean afterPrefix) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePrefix(mid, prefix);
+            if (cmp < 0 || (afterPrefix && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 比较键i与前缀：键以prefix开头时返回0
+     */
+    private int comparePrefix(int i, String prefix) {
+        int start = keyOffsets[i];
+        int length = keyOffsets[i + 1] - start;
+        int n = Math.min(length, prefix.length());
+        for (int j = 0; j < n; j++) {
+            int cmp = Character.compare(keyChars[start + j], prefix.charAt(j));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length >= prefix.length() ? 0 : -1;
+    }
+
+    /**
+     * 闭区间 [left, right] 内权重最大的键序号
+     */
+    private int rangeMax(int left, int right) {
+        int best = left;
+        for (int l = left + size, r = right + size + 1; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                best = better(best, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                best = better(best, tree[--r]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 权重大的优先，权重相同时排序靠前（更短）的优先
+     */
+    private int better(int a, int b) {
+        if (weights[a] != weights[b]) {
+            return weights[a] > weights[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    /**
+     * 前缀联想索引构建器
+     */
+    public static final class Builder {
+
+        // 规范化后的键 -> 展示文本 -> 权重
+        private final Map<String, Map<String, Long>> entries = new HashMap<>();
+
+        /**
+         * 添加联想词，同一展示文本重复添加时保留最大权重
+         * @param display 展示文本
+         * @param weight 权重（如销量）
+         */
+        public Builder add(String display, long weight) {
+            String key = normalize(display);
+            if (key.isEmpty()) {
+                return this;
+            }
+            String trimmed = display.trim();
+            entries.computeIfAbsent(key, k -> new HashMap<>(2)).merge(trimmed, weight, Math::max);
+
+            // 从每个词的开头也能联想到整条文本，如输入“pro”可以联想到“小新 Pro 14”
+            for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+                String suffix = key.substring(i + 1);
+                entries.computeIfAbsent(suffix, k -> new HashMap<>(2)).merge(trimmed, weight, Math::max);
+            }
+            return this;
+        }
+
+        public PrefixSuggester build() {
+            List<String> keys = new ArrayList<>(entries.keySet());
+            Collections.sort(keys);
+
+            int count = 0;
+            int totalChars = 0;
+            for (String key : keys) {
+                count += entries.get(key).size();
+                totalChars += key.length() * entries.get(key).size();
+            }
+
+            char[] keyChars = new char[totalChars];
+            int[] keyOffsets = new int[count + 1];
+            int[] displayIds = new int[count];
+            long[] weights = new long[count];
+            Map<String, Integer> displayIndex = new HashMap<>();
+            List<String> displays = new ArrayList<>();
+
+            int n = 0;
+            int offset = 0;
+            for (String key : keys) {
+                for (Map.Entry<String, Long> entry : entries.get(key).entrySet()) {
+                    key.getChars(0, key.length(), keyChars, offset);
+                    keyOffsets[n] = offset;
+                    offset += key.length();
+                    Integer displayId = displayIndex.get(entry.getKey());
+                    if (displayId == null) {
+                        displayId = displays.size();
+                        displayIndex.put(entry.getKey(), displayId);
+                        displays.add(entry.getKey());
+                    }
+                    displayIds[n] = displayId;
+                    weights[n] = entry.getValue();
+                    n++;
+                }
+            }
+            keyOffsets[count] = offset;
+            return new PrefixSuggester(keyChars, keyOffsets, displayIds, weights, displays.toArray(new String[0]));
+        }
+    }
+}
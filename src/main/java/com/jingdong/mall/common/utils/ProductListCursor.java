@@ -0,0 +1,115 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.common.exception.ErrorCode;
+import com.jingdong.mall.model.entity.Product;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 商品列表分页游标（键集分页）
+ * 1. 记录上一页最后一个商品的排序字段值和商品ID，下一页从该位置之后继续查询，不需要用OFFSET跳过前面的行
+ * 2. 各排序方式都以商品ID作为第二排序键，排序字段值相同的商品之间顺序也是确定的
+ * 3. 相关度排序的顺序来自搜索索引（结果数有上限），游标记录的是偏移量
+ * 对外是不透明字符串（由CursorUtil编码 排序方式、排序字段值、商品ID、偏移量），游标只能用于生成它的排序方式。
+ */
+@Getter
+public final class ProductListCursor {
+
+    // 排序方式
+    private final String sort;
+
+    // 上一页最后一个商品的排序字段值：min_price为BigDecimal（可能为null）、total_sales为Integer、created_time为LocalDateTime
+    private final Object value;
+
+    // 上一页最后一个商品的ID
+    private final Integer id;
+
+    // 已返回的商品数（仅相关度排序使用）
+    private final Integer offset;
+
+    private ProductListCursor(String sort, Object value, Integer id, Integer offset) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+        this.offset = offset;
+    }
+
+    /**
+     * 生成指向某个商品之后的游标
+     * @param sort 排序方式
+     * @param last 当前页最后一个商品
+     * @param offset 包括当前页在内已返回的商品数
+     */
+    public static ProductListCursor after(String sort, Product last, int offset) {
+        switch (sort) {
+            case "price_asc":
+            case "price_desc":
+                return new ProductListCursor(sort, last.getMinPrice(), last.getId(), null);
+            case "sales_desc":
+                return new ProductListCursor(sort, last.getTotalSales(), last.getId(), null);
+            case "relevance":
+                return new ProductListCursor(sort, null, null, offset);
+            default: // created_desc
+                return new ProductListCursor(sort, last.getCreatedTime(), last.getId(), null);
+        }
+    }
+
+    /**
+     * 解析游标
+     * @param sort 当前请求的排序方式，必须与生成游标时一致
+     * @throws BusinessException 游标格式不正确或排序方式不一致
+     */
+    public static ProductListCursor decode(String sort, String cursor) {
+        String[] parts = CursorUtil.decode(cursor, 4);
+        if (parts == null || !parts[0].equals(sort)) {
+            throw new BusinessException(ErrorCode.PRODUCT_CURSOR_INVALID);
+        }
+        try {
+            if ("relevance".equals(sort)) {
+                int offset = Integer.parseInt(parts[3]);
+                if (offset < 0) {
+                    throw new BusinessException(ErrorCode.PRODUCT_CURSOR_INVALID);
+                }
+                return new ProductListCursor(sort, null, null, offset);
+            }
+
+            Object value;
+            switch (sort) {
+                case "price_asc":
+                case "price_desc":
+                    value = parts[1].isEmpty() ? null : new BigDecimal(parts[1]);
+                    break;
+                case "sales_desc":
+                    value = Integer.valueOf(parts[1]);
+                    break;
+                default: // created_desc
+                    value = LocalDateTime.parse(parts[1]);
+                    break;
+            }
+            return new ProductListCursor(sort, value, Integer.valueOf(parts[2]), null);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // 数字、日期格式错误
+            throw new BusinessException(ErrorCode.PRODUCT_CURSOR_INVALID);
+        }
+    }
+
+    /**
+     * 编码为对外返回的游标字符串
+     */
+    public String encode() {
+        String valueText;
+        if (value == null) {
+            valueText = "";
+        } else if (value instanceof BigDecimal) {
+            valueText = ((BigDecimal) value).toPlainString();
+        } else {
+            valueText = value.toString();
+        }
+        return CursorUtil.encode(sort, valueText, id != null ? id : "", offset != null ? offset : "");
+    }
+}
@@ -0,0 +1,38 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.mapper.ProductMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class ProductSummaryRebuildUtil {
+
+    private final ProductMapper productMapper;
+
+    public ProductSummaryRebuildUtil(ProductMapper productMapper) {
+        this.productMapper = productMapper;
+    }
+
+    /**
+     * 启动时重建一次，保证直接写库新增的商品也有最低价格和销量
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildSkuSummary();
+    }
+
+    /**
+     * 每天凌晨3点30分根据SKU表全量重建商品最低价格和总销量，校正增量维护的误差
+     * 秒 分 时 日 月 周
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void rebuildSkuSummary() {
+        long start = System.currentTimeMillis();
+        int count = productMapper.rebuildSkuSummary();
+        log.info("商品最低价格/总销量重建完成，更新 {} 个商品，耗时 {} ms", count, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,452 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.model.entity.ProductSku;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * SKU规格列式存储（字典编码）
+ * 1. 每个规格字段的取值只有几十种，每种取值在字典中只存一次，各行只存取值编码（0表示null）
+ * 2. 按列存放在基本类型数组中，编码宽度按字典大小选择 byte/char/int，几十种取值时每个字段每行只占1字节
+ * 3. 行按商品ID分组存放（同一商品内保持传入顺序），按商品查询时二分定位行区间
+ * 规格筛选和规格可选值统计直接在编码上进行，不需要构建ProductSku对象。
+ * 存储构建后不可变，部分商品的SKU变化时通过 withProducts 生成新存储，只对这些商品重新编码。
+ */
+public final class SkuAttributeStore {
+
+    // 存储的规格字段（与ProductSku字段名一致）
+    public static final List<String> ATTRIBUTES = List.of(
+            "os", "cpu", "ram", "storage", "gpu", "ssdCapacity", "gpuChip", "vramCapacity");
+
+    private static final List<Function<ProductSku, String>> GETTERS = List.of(
+            ProductSku::getOs, ProductSku::getCpu, ProductSku::getRam, ProductSku::getStorage,
+            ProductSku::getGpu, ProductSku::getSsdCapacity, ProductSku::getGpuChip, ProductSku::getVramCapacity);
+
+    private static final List<BiConsumer<ProductSku, String>> SETTERS = List.of(
+            ProductSku::setOs, ProductSku::setCpu, ProductSku::setRam, ProductSku::setStorage,
+            ProductSku::setGpu, ProductSku::setSsdCapacity, ProductSku::setGpuChip, ProductSku::setVramCapacity);
+
+    private final int size;
+
+    // 行 -> SKU ID
+    private final int[] skuIds;
+
+    // 商品ID（升序）及其第一行的位置，productStarts比productKeys多一个元素（结束位置）
+    private final int[] productKeys;
+    private final int[] productStarts;
+
+    // 字段序号 -> 编码列、字典（编码-1为下标）、取值 -> 编码
+    private final Column[] columns;
+    private final String[][] dictionaries;
+    private final List<Map<String, Integer>> codes;
+
+    private SkuAttributeStore(int[] skuIds, int[] productKeys, int[] productStarts,
+                              Column[] columns, String[][] dictionaries, List<Map<String, Integer>> codes) {
+        this.size = skuIds.length;
+        this.skuIds = skuIds;
+        this.productKeys = productKeys;
+        this.productStarts = productStarts;
+        this.columns = columns;
+        this.dictionaries = dictionaries;
+        this.codes = codes;
+    }
+
+    /**
+     * 构建列式存储
+     * @param skus SKU列表，同一商品内的行保持传入顺序（如按价格升序传入）
+     */
+    public static SkuAttributeStore of(Collection<ProductSku> skus) {
+        // 1. 按商品ID稳定排序
+        List<ProductSku> rows = new ArrayList<>(skus);
+        rows.sort(Comparator.comparing(ProductSku::getProductId));
+        int size = rows.size();
+
+        int[] skuIds = new int[size];
+        int[] productIds = new int[size];
+        List<Integer> keys = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            ProductSku sku = rows.get(row);
+            skuIds[row] = sku.getId();
+            productIds[row] = sku.getProductId();
+            if (row == 0 || productIds[row] != productIds[row - 1]) {
+                keys.add(productIds[row]);
+                starts.add(row);
+            }
+        }
+        starts.add(size);
+
+        // 2. 每个字段建立字典并编码
+        Column[] columns = new Column[ATTRIBUTES.size()];
+        String[][] dictionaries = new String[ATTRIBUTES.size()][];
+        List<Map<String, Integer>> codes = new ArrayList<>(ATTRIBUTES.size());
+        for (int a = 0; a < ATTRIBUTES.size(); a++) {
+            Function<ProductSku, String> getter = GETTERS.get(a);
+            Map<String, Integer> dictionary = new HashMap<>();
+            int[] encoded = new int[size];
+            for (int row = 0; row < size; row++) {
+                String value = getter.apply(rows.get(row));
+                if (value != null) {
+                    encoded[row] = dictionary.computeIfAbsent(value, v -> dictionary.size() + 1);
+                }
+            }
+            String[] values = new String[dictionary.size()];
+            dictionary.forEach((value, code) -> values[code - 1] = value);
+            columns[a] = Column.of(encoded, dictionary.size());
+            dictionaries[a] = values;
+            codes.add(dictionary);
+        }
+
+        return new SkuAttributeStore(skuIds,
+                keys.stream().mapToInt(Integer::intValue).toArray(),
+                starts.stream().mapToInt(Integer::intValue).toArray(),
+                columns, dictionaries, codes);
+    }
+
+    /**
+     * 替换部分商品的行，返回新存储（当前存储不变）
+     * 1. 这些商品的行（SKU ID、顺序、各规格取值）都没有变化时直接返回当前存储，如只修改了库存
+     * 2. 否则只对这些商品的行编码，其它商品的行直接复制编码；新取值追加到字典末尾，已有编码不变
+     * 不再使用的取值仍留在字典中，直到下次全量构建。
+     * @param changed 商品ID -> 该商品的全部SKU（按行顺序），空列表表示删除该商品的行
+     */
+    public SkuAttributeStore withProducts(Map<Integer, List<ProductSku>> changed) {
+        boolean same = true;
+        for (Map.Entry<Integer, List<ProductSku>> entry : changed.entrySet()) {
+            if (!sameRows(entry.getKey(), entry.getValue())) {
+                same = false;
+                break;
+            }
+        }
+        if (same) {
+            return this;
+        }
+
+        // 1. 合并商品ID：去掉被替换的商品，再加入替换后仍有行的商品
+        SortedSet<Integer> keys = new TreeSet<>();
+        int newSize = 0;
+        for (int p = 0; p < productKeys.length; p++) {
+            if (!changed.containsKey(productKeys[p])) {
+                keys.add(productKeys[p]);
+                newSize += productStarts[p + 1] - productStarts[p];
+            }
+        }
+        for (Map.Entry<Integer, List<ProductSku>> entry : changed.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                keys.add(entry.getKey());
+                newSize += entry.getValue().size();
+            }
+        }
+
+        // 2. 复制字典，新取值追加在后面
+        List<Map<String, Integer>> newCodes = new ArrayList<>(ATTRIBUTES.size());
+        List<List<String>> newValues = new ArrayList<>(ATTRIBUTES.size());
+        for (int a = 0; a < ATTRIBUTES.size(); a++) {
+            newCodes.add(new HashMap<>(codes.get(a)));
+            newValues.add(new ArrayList<>(Arrays.asList(dictionaries[a])));
+        }
+
+        // 3. 按商品ID顺序写入各行
+        int[] newSkuIds = new int[newSize];
+        int[][] encoded = new int[ATTRIBUTES.size()][newSize];
+        int[] newKeys = new int[keys.size()];
+        int[] newStarts = new int[keys.size() + 1];
+        int row = 0;
+        int k = 0;
+        for (Integer productId : keys) {
+            newKeys[k] = productId;
+            newStarts[k++] = row;
+            List<ProductSku> replaced = changed.get(productId);
+            if (replaced == null) {
+                int p = Arrays.binarySearch(productKeys, productId);
+                for (int old = productStarts[p]; old < productStarts[p + 1]; old++, row++) {
+                    newSkuIds[row] = skuIds[old];
+                    for (int a = 0; a < columns.length; a++) {
+                        encoded[a][row] = columns[a].get(old);
+                    }
+                }
+                continue;
+            }
+            for (ProductSku sku : replaced) {
+                newSkuIds[row] = sku.getId();
+                for (int a = 0; a < ATTRIBUTES.size(); a++) {
+                    String value = GETTERS.get(a).apply(sku);
+                    if (value != null) {
+                        List<String> values = newValues.get(a);
+                        encoded[a][row] = newCodes.get(a).computeIfAbsent(value, v -> {
+                            values.add(v);
+                            return values.size();
+                        });
+                    }
+                }
+                row++;
+            }
+        }
+        newStarts[k] = row;
+
+        Column[] newColumns = new Column[ATTRIBUTES.size()];
+        String[][] newDictionaries = new String[ATTRIBUTES.size()][];
+        for (int a = 0; a < ATTRIBUTES.size(); a++) {
+            newColumns[a] = Column.of(encoded[a], newValues.get(a).size());
+            newDictionaries[a] = newValues.get(a).toArray(new String[0]);
+        }
+        return new SkuAttributeStore(newSkuIds, newKeys, newStarts, newColumns, newDictionaries, newCodes);
+    }
+
+    /**
+     * 行数（SKU数）
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 有任一SKU满足全部规格条件的商品ID（升序）
+     * @param filters 规格字段 -> 取值
+     */
+    public int[] productIdsMatching(Map<String, String> filters) {
+        int[] attributes = new int[filters.size()];
+        int[] wanted = new int[filters.size()];
+        int i = 0;
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            attributes[i] = attributeIndex(filter.getKey());
+            Integer code = codes.get(attributes[i]).get(filter.getValue());
+            if (code == null) {
+                // 没有任何SKU有这个取值
+                return new int[0];
+            }
+            wanted[i++] = code;
+        }
+
+        int[] result = new int[productKeys.length];
+        int count = 0;
+        for (int p = 0; p < productKeys.length; p++) {
+            for (int row = productStarts[p]; row < productStarts[p + 1]; row++) {
+                if (matches(row, attributes, wanted)) {
+                    result[count++] = productKeys[p];
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 统计规格字段各取值的商品数：商品有同一个SKU满足全部规格条件且该字段等于此取值时计入（忽略null和空白值）
+     * @param attribute 统计的规格字段
+     * @param filters 规格字段 -> 取值
+     * @param productFilter 参与统计的商品
+     * @return 取值 -> 商品数（数量为0的取值不返回），按取值排序
+     */
+    public Map<String, Integer> productCounts(String attribute, Map<String, String> filters, IntPredicate productFilter) {
+        Map<String, Integer> result = new TreeMap<>();
+        int[] attributes = new int[filters.size()];
+        int[] wanted = new int[filters.size()];
+        int i = 0;
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            attributes[i] = attributeIndex(filter.getKey());
+            Integer code = codes.get(attributes[i]).get(filter.getValue());
+            if (code == null) {
+                return result;
+            }
+            wanted[i++] = code;
+        }
+
+        int a = attributeIndex(attribute);
+        Column column = columns[a];
+        int[] counts = new int[dictionaries[a].length + 1];
+        BitSet seen = new BitSet(counts.length);
+        for (int p = 0; p < productKeys.length; p++) {
+            if (!productFilter.test(productKeys[p])) {
+                continue;
+            }
+            // 同一商品的多个SKU取值相同时只计一次
+            seen.clear();
+            for (int row = productStarts[p]; row < productStarts[p + 1]; row++) {
+                int code = column.get(row);
+                if (code != 0 && !seen.get(code) && matches(row, attributes, wanted)) {
+                    seen.set(code);
+                    counts[code]++;
+                }
+            }
+        }
+        for (int code = 1; code < counts.length; code++) {
+            String value = dictionaries[a][code - 1];
+            if (counts[code] > 0 && !value.trim().isEmpty()) {
+                result.put(value, counts[code]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 商品各规格字段的可选值（按行顺序去重，忽略null和空白值）
+     * @param productId 商品ID
+     * @param attributes 需要统计的规格字段
+     * @return 规格字段 -> 可选值列表，没有可选值的字段不包含在内
+     */
+    public Map<String, List<String>> productSpecs(int productId, Collection<String> attributes) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        int p = Arrays.binarySearch(productKeys, productId);
+        if (p < 0) {
+            return result;
+        }
+        int start = productStarts[p];
+        int end = productStarts[p + 1];
+        for (String attribute : attributes) {
+            int a = attributeIndex(attribute);
+            Column column = columns[a];
+            // 用编码去重，每个取值只比较一次
+            BitSet seen = new BitSet(dictionaries[a].length + 1);
+            List<String> values = new ArrayList<>();
+            for (int row = start; row < end; row++) {
+                int code = column.get(row);
+                if (code != 0 && !seen.get(code)) {
+                    seen.set(code);
+                    String value = dictionaries[a][code - 1];
+                    if (!value.trim().isEmpty()) {
+                        values.add(value);
+                    }
+                }
+            }
+            if (!values.isEmpty()) {
+                result.put(attribute, values);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 把SKU的各规格取值写入target（按target的商品ID和SKU ID定位行）
+     * @return 存储中没有该SKU时返回false，target不变
+     */
+    public boolean readSpecs(ProductSku target) {
+        int p = Arrays.binarySearch(productKeys, target.getProductId());
+        if (p < 0) {
+            return false;
+        }
+        for (int row = productStarts[p]; row < productStarts[p + 1]; row++) {
+            if (skuIds[row] == target.getId()) {
+                for (int a = 0; a < columns.length; a++) {
+                    int code = columns[a].get(row);
+                    SETTERS.get(a).accept(target, code == 0 ? null : dictionaries[a][code - 1]);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 估算占用的内存字节数（数组内容和字典字符串，不含对象头）
+     */
+    public long memoryBytes() {
+        long bytes = (long) size * 4 + (long) productKeys.length * 4 + (long) productStarts.length * 4;
+        for (int a = 0; a < columns.length; a++) {
+            bytes += columns[a].bytes();
+            for (String value : dictionaries[a]) {
+                bytes += 40 + value.length() * 2L;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 商品现有的行与skus是否完全相同（SKU ID、顺序和各规格取值）
+     */
+    private boolean sameRows(int productId, List<ProductSku> skus) {
+        int p = Arrays.binarySearch(productKeys, productId);
+        int start = p >= 0 ? productStarts[p] : 0;
+        int end = p >= 0 ? productStarts[p + 1] : 0;
+        if (end - start != skus.size()) {
+            return false;
+        }
+        for (int row = start; row < end; row++) {
+            ProductSku sku = skus.get(row - start);
+            if (skuIds[row] != sku.getId()) {
+                return false;
+            }
+            for (int a = 0; a < columns.length; a++) {
+                String value = GETTERS.get(a).apply(sku);
+                int code = columns[a].get(row);
+                if (value == null ? code != 0 : code == 0 || !value.equals(dictionaries[a][code - 1])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int row, int[] attributes, int[] wanted) {
+        for (int i = 0; i < attributes.length; i++) {
+            if (columns[attributes[i]].get(row) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int attributeIndex(String attribute) {
+        int index = ATTRIBUTES.indexOf(attribute);
+        if (index < 0) {
+            throw new IllegalArgumentException("不支持的规格字段: " + attribute);
+        }
+        return index;
+    }
+
+    /**
+     * 编码列，按字典大小选择存储宽度
+     */
+    private static final class Column {
+        private final byte[] bytes;
+        private final char[] chars;
+        private final int[] ints;
+
+        private Column(byte[] bytes, char[] chars, int[] ints) {
+            this.bytes = bytes;
+            this.chars = chars;
+            this.ints = ints;
+        }
+
+        private static Column of(int[] encoded, int dictionarySize) {
+            if (dictionarySize <= 0xFF) {
+                byte[] bytes = new byte[encoded.length];
+                for (int i = 0; i < encoded.length; i++) {
+                    bytes[i] = (byte) encoded[i];
+                }
+                return new Column(bytes, null, null);
+            }
+            if (dictionarySize <= 0xFFFF) {
+                char[] chars = new char[encoded.length];
+                for (int i = 0; i < encoded.length; i++) {
+                    chars[i] = (char) encoded[i];
+                }
+                return new Column(null, chars, null);
+            }
+            return new Column(null, null, encoded);
+        }
+
+        private int get(int row) {
+            if (bytes != null) {
+                return bytes[row] & 0xFF;
+            }
+            if (chars != null) {
+                return chars[row];
+            }
+            return ints[row];
+        }
+
+        private long bytes() {
+            if (bytes != null) {
+                return bytes.length;
+            }
+            if (chars != null) {
+                return chars.length * 2L;
+            }
+            return ints.length * 4L;
+        }
+    }
+}
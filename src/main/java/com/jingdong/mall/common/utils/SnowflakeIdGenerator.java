@@ -0,0 +1,140 @@
+package com.jingdong.mall.common.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 雪花算法ID生成器（订单号用）
+ * ID结构（共63位）：41位毫秒时间戳（相对EPOCH） + 10位机器ID + 12位序列号
+ * 每个实例每毫秒最多生成4096个ID，多实例部署时需为每个实例配置不同的 mall.order-sn.worker-id
+ * 使用的时间戳不超过租约截止时间（由 OrderSnLease 持久化并定期续期），重启后等待时钟越过上次的租约再生成，
+ * 期间即使时钟回拨也不会与重启前生成的ID重复
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    // 起始时间 2024-01-01 00:00:00 UTC，41位时间戳可用约69年
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+
+    // 借用的时间戳最多领先系统时钟的毫秒数，超过时等待时钟追上
+    private static final long MAX_AHEAD_MS = 100;
+
+    // 启动时最多等待时钟越过上次租约的毫秒数，差距更大说明时钟有严重回拨，拒绝启动
+    private static final long MAX_STARTUP_WAIT_MS = 60_000;
+
+    // 等待期间每次让出CPU的时间（纳秒）
+    private static final long PARK_NANOS = 100_000;
+
+    private final long workerIdBits;
+
+    // 等待时钟追上或租约续期的最长时间（毫秒），超时抛出异常
+    private final long maxWaitMillis;
+
+    // 可以使用的最大时间戳（相对EPOCH），未启用租约时不限制
+    private volatile long leaseUntil = Long.MAX_VALUE;
+
+    // 上次生成ID的状态：高位为时间戳，低12位为序列号，整体CAS更新，无需加锁
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${mall.order-sn.worker-id:0}") long workerId) {
+        this(workerId, 5_000);
+    }
+
+    SnowflakeIdGenerator(long workerId, long maxWaitMillis) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("机器ID必须在0到" + MAX_WORKER_ID + "之间: " + workerId);
+        }
+        this.workerIdBits = workerId << WORKER_ID_SHIFT;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * 生成下一个ID，单实例内严格递增
+     * 1. 时钟回拨时沿用上次的时间戳继续递增序列号，不会产生重复ID
+     * 2. 同一毫秒内序列号用完时借用下一毫秒，但最多领先时钟 MAX_AHEAD_MS，且不超过租约截止时间，
+     *    超过时等待时钟追上或租约续期，等待超时抛出IllegalStateException
+     */
+    public long nextId() {
+        long waitDeadline = 0;
+        while (true) {
+            long prev = state.get();
+            long lastTimestamp = prev >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((prev & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = prev + 1;
+            } else {
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            long timestamp = next >>> SEQUENCE_BITS;
+            if (timestamp > now + MAX_AHEAD_MS || timestamp > leaseUntil) {
+                if (waitDeadline == 0) {
+                    waitDeadline = System.currentTimeMillis() + maxWaitMillis;
+                } else if (System.currentTimeMillis() > waitDeadline) {
+                    throw new IllegalStateException("订单号生成器等待时钟或租约超时: timestamp=" + (timestamp + EPOCH)
+                            + ", leaseUntil=" + (leaseUntil == Long.MAX_VALUE ? "无" : leaseUntil + EPOCH));
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+                continue;
+            }
+
+            if (state.compareAndSet(prev, next)) {
+                long sequence = next & MAX_SEQUENCE;
+                return (timestamp << TIMESTAMP_SHIFT) | workerIdBits | sequence;
+            }
+        }
+    }
+
+    /**
+     * 延长租约，之后生成的ID时间戳不超过该时间（只增不减）
+     * @param untilMillis 租约截止时间（毫秒时间戳），调用前必须已持久化
+     */
+    public synchronized void extendLease(long untilMillis) {
+        long until = untilMillis - EPOCH;
+        if (leaseUntil == Long.MAX_VALUE || until > leaseUntil) {
+            leaseUntil = until;
+        }
+    }
+
+    /**
+     * 启动时等待系统时钟越过上次的租约截止时间，之后生成的ID时间戳都大于重启前生成的ID
+     * @param previousLeaseUntil 上次持久化的租约截止时间（毫秒时间戳）
+     * @throws IllegalStateException 时钟落后超过 MAX_STARTUP_WAIT_MS（时钟严重回拨），拒绝生成ID
+     */
+    public void awaitClockPast(long previousLeaseUntil) throws InterruptedException {
+        long behind = previousLeaseUntil - System.currentTimeMillis();
+        if (behind > MAX_STARTUP_WAIT_MS) {
+            throw new IllegalStateException("系统时钟落后于上次的订单号租约 " + behind + " 毫秒，请校准时钟后再启动");
+        }
+        while (System.currentTimeMillis() <= previousLeaseUntil) {
+            Thread.sleep(Math.max(1, previousLeaseUntil - System.currentTimeMillis() + 1));
+        }
+        // 状态推进到租约之后，时钟随后回拨时也沿用该时间戳继续递增
+        state.accumulateAndGet((previousLeaseUntil - EPOCH + 1) << SEQUENCE_BITS, Math::max);
+    }
+
+    /**
+     * 生成订单号（十进制字符串，最多19位，可直接存入order_sn字段）
+     */
+    public String nextOrderSn() {
+        return Long.toString(nextId());
+    }
+}
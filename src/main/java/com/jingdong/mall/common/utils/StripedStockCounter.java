@@ -0,0 +1,164 @@
+package com.jingdong.mall.common.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段无锁库存计数器
+ * 库存被拆分到多个分段中，每个分段独立CAS扣减，高并发下请求分散到不同分段，避免所有线程争用同一个值。
+ * 总库存 = 所有分段之和，任何时刻都不会扣成负数。
+ * 需要跨分段凑数的扣减串行执行：并发凑数会互相抽空分段，导致总库存足够时双方都判定库存不足。
+ */
+public final class StripedStockCounter {
+
+    // 每个分段占用的long槽位数，相邻分段间隔128字节，避免伪共享
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+
+    private final int stripes;
+
+    private final int mask;
+
+    // 慢速路径锁，同一时刻只有一个线程跨分段凑数
+    private final Object slowPathLock = new Object();
+
+    /**
+     * @param initialStock 初始库存
+     * @param stripes 分段数，会向上取整为2的幂
+     */
+    public StripedStockCounter(long initialStock, int stripes) {
+        if (initialStock < 0) {
+            throw new IllegalArgumentException("初始库存不能小于0");
+        }
+        int size = 1;
+        while (size < Math.max(1, stripes)) {
+            size <<= 1;
+        }
+        this.stripes = size;
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size * PADDING);
+
+        // 平均分配初始库存，余数放在前面的分段
+        long base = initialStock / size;
+        long remainder = initialStock % size;
+        for (int i = 0; i < size; i++) {
+            cells.set(i * PADDING, base + (i < remainder ? 1 : 0));
+        }
+    }
+
+    /**
+     * 尝试扣减库存（全部扣减成功或不扣减）
+     * @param quantity 扣减数量
+     * @return 库存不足时返回false
+     */
+    public boolean tryAcquire(long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("扣减数量必须大于0");
+        }
+
+        // 1. 快速路径：从随机分段开始，找一个单独就够扣的分段
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (tryTake((start + i) & mask, quantity)) {
+                return true;
+            }
+        }
+
+        // 2. 慢速路径：库存分散在多个分段中，加锁后逐段凑齐
+        return acquireAcrossStripes(start, quantity);
+    }
+
+    /**
+     * 归还库存
+     * @param quantity 归还数量
+     */
+    public void release(long quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        cells.getAndAdd(stripe * PADDING, quantity);
+    }
+
+    /**
+     * 当前剩余库存（并发扣减时为近似值）
+     */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * 跨分段凑齐扣减数量
+     * 快速路径失败的线程都在这里排队，等待前一个凑数的线程归还后再重试，
+     * 不会因为其他线程凑数时临时抽空的分段而误判库存不足
+     */
+    private boolean acquireAcrossStripes(int start, long quantity) {
+        synchronized (slowPathLock) {
+            // 1. 排队期间库存可能已归还到单个分段，先按快速路径重试
+            for (int i = 0; i < stripes; i++) {
+                if (tryTake((start + i) & mask, quantity)) {
+                    return true;
+                }
+            }
+
+            // 2. 逐段凑齐，记录每个分段扣减的数量
+            long[] takenByStripe = new long[stripes];
+            long taken = 0;
+            for (int i = 0; i < stripes && taken < quantity; i++) {
+                int stripe = (start + i) & mask;
+                takenByStripe[stripe] = takeUpTo(stripe, quantity - taken);
+                taken += takenByStripe[stripe];
+            }
+            if (taken == quantity) {
+                return true;
+            }
+
+            // 3. 凑不齐说明总库存不足，按原分段归还，保持库存分布不变
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (takenByStripe[stripe] > 0) {
+                    cells.getAndAdd(stripe * PADDING, takenByStripe[stripe]);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 从指定分段扣减全部数量，分段库存不足时不扣减
+     */
+    private boolean tryTake(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        while (true) {
+            long current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+            if (cells.compareAndSet(index, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 从指定分段尽量多地扣减，最多扣减quantity
+     * @return 实际扣减数量
+     */
+    private long takeUpTo(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        while (true) {
+            long current = cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            long take = Math.min(current, quantity);
+            if (cells.compareAndSet(index, current, current - take)) {
+                return take;
+            }
+        }
+    }
+}
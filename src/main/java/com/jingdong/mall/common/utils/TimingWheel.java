@@ -0,0 +1,163 @@
+package com.jingdong.mall.common.utils;
+
+import java.util.*;
+
+/**
+ * 分层时间轮
+ * 第0层每格代表一个tick，第i层每格代表第i-1层转一圈的时间；到期时间较远的任务放在高层，
+ * 高层的格子到期时把任务降级重新放入低层，最终在第0层到期。
+ * 添加、删除都是O(1)，推进时间只处理到期格子中的任务，不需要扫描全部任务。
+ * 任务只会在到期时间之后被取出（最多延迟一个tick），不会提前。
+ * 所有方法都是同步的，可被多个线程同时调用。
+ *
+ * @param <T> 任务键类型，同一个键同时只能存在一个任务
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+
+    private final int wheelSize;
+
+    // buckets[level][slot]：键 -> 到期时间
+    private final List<List<Map<T, Long>>> buckets;
+
+    // 键 -> 所在格子，用于删除任务
+    private final Map<T, Map<T, Long>> index = new HashMap<>();
+
+    // 当前tick的起始时间（tickMs的整数倍），早于该时间的任务都已取出
+    private long currentTime;
+
+    /**
+     * @param tickMs 每格时长（毫秒）
+     * @param wheelSize 每层格数
+     * @param levels 层数，总跨度为 tickMs * wheelSize^levels，超出跨度的任务会在最高层循环等待
+     * @param startMs 起始时间（毫秒时间戳）
+     */
+    public TimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("时间轮参数错误");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.buckets = new ArrayList<>(levels);
+        for (int i = 0; i < levels; i++) {
+            List<Map<T, Long>> level = new ArrayList<>(wheelSize);
+            for (int j = 0; j < wheelSize; j++) {
+                level.add(new HashMap<>());
+            }
+            buckets.add(level);
+        }
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    /**
+     * 添加任务，已存在的同名任务会被替换
+     * @param key 任务键
+     * @param expireAtMs 到期时间（毫秒时间戳）
+     * @return 任务已经到期时返回false，不会加入时间轮
+     */
+    public synchronized boolean add(T key, long expireAtMs) {
+        remove(key);
+        if (expireAtMs < currentTime) {
+            return false;
+        }
+        place(key, expireAtMs);
+        return true;
+    }
+
+    /**
+     * 删除任务
+     * @return 任务是否存在
+     */
+    public synchronized boolean remove(T key) {
+        Map<T, Long> bucket = index.remove(key);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.remove(key);
+        return true;
+    }
+
+    /**
+     * 推进时间轮到指定时间，取出所有已到期的任务
+     * @param nowMs 当前时间（毫秒时间戳）
+     * @return 到期的任务键
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMs <= nowMs) {
+            // 时间轮为空时直接跳到当前时间，避免长时间空闲后逐格空转
+            if (index.isEmpty()) {
+                currentTime = nowMs - Math.floorMod(nowMs, tickMs);
+                break;
+            }
+
+            // 1. 当前tick结束，取出第0层对应格子中的全部任务
+            Map<T, Long> bucket = buckets.get(0).get(slot(currentTime / tickMs));
+            if (!bucket.isEmpty()) {
+                for (T key : bucket.keySet()) {
+                    index.remove(key);
+                    expired.add(key);
+                }
+                bucket.clear();
+            }
+            currentTime += tickMs;
+
+            // 2. 高层格子开始时，把其中的任务降级放入低层
+            long interval = tickMs;
+            for (int level = 1; level < buckets.size(); level++) {
+                interval *= wheelSize;
+                if (currentTime % interval != 0) {
+                    break;
+                }
+                cascade(buckets.get(level).get(slot(currentTime / interval)));
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 当前任务数
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private void cascade(Map<T, Long> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        Map<T, Long> entries = new HashMap<>(bucket);
+        bucket.clear();
+        for (Map.Entry<T, Long> entry : entries.entrySet()) {
+            place(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void place(T key, long expireAtMs) {
+        long interval = tickMs;
+        for (int level = 0; level < buckets.size(); level++) {
+            long current = currentTime / interval;
+            long target = expireAtMs / interval;
+            if (target < current + wheelSize) {
+                putInto(buckets.get(level).get(slot(Math.max(target, current))), key, expireAtMs);
+                return;
+            }
+            interval *= wheelSize;
+        }
+
+        // 超出时间轮跨度：放在最高层最远的格子，降级时重新计算位置
+        interval /= wheelSize;
+        long farthest = currentTime / interval + wheelSize - 1;
+        putInto(buckets.get(buckets.size() - 1).get(slot(farthest)), key, expireAtMs);
+    }
+
+    private void putInto(Map<T, Long> bucket, T key, long expireAtMs) {
+        bucket.put(key, expireAtMs);
+        index.put(key, bucket);
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % wheelSize);
+    }
+}
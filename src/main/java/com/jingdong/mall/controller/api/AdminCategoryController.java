@@ -26,13 +26,13 @@ public class AdminCategoryController {
 
     @Operation(
             summary = "新增分类",
-            description = "创建新的商品分类，parentId默认0（一级分类），自动启用"
+            description = "创建新的商品分类，parentId默认0（一级分类），指定parentId时创建为该分类的子分类，自动启用。创建成功后立即重建分类树"
     )
     @PostMapping
     public Result<ProductCategoryAddResponse> addCategory(
             @Parameter(description = "新增分类请求参数", required = true)
             @Valid @RequestBody ProductCategoryAddRequest request) {
-        log.info("管理员新增分类：name={}, subTitle={}", request.getName(), request.getSubTitle());
+        log.info("管理员新增分类：name={}, subTitle={}, parentId={}", request.getName(), request.getSubTitle(), request.getParentId());
         ProductCategoryAddResponse response = productCategoryService.addCategory(request);
         return Result.success("分类创建成功", response);
     }
@@ -10,6 +10,7 @@ import com.jingdong.mall.model.dto.request.OrderListRequest;
 import com.jingdong.mall.model.dto.request.OrderUpdateRequest;
 import com.jingdong.mall.model.dto.response.*;
 import com.jingdong.mall.service.OrderService;
+import com.jingdong.mall.service.OrderSubmitService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -17,6 +18,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -30,6 +33,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderSubmitService orderSubmitService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -38,7 +44,7 @@ public class OrderController {
      */
     @Operation(
             summary = "获取订单列表",
-            description = "分页查询用户订单，支持状态筛选和时间范围筛选",
+            description = "分页查询用户订单，支持状态筛选和时间范围筛选；支持游标翻页（传入上一页的nextCursor）",
             security = @SecurityRequirement(name = "bearerAuth")
     )
     @GetMapping("")
@@ -54,15 +60,19 @@ public class OrderController {
             @Parameter(description = "开始日期", required = false, example = "2024-01-01")
             @RequestParam(required = false) LocalDate startDate,
             @Parameter(description = "结束日期", required = false, example = "2024-12-31")
-            @RequestParam(required = false) LocalDate endDate) {
+            @RequestParam(required = false) LocalDate endDate,
+            @Parameter(description = "分页游标（上一页返回的nextCursor），传入时忽略页码", required = false)
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "是否返回总记录数，翻页时可传false提升性能", required = false, example = "true")
+            @RequestParam(required = false, defaultValue = "true") Boolean withTotal) {
 
             // 提取并验证Token
             String token = extractTokenFromHeader(authHeader);
             String userIdStr = jwtUtil.getUserIdFromToken(token);
             Long userId = Long.parseLong(userIdStr);
 
-            log.info("用户 {} 请求获取订单列表，参数: page={}, pageSize={}, status={}, startDate={}, endDate={}",
-                    userId, page, pageSize, status, startDate, endDate);
+            log.info("用户 {} 请求获取订单列表，参数: page={}, pageSize={}, status={}, startDate={}, endDate={}, cursor={}, withTotal={}",
+                    userId, page, pageSize, status, startDate, endDate, cursor, withTotal);
 
             // 构建请求参数
             OrderListRequest request = new OrderListRequest();
@@ -71,6 +81,8 @@ public class OrderController {
             request.setStatus(status);
             request.setStartDate(startDate);
             request.setEndDate(endDate);
+            request.setCursor(cursor);
+            request.setWithTotal(withTotal);
 
             // 参数校验
             if (page < 1) {
@@ -147,6 +159,60 @@ public class OrderController {
             return Result.success("创建成功", response);
     }
 
+    /**
+     * 异步从购物车创建订单（排队受理）
+     */
+    @Operation(
+            summary = "异步批量创建订单",
+            description = "从购物车下单的排队模式：校验通过后分配订单号并返回202，订单由后台批量创建，" +
+                    "客户端用返回的订单号轮询处理状态；排队已满时返回503，请稍后重试",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @PostMapping("/from-cart/async")
+    public ResponseEntity<Result<OrderSubmitResponse>> submitOrderFromCart(
+            @Parameter(description = "JWT认证令牌", required = true, example = "Bearer eyJhbGciOiJIUzUxMiIsInR5cCI6IkpXVCJ9...")
+            @RequestHeader("Authorization") String authHeader,
+            @Valid @RequestBody OrderCreateFromCartRequest request) {
+
+        // 提取并验证Token
+        String token = extractTokenFromHeader(authHeader);
+        String userIdStr = jwtUtil.getUserIdFromToken(token);
+        Long userId = Long.parseLong(userIdStr);
+
+        log.info("用户 {} 请求异步批量创建订单，购物车项数量: {}", userId, request.getCartItemIds().size());
+
+        // 调用Service受理下单请求
+        OrderSubmitResponse response = orderSubmitService.submitOrderFromCart(userId, request);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Result.success("下单请求已受理", response));
+    }
+
+    /**
+     * 查询异步下单的处理状态
+     */
+    @Operation(
+            summary = "查询异步下单状态",
+            description = "根据异步下单返回的订单号查询处理状态：0排队中，1处理中，2创建成功（返回订单信息），3创建失败（返回原因）",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @GetMapping("/submissions/{orderSn}")
+    public Result<OrderSubmitResponse> getSubmitStatus(
+            @Parameter(description = "JWT认证令牌", required = true, example = "Bearer eyJhbGciOiJIUzUxMiIsInR5cCI6IkpXVCJ9...")
+            @RequestHeader("Authorization") String authHeader,
+            @Parameter(description = "异步下单返回的订单号", required = true)
+            @PathVariable String orderSn) {
+
+        // 提取并验证Token
+        String token = extractTokenFromHeader(authHeader);
+        String userIdStr = jwtUtil.getUserIdFromToken(token);
+        Long userId = Long.parseLong(userIdStr);
+
+        // 调用Service查询处理状态
+        OrderSubmitResponse response = orderSubmitService.getSubmitStatus(userId, orderSn);
+
+        return Result.success("获取下单状态成功", response);
+    }
+
     /**
      * 单个商品创建订单（立即购买）
      */
@@ -1,17 +1,33 @@
 package com.jingdong.mall.controller.api;
 
 import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.common.response.EncodedResponse;
 import com.jingdong.mall.common.response.Result;
 import com.jingdong.mall.model.dto.request.ProductListRequest;
 import com.jingdong.mall.model.dto.response.ProductDetailResponse;
 import com.jingdong.mall.model.dto.response.ProductListResponse;
 import com.jingdong.mall.service.ProductService;
+import com.jingdong.mall.service.ProductSuggestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -19,24 +35,57 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "商品管理", description = "商品相关接口")
 public class ProductController {
 
+    // 联想词最多返回条数
+    private static final int MAX_SUGGEST_LIMIT = 20;
+
+    // 商品列表响应的浏览器缓存时间（秒）
+    @Value("${mall.http.product-list-max-age-seconds:10}")
+    private long listMaxAgeSeconds;
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
     @Operation(
             summary = "获取商品详情",
-            description = "获取商品的详细信息，包括基本信息、规格、SKU列表和参数"
+            description = "获取商品的详细信息，包括基本信息、规格、SKU列表和参数。响应带ETag，请求带If-None-Match且详情未变化时返回304（无响应体）"
     )
     @GetMapping("/{id}")
-    public Result<ProductDetailResponse> getProductDetail(
+    @ApiResponse(responseCode = "200", description = "Result<ProductDetailResponse>",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ProductDetailResponse.class)))
+    public ResponseEntity<byte[]> getProductDetail(
             @Parameter(description = "商品主ID", required = true, example = "123161")
-            @PathVariable Integer id) {
+            @PathVariable Integer id,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
 
         try {
             log.info("获取商品详情: id={}", id);
 
-            ProductDetailResponse productDetail = productService.getProductDetail(id);
+            // 1. 客户端已有当前版本时直接返回304，不组装和序列化详情
+            // gzip和未压缩的响应字节不同但内容相同，使用弱ETag，两种编码的缓存都可以用它协商
+            String version = productService.getProductDetailVersion(id);
+            if (version != null && webRequest.checkNotModified(weakETag(version))) {
+                return null;
+            }
 
-            return Result.success("获取商品详情成功", productDetail);
+            // 2. 直接写出序列化好的字节（热点商品命中缓存时不经过DTO和Jackson），ETag以实际返回的版本为准
+            EncodedResponse encoded = productService.getEncodedProductDetail(id);
+            boolean gzip = encoded.getGzip() != null && acceptsGzip(acceptEncoding);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(weakETag(encoded.getVersion()))
+                    // 浏览器可以缓存，但每次使用前都要带ETag向服务器确认
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(encoded.getGzip());
+            }
+            return builder.body(encoded.getJson());
         } catch (BusinessException e) {
             log.warn("获取商品详情业务异常: id={}, message={}", id, e.getMessage());
             throw e;
@@ -48,15 +97,22 @@ public class ProductController {
 
     @Operation(
             summary = "获取商品列表",
-            description = "获取商品列表，支持分页、关键词搜索、分类筛选、价格区间和多种排序方式。注意这里的id是商品id，不是每个sku的id",
+            description = "获取商品列表，支持分页、关键词搜索、分类筛选、价格区间、SKU规格筛选和多种排序方式，并返回各筛选项的商品数（facets）。注意这里的id是商品id，不是每个sku的id",
             parameters = {
                     @Parameter(name = "keyword", description = "关键字", example = "小新"),
-                    @Parameter(name = "categoryId", description = "分类号", example = "2"),
+                    @Parameter(name = "categoryId", description = "分类号，包含该分类的全部子分类", example = "2"),
                     @Parameter(name = "page", description = "页码，默认为1", example = "1"),
                     @Parameter(name = "pageSize", description = "每页数量，默认为10", example = "10"),
-                    @Parameter(name = "sort", description = "排序方式：price_asc(价格升序), price_desc(价格降序), created_desc(最新创建), sales_desc(销量降序)", example = "price_asc"),
+                    @Parameter(name = "sort", description = "排序方式：price_asc(价格升序), price_desc(价格降序), created_desc(最新创建), sales_desc(销量降序), relevance(相关度)；默认有关键词时按相关度，否则按最新创建", example = "price_asc"),
                     @Parameter(name = "minPrice", description = "最低价格。注意这里和数据库保持一致，小数后最多两位，小数前最多十位", example = "1"),
-                    @Parameter(name = "maxPrice", description = "最高价格", example = "1999.99")
+                    @Parameter(name = "maxPrice", description = "最高价格", example = "1999.99"),
+                    @Parameter(name = "os", description = "SKU规格筛选：操作系统（取值见返回的facets）"),
+                    @Parameter(name = "cpu", description = "SKU规格筛选：处理器"),
+                    @Parameter(name = "ram", description = "SKU规格筛选：内存容量"),
+                    @Parameter(name = "storage", description = "SKU规格筛选：存储容量"),
+                    @Parameter(name = "gpu", description = "SKU规格筛选：显卡"),
+                    @Parameter(name = "cursor", description = "分页游标，传入上一页返回的nextCursor继续翻页（忽略page，深翻页不会变慢），游标只能用于同样的排序方式"),
+                    @Parameter(name = "withTotal", description = "是否返回总记录数，默认页码分页返回、游标分页不返回。总数有短时间缓存", example = "false")
             }
     )
     @GetMapping("")
@@ -65,13 +121,21 @@ public class ProductController {
             @RequestParam(required = false) Integer categoryId,
             @RequestParam(required = false, defaultValue = "1") Integer page,
             @RequestParam(required = false, defaultValue = "10") Integer pageSize,
-            @RequestParam(required = false, defaultValue = "created_desc") String sort,
+            @RequestParam(required = false) String sort,
             @RequestParam(required = false) java.math.BigDecimal minPrice,
-            @RequestParam(required = false) java.math.BigDecimal maxPrice) {
+            @RequestParam(required = false) java.math.BigDecimal maxPrice,
+            @RequestParam(required = false) String os,
+            @RequestParam(required = false) String cpu,
+            @RequestParam(required = false) String ram,
+            @RequestParam(required = false) String storage,
+            @RequestParam(required = false) String gpu,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean withTotal,
+            HttpServletResponse response) {
 
         try {
-            log.info("获取商品列表, 参数: keyword={}, categoryId={}, page={}, pageSize={}, sort={}, minPrice={}, maxPrice={}",
-                    keyword, categoryId, page, pageSize, sort, minPrice, maxPrice);
+            log.info("获取商品列表, 参数: keyword={}, categoryId={}, page={}, pageSize={}, sort={}, minPrice={}, maxPrice={}, os={}, cpu={}, ram={}, storage={}, gpu={}, cursor={}",
+                    keyword, categoryId, page, pageSize, sort, minPrice, maxPrice, os, cpu, ram, storage, gpu, cursor);
 
             // 构建请求参数
             ProductListRequest request = new ProductListRequest();
@@ -82,9 +146,20 @@ public class ProductController {
             request.setSort(sort);
             request.setMinPrice(minPrice);
             request.setMaxPrice(maxPrice);
+            request.setOs(os);
+            request.setCpu(cpu);
+            request.setRam(ram);
+            request.setStorage(storage);
+            request.setGpu(gpu);
+            request.setCursor(cursor);
+            request.setWithTotal(withTotal);
 
             ProductListResponse productList = productService.getProductList(request);
 
+            // 列表页允许浏览器和CDN短时间缓存
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.maxAge(listMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue());
+
             return Result.success("获取商品列表成功", productList);
         } catch (BusinessException e) {
             log.warn("获取商品列表业务异常: {}", e.getMessage());
@@ -94,4 +169,65 @@ public class ProductController {
             throw new BusinessException("获取商品列表失败，请稍后重试");
         }
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "搜索框联想",
+            description = "根据输入前缀返回商品名称、型号、标签的联想词，按销量降序。结果来自内存索引，不查询数据库",
+            parameters = {
+                    @Parameter(name = "q", description = "用户输入", example = "联想小新"),
+                    @Parameter(name = "limit", description = "最多返回条数，默认为10，最大20", example = "10")
+            }
+    )
+    @GetMapping("/suggest")
+    public Result<List<String>> suggest(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+
+        // 每次按键都会调用，只记录debug日志
+        log.debug("搜索框联想: q={}, limit={}", q, limit);
+        int size = Math.max(1, Math.min(limit, MAX_SUGGEST_LIMIT));
+        return Result.success("获取联想词成功", productSuggestService.suggest(q, size));
+    }
+
+    /**
+     * 版本号（带引号的强ETag）转为弱ETag
+     */
+    private static String weakETag(String version) {
+        return "W/" + version;
+    }
+
+    /**
+     * Accept-Encoding是否接受gzip：gzip（或x-gzip）的q值大于0；没有单独列出时看通配符*的q值
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0; // 无法解析的q值按不接受处理
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+}
@@ -23,6 +23,13 @@ public interface OrderMapper {
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(Order order);
 
+    /**
+     * 批量插入订单（异步下单的工作线程一批订单一条INSERT），回填自增ID
+     */
+    @InsertProvider(type = OrderSqlProvider.class, method = "batchInsert")
+    @Options(useGeneratedKeys = true, keyProperty = "orders.id")
+    int batchInsert(@Param("orders") List<Order> orders);
+
     /**
      * 根据订单号查询订单
      */
@@ -84,4 +91,31 @@ public interface OrderMapper {
      */
     @UpdateProvider(type = OrderSqlProvider.class, method = "updateOrderStatus")
     int updateOrderStatus(Order order);
-}
\ No newline at end of file
+
+    /**
+     * 根据订单号列表查询待付款订单
+     * @param orderSns 订单号列表
+     * @return 待付款订单列表
+     */
+    @SelectProvider(type = OrderSqlProvider.class, method = "selectPendingByOrderSns")
+    List<Order> selectPendingByOrderSns(@Param("orderSns") List<String> orderSns);
+
+    /**
+     * 取消待付款订单（仅当订单仍为待付款状态时更新）
+     * @param order 订单对象（需包含id、cancelTime、cancelReason）
+     * @return 更新影响的行数，0表示订单已被支付或取消
+     */
+    @Update("UPDATE `order` SET status = 4, cancel_time = #{cancelTime}, cancel_reason = #{cancelReason}, " +
+            "updated_time = NOW() WHERE id = #{id} AND status = 0")
+    int cancelIfPending(Order order);
+
+    /**
+     * 按主键分页查询待付款订单（启动时重建订单超时时间轮用）
+     * @param lastId 上一页最后一条订单ID
+     * @param limit 每页数量
+     * @return 待付款订单（只包含id、order_sn、created_time）
+     */
+    @Select("SELECT id, order_sn, created_time FROM `order` WHERE id > #{lastId} AND status = 0 " +
+            "ORDER BY id LIMIT #{limit}")
+    List<Order> selectPendingAfterId(@Param("lastId") Long lastId, @Param("limit") Integer limit);
+}
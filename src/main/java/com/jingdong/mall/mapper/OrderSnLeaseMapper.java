@@ -0,0 +1,21 @@
+package com.jingdong.mall.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+@Mapper
+public interface OrderSnLeaseMapper {
+
+    /**
+     * 查询机器ID的租约截止时间（毫秒时间戳）
+     * @return 从未登记过时返回null
+     */
+    @Select("SELECT lease_until FROM order_sn_lease WHERE worker_id = #{workerId}")
+    Long selectLeaseUntil(@Param("workerId") long workerId);
+
+    /**
+     * 延长租约，截止时间只增不减
+     */
+    @Insert("INSERT INTO order_sn_lease (worker_id, lease_until) VALUES (#{workerId}, #{leaseUntil}) " +
+            "ON DUPLICATE KEY UPDATE lease_until = GREATEST(lease_until, VALUES(lease_until)), updated_time = NOW()")
+    int upsertLeaseUntil(@Param("workerId") long workerId, @Param("leaseUntil") long leaseUntil);
+}
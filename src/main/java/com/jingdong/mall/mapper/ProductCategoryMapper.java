@@ -3,6 +3,8 @@ package com.jingdong.mall.mapper;
 import com.jingdong.mall.model.entity.ProductCategory;
 import org.apache.ibatis.annotations.*;
 
+import java.util.List;
+
 @Mapper
 public interface ProductCategoryMapper {
 
@@ -10,13 +12,25 @@ public interface ProductCategoryMapper {
      * 新增分类
      */
     @Insert("INSERT INTO product_category (name, sub_title, theme_color, parent_id, level, sort_order, is_active, created_time, updated_time) " +
-            "VALUES (#{name}, #{subTitle}, #{themeColor}, 0, 1, 0, 1, NOW(), NOW())")
+            "VALUES (#{name}, #{subTitle}, #{themeColor}, #{parentId}, #{level}, 0, 1, NOW(), NOW())")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(ProductCategory productCategory);
 
+    /**
+     * 根据ID查询启用的分类
+     */
+    @Select("SELECT * FROM product_category WHERE id = #{id} AND is_active = 1")
+    ProductCategory selectActiveById(@Param("id") Integer id);
+
     /**
      * 检查分类名称是否已存在
      */
     @Select("SELECT COUNT(*) FROM product_category WHERE name = #{name} AND is_active = 1")
     int countByName(@Param("name") String name);
-}
\ No newline at end of file
+
+    /**
+     * 查询全部启用的分类
+     */
+    @Select("SELECT * FROM product_category WHERE is_active = 1 ORDER BY sort_order, id")
+    List<ProductCategory> selectAllActive();
+}
@@ -1,10 +1,14 @@
 package com.jingdong.mall.mapper;
 
+import com.jingdong.mall.common.handler.JsonStringListTypeHandler;
 import com.jingdong.mall.model.dto.request.ProductListRequest;
+import com.jingdong.mall.model.entity.OrderItem;
 import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductSearchDocument;
 import com.jingdong.mall.provider.ProductSqlProvider;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -12,17 +16,32 @@ public interface ProductMapper {
 
     // 原有方法保持不变
     @Select("SELECT * FROM product WHERE id = #{id} AND is_active = 1")
+    @Results(id = "productResult", value = {
+            // JSON数组列显式指定类型转换器，不对所有List属性全局生效
+            @Result(column = "main_images", property = "mainImages", typeHandler = JsonStringListTypeHandler.class),
+            @Result(column = "tags", property = "tags", typeHandler = JsonStringListTypeHandler.class)
+    })
     Product selectById(@Param("id") Integer id);
 
     @Select("SELECT COUNT(*) FROM product WHERE id = #{id} AND is_active = 1")
     int existsById(@Param("id") Integer id);
 
+    /**
+     * 根据商品ID列表批量查询上架商品
+     * @param ids 商品ID列表
+     * @return 商品列表（已下架或不存在的商品不会返回）
+     */
+    @SelectProvider(type = ProductSqlProvider.class, method = "selectByIds")
+    @ResultMap("productResult")
+    List<Product> selectByIds(@Param("ids") List<Integer> ids);
+
     /**
      * 分页查询商品列表
      * @param request 查询条件
      * @return 商品列表
      */
     @SelectProvider(type = ProductSqlProvider.class, method = "selectProductList")
+    @ResultMap("productResult")
     List<Product> selectProductList(@Param("request") ProductListRequest request);
 
     /**
@@ -32,4 +51,52 @@ public interface ProductMapper {
      */
     @SelectProvider(type = ProductSqlProvider.class, method = "countProductList")
     Long countProductList(@Param("request") ProductListRequest request);
-}
\ No newline at end of file
+
+    /**
+     * 重新计算单个商品的最低价格（SKU价格或上下架状态变化后调用）
+     * @param productId 商品ID
+     * @return 更新的行数
+     */
+    @Update("UPDATE product SET min_price = (" +
+            "SELECT MIN(price) FROM product_sku WHERE product_id = #{productId} AND is_active = 1" +
+            ") WHERE id = #{productId}")
+    int refreshMinPrice(@Param("productId") Integer productId);
+
+    /**
+     * 按订单项增加商品总销量（订单完成时调用）
+     * @param items 订单项（skuId、quantity）
+     * @return 更新的商品数
+     */
+    @UpdateProvider(type = ProductSqlProvider.class, method = "increaseTotalSales")
+    int increaseTotalSales(@Param("items") List<OrderItem> items);
+
+    /**
+     * 根据SKU表全量重建所有商品的最低价格和总销量（校正增量维护的误差）
+     * @return 更新的商品数
+     */
+    @Update("UPDATE product p LEFT JOIN (" +
+            "SELECT product_id, MIN(CASE WHEN is_active = 1 THEN price END) AS min_price, " +
+            "COALESCE(SUM(sales_count), 0) AS total_sales FROM product_sku GROUP BY product_id" +
+            ") s ON s.product_id = p.id " +
+            "SET p.min_price = s.min_price, p.total_sales = COALESCE(s.total_sales, 0)")
+    int rebuildSkuSummary();
+
+    /**
+     * 查询建立搜索索引用的商品字段
+     * @param since 只查询该时间之后修改过的商品（商品本身或其任一SKU），为null时查询全部
+     * @param productId 只查询指定商品，为null时不限制
+     * @return 商品搜索文档（包含已下架商品）
+     */
+    @SelectProvider(type = ProductSqlProvider.class, method = "selectSearchDocuments")
+    @Result(column = "tags", property = "tags", typeHandler = JsonStringListTypeHandler.class)
+    List<ProductSearchDocument> selectSearchDocuments(@Param("since") LocalDateTime since,
+                                                      @Param("productId") Integer productId);
+
+    /**
+     * 查询加载商品目录快照用的商品
+     * @param since 为null时查询全部上架商品；否则查询该时间之后修改过的商品（包含已下架的）
+     */
+    @SelectProvider(type = ProductSqlProvider.class, method = "selectCatalogProducts")
+    @ResultMap("productResult")
+    List<Product> selectCatalogProducts(@Param("since") LocalDateTime since);
+}
@@ -1,9 +1,14 @@
 package com.jingdong.mall.mapper;
 
+import com.jingdong.mall.common.handler.JsonStringListTypeHandler;
+import com.jingdong.mall.model.entity.CheckoutSku;
+import com.jingdong.mall.model.entity.OrderItem;
 import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.model.entity.StockReservation;
+import com.jingdong.mall.provider.ProductSkuSqlProvider;
 import org.apache.ibatis.annotations.*;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -12,13 +17,65 @@ public interface ProductSkuMapper {
     @Select("SELECT * FROM product_sku WHERE product_id = #{productId} AND is_active = 1 ORDER BY price")
     List<ProductSku> selectByProductId(@Param("productId") Integer productId);
 
-    @Select("SELECT MIN(price) FROM product_sku WHERE product_id = #{productId} AND is_active = 1")
-    BigDecimal selectMinPrice(@Param("productId") Integer productId);
-
-    @Select("SELECT MAX(price) FROM product_sku WHERE product_id = #{productId} AND is_active = 1")
-    BigDecimal selectMaxPrice(@Param("productId") Integer productId);
-
     // 新增：根据skuId查询单个SKU
     @Select("SELECT * FROM product_sku WHERE id = #{skuId}")
     ProductSku selectBySkuId(Integer skuId);
-}
\ No newline at end of file
+
+    /**
+     * 根据SKU ID列表批量查询SKU
+     * @param skuIds SKU ID列表
+     * @return SKU列表（不存在的SKU不会返回）
+     */
+    @SelectProvider(type = ProductSkuSqlProvider.class, method = "selectBySkuIds")
+    List<ProductSku> selectBySkuIds(@Param("skuIds") List<Integer> skuIds);
+
+    /**
+     * 联表批量查询SKU及其所属商品信息（下单校验用，一次查询完成）
+     * @param skuIds SKU ID列表
+     * @return 下单用SKU视图列表（不存在的SKU不会返回）
+     */
+    @SelectProvider(type = ProductSkuSqlProvider.class, method = "selectCheckoutSkus")
+    @Result(column = "product_main_images", property = "productMainImages",
+            typeHandler = JsonStringListTypeHandler.class)
+    List<CheckoutSku> selectCheckoutSkus(@Param("skuIds") List<Integer> skuIds);
+
+    /**
+     * 批量条件扣减库存（stock >= 扣减数量时才扣减）
+     * @param items 扣减明细（skuId不能重复）
+     * @return 实际扣减成功的SKU数
+     */
+    @UpdateProvider(type = ProductSkuSqlProvider.class, method = "deductStock")
+    int deductStock(@Param("items") List<StockReservation> items);
+
+    /**
+     * 批量归还库存
+     * @param items 归还明细（skuId不能重复）
+     * @return 归还的SKU数
+     */
+    @UpdateProvider(type = ProductSkuSqlProvider.class, method = "restoreStock")
+    int restoreStock(@Param("items") List<StockReservation> items);
+
+    /**
+     * 批量无条件扣减库存（数量为负数时表示归还）
+     * 仅用于热点SKU：库存已在内存中扣减，这里只负责回写数据库
+     * @param items 扣减明细（skuId不能重复）
+     * @return 更新的SKU数
+     */
+    @UpdateProvider(type = ProductSkuSqlProvider.class, method = "decreaseStock")
+    int decreaseStock(@Param("items") List<StockReservation> items);
+
+    /**
+     * 按订单项批量增加SKU销量（订单完成时调用）
+     * @param items 订单项（skuId、quantity，skuId不能重复）
+     * @return 更新的SKU数
+     */
+    @UpdateProvider(type = ProductSkuSqlProvider.class, method = "increaseSalesCount")
+    int increaseSalesCount(@Param("items") List<OrderItem> items);
+
+    /**
+     * 查询加载商品目录快照用的SKU
+     * @param since 为null时查询全部上架SKU；否则查询该时间之后修改过的SKU（包含已下架的）
+     */
+    @SelectProvider(type = ProductSkuSqlProvider.class, method = "selectCatalogSkus")
+    List<ProductSku> selectCatalogSkus(@Param("since") LocalDateTime since);
+}
@@ -5,6 +5,7 @@ import com.jingdong.mall.model.entity.ShoppingCart;
 import com.jingdong.mall.provider.ShoppingCartSqlProvider;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -12,28 +13,48 @@ public interface ShoppingCartMapper {
     /**
      * 根据用户ID查询购物车列表
      */
-    @Select("SELECT id, user_id, sku_id, quantity, selected, created_time, updated_time " +
+    @Select("SELECT id, user_id, sku_id, quantity, selected, added_price, created_time, updated_time " +
             "FROM shopping_cart " +
             "WHERE user_id = #{userId} AND quantity > 0 " +
             "ORDER BY updated_time DESC")
     List<ShoppingCart> selectByUserId(@Param("userId") Long userId);
 
     /**
-     * 新增：插入购物车记录
+     * 统计用户购物车商品总数量（聚合查询，不加载购物车条目）
      */
-    @Insert("INSERT INTO shopping_cart (user_id, sku_id, quantity, selected, created_time, updated_time) " +
-            "VALUES (#{userId}, #{skuId}, #{quantity}, #{selected}, #{createdTime}, #{updatedTime})")
+    @Select("SELECT COALESCE(SUM(quantity), 0) FROM shopping_cart WHERE user_id = #{userId} AND quantity > 0")
+    int sumQuantityByUserId(@Param("userId") Long userId);
+
+    /**
+     * 加入购物车（单条语句完成新增或累加）
+     * 1. 只有SKU上架且库存不少于本次数量时才会插入（SELECT不到行则什么都不做）
+     * 2. 用户已有该SKU时触发uk_user_sku冲突，改为累加数量，累加后不超过当前库存，并重新选中
+     * 3. 记录当前SKU单价作为加入时的价格（再次加入时用户看到的是当前价格，一并更新）
+     * 并发重复提交时由唯一键保证只有一条记录，不会出现插入冲突报错。
+     * 累加时通过LAST_INSERT_ID(id)返回已有条目的ID，新增和累加都会回填shoppingCart.id。
+     * @return 0表示未写入（SKU已下架或库存少于本次数量）；大于0表示已新增或累加。
+     *         新增和累加的影响行数取决于驱动的useAffectedRows配置（默认返回匹配行数，数量已达上限没有变化时也返回1），
+     *         调用方不能据此区分新增和累加
+     */
+    @Insert("INSERT INTO shopping_cart (user_id, sku_id, quantity, selected, added_price, created_time, updated_time) " +
+            "SELECT #{userId}, s.id, #{quantity}, 1, s.price, NOW(), NOW() FROM product_sku s " +
+            "WHERE s.id = #{skuId} AND s.is_active = 1 AND s.stock >= #{quantity} " +
+            "ON DUPLICATE KEY UPDATE " +
+            "quantity = LEAST(shopping_cart.quantity + #{quantity}, (SELECT stock FROM product_sku WHERE id = #{skuId})), " +
+            "selected = 1, " +
+            "added_price = VALUES(added_price), " +
+            "updated_time = NOW(), " +
+            "id = LAST_INSERT_ID(id)")
     @Options(useGeneratedKeys = true, keyProperty = "id")
-    int insert(ShoppingCart shoppingCart);
+    int upsertAdd(ShoppingCart shoppingCart);
 
     /**
-     * 新增：更新购物车数量和更新时间
+     * 按用户ID和SKU ID查询购物车条目（走uk_user_sku唯一索引）
      */
-    @Update("UPDATE shopping_cart SET " +
-            "quantity = #{quantity}, " +
-            "updated_time = #{updatedTime} " +
-            "WHERE id = #{id} AND user_id = #{userId}")
-    int update(ShoppingCart shoppingCart);
+    @Select("SELECT id, user_id, sku_id, quantity, selected, added_price, created_time, updated_time " +
+            "FROM shopping_cart " +
+            "WHERE user_id = #{userId} AND sku_id = #{skuId} AND quantity > 0")
+    ShoppingCart selectByUserIdAndSkuId(@Param("userId") Long userId, @Param("skuId") Integer skuId);
 
     /**
      * 根据购物车ID列表查询购物车项
@@ -48,33 +69,22 @@ public interface ShoppingCartMapper {
     int batchDelete(@Param("cartItemIds") List<Integer> cartItemIds, @Param("userId") Long userId);
 
     /**
-     * 更新购物车条目（数量/选中状态）
-     * 支持动态更新：只更新非空字段
+     * 批量回写购物车条目的数量和选中状态（只回写非空字段）
+     * @param items 购物车条目（id、quantity、selected）
+     * @return 成功更新的数量
      */
-    @UpdateProvider(type = ShoppingCartSqlProvider.class, method = "updateCartItem")
-    int updateCartItem(ShoppingCart shoppingCart);
+    @UpdateProvider(type = ShoppingCartSqlProvider.class, method = "batchUpdateCartItems")
+    int batchUpdateCartItems(@Param("items") List<ShoppingCart> items);
 
     /**
      * 根据购物车ID和用户ID查询单条购物车条目
      * 用于更新前校验归属权和有效性
      */
-    @Select("SELECT id, user_id, sku_id, quantity, selected, created_time, updated_time " +
+    @Select("SELECT id, user_id, sku_id, quantity, selected, added_price, created_time, updated_time " +
             "FROM shopping_cart " +
             "WHERE id = #{cartId} AND user_id = #{userId} AND quantity > 0")
     ShoppingCart selectByIdAndUserId(@Param("cartId") Integer cartId, @Param("userId") Long userId);
 
-    /**
-     * 批量更新购物车选中状态
-     * @param cartItemIds 购物车条目ID列表
-     * @param userId 用户ID
-     * @param selected 目标选中状态
-     * @return 成功更新的数量
-     */
-    @UpdateProvider(type = ShoppingCartSqlProvider.class, method = "batchUpdateSelectedStatus")
-    int batchUpdateSelectedStatus(@Param("cartItemIds") List<Integer> cartItemIds,
-                                  @Param("userId") Long userId,
-                                  @Param("selected") Boolean selected);
-
     /**
      * 按用户ID和SKU ID删除购物车条目
      * @param userId 用户ID（从Token解析）
@@ -84,6 +94,24 @@ public interface ShoppingCartMapper {
     @Delete("DELETE FROM shopping_cart WHERE user_id = #{userId} AND sku_id = #{skuId}")
     int deleteByUserIdAndSkuId(@Param("userId") Long userId, @Param("skuId") Integer skuId);
 
+    /**
+     * 按主键顺序查询指向失效SKU的购物车条目（SKU或所属商品下架超过宽限期）
+     * @param lastId 上一批最后一个条目ID，从该ID之后继续查询
+     * @param before 下架时间早于该时间才算失效
+     * @param limit 每批条数
+     * @return 购物车条目（只有id、user_id）
+     */
+    @SelectProvider(type = ShoppingCartSqlProvider.class, method = "selectDeadSkuItems")
+    List<ShoppingCart> selectDeadSkuItems(@Param("lastId") Long lastId, @Param("before") LocalDateTime before,
+                                          @Param("limit") int limit);
+
+    /**
+     * 批量删除指向失效SKU的购物车条目，删除时重新检查失效条件（查询后SKU又被上架的条目不删除）
+     * @return 成功删除的条目数量
+     */
+    @DeleteProvider(type = ShoppingCartSqlProvider.class, method = "deleteDeadSkuItems")
+    int deleteDeadSkuItems(@Param("ids") List<Long> ids, @Param("before") LocalDateTime before);
+
     /**
      * 清空指定用户的所有购物车条目
      * @param userId 用户ID
@@ -0,0 +1,61 @@
+package com.jingdong.mall.mapper;
+
+import com.jingdong.mall.model.entity.StockReservation;
+import com.jingdong.mall.provider.StockReservationSqlProvider;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface StockReservationMapper {
+
+    /**
+     * 批量插入预占记录（状态为预占中）
+     */
+    @InsertProvider(type = StockReservationSqlProvider.class, method = "batchInsert")
+    int batchInsert(@Param("reservations") List<StockReservation> reservations);
+
+    /**
+     * 查询订单的预占记录
+     */
+    @Select("SELECT * FROM stock_reservation WHERE order_sn = #{orderSn} AND status = #{status}")
+    List<StockReservation> selectByOrderSnAndStatus(@Param("orderSn") String orderSn, @Param("status") Integer status);
+
+    /**
+     * 将订单的预占记录从预占中改为目标状态
+     * 只更新预占中的记录，返回0说明已被确认或释放（用于防止重复释放）
+     */
+    @Update("UPDATE stock_reservation SET status = #{status}, updated_time = NOW() " +
+            "WHERE order_sn = #{orderSn} AND status = 0")
+    int updateReservedStatus(@Param("orderSn") String orderSn, @Param("status") Integer status);
+
+    /**
+     * 统计订单指定状态的预占记录数
+     */
+    @Select("SELECT COUNT(*) FROM stock_reservation WHERE order_sn = #{orderSn} AND status = #{status}")
+    int countByOrderSnAndStatus(@Param("orderSn") String orderSn, @Param("status") Integer status);
+
+    /**
+     * 按主键分页查询已过期仍为预占中的记录（超时取消的兜底扫描用，走 idx_status_expire 索引）
+     */
+    @Select("SELECT id, order_sn FROM stock_reservation " +
+            "WHERE status = 0 AND expire_time < #{expireBefore} AND id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<StockReservation> selectExpiredReservedAfterId(@Param("expireBefore") LocalDateTime expireBefore,
+                                                        @Param("lastId") Long lastId, @Param("limit") int limit);
+
+    /**
+     * 锁定一批需要回写数据库库存的预占记录（热点SKU用）
+     * 待扣减的记录需要扣减数据库库存（已释放的直接结清），已扣减但随后被释放的记录需要归还数据库库存
+     */
+    @Select("SELECT * FROM stock_reservation " +
+            "WHERE stock_synced = 0 OR (stock_synced = 1 AND status = 2) " +
+            "ORDER BY id LIMIT #{limit} FOR UPDATE")
+    List<StockReservation> selectUnsyncedForUpdate(@Param("limit") int limit);
+
+    /**
+     * 批量更新预占记录的库存同步状态
+     */
+    @UpdateProvider(type = StockReservationSqlProvider.class, method = "updateStockSynced")
+    int updateStockSynced(@Param("ids") List<Long> ids, @Param("stockSynced") Integer stockSynced);
+}
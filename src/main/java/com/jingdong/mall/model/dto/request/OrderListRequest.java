@@ -3,6 +3,7 @@ package com.jingdong.mall.model.dto.request;
 import lombok.Data;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * 订单列表查询请求参数
@@ -36,6 +37,40 @@ public class OrderListRequest {
      */
     private LocalDate endDate;
 
+    /**
+     * 分页游标（上一页响应中的nextCursor），传入时按游标翻页，忽略page
+     */
+    private String cursor;
+
+    /**
+     * 是否查询总记录数，默认查询；翻页时可传false省去COUNT查询
+     */
+    private Boolean withTotal = true;
+
+    /**
+     * 游标解码后的创建时间（由Service层设置，不接收客户端参数）
+     */
+    private LocalDateTime cursorCreatedTime;
+
+    /**
+     * 游标解码后的订单ID（由Service层设置，不接收客户端参数）
+     */
+    private Long cursorId;
+
+    /**
+     * 是否为游标翻页模式
+     */
+    public boolean isCursorMode() {
+        return cursorCreatedTime != null && cursorId != null;
+    }
+
+    /**
+     * 结束日期的下一天（created_time < 该日期，使范围条件可以使用索引）
+     */
+    public LocalDate getEndDateExclusive() {
+        return endDate != null ? endDate.plusDays(1) : null;
+    }
+
     /**
      * 获取偏移量（用于分页查询）
      */
@@ -0,0 +1,26 @@
+package com.jingdong.mall.model.dto.request;
+
+import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.model.dto.response.OrderCreateResponse;
+import lombok.Data;
+
+/**
+ * 异步下单排队中的提交（受理时已分配订单号）
+ * 工作线程批量创建订单时回填创建结果或校验失败的原因
+ */
+@Data
+public class OrderSubmission {
+
+    private String orderSn; // 受理时分配的订单号
+    private Long userId;
+    private OrderCreateFromCartRequest request;
+
+    private OrderCreateResponse response; // 创建成功时的结果
+    private BusinessException error; // 校验失败的原因（地址、购物车条目、SKU无效或库存不足）
+
+    public OrderSubmission(String orderSn, Long userId, OrderCreateFromCartRequest request) {
+        this.orderSn = orderSn;
+        this.userId = userId;
+        this.request = request;
+    }
+}
@@ -1,5 +1,6 @@
 package com.jingdong.mall.model.dto.request;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -19,4 +20,7 @@ public class ProductCategoryAddRequest {
 
     @Size(max = 255, message = "主题颜色长度不能超过255字符")
     private String themeColor; // 允许为空
+
+    @Min(value = 0, message = "上级分类ID不合法")
+    private Integer parentId; // 允许为空，为空或0表示一级分类
 }
\ No newline at end of file
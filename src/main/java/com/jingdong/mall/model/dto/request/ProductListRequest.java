@@ -1,7 +1,13 @@
 package com.jingdong.mall.model.dto.request;
 
+import com.jingdong.mall.common.utils.ProductListCursor;
 import lombok.Data;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * 商品列表查询请求参数
  */
@@ -28,10 +34,20 @@ public class ProductListRequest {
      */
     private Integer pageSize = 10;
 
+    /**
+     * 分页游标（上一页响应的nextCursor），传入时忽略page，从游标位置之后继续查询
+     */
+    private String cursor;
+
+    /**
+     * 是否返回总记录数，为null时页码分页返回、游标分页不返回
+     */
+    private Boolean withTotal;
+
     /**
      * 排序方式
      * price_asc: 价格升序, price_desc: 价格降序
-     * created_desc: 最新创建, sales_desc: 销量降序
+     * created_desc: 最新创建, sales_desc: 销量降序, relevance: 相关度（有关键词时默认）
      */
     private String sort = "created_desc";
 
@@ -45,6 +61,78 @@ public class ProductListRequest {
      */
     private java.math.BigDecimal maxPrice;
 
+    /**
+     * SKU规格筛选：操作系统（多个规格条件须由商品的同一个上架SKU同时满足，下同）
+     */
+    private String os;
+
+    /**
+     * SKU规格筛选：处理器
+     */
+    private String cpu;
+
+    /**
+     * SKU规格筛选：内存容量
+     */
+    private String ram;
+
+    /**
+     * SKU规格筛选：存储容量
+     */
+    private String storage;
+
+    /**
+     * SKU规格筛选：显卡
+     */
+    private String gpu;
+
+    /**
+     * 搜索索引匹配到的商品ID（按相关度排序，由Service层设置，为null时使用LIKE查询关键词）
+     */
+    private List<Integer> searchProductIds;
+
+    /**
+     * 分类筛选范围：categoryId及其全部子孙分类的ID（由Service层根据分类树设置，为null时只按categoryId筛选）
+     */
+    private List<Integer> categoryIds;
+
+    /**
+     * 解析后的分页游标（由Service层根据cursor设置）
+     */
+    private ProductListCursor afterCursor;
+
+    /**
+     * 获取SKU规格筛选条件（规格字段 -> 取值，只包含有值的规格）
+     */
+    public Map<String, String> getSpecFilters() {
+        Map<String, String> filters = new LinkedHashMap<>();
+        putSpecFilter(filters, "os", os);
+        putSpecFilter(filters, "cpu", cpu);
+        putSpecFilter(filters, "ram", ram);
+        putSpecFilter(filters, "storage", storage);
+        putSpecFilter(filters, "gpu", gpu);
+        return filters;
+    }
+
+    private void putSpecFilter(Map<String, String> filters, String key, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            filters.put(key, value);
+        }
+    }
+
+    /**
+     * 筛选条件签名（不含排序和分页），筛选条件相同的请求总记录数相同，用作总数缓存的键
+     */
+    public String getFilterSignature() {
+        StringBuilder signature = new StringBuilder();
+        signature.append("k=").append(keyword != null ? keyword.trim().toLowerCase(Locale.ROOT) : "");
+        signature.append("|c=").append(categoryIds != null ? categoryIds : categoryId);
+        signature.append("|min=").append(minPrice != null ? minPrice.stripTrailingZeros().toPlainString() : "");
+        signature.append("|max=").append(maxPrice != null ? maxPrice.stripTrailingZeros().toPlainString() : "");
+        signature.append("|s=").append(getSpecFilters());
+        return signature.toString();
+    }
+
     /**
      * 获取偏移量（用于分页查询）
      */
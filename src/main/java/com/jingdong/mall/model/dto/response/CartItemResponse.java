@@ -24,4 +24,14 @@ public class CartItemResponse {
     private Integer count; // 购买数量
     private Integer stock; // 库存数量
     private Boolean selected; // 是否选中
+    private Integer status; // 条目状态：0正常，1已失效（SKU或商品已下架），2库存不足，3价格变动
+    private BigDecimal addedPrice; // 加入购物车时的单价（价格变动时用于提示涨价/降价，早期加入的条目为null）
+
+    // 条目状态常量（多种情况同时存在时按 已失效 > 库存不足 > 价格变动 取一种）
+    public static class Status {
+        public static final int NORMAL = 0;
+        public static final int UNAVAILABLE = 1;
+        public static final int STOCK_NOT_ENOUGH = 2;
+        public static final int PRICE_CHANGED = 3;
+    }
 }
\ No newline at end of file
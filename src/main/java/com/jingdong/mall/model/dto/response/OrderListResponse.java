@@ -17,7 +17,7 @@ import java.util.List;
 public class OrderListResponse {
 
     /**
-     * 总记录数
+     * 总记录数（请求withTotal=false时为null）
      */
     private Long total;
 
@@ -36,6 +36,11 @@ public class OrderListResponse {
      */
     private List<OrderPreviewDTO> orders;
 
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,26 @@
+package com.jingdong.mall.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 异步下单受理/处理状态响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSubmitResponse {
+    private String orderSn; // 受理时分配的订单号
+    private Integer status; // 状态：0排队中，1处理中，2创建成功，3创建失败
+    private String message; // 创建失败的原因
+    private OrderCreateResponse order; // 创建成功时的订单信息
+
+    // 状态常量
+    public static class Status {
+        public static final int QUEUED = 0;
+        public static final int PROCESSING = 1;
+        public static final int SUCCESS = 2;
+        public static final int FAILED = 3;
+    }
+}
@@ -1,5 +1,6 @@
 package com.jingdong.mall.model.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,6 +23,12 @@ public class ProductDetailResponse {
     private List<ProductSkuResponse> skus;
     private ProductParams params;
 
+    /**
+     * 详情版本号（带引号的ETag值），由构建详情时的商品和SKU数据计算，不输出到响应体
+     */
+    @JsonIgnore
+    private String version;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
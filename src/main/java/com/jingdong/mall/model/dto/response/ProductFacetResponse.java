@@ -0,0 +1,98 @@
+package com.jingdong.mall.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 商品列表分面统计（每个筛选项对应的商品数）
+ * 统计某一维度时应用除该维度以外的全部筛选条件，选中一个取值后其它取值的数量仍然可见
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResponse {
+
+    /**
+     * 分类分面
+     */
+    private List<FacetValue> categories;
+
+    /**
+     * 价格区间分面
+     */
+    private List<PriceRangeFacet> priceRanges;
+
+    /**
+     * SKU规格分面（操作系统、处理器、内存容量、存储容量、显卡）
+     */
+    private List<SpecFacet> specs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        /**
+         * 筛选参数取值
+         */
+        private String value;
+
+        /**
+         * 显示名称
+         */
+        private String label;
+
+        /**
+         * 商品数
+         */
+        private Integer count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRangeFacet {
+        /**
+         * 最低价格参数（为null表示不限）
+         */
+        private BigDecimal minPrice;
+
+        /**
+         * 最高价格参数（为null表示不限）
+         */
+        private BigDecimal maxPrice;
+
+        /**
+         * 显示名称
+         */
+        private String label;
+
+        /**
+         * 商品数
+         */
+        private Integer count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SpecFacet {
+        /**
+         * 筛选参数名（os/cpu/ram/storage/gpu）
+         */
+        private String key;
+
+        /**
+         * 规格显示名称
+         */
+        private String name;
+
+        /**
+         * 规格取值及商品数
+         */
+        private List<FacetValue> values;
+    }
+}
@@ -20,7 +20,7 @@ public class ProductListResponse {
     private List<ProductSimpleResponse> productSimple;
 
     /**
-     * 总记录数
+     * 总记录数（不要求返回时为null；有短时间缓存，可能与实时数量略有差异）
      */
     private Long total;
 
@@ -34,6 +34,16 @@ public class ProductListResponse {
      */
     private String pageSize;
 
+    /**
+     * 下一页游标，没有下一页时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 分面统计（各分类、价格区间、SKU规格取值的商品数）
+     */
+    private ProductFacetResponse facets;
+
     /**
      * 总页数（计算属性，不参与序列化）
      */
@@ -0,0 +1,18 @@
+package com.jingdong.mall.model.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+
+/**
+ * 下单用SKU视图（SKU + 所属商品的快照字段）
+ * 由product_sku与product联表一次查询得到，用于下单时的批量校验
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CheckoutSku extends ProductSku {
+    private String productName; // 商品名称
+    private List<String> productMainImages; // 商品主图
+    private Integer productIsActive; // 商品状态：1上架，0下架（商品不存在时为null）
+}
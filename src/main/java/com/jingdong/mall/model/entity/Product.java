@@ -3,6 +3,7 @@ package com.jingdong.mall.model.entity;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 public class Product {
@@ -11,8 +12,8 @@ public class Product {
     private String name;
     private String description;
     private String detailHtml;
-    private String mainImages; // JSON格式存储
-    private String tags; // JSON格式存储
+    private List<String> mainImages; // 数据库中为JSON数组，由映射中指定的JsonStringListTypeHandler转换
+    private List<String> tags; // 数据库中为JSON数组，由映射中指定的JsonStringListTypeHandler转换
     private String model;
     private String os;
     private String positioning;
@@ -40,10 +41,9 @@ public class Product {
     private String weight;
     private String thickness;
     private String software;
+    private BigDecimal minPrice; // 上架SKU最低价格（冗余字段）
+    private Integer totalSales; // 所有SKU销量之和（冗余字段）
     private Integer isActive;
     private LocalDateTime createdTime;
     private LocalDateTime updatedTime;
-
-    // 商品最低价格（临时字段，不映射数据库）
-    private BigDecimal minPrice;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.jingdong.mall.model.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品搜索文档（建立搜索索引用的商品字段）
+ */
+@Data
+public class ProductSearchDocument {
+    private Integer id;
+    private String name;
+    private List<String> tags;
+    private String model;
+    private String os;
+    private String positioning;
+    private String cpuModel;
+    private String cpuSeries;
+    private String gpuType;
+    private String skuSpecs; // 上架SKU的处理器、显卡、内存、存储规格，空格分隔
+    private Integer totalSales;
+    private Integer isActive;
+    private LocalDateTime updatedTime; // 商品及其SKU的最大更新时间
+}
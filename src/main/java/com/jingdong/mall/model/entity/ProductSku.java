@@ -3,9 +3,26 @@ package com.jingdong.mall.model.entity;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Data
 public class ProductSku {
+
+    // 用户可选的规格字段 -> 规格显示名称（按页面展示顺序）
+    public static final Map<String, String> SPEC_NAMES;
+
+    static {
+        Map<String, String> specNames = new LinkedHashMap<>();
+        specNames.put("os", "操作系统");
+        specNames.put("cpu", "处理器");
+        specNames.put("ram", "内存容量");
+        specNames.put("storage", "存储容量");
+        specNames.put("gpu", "显卡");
+        SPEC_NAMES = Collections.unmodifiableMap(specNames);
+    }
+
     private Integer id;
     private Integer productId;
     private String skuCode;
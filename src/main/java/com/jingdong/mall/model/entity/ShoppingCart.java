@@ -2,6 +2,7 @@
 package com.jingdong.mall.model.entity;
 
 import lombok.Data;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -14,6 +15,7 @@ public class ShoppingCart {
     private Integer skuId; // SKU ID
     private Integer quantity; // 商品数量
     private Boolean selected; // 是否选中（1选中，0未选中）
+    private BigDecimal addedPrice; // 加入（或再次加入）购物车时的SKU单价
     private LocalDateTime createdTime; // 创建时间
     private LocalDateTime updatedTime; // 更新时间
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.jingdong.mall.model.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存预占实体类（对应数据库stock_reservation表）
+ */
+@Data
+public class StockReservation {
+    private Long id;
+    private String orderSn; // 订单编号
+    private Integer skuId; // SKU ID
+    private Integer quantity; // 预占数量
+    private Integer status; // 状态：0预占中，1已确认（已支付），2已释放
+    private Integer stockSynced; // 数据库库存同步状态：0待扣减，1已扣减，2已结清
+    private LocalDateTime expireTime; // 预占过期时间
+    private LocalDateTime createdTime;
+    private LocalDateTime updatedTime;
+
+    // 状态常量
+    public static class Status {
+        public static final int RESERVED = 0;
+        public static final int CONFIRMED = 1;
+        public static final int RELEASED = 2;
+    }
+
+    // 数据库库存同步状态常量
+    // 普通SKU预占时同一事务内扣减数据库库存，直接记为已扣减；热点SKU只扣减内存库存，记为待扣减，
+    // 由定时任务根据预占记录回写数据库（预占记录即回写日志，应用异常退出也不会丢失）
+    public static class StockSynced {
+        public static final int PENDING = 0; // 数据库库存尚未扣减
+        public static final int DEDUCTED = 1; // 数据库库存已扣减
+        public static final int SETTLED = 2; // 已结清：已释放的预占库存已归还数据库（或从未扣减）
+    }
+}
@@ -11,6 +11,33 @@ import java.util.List;
  */
 public class OrderSqlProvider {
 
+    /**
+     * 批量插入订单，字段与单条插入一致
+     */
+    public String batchInsert(List<Order> orders) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("INSERT INTO `order` (order_sn, user_id, total_amount, discount_amount, shipping_fee, pay_amount, " +
+                "receiver_name, receiver_phone, receiver_province, receiver_city, receiver_district, receiver_detail, " +
+                "receiver_postal_code, status, payment_method, buyer_remark, created_time, updated_time) VALUES ");
+
+        String[] fields = {"orderSn", "userId", "totalAmount", "discountAmount", "shippingFee", "payAmount",
+                "receiverName", "receiverPhone", "receiverProvince", "receiverCity", "receiverDistrict",
+                "receiverDetail", "receiverPostalCode", "status", "paymentMethod", "buyerRemark"};
+        for (int i = 0; i < orders.size(); i++) {
+            sql.append("(");
+            for (String field : fields) {
+                sql.append("#{orders[").append(i).append("].").append(field).append("}, ");
+            }
+            sql.append("NOW(), NOW())");
+
+            if (i < orders.size() - 1) {
+                sql.append(", ");
+            }
+        }
+
+        return sql.toString();
+    }
+
     /**
      * 构建订单列表查询SQL
      */
@@ -18,28 +45,24 @@ public class OrderSqlProvider {
         SQL sql = new SQL();
         sql.SELECT("id, order_sn, total_amount, pay_amount, status, created_time, shipping_fee, discount_amount");
         sql.FROM("`order`");
-        sql.WHERE("user_id = #{userId}");
+        appendFilters(sql, request);
 
-        // 订单状态筛选
-        if (request.getStatus() != null) {
-            sql.WHERE("status = #{request.status}");
-        }
-
-        // 时间范围筛选
-        if (request.getStartDate() != null) {
-            sql.WHERE("DATE(created_time) >= #{request.startDate}");
-        }
-        if (request.getEndDate() != null) {
-            sql.WHERE("DATE(created_time) <= #{request.endDate}");
+        // 游标翻页：从上一页最后一条记录之后继续读取，走 (user_id, created_time, id) 索引
+        if (request.isCursorMode()) {
+            sql.WHERE("created_time <= #{request.cursorCreatedTime}");
+            sql.WHERE("(created_time < #{request.cursorCreatedTime} OR id < #{request.cursorId})");
         }
 
-        // 按创建时间倒序排列
-        sql.ORDER_BY("created_time DESC");
+        // 按创建时间倒序排列，创建时间相同时按ID倒序，保证翻页顺序稳定
+        sql.ORDER_BY("created_time DESC", "id DESC");
 
-        // 分页
-        if (request.getPageSize() != null && request.getPage() != null) {
-            int offset = request.getOffset();
-            return sql.toString() + " LIMIT " + request.getPageSize() + " OFFSET " + offset;
+        // 分页：多查一条用于判断是否还有下一页
+        if (request.getPageSize() != null) {
+            int limit = request.getPageSize() + 1;
+            if (request.isCursorMode() || request.getPage() == null) {
+                return sql.toString() + " LIMIT " + limit;
+            }
+            return sql.toString() + " LIMIT " + limit + " OFFSET " + request.getOffset();
         }
 
         return sql.toString();
@@ -52,6 +75,15 @@ public class OrderSqlProvider {
         SQL sql = new SQL();
         sql.SELECT("COUNT(*)");
         sql.FROM("`order`");
+        appendFilters(sql, request);
+        return sql.toString();
+    }
+
+    /**
+     * 订单列表公共筛选条件
+     * 时间范围直接比较created_time，不对列使用函数，保证可以使用索引
+     */
+    private void appendFilters(SQL sql, OrderListRequest request) {
         sql.WHERE("user_id = #{userId}");
 
         // 订单状态筛选
@@ -61,13 +93,11 @@ public class OrderSqlProvider {
 
         // 时间范围筛选
         if (request.getStartDate() != null) {
-            sql.WHERE("DATE(created_time) >= #{request.startDate}");
+            sql.WHERE("created_time >= #{request.startDate}");
         }
         if (request.getEndDate() != null) {
-            sql.WHERE("DATE(created_time) <= #{request.endDate}");
+            sql.WHERE("created_time < #{request.endDateExclusive}");
         }
-
-        return sql.toString();
     }
 
     /**
@@ -196,4 +226,31 @@ public class OrderSqlProvider {
 
         return sql.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * 根据订单号列表查询待付款订单
+     */
+    public String selectPendingByOrderSns(List<String> orderSns) {
+        SQL sql = new SQL();
+        sql.SELECT("*");
+        sql.FROM("`order`");
+        sql.WHERE("status = 0");
+
+        // 构建IN条件
+        if (orderSns != null && !orderSns.isEmpty()) {
+            StringBuilder sns = new StringBuilder();
+            for (int i = 0; i < orderSns.size(); i++) {
+                sns.append("#{orderSns[").append(i).append("]}");
+                if (i < orderSns.size() - 1) {
+                    sns.append(", ");
+                }
+            }
+            sql.WHERE("order_sn IN (" + sns + ")");
+        } else {
+            // 空列表时不返回任何数据
+            sql.WHERE("1 = 0");
+        }
+
+        return sql.toString();
+    }
+}
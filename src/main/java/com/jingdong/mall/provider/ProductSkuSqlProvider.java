@@ -0,0 +1,146 @@
+package com.jingdong.mall.provider;
+
+import com.jingdong.mall.model.entity.OrderItem;
+import com.jingdong.mall.model.entity.StockReservation;
+import org.apache.ibatis.jdbc.SQL;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品SKU动态SQL提供者
+ */
+public class ProductSkuSqlProvider {
+
+    /**
+     * 根据SKU ID列表批量查询SKU
+     */
+    public String selectBySkuIds(List<Integer> skuIds) {
+        SQL sql = new SQL();
+        sql.SELECT("*");
+        sql.FROM("product_sku");
+
+        // 构建IN条件
+        if (skuIds != null && !skuIds.isEmpty()) {
+            StringBuilder ids = new StringBuilder();
+            for (int i = 0; i < skuIds.size(); i++) {
+                ids.append("#{skuIds[").append(i).append("]}");
+                if (i < skuIds.size() - 1) {
+                    ids.append(", ");
+                }
+            }
+            sql.WHERE("id IN (" + ids + ")");
+        } else {
+            // 空列表时不返回任何数据
+            sql.WHERE("1 = 0");
+        }
+
+        return sql.toString();
+    }
+
+    /**
+     * 根据SKU ID列表联表查询SKU及其所属商品（下单校验用）
+     */
+    public String selectCheckoutSkus(List<Integer> skuIds) {
+        SQL sql = new SQL();
+        sql.SELECT("s.*");
+        sql.SELECT("p.name AS product_name, p.main_images AS product_main_images, p.is_active AS product_is_active");
+        sql.FROM("product_sku s");
+        sql.LEFT_OUTER_JOIN("product p ON p.id = s.product_id");
+
+        // 构建IN条件
+        if (skuIds != null && !skuIds.isEmpty()) {
+            StringBuilder ids = new StringBuilder();
+            for (int i = 0; i < skuIds.size(); i++) {
+                ids.append("#{skuIds[").append(i).append("]}");
+                if (i < skuIds.size() - 1) {
+                    ids.append(", ");
+                }
+            }
+            sql.WHERE("s.id IN (" + ids + ")");
+        } else {
+            // 空列表时不返回任何数据
+            sql.WHERE("1 = 0");
+        }
+
+        return sql.toString();
+    }
+
+    /**
+     * 查询商品目录快照用的SKU：全量加载只查上架SKU，增量同步按updated_time查询（包含已下架的）
+     */
+    public String selectCatalogSkus(LocalDateTime since) {
+        SQL sql = new SQL();
+        sql.SELECT("*");
+        sql.FROM("product_sku");
+        if (since != null) {
+            sql.WHERE("updated_time >= #{since}");
+        } else {
+            sql.WHERE("is_active = 1");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 批量条件扣减库存（一条UPDATE完成整单扣减）
+     * 只有库存充足的SKU才会被扣减，调用方需比较影响行数与SKU数，不一致时回滚事务
+     */
+    public String deductStock(List<StockReservation> items) {
+        String quantityCase = buildQuantityCase(items);
+        return "UPDATE product_sku SET stock = stock - " + quantityCase +
+                " WHERE id IN (" + buildSkuIdList(items) + ")" +
+                " AND is_active = 1" +
+                " AND stock >= " + quantityCase;
+    }
+
+    /**
+     * 批量归还库存
+     */
+    public String restoreStock(List<StockReservation> items) {
+        return "UPDATE product_sku SET stock = stock + " + buildQuantityCase(items) +
+                " WHERE id IN (" + buildSkuIdList(items) + ")";
+    }
+
+    /**
+     * 批量无条件扣减库存（热点SKU内存扣减后异步回写数据库用）
+     */
+    public String decreaseStock(List<StockReservation> items) {
+        return "UPDATE product_sku SET stock = stock - " + buildQuantityCase(items) +
+                " WHERE id IN (" + buildSkuIdList(items) + ")";
+    }
+
+    /**
+     * 按订单项批量增加SKU销量
+     */
+    public String increaseSalesCount(List<OrderItem> items) {
+        return "UPDATE product_sku SET sales_count = IFNULL(sales_count, 0) + " + buildQuantityCase(items) +
+                " WHERE id IN (" + buildSkuIdList(items) + ")";
+    }
+
+    /**
+     * 构建 CASE id WHEN skuId THEN quantity ... END 表达式
+     */
+    private String buildQuantityCase(List<?> items) {
+        StringBuilder sql = new StringBuilder("CASE id");
+        for (int i = 0; i < items.size(); i++) {
+            sql.append(" WHEN #{items[").append(i).append("].skuId}")
+                    .append(" THEN #{items[").append(i).append("].quantity}");
+        }
+        sql.append(" END");
+        return sql.toString();
+    }
+
+    /**
+     * 构建SKU ID列表
+     */
+    private String buildSkuIdList(List<?> items) {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            ids.append("#{items[").append(i).append("].skuId}");
+            if (i < items.size() - 1) {
+                ids.append(", ");
+            }
+        }
+        return ids.toString();
+    }
+}
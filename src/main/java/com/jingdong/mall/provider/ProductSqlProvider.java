@@ -1,8 +1,14 @@
 package com.jingdong.mall.provider;
 
+import com.jingdong.mall.common.utils.ProductListCursor;
 import com.jingdong.mall.model.dto.request.ProductListRequest;
+import com.jingdong.mall.model.entity.OrderItem;
 import org.apache.ibatis.jdbc.SQL;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
 /**
  * 商品动态SQL提供者
  */
@@ -16,88 +22,217 @@ public class ProductSqlProvider {
 
         // 使用反引号避免关键字冲突
         sql.SELECT("p.*");
-        sql.SELECT("(SELECT MIN(price) FROM product_sku WHERE product_id = p.id AND is_active = 1) as min_price");
         sql.FROM("product p");
+        appendFilters(sql, request);
+
+        // 排序方式：都以商品ID作为第二排序键，保证顺序稳定（游标分页依赖这一点）
+        ProductListCursor cursor = request.getAfterCursor();
+        String sort = request.getSort() != null ? request.getSort() : "created_desc";
+        switch (sort) {
+            case "price_asc":
+                if (cursor != null) {
+                    // MySQL升序时NULL排在最前：游标在NULL上时，剩下的是ID更大的NULL和全部非NULL
+                    sql.WHERE(cursor.getValue() == null
+                            ? "(p.min_price IS NOT NULL OR p.id > #{request.afterCursor.id})"
+                            : "p.min_price >= #{request.afterCursor.value} AND (p.min_price > #{request.afterCursor.value} OR p.id > #{request.afterCursor.id})");
+                }
+                sql.ORDER_BY("p.min_price ASC", "p.id ASC");
+                break;
+            case "price_desc":
+                if (cursor != null) {
+                    // MySQL降序时NULL排在最后
+                    sql.WHERE(cursor.getValue() == null
+                            ? "p.min_price IS NULL AND p.id < #{request.afterCursor.id}"
+                            : "((p.min_price <= #{request.afterCursor.value} AND (p.min_price < #{request.afterCursor.value} OR p.id < #{request.afterCursor.id})) OR p.min_price IS NULL)");
+                }
+                sql.ORDER_BY("p.min_price DESC", "p.id DESC");
+                break;
+            case "sales_desc":
+                if (cursor != null) {
+                    sql.WHERE("p.total_sales <= #{request.afterCursor.value} AND (p.total_sales < #{request.afterCursor.value} OR p.id < #{request.afterCursor.id})");
+                }
+                sql.ORDER_BY("p.total_sales DESC", "p.id DESC");
+                break;
+            case "relevance":
+                // 按搜索索引返回的相关度顺序排列（没有搜索结果时Service层已改为按最新创建排序）
+                sql.ORDER_BY("FIELD(p.id, " + buildIdList("searchProductIds", request.getSearchProductIds()) + ")");
+                break;
+            default: // created_desc
+                if (cursor != null) {
+                    sql.WHERE("p.created_time <= #{request.afterCursor.value} AND (p.created_time < #{request.afterCursor.value} OR p.id < #{request.afterCursor.id})");
+                }
+                sql.ORDER_BY("p.created_time DESC", "p.id DESC");
+                break;
+        }
+
+        // 分页：多查一条用于判断是否还有下一页
+        // 游标模式从游标位置之后直接取（相关度排序除外，它的结果数有上限，按游标记录的偏移量取），否则按页码OFFSET
+        int limit = request.getPageSize() + 1;
+        int offset;
+        if (cursor != null) {
+            offset = cursor.getOffset() != null ? cursor.getOffset() : 0;
+        } else {
+            offset = request.getOffset();
+        }
+        return sql.toString() + " LIMIT " + limit + (offset > 0 ? " OFFSET " + offset : "");
+    }
+
+    /**
+     * 构建商品总数统计SQL
+     */
+    public String countProductList(ProductListRequest request) {
+        SQL sql = new SQL();
+        sql.SELECT("COUNT(*)");
+        sql.FROM("product p");
+        appendFilters(sql, request);
+        return sql.toString();
+    }
+
+    /**
+     * 商品列表公共筛选条件
+     */
+    private void appendFilters(SQL sql, ProductListRequest request) {
         sql.WHERE("p.is_active = 1");
 
-        // 关键词搜索条件
-        if (request.getKeyword() != null && !request.getKeyword().trim().isEmpty()) {
+        // 关键词搜索条件：优先使用搜索索引的结果，索引不可用时回退到LIKE
+        if (request.getSearchProductIds() != null) {
+            if (request.getSearchProductIds().isEmpty()) {
+                sql.WHERE("1 = 0");
+            } else {
+                sql.WHERE("p.id IN (" + buildIdList("searchProductIds", request.getSearchProductIds()) + ")");
+            }
+        } else if (request.getKeyword() != null && !request.getKeyword().trim().isEmpty()) {
             sql.WHERE("p.name LIKE CONCAT('%', #{request.keyword}, '%')");
         }
 
-        // 分类筛选条件
-        if (request.getCategoryId() != null) {
+        // 分类筛选条件：包含全部子分类（走idx_category_id索引）
+        if (request.getCategoryIds() != null) {
+            if (request.getCategoryIds().isEmpty()) {
+                sql.WHERE("1 = 0");
+            } else {
+                sql.WHERE("p.category_id IN (" + buildIdList("categoryIds", request.getCategoryIds()) + ")");
+            }
+        } else if (request.getCategoryId() != null) {
             sql.WHERE("p.category_id = #{request.categoryId}");
         }
 
         // 价格区间筛选
         if (request.getMinPrice() != null) {
-            sql.WHERE("(SELECT MIN(price) FROM product_sku WHERE product_id = p.id AND is_active = 1) >= #{request.minPrice}");
+            sql.WHERE("p.min_price >= #{request.minPrice}");
         }
 
         if (request.getMaxPrice() != null) {
-            sql.WHERE("(SELECT MIN(price) FROM product_sku WHERE product_id = p.id AND is_active = 1) <= #{request.maxPrice}");
+            sql.WHERE("p.min_price <= #{request.maxPrice}");
         }
 
-        // 排序方式
-        String sort = request.getSort();
-        if (sort != null) {
-            switch (sort) {
-                case "price_asc":
-                    sql.ORDER_BY("min_price ASC");
-                    break;
-                case "price_desc":
-                    sql.ORDER_BY("min_price DESC");
-                    break;
-                case "sales_desc":
-                    // 假设有一个方法可以获取销量，这里简化处理
-                    sql.ORDER_BY("(SELECT SUM(sales_count) FROM product_sku WHERE product_id = p.id) DESC");
-                    break;
-                default: // created_desc
-                    sql.ORDER_BY("p.created_time DESC");
-                    break;
+        // SKU规格筛选：商品有同一个上架SKU同时满足全部规格（字段名来自固定列表，不是用户输入）
+        Set<String> specs = request.getSpecFilters().keySet();
+        if (!specs.isEmpty()) {
+            StringBuilder exists = new StringBuilder(
+                    "EXISTS (SELECT 1 FROM product_sku s WHERE s.product_id = p.id AND s.is_active = 1");
+            for (String spec : specs) {
+                exists.append(" AND s.").append(spec).append(" = #{request.").append(spec).append("}");
             }
-        } else {
-            sql.ORDER_BY("p.created_time DESC");
+            sql.WHERE(exists.append(")").toString());
         }
+    }
 
-        // 分页
-        if (request.getPageSize() != null && request.getPage() != null) {
-            int offset = (request.getPage() - 1) * request.getPageSize();
-            return sql.toString() + " LIMIT " + request.getPageSize() + " OFFSET " + offset;
+    private String buildIdList(String property, List<Integer> ids) {
+        StringBuilder idList = new StringBuilder();
+        for (int i = 0; i < ids.size(); i++) {
+            idList.append("#{request.").append(property).append("[").append(i).append("]}");
+            if (i < ids.size() - 1) {
+                idList.append(", ");
+            }
         }
-
-        return sql.toString();
+        return idList.toString();
     }
 
     /**
-     * 构建商品总数统计SQL
+     * 查询建立搜索索引用的商品字段（包含已下架商品，用于从索引中删除）
      */
-    public String countProductList(ProductListRequest request) {
+    public String selectSearchDocuments(LocalDateTime since, Integer productId) {
         SQL sql = new SQL();
-        sql.SELECT("COUNT(*)");
+        sql.SELECT("p.id, p.name, p.tags, p.model, p.os, p.positioning, p.cpu_model, p.cpu_series, p.gpu_type, " +
+                "p.total_sales, p.is_active");
+        sql.SELECT("(SELECT GROUP_CONCAT(DISTINCT CONCAT_WS(' ', s.cpu, s.gpu, s.ram, s.storage) SEPARATOR ' ') " +
+                "FROM product_sku s WHERE s.product_id = p.id AND s.is_active = 1) AS sku_specs");
+        // 文档的更新时间取商品及其SKU的最大更新时间，SKU规格或上下架的修改也会被增量同步发现
+        sql.SELECT("GREATEST(p.updated_time, COALESCE((SELECT MAX(s.updated_time) FROM product_sku s " +
+                "WHERE s.product_id = p.id), p.updated_time)) AS updated_time");
         sql.FROM("product p");
-        sql.WHERE("p.is_active = 1");
-
-        // 关键词搜索条件
-        if (request.getKeyword() != null && !request.getKeyword().trim().isEmpty()) {
-            sql.WHERE("p.name LIKE CONCAT('%', #{request.keyword}, '%')");
+        if (since != null) {
+            sql.WHERE("(p.updated_time >= #{since} " +
+                    "OR p.id IN (SELECT s.product_id FROM product_sku s WHERE s.updated_time >= #{since}))");
         }
-
-        // 分类筛选条件
-        if (request.getCategoryId() != null) {
-            sql.WHERE("p.category_id = #{request.categoryId}");
+        if (productId != null) {
+            sql.WHERE("p.id = #{productId}");
         }
+        return sql.toString();
+    }
 
-        // 价格区间筛选
-        if (request.getMinPrice() != null) {
-            sql.WHERE("(SELECT MIN(price) FROM product_sku WHERE product_id = p.id AND is_active = 1) >= #{request.minPrice}");
+    /**
+     * 查询商品目录快照用的商品：全量加载只查上架商品，增量同步按updated_time查询（包含已下架的）
+     */
+    public String selectCatalogProducts(LocalDateTime since) {
+        SQL sql = new SQL();
+        sql.SELECT("*");
+        sql.FROM("product");
+        if (since != null) {
+            sql.WHERE("updated_time >= #{since}");
+        } else {
+            sql.WHERE("is_active = 1");
         }
+        return sql.toString();
+    }
 
-        if (request.getMaxPrice() != null) {
-            sql.WHERE("(SELECT MIN(price) FROM product_sku WHERE product_id = p.id AND is_active = 1) <= #{request.maxPrice}");
+    /**
+     * 根据商品ID列表批量查询上架商品
+     */
+    public String selectByIds(List<Integer> ids) {
+        SQL sql = new SQL();
+        sql.SELECT("*");
+        sql.FROM("product");
+        sql.WHERE("is_active = 1");
+
+        // 构建IN条件
+        if (ids != null && !ids.isEmpty()) {
+            StringBuilder idList = new StringBuilder();
+            for (int i = 0; i < ids.size(); i++) {
+                idList.append("#{ids[").append(i).append("]}");
+                if (i < ids.size() - 1) {
+                    idList.append(", ");
+                }
+            }
+            sql.WHERE("id IN (" + idList + ")");
+        } else {
+            // 空列表时不返回任何数据
+            sql.WHERE("1 = 0");
         }
 
         return sql.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * 按订单项增加商品总销量（同一商品的多个SKU先汇总再累加）
+     */
+    public String increaseTotalSales(List<OrderItem> items) {
+        StringBuilder quantityCase = new StringBuilder("CASE id");
+        StringBuilder skuIds = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            quantityCase.append(" WHEN #{items[").append(i).append("].skuId}")
+                    .append(" THEN #{items[").append(i).append("].quantity}");
+            skuIds.append("#{items[").append(i).append("].skuId}");
+            if (i < items.size() - 1) {
+                skuIds.append(", ");
+            }
+        }
+        quantityCase.append(" END");
+
+        return "UPDATE product p JOIN (" +
+                "SELECT product_id, SUM(" + quantityCase + ") AS sold FROM product_sku" +
+                " WHERE id IN (" + skuIds + ") GROUP BY product_id" +
+                ") s ON s.product_id = p.id" +
+                " SET p.total_sales = p.total_sales + s.sold";
+    }
+}
@@ -3,6 +3,7 @@ package com.jingdong.mall.provider;
 import com.jingdong.mall.model.entity.ShoppingCart;
 import org.apache.ibatis.jdbc.SQL;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -10,6 +11,11 @@ import java.util.List;
  */
 public class ShoppingCartSqlProvider {
 
+    // 购物车条目指向失效SKU：SKU或所属商品下架超过宽限期（下架后updated_time不再变化）
+    // 商品、SKU删除时外键级联删除购物车条目，不需要处理商品不存在的情况
+    private static final String DEAD_SKU_CONDITION = "((s.is_active = 0 AND s.updated_time < #{before}) " +
+            "OR (p.is_active = 0 AND p.updated_time < #{before}))";
+
     /**
      * 根据ID列表查询购物车项
      */
@@ -57,63 +63,85 @@ public class ShoppingCartSqlProvider {
     }
 
     /**
-     * 动态构建购物车更新SQL
-     * 只更新count（数量）和selected（选中状态）中非空的字段
+     * 批量回写购物车条目的数量和选中状态（写缓冲合并后的修改）
+     * 每个字段用 CASE id WHEN ... THEN ... ELSE 原值 END，条目的该字段为null时保持原值
      */
-    public String updateCartItem(ShoppingCart shoppingCart) {
+    public String batchUpdateCartItems(List<ShoppingCart> items) {
         SQL sql = new SQL();
         sql.UPDATE("shopping_cart");
-
-        // 动态添加更新字段：数量非空则更新数量
-        if (shoppingCart.getQuantity() != null) {
-            sql.SET("quantity = #{quantity}");
+        String quantityCase = buildFieldCase(items, "quantity", true);
+        if (quantityCase != null) {
+            sql.SET("quantity = " + quantityCase);
         }
-        // 动态添加更新字段：选中状态非空则更新选中状态
-        if (shoppingCart.getSelected() != null) {
-            sql.SET("selected = #{selected}");
+        String selectedCase = buildFieldCase(items, "selected", false);
+        if (selectedCase != null) {
+            sql.SET("selected = " + selectedCase);
         }
-        // 每次更新必更更新时间
         sql.SET("updated_time = NOW()");
 
-        // 条件：购物车ID和用户ID（确保只能更新自己的购物车）
-        sql.WHERE("id = #{id}");
-        sql.WHERE("user_id = #{userId}");
-        // 只更新有效条目（数量>0）
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            ids.append("#{items[").append(i).append("].id}");
+            if (i < items.size() - 1) {
+                ids.append(", ");
+            }
+        }
+        sql.WHERE("id IN (" + ids + ")");
+        // 只更新有效条目（数量>0），回写前已被删除的条目自然不会被更新
         sql.WHERE("quantity > 0");
 
         return sql.toString();
     }
 
     /**
-     * 批量更新购物车选中状态的动态SQL
+     * 构建 CASE id WHEN 条目ID THEN 字段值 ... ELSE 原值 END 表达式，所有条目的该字段都为null时返回null
      */
-    public String batchUpdateSelectedStatus(List<Integer> cartItemIds, Long userId, Boolean selected) {
-        SQL sql = new SQL();
-        sql.UPDATE("shopping_cart");
-        // 设置目标选中状态
-        sql.SET("selected = #{selected}");
-        // 每次更新必更更新时间
-        sql.SET("updated_time = NOW()");
-
-        // 条件：购物车ID列表、用户ID（确保只能更新自己的购物车）
-        sql.WHERE("user_id = #{userId}");
-
-        // 构建ID列表IN条件
-        if (cartItemIds != null && !cartItemIds.isEmpty()) {
-            StringBuilder ids = new StringBuilder();
-            for (int i = 0; i < cartItemIds.size(); i++) {
-                ids.append("#{cartItemIds[").append(i).append("]}");
-                if (i < cartItemIds.size() - 1) {
-                    ids.append(", ");
-                }
+    private String buildFieldCase(List<ShoppingCart> items, String field, boolean isQuantity) {
+        StringBuilder sql = new StringBuilder("CASE id");
+        boolean hasValue = false;
+        for (int i = 0; i < items.size(); i++) {
+            ShoppingCart item = items.get(i);
+            if ((isQuantity ? item.getQuantity() : item.getSelected()) != null) {
+                sql.append(" WHEN #{items[").append(i).append("].id}")
+                        .append(" THEN #{items[").append(i).append("].").append(field).append("}");
+                hasValue = true;
             }
-            sql.WHERE("id IN (" + ids + ")");
         }
+        sql.append(" ELSE ").append(field).append(" END");
+        return hasValue ? sql.toString() : null;
+    }
 
-        // 只更新有效条目（数量>0）
-        sql.WHERE("quantity > 0");
+    /**
+     * 按主键顺序查询指向失效SKU的购物车条目（清理任务分批使用）
+     */
+    public String selectDeadSkuItems(Long lastId, LocalDateTime before, int limit) {
+        SQL sql = new SQL();
+        sql.SELECT("c.id, c.user_id");
+        sql.FROM("shopping_cart c");
+        sql.INNER_JOIN("product_sku s ON s.id = c.sku_id");
+        sql.INNER_JOIN("product p ON p.id = s.product_id");
+        sql.WHERE("c.id > #{lastId}");
+        sql.WHERE(DEAD_SKU_CONDITION);
+        sql.ORDER_BY("c.id");
+        return sql.toString() + " LIMIT #{limit}";
+    }
 
-        return sql.toString();
+    /**
+     * 按ID批量删除指向失效SKU的购物车条目
+     * 多表DELETE，删除时重新检查失效条件
+     */
+    public String deleteDeadSkuItems(List<Long> ids, LocalDateTime before) {
+        StringBuilder idList = new StringBuilder();
+        for (int i = 0; i < ids.size(); i++) {
+            idList.append("#{ids[").append(i).append("]}");
+            if (i < ids.size() - 1) {
+                idList.append(", ");
+            }
+        }
+        return "DELETE c FROM shopping_cart c " +
+                "INNER JOIN product_sku s ON s.id = c.sku_id " +
+                "INNER JOIN product p ON p.id = s.product_id " +
+                "WHERE c.id IN (" + idList + ") AND " + DEAD_SKU_CONDITION;
     }
 
     /**
@@ -0,0 +1,52 @@
+package com.jingdong.mall.provider;
+
+import com.jingdong.mall.model.entity.StockReservation;
+
+import java.util.List;
+
+/**
+ * 库存预占动态SQL提供者
+ */
+public class StockReservationSqlProvider {
+
+    /**
+     * 批量插入预占记录
+     */
+    public String batchInsert(List<StockReservation> reservations) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("INSERT INTO stock_reservation (order_sn, sku_id, quantity, status, stock_synced, expire_time, " +
+                "created_time, updated_time) VALUES ");
+
+        for (int i = 0; i < reservations.size(); i++) {
+            sql.append("(")
+                    .append("#{reservations[").append(i).append("].orderSn}, ")
+                    .append("#{reservations[").append(i).append("].skuId}, ")
+                    .append("#{reservations[").append(i).append("].quantity}, ")
+                    .append(StockReservation.Status.RESERVED).append(", ")
+                    .append("#{reservations[").append(i).append("].stockSynced}, ")
+                    .append("#{reservations[").append(i).append("].expireTime}, ")
+                    .append("NOW(), NOW())");
+
+            if (i < reservations.size() - 1) {
+                sql.append(", ");
+            }
+        }
+
+        return sql.toString();
+    }
+
+    /**
+     * 批量更新预占记录的库存同步状态
+     */
+    public String updateStockSynced(List<Long> ids, Integer stockSynced) {
+        StringBuilder sql = new StringBuilder("UPDATE stock_reservation SET stock_synced = #{stockSynced} WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("#{ids[").append(i).append("]}");
+        }
+        sql.append(")");
+        return sql.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.jingdong.mall.service;
+
+import com.jingdong.mall.model.entity.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * 购物车写缓冲服务接口（写后回写）
+ * 用户连续点击 +/- 或勾选时，购物车条目的数量和选中状态先记录在内存中，同一条目的多次修改合并为一次，
+ * 再定时批量回写数据库；下单、加购等依赖数据库数据的操作前先回写该用户的修改。
+ * 注意：缓冲在应用实例内存中，同一用户的请求需要落在同一实例上才能读到自己未回写的修改。
+ */
+public interface CartWriteBufferService {
+
+    /**
+     * 记录购物车条目的修改（与该条目尚未回写的修改合并）
+     * @param userId 用户ID
+     * @param cartId 购物车条目ID（调用方已校验归属）
+     * @param quantity 新数量，为null表示不修改
+     * @param selected 新选中状态，为null表示不修改
+     * @return 合并前缓冲中该条目尚未回写的数量，没有时返回null（此时数据库中的数量就是修改前的数量）
+     */
+    Integer bufferUpdate(Long userId, Long cartId, Integer quantity, Boolean selected);
+
+    /**
+     * 把该用户尚未回写的修改应用到从数据库查询到的购物车条目上（读己之写）
+     * @param userId 用户ID
+     * @param carts 数据库中的购物车条目，会被直接修改
+     * @return 传入的列表
+     */
+    List<ShoppingCart> applyPending(Long userId, List<ShoppingCart> carts);
+
+    /**
+     * 立即回写该用户尚未回写的修改（下单、加购前调用），在调用方的事务中执行，提交后才从缓冲中移除
+     * @param userId 用户ID
+     */
+    void flushUser(Long userId);
+
+    /**
+     * 回写所有用户尚未回写的修改
+     */
+    void flush();
+}
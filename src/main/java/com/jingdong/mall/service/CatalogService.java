@@ -0,0 +1,69 @@
+package com.jingdong.mall.service;
+
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductSku;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品目录服务接口（进程内目录快照）
+ * 按ID查询商品和SKU时优先读快照，快照未加载完成或查不到时回退到数据库。
+ * 快照按更新时间定期增量同步，数据可能有几秒延迟（包括SKU库存），需要精确库存的场景以数据库扣减结果为准。
+ * 返回的实体对象被所有请求共享，调用方不能修改。
+ */
+public interface CatalogService {
+
+    /**
+     * 查询上架商品
+     * @return 商品不存在或已下架时返回null
+     */
+    Product getProduct(Integer productId);
+
+    /**
+     * 批量查询上架商品
+     * @return 商品ID -> 商品（不存在或已下架的商品不包含在内）
+     */
+    Map<Integer, Product> getProducts(Collection<Integer> productIds);
+
+    /**
+     * 查询SKU（快照中没有时从数据库查询，可能返回已下架的SKU，调用方需检查状态）
+     * @return SKU不存在时返回null
+     */
+    ProductSku getSku(Integer skuId);
+
+    /**
+     * 批量查询SKU（同 getSku，可能包含已下架的SKU）
+     * @return SKU ID -> SKU（不存在的SKU不包含在内）
+     */
+    Map<Integer, ProductSku> getSkus(Collection<Integer> skuIds);
+
+    /**
+     * 查询商品的上架SKU列表（按价格升序）
+     */
+    List<ProductSku> getProductSkus(Integer productId);
+
+    /**
+     * 分类及其全部子孙分类的ID（按分类筛选商品时使用）
+     * 快照未就绪或分类不在分类树中（如已禁用）时只返回分类自身
+     */
+    List<Integer> getCategoryScope(Integer categoryId);
+
+    /**
+     * 当前目录快照
+     * @return 快照尚未加载完成时返回null
+     */
+    CatalogSnapshot getSnapshot();
+
+    /**
+     * 同步上次同步之后修改过的商品、SKU和分类到快照
+     */
+    void refresh();
+
+    /**
+     * 立即重新加载分类并重建分类树（管理员新增分类后调用，不等待定时同步）
+     */
+    void reloadCategories();
+}
@@ -0,0 +1,39 @@
+package com.jingdong.mall.service;
+
+import java.util.Map;
+
+/**
+ * 热点SKU库存服务接口（秒杀/抢购场景）
+ * 被标记为热点的SKU启动时把库存加载到内存分段计数器中，扣减在内存中完成，再批量异步回写数据库，
+ * 避免大量请求在同一行product_sku上排队等待行锁。
+ * 回写以已提交的库存预占记录为准（记录了是否已同步到数据库库存），应用异常退出后重启时先补齐回写再加载，
+ * 不会因为丢失内存中的扣减而超卖。
+ * 注意：内存库存是单实例权威数据，热点SKU只能由一个应用实例负责售卖。
+ */
+public interface HotSkuStockService {
+
+    /**
+     * 是否为热点SKU
+     * @param skuId SKU ID
+     * @return 是否热点
+     */
+    boolean isHot(Integer skuId);
+
+    /**
+     * 在内存中预占热点SKU库存（全部成功或全部不扣减）
+     * @param skuQuantities SKU ID到数量的映射，只能包含热点SKU
+     * @return 库存不足时返回false
+     */
+    boolean tryReserve(Map<Integer, Integer> skuQuantities);
+
+    /**
+     * 归还热点SKU库存
+     * @param skuQuantities SKU ID到数量的映射，只能包含热点SKU
+     */
+    void release(Map<Integer, Integer> skuQuantities);
+
+    /**
+     * 把尚未同步的库存预占记录批量回写数据库
+     */
+    void flush();
+}
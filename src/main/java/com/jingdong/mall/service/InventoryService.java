@@ -0,0 +1,38 @@
+package com.jingdong.mall.service;
+
+import com.jingdong.mall.model.entity.OrderItem;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 库存预占服务接口
+ * 下单时预扣库存并记录预占，取消订单或超时未支付时释放，支付后确认
+ */
+public interface InventoryService {
+
+    /**
+     * 为订单预占库存（条件扣减，不使用SELECT ... FOR UPDATE）
+     * 必须在下单事务中调用；返回false（或抛出异常）时已扣减的热点SKU内存库存已归还，
+     * 但部分SKU的数据库库存可能已被扣减，调用方需回滚事务或回滚到调用前的保存点
+     * @param orderSn 订单编号
+     * @param orderItems 订单项（同一SKU会合并）
+     * @param expireTime 预占过期时间
+     * @return 是否全部预占成功
+     */
+    boolean reserve(String orderSn, List<OrderItem> orderItems, LocalDateTime expireTime);
+
+    /**
+     * 释放订单预占的库存（重复调用安全）
+     * @param orderSn 订单编号
+     * @return 释放的SKU数，已释放或已确认时返回0
+     */
+    int release(String orderSn);
+
+    /**
+     * 确认订单预占的库存（支付成功时调用）
+     * @param orderSn 订单编号
+     * @return false表示预占已被释放（订单已超时），不能再支付
+     */
+    boolean confirm(String orderSn);
+}
@@ -2,10 +2,13 @@ package com.jingdong.mall.service;
 
 import com.jingdong.mall.model.dto.request.OrderCreateRequest;
 import com.jingdong.mall.model.dto.request.OrderCreateFromCartRequest;
+import com.jingdong.mall.model.dto.request.OrderSubmission;
 import com.jingdong.mall.model.dto.request.OrderUpdateRequest;
 import com.jingdong.mall.model.dto.response.*;
 import com.jingdong.mall.model.dto.request.OrderListRequest;
 
+import java.util.List;
+
 /**
  * 订单服务接口
  */
@@ -16,6 +19,25 @@ public interface OrderService {
      */
     OrderCreateResponse createOrderFromCart(Long userId, OrderCreateFromCartRequest request);
 
+    /**
+     * 使用已分配的订单号从购物车创建订单（异步下单批量创建失败后逐个重试）
+     */
+    OrderCreateResponse createOrderFromCart(Long userId, OrderCreateFromCartRequest request, String orderSn);
+
+    /**
+     * 异步下单受理前的同步校验：收货地址和购物车条目属于当前用户
+     * @throws com.jingdong.mall.common.exception.BusinessException 校验不通过
+     */
+    void validateCartCheckout(Long userId, OrderCreateFromCartRequest request);
+
+    /**
+     * 在一个事务中批量创建排队的订单（订单和订单项各一条批量INSERT）
+     * 地址、购物车条目、SKU校验不通过，或购物车项已被并发下单、库存预占失败（回滚到该提交的保存点）的提交
+     * 只记录失败原因，不影响其余订单；写库出错（如死锁）时抛出异常整批回滚，由调用方逐个重试
+     * @param submissions 排队的提交，创建结果或失败原因回填到提交上（事务提交后才有效）
+     */
+    void createOrdersFromCart(List<OrderSubmission> submissions);
+
     /**
      * 单个商品创建订单（立即购买）
      */
@@ -54,4 +76,11 @@ public interface OrderService {
      * @return 更新响应
      */
     OrderUpdateResponse updateOrderStatus(Long userId, String orderSn, OrderUpdateRequest request);
-}
\ No newline at end of file
+
+    /**
+     * 取消超时未支付的订单并释放预占库存
+     * @param orderSns 订单号列表（非待付款的订单会被跳过）
+     * @return 实际取消的订单数
+     */
+    int cancelTimeoutOrders(List<String> orderSns);
+}
@@ -0,0 +1,31 @@
+package com.jingdong.mall.service;
+
+import com.jingdong.mall.model.dto.request.OrderCreateFromCartRequest;
+import com.jingdong.mall.model.dto.response.OrderSubmitResponse;
+
+/**
+ * 异步下单服务接口（排队受理）
+ * 请求线程只做轻量校验、分配订单号并放入有界队列，随即返回；工作线程从队列批量取出，
+ * 在一个事务中批量创建订单。队列满时直接拒绝，避免高峰期请求线程全部阻塞在数据库连接池上。
+ * 注意：队列在应用实例内存中，状态也只在受理的实例上可查；订单入库后任何实例都能查到结果。
+ */
+public interface OrderSubmitService {
+
+    /**
+     * 受理从购物车下单的请求
+     * @param userId 用户ID
+     * @param request 下单请求
+     * @return 排队状态（含分配的订单号）
+     * @throws com.jingdong.mall.common.exception.BusinessException 校验不通过，或队列已满（ORDER_SYSTEM_BUSY）
+     */
+    OrderSubmitResponse submitOrderFromCart(Long userId, OrderCreateFromCartRequest request);
+
+    /**
+     * 查询异步下单的处理状态
+     * @param userId 用户ID
+     * @param orderSn 受理时返回的订单号
+     * @return 处理状态
+     * @throws com.jingdong.mall.common.exception.BusinessException 提交不存在或不属于当前用户
+     */
+    OrderSubmitResponse getSubmitStatus(Long userId, String orderSn);
+}
@@ -0,0 +1,22 @@
+package com.jingdong.mall.service;
+
+import com.jingdong.mall.model.dto.request.ProductListRequest;
+import com.jingdong.mall.model.dto.response.ProductFacetResponse;
+
+/**
+ * 商品分面统计服务接口（内存位图索引）
+ */
+public interface ProductFacetService {
+
+    /**
+     * 统计商品列表查询条件下各分类、价格区间、SKU规格取值的商品数
+     * @param request 商品列表查询条件（关键词搜索结果需已设置到searchProductIds）
+     * @return 分面统计；索引尚未加载完成时返回null
+     */
+    ProductFacetResponse getFacets(ProductListRequest request);
+
+    /**
+     * 从商品目录快照重建分面索引
+     */
+    void refresh();
+}
@@ -0,0 +1,29 @@
+package com.jingdong.mall.service;
+
+import java.util.List;
+
+/**
+ * 商品搜索服务接口（进程内倒排索引）
+ */
+public interface ProductSearchService {
+
+    /**
+     * 按关键词搜索上架商品
+     * @param keyword 关键词
+     * @param limit 最多返回的商品数
+     * @return 按相关度降序排列的商品ID，没有匹配时为空列表；索引尚未加载完成（或关键词分不出词）时返回null，
+     *         调用方应回退到数据库查询
+     */
+    List<Integer> search(String keyword, int limit);
+
+    /**
+     * 重新索引单个商品（商品或其SKU被修改后调用）
+     * @param productId 商品ID
+     */
+    void reindex(Integer productId);
+
+    /**
+     * 同步上次同步之后修改过的商品到索引
+     */
+    void refresh();
+}
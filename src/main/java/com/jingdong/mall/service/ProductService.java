@@ -1,5 +1,6 @@
 package com.jingdong.mall.service;
 
+import com.jingdong.mall.common.response.EncodedResponse;
 import com.jingdong.mall.model.dto.request.ProductListRequest;
 import com.jingdong.mall.model.dto.response.ProductDetailResponse;
 import com.jingdong.mall.model.dto.response.ProductListResponse;
@@ -13,10 +14,41 @@ public interface ProductService {
      */
     ProductDetailResponse getProductDetail(Integer productId);
 
+    /**
+     * 获取商品详情的当前版本号（带引号的ETag值），不构建详情
+     * @param productId 商品ID
+     * @return 与 getProductDetail 返回的详情版本一致；商品不存在时返回null
+     */
+    String getProductDetailVersion(Integer productId);
+
+    /**
+     * 获取序列化好的商品详情响应（Result包装后的JSON字节），热点商品直接返回缓存的字节
+     * @param productId 商品ID
+     * @return 序列化结果，版本号与返回内容一致
+     */
+    EncodedResponse getEncodedProductDetail(Integer productId);
+
     /**
      * 获取商品列表（分页+条件查询）
      * @param request 查询请求参数
      * @return 商品列表响应
      */
     ProductListResponse getProductList(ProductListRequest request);
-}
\ No newline at end of file
+
+    /**
+     * 重新计算商品的最低价格、更新搜索索引并清除详情缓存（SKU价格、规格或上下架状态变化后调用）
+     * @param productId 商品ID
+     */
+    void refreshProductSummary(Integer productId);
+
+    /**
+     * 清除商品详情缓存（商品或其SKU被修改后调用）
+     * @param productId 商品ID
+     */
+    void evictProductDetail(Integer productId);
+
+    /**
+     * 清除全部商品详情缓存（批量修改商品后调用）
+     */
+    void evictAllProductDetails();
+}
@@ -0,0 +1,22 @@
+package com.jingdong.mall.service;
+
+import java.util.List;
+
+/**
+ * 搜索框联想服务接口（进程内前缀索引）
+ */
+public interface ProductSuggestService {
+
+    /**
+     * 查询以输入内容开头的商品名称、型号、标签，按销量降序
+     * @param prefix 用户输入
+     * @param limit 最多返回条数
+     * @return 联想词列表；索引尚未加载完成时返回空列表
+     */
+    List<String> suggest(String prefix, int limit);
+
+    /**
+     * 同步上次同步之后修改过的商品到联想索引
+     */
+    void refresh();
+}
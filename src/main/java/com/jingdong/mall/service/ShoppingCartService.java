@@ -52,4 +52,12 @@ public interface ShoppingCartService {
      * @return 清空结果响应（包含成功清空数量）
      */
     CartClearResponse clearCart(Long userId);
+
+    /**
+     * 调整缓存的购物车角标数量（购物车条目在购物车服务之外被删除时调用，如购物车下单）
+     * 在事务中调用时事务提交后才调整；该用户的数量未缓存时不做任何事
+     * @param userId 用户ID
+     * @param delta 数量变化（负数表示减少）
+     */
+    void adjustCartCount(Long userId, int delta);
 }
\ No newline at end of file
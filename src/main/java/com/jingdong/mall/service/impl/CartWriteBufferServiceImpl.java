@@ -0,0 +1,199 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.mapper.ShoppingCartMapper;
+import com.jingdong.mall.model.entity.ShoppingCart;
+import com.jingdong.mall.service.CartWriteBufferService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class CartWriteBufferServiceImpl implements CartWriteBufferService {
+
+    // 单条批量UPDATE语句最多包含的条目数
+    private static final int BATCH_SIZE = 500;
+
+    // 应用关闭时回写失败的最多重试次数
+    private static final int SHUTDOWN_FLUSH_ATTEMPTS = 3;
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    // 用户ID -> 购物车条目ID -> 尚未回写的修改
+    // 用户的条目表只在 pending.compute 中创建和删除，与写入同一用户的修改互斥
+    private final Map<Long, Map<Long, PendingUpdate>> pending = new ConcurrentHashMap<>();
+
+    // 回写互斥锁：保证先读到的修改不会在后读到的修改之后写入数据库
+    private final Object flushLock = new Object();
+
+    @Override
+    public Integer bufferUpdate(Long userId, Long cartId, Integer quantity, Boolean selected) {
+        PendingUpdate update = new PendingUpdate(quantity, selected);
+        Integer[] previousQuantity = new Integer[1];
+        pending.compute(userId, (key, updates) -> {
+            if (updates == null) {
+                updates = new ConcurrentHashMap<>();
+            }
+            // 读取和合并在同一个compute中，同一用户并发修改时每个请求读到的都是它之前的数量
+            PendingUpdate previous = updates.get(cartId);
+            previousQuantity[0] = previous != null ? previous.quantity() : null;
+            updates.merge(cartId, update, PendingUpdate::merge);
+            return updates;
+        });
+        return previousQuantity[0];
+    }
+
+    @Override
+    public List<ShoppingCart> applyPending(Long userId, List<ShoppingCart> carts) {
+        Map<Long, PendingUpdate> updates = pending.get(userId);
+        if (updates == null || updates.isEmpty()) {
+            return carts;
+        }
+        for (ShoppingCart cart : carts) {
+            PendingUpdate update = updates.get(cart.getId());
+            if (update != null) {
+                if (update.quantity() != null) {
+                    cart.setQuantity(update.quantity());
+                }
+                if (update.selected() != null) {
+                    cart.setSelected(update.selected());
+                }
+            }
+        }
+        return carts;
+    }
+
+    /**
+     * 在调用方的事务中回写（没有事务时逐条语句自动提交），调用方随后在同一事务中读到的就是回写后的数据
+     * 事务提交后才从缓冲中移除；事务回滚时修改仍留在缓冲中，由定时回写重试。
+     * 绝大多数调用时该用户没有待回写的修改，直接返回，不占用数据库连接。
+     */
+    @Override
+    public void flushUser(Long userId) {
+        if (!pending.containsKey(userId)) {
+            return;
+        }
+        synchronized (flushLock) {
+            write(Collections.singletonList(userId));
+        }
+    }
+
+    /**
+     * 定时把缓冲的修改批量回写数据库（默认每500毫秒一次）
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${mall.cart.write-behind-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            write(new ArrayList<>(pending.keySet()));
+        }
+    }
+
+    /**
+     * 应用关闭前把缓冲的修改全部回写数据库，失败时重试
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        for (int attempt = 1; attempt <= SHUTDOWN_FLUSH_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            flush();
+        }
+        if (!pending.isEmpty()) {
+            log.error("应用关闭时购物车修改回写失败，丢失 {} 个用户的未回写修改", pending.size());
+        }
+    }
+
+    /**
+     * 回写指定用户的修改
+     * 1. 先复制待回写的修改，回写期间修改仍保留在缓冲中，读取时依然能看到
+     * 2. 按批执行 UPDATE ... CASE，每批一条语句
+     * 3. 回写成功（事务已提交）的修改从缓冲中移除；回写期间又被修改的条目保留，下次继续回写；回写失败的批次下次重试
+     */
+    private void write(List<Long> userIds) {
+        // 1. 复制待回写的修改
+        List<ShoppingCart> items = new ArrayList<>();
+        Map<Long, Long> cartOwners = new HashMap<>();
+        Map<Long, PendingUpdate> written = new HashMap<>();
+        for (Long userId : userIds) {
+            Map<Long, PendingUpdate> updates = pending.get(userId);
+            if (updates == null) {
+                continue;
+            }
+            for (Map.Entry<Long, PendingUpdate> entry : updates.entrySet()) {
+                ShoppingCart item = new ShoppingCart();
+                item.setId(entry.getKey());
+                item.setQuantity(entry.getValue().quantity());
+                item.setSelected(entry.getValue().selected());
+                items.add(item);
+                cartOwners.put(entry.getKey(), userId);
+                written.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        // 2. 分批回写
+        Set<Long> failed = new HashSet<>();
+        for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+            List<ShoppingCart> batch = items.subList(from, Math.min(from + BATCH_SIZE, items.size()));
+            try {
+                shoppingCartMapper.batchUpdateCartItems(batch);
+            } catch (Exception e) {
+                for (ShoppingCart item : batch) {
+                    failed.add(item.getId());
+                }
+                log.error("购物车修改回写数据库失败，将在下次重试: {} 个条目", batch.size(), e);
+            }
+        }
+
+        // 3. 移除已回写的修改（只移除与回写内容相同的修改），在事务中回写时等事务提交后再移除
+        Runnable removeWritten = () -> {
+            for (Map.Entry<Long, PendingUpdate> entry : written.entrySet()) {
+                if (failed.contains(entry.getKey())) {
+                    continue;
+                }
+                pending.computeIfPresent(cartOwners.get(entry.getKey()), (key, updates) -> {
+                    updates.remove(entry.getKey(), entry.getValue());
+                    return updates.isEmpty() ? null : updates;
+                });
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeWritten.run();
+                }
+            });
+        } else {
+            removeWritten.run();
+        }
+        log.debug("购物车修改回写数据库: {} 个条目", items.size() - failed.size());
+    }
+
+    /**
+     * 购物车条目尚未回写的修改，字段为null表示不修改
+     */
+    private record PendingUpdate(Integer quantity, Boolean selected) {
+
+        /**
+         * 合并修改：后来的非空字段覆盖之前的
+         */
+        private PendingUpdate merge(PendingUpdate newer) {
+            return new PendingUpdate(
+                    newer.quantity != null ? newer.quantity : quantity,
+                    newer.selected != null ? newer.selected : selected);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.mapper.ProductCategoryMapper;
+import com.jingdong.mall.mapper.ProductMapper;
+import com.jingdong.mall.mapper.ProductSkuMapper;
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductCategory;
+import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.service.CatalogService;
+import com.jingdong.mall.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class CatalogServiceImpl implements CatalogService {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+
+    @Autowired
+    private ProductCategoryMapper productCategoryMapper;
+
+    // 商品服务依赖目录服务，这里延迟获取，避免循环依赖
+    @Autowired
+    private ObjectProvider<ProductService> productService;
+
+    // 增量同步的回看时间（秒）：长事务在提交前写入的updated_time可能早于已同步的最大更新时间
+    @Value("${mall.catalog.refresh-lookback-seconds:30}")
+    private long refreshLookbackSeconds;
+
+    // 当前快照，加载完成前为null
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    // 已同步到快照的最大更新时间（商品、SKU分别记录）
+    private LocalDateTime productSyncTime;
+    private LocalDateTime skuSyncTime;
+
+    @Override
+    public Product getProduct(Integer productId) {
+        CatalogSnapshot current = snapshot.get();
+        Product product = current != null ? current.getProduct(productId) : null;
+        // 快照未就绪或刚上架还未同步时查数据库
+        return product != null ? product : productMapper.selectById(productId);
+    }
+
+    @Override
+    public Map<Integer, Product> getProducts(Collection<Integer> productIds) {
+        Map<Integer, Product> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        CatalogSnapshot current = snapshot.get();
+        for (Integer productId : new LinkedHashSet<>(productIds)) {
+            Product product = current != null ? current.getProduct(productId) : null;
+            if (product != null) {
+                result.put(productId, product);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : productMapper.selectByIds(missing)) {
+                result.put(product.getId(), product);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ProductSku getSku(Integer skuId) {
+        CatalogSnapshot current = snapshot.get();
+        ProductSku sku = current != null ? current.getSku(skuId) : null;
+        return sku != null ? sku : productSkuMapper.selectBySkuId(skuId);
+    }
+
+    @Override
+    public Map<Integer, ProductSku> getSkus(Collection<Integer> skuIds) {
+        Map<Integer, ProductSku> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        CatalogSnapshot current = snapshot.get();
+        for (Integer skuId : new LinkedHashSet<>(skuIds)) {
+            ProductSku sku = current != null ? current.getSku(skuId) : null;
+            if (sku != null) {
+                result.put(skuId, sku);
+            } else {
+                missing.add(skuId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (ProductSku sku : productSkuMapper.selectBySkuIds(missing)) {
+                result.put(sku.getId(), sku);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<ProductSku> getProductSkus(Integer productId) {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null && current.getProduct(productId) != null) {
+            return current.getProductSkus(productId);
+        }
+        return productSkuMapper.selectByProductId(productId);
+    }
+
+    @Override
+    public List<Integer> getCategoryScope(Integer categoryId) {
+        CatalogSnapshot current = snapshot.get();
+        List<Integer> ids = current != null ? current.getCategoryTree().getSubtreeIds(categoryId) : List.of();
+        return ids.isEmpty() ? List.of(categoryId) : ids;
+    }
+
+    @Override
+    public CatalogSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * 启动时全量加载（先于依赖快照的分面索引等构建）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * 每小时全量重新加载一次，清理增量同步发现不了的物理删除
+     */
+    @Scheduled(cron = "0 15 * * * ?")
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        List<Product> products = productMapper.selectCatalogProducts(null);
+        List<ProductSku> skus = productSkuMapper.selectCatalogSkus(null);
+        List<ProductCategory> categories = productCategoryMapper.selectAllActive();
+
+        CatalogSnapshot loaded = CatalogSnapshot.of(products, skus, categories);
+        snapshot.set(loaded);
+        productSyncTime = maxProductTime(productSyncTime, products);
+        skuSyncTime = maxSkuTime(skuSyncTime, skus);
+        log.info("商品目录快照加载完成: 商品数={}, SKU数={}, 分类数={}, SKU规格列存约{}KB, 耗时={}ms",
+                loaded.productCount(), loaded.skuCount(), categories.size(),
+                loaded.getSkuAttributes().memoryBytes() / 1024, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 按更新时间增量同步，有变化时生成新快照后原子替换
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${mall.catalog.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            return;
+        }
+
+        // 从上次的最大更新时间往前回看一段时间，避免漏掉更新时间较早、但在上次同步之后才提交的修改
+        // （回看窗口内的行每次都会被重复拉取，下面按内容去重，重复应用是幂等的）
+        List<Product> products = productMapper.selectCatalogProducts(lookback(productSyncTime));
+        List<ProductSku> skus = productSkuMapper.selectCatalogSkus(lookback(skuSyncTime));
+        List<ProductCategory> categories = productCategoryMapper.selectAllActive();
+
+        productSyncTime = maxProductTime(productSyncTime, products);
+        skuSyncTime = maxSkuTime(skuSyncTime, skus);
+
+        // 去掉与快照中内容相同的行（回看窗口内的行每次都会被重复拉取；updated_time只精确到秒，不能只比较时间）
+        List<Product> changedProducts = new ArrayList<>();
+        for (Product product : products) {
+            Product cached = current.getProduct(product.getId());
+            boolean active = Integer.valueOf(1).equals(product.getIsActive());
+            if (active ? !product.equals(cached) : cached != null) {
+                changedProducts.add(product);
+            }
+        }
+        List<ProductSku> changedSkus = new ArrayList<>();
+        Set<Integer> summaryChangedProductIds = new TreeSet<>();
+        for (ProductSku sku : skus) {
+            ProductSku cached = current.getSku(sku.getId());
+            boolean active = Integer.valueOf(1).equals(sku.getIsActive());
+            if (active ? !sku.equals(cached) : cached != null) {
+                changedSkus.add(sku);
+                // 新上架、下架或价格变化的SKU会影响商品最低价格
+                if (cached == null || !active || !samePrice(sku, cached)) {
+                    summaryChangedProductIds.add(sku.getProductId());
+                }
+            }
+        }
+        boolean categoriesChanged = !new HashSet<>(categories).equals(new HashSet<>(current.categories()));
+        if (changedProducts.isEmpty() && changedSkus.isEmpty() && !categoriesChanged) {
+            return;
+        }
+
+        snapshot.set(current.withChanges(changedProducts, changedSkus, categoriesChanged ? categories : null));
+        log.debug("商品目录快照增量同步: 商品{}个, SKU{}个", changedProducts.size(), changedSkus.size());
+
+        // SKU直接在数据库中修改，同步时才能发现：重新计算受影响商品的最低价格、搜索索引和详情缓存
+        for (Integer productId : summaryChangedProductIds) {
+            try {
+                productService.getObject().refreshProductSummary(productId);
+            } catch (Exception e) {
+                // 每天凌晨的全量重建会校正最低价格
+                log.error("刷新商品汇总信息失败: productId={}", productId, e);
+            }
+        }
+
+        // 其它修改（商品名称、图片、详情、上下架，SKU库存、规格等）只需清除详情缓存，
+        // 否则缓存的详情及其版本（ETag）在过期前一直是旧的
+        Set<Integer> detailChangedProductIds = new TreeSet<>();
+        changedProducts.forEach(product -> detailChangedProductIds.add(product.getId()));
+        changedSkus.forEach(sku -> detailChangedProductIds.add(sku.getProductId()));
+        detailChangedProductIds.removeAll(summaryChangedProductIds);
+        for (Integer productId : detailChangedProductIds) {
+            productService.getObject().evictProductDetail(productId);
+        }
+    }
+
+    @Override
+    public synchronized void reloadCategories() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            return;
+        }
+        List<ProductCategory> categories = productCategoryMapper.selectAllActive();
+        if (new HashSet<>(categories).equals(new HashSet<>(current.categories()))) {
+            return;
+        }
+        CatalogSnapshot updated = current.withChanges(List.of(), List.of(), categories);
+        snapshot.set(updated);
+        log.info("分类树重建完成: 分类数={}", updated.getCategoryTree().size());
+    }
+
+    private boolean samePrice(ProductSku sku, ProductSku cached) {
+        if (sku.getPrice() == null || cached.getPrice() == null) {
+            return sku.getPrice() == cached.getPrice();
+        }
+        return sku.getPrice().compareTo(cached.getPrice()) == 0;
+    }
+
+    private LocalDateTime lookback(LocalDateTime syncTime) {
+        return syncTime != null ? syncTime.minusSeconds(refreshLookbackSeconds) : null;
+    }
+
+    private LocalDateTime maxProductTime(LocalDateTime syncTime, List<Product> products) {
+        for (Product product : products) {
+            syncTime = maxTime(syncTime, product.getUpdatedTime());
+        }
+        return syncTime;
+    }
+
+    private LocalDateTime maxSkuTime(LocalDateTime syncTime, List<ProductSku> skus) {
+        for (ProductSku sku : skus) {
+            syncTime = maxTime(syncTime, sku.getUpdatedTime());
+        }
+        return syncTime;
+    }
+
+    private LocalDateTime maxTime(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,202 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.utils.StripedStockCounter;
+import com.jingdong.mall.mapper.ProductSkuMapper;
+import com.jingdong.mall.mapper.StockReservationMapper;
+import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.model.entity.StockReservation;
+import com.jingdong.mall.service.HotSkuStockService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class HotSkuStockServiceImpl implements HotSkuStockService {
+
+    // 每次回写锁定的最大预占记录数，避免一个事务锁住太多记录
+    private static final int SYNC_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+
+    @Autowired
+    private StockReservationMapper stockReservationMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 热点SKU ID列表，逗号分隔，为空表示不启用热点模式
+    @Value("${mall.hot-sku.ids:}")
+    private List<Integer> hotSkuIds;
+
+    // 每个热点SKU的计数器分段数
+    @Value("${mall.hot-sku.stripes:16}")
+    private int stripes;
+
+    // 热点SKU的内存库存计数器
+    private final Map<Integer, StripedStockCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时把热点SKU的数据库库存加载到内存计数器
+     * 1. 先回写上次运行（包括异常退出）留下的未同步预占记录，使数据库库存包含所有已提交的预占
+     * 2. 再以数据库库存为准加载；回写失败时启动失败，否则按旧库存加载会超卖
+     */
+    @PostConstruct
+    public void loadHotSkus() {
+        int synced = syncAll();
+        if (synced > 0) {
+            log.info("启动时回写未同步的库存预占记录: {} 条", synced);
+        }
+
+        if (hotSkuIds == null || hotSkuIds.isEmpty()) {
+            return;
+        }
+
+        List<ProductSku> skus = productSkuMapper.selectBySkuIds(hotSkuIds);
+        for (ProductSku sku : skus) {
+            int stock = sku.getStock() != null ? Math.max(sku.getStock(), 0) : 0;
+            counters.put(sku.getId(), new StripedStockCounter(stock, stripes));
+            log.info("热点SKU库存已加载到内存: skuId={}, stock={}", sku.getId(), stock);
+        }
+    }
+
+    @Override
+    public boolean isHot(Integer skuId) {
+        return counters.containsKey(skuId);
+    }
+
+    @Override
+    public boolean tryReserve(Map<Integer, Integer> skuQuantities) {
+        Map<Integer, Integer> acquired = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : skuQuantities.entrySet()) {
+            StripedStockCounter counter = requireCounter(entry.getKey());
+            if (!counter.tryAcquire(entry.getValue())) {
+                // 任一SKU库存不足，归还本次已扣减的其它SKU
+                release(acquired);
+                return false;
+            }
+            acquired.put(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    @Override
+    public void release(Map<Integer, Integer> skuQuantities) {
+        for (Map.Entry<Integer, Integer> entry : skuQuantities.entrySet()) {
+            requireCounter(entry.getKey()).release(entry.getValue());
+        }
+    }
+
+    /**
+     * 定时把预占记录中尚未同步的库存变化批量回写数据库（默认每200毫秒一次）
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${mall.hot-sku.flush-interval-ms:200}")
+    public void flush() {
+        if (counters.isEmpty()) {
+            return;
+        }
+
+        try {
+            int synced = syncAll();
+            if (synced > 0) {
+                log.debug("热点SKU库存回写数据库: {} 条预占记录", synced);
+            }
+        } catch (Exception e) {
+            // 预占记录仍是未同步状态，下次继续回写
+            log.error("热点SKU库存回写数据库失败，将在下次重试", e);
+        }
+    }
+
+    /**
+     * 应用关闭前把剩余的库存变化回写数据库（未回写的部分下次启动时也会补齐）
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 分批回写，直到没有未同步的预占记录
+     * @return 回写的预占记录数
+     */
+    private int syncAll() {
+        int total = 0;
+        while (true) {
+            Integer synced = transactionTemplate.execute(status -> syncBatch());
+            total += synced;
+            if (synced < SYNC_BATCH_SIZE) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中回写一批预占记录
+     * 1. 锁定未同步的预占记录（并发释放订单会等待本事务提交，多实例也不会重复回写）
+     * 2. 按SKU汇总库存变化：待扣减且未释放的扣减库存，已扣减但已释放的归还库存，待扣减但已释放的不需要变化
+     * 3. 用一条UPDATE回写数据库库存，并在同一事务中更新预占记录的同步状态，回写和标记同时生效
+     */
+    private int syncBatch() {
+        // 1. 锁定未同步的预占记录
+        List<StockReservation> reservations = stockReservationMapper.selectUnsyncedForUpdate(SYNC_BATCH_SIZE);
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+
+        // 2. 按SKU汇总库存变化；TreeMap保证按SKU ID升序加锁，与下单扣减的加锁顺序一致
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        List<Long> deductedIds = new ArrayList<>();
+        List<Long> settledIds = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            boolean released = reservation.getStatus() == StockReservation.Status.RELEASED;
+            if (reservation.getStockSynced() == StockReservation.StockSynced.PENDING && !released) {
+                deltas.merge(reservation.getSkuId(), reservation.getQuantity(), Integer::sum);
+                deductedIds.add(reservation.getId());
+            } else {
+                if (reservation.getStockSynced() == StockReservation.StockSynced.DEDUCTED) {
+                    deltas.merge(reservation.getSkuId(), -reservation.getQuantity(), Integer::sum);
+                }
+                settledIds.add(reservation.getId());
+            }
+        }
+
+        // 3. 回写数据库库存并更新同步状态
+        List<StockReservation> items = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : deltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                StockReservation item = new StockReservation();
+                item.setSkuId(entry.getKey());
+                item.setQuantity(entry.getValue());
+                items.add(item);
+            }
+        }
+        if (!items.isEmpty()) {
+            productSkuMapper.decreaseStock(items);
+        }
+        if (!deductedIds.isEmpty()) {
+            stockReservationMapper.updateStockSynced(deductedIds, StockReservation.StockSynced.DEDUCTED);
+        }
+        if (!settledIds.isEmpty()) {
+            stockReservationMapper.updateStockSynced(settledIds, StockReservation.StockSynced.SETTLED);
+        }
+        return reservations.size();
+    }
+
+    private StripedStockCounter requireCounter(Integer skuId) {
+        StripedStockCounter counter = counters.get(skuId);
+        if (counter == null) {
+            throw new IllegalArgumentException("SKU不是热点SKU: " + skuId);
+        }
+        return counter;
+    }
+}
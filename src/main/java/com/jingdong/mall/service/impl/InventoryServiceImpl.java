@@ -0,0 +1,168 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.mapper.ProductSkuMapper;
+import com.jingdong.mall.mapper.StockReservationMapper;
+import com.jingdong.mall.model.entity.OrderItem;
+import com.jingdong.mall.model.entity.StockReservation;
+import com.jingdong.mall.service.HotSkuStockService;
+import com.jingdong.mall.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+
+    @Autowired
+    private StockReservationMapper stockReservationMapper;
+
+    @Autowired
+    private HotSkuStockService hotSkuStockService;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(String orderSn, List<OrderItem> orderItems, LocalDateTime expireTime) {
+        // 1. 按SKU合并数量；TreeMap保证按SKU ID升序加锁，避免并发下单互相死锁
+        Map<Integer, Integer> skuQuantities = new TreeMap<>();
+        for (OrderItem item : orderItems) {
+            skuQuantities.merge(item.getSkuId(), item.getQuantity(), Integer::sum);
+        }
+
+        List<StockReservation> reservations = new ArrayList<>();
+        List<StockReservation> coldReservations = new ArrayList<>();
+        Map<Integer, Integer> hotQuantities = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : skuQuantities.entrySet()) {
+            StockReservation reservation = new StockReservation();
+            reservation.setOrderSn(orderSn);
+            reservation.setSkuId(entry.getKey());
+            reservation.setQuantity(entry.getValue());
+            reservation.setExpireTime(expireTime);
+            reservations.add(reservation);
+
+            if (hotSkuStockService.isHot(entry.getKey())) {
+                reservation.setStockSynced(StockReservation.StockSynced.PENDING);
+                hotQuantities.put(entry.getKey(), entry.getValue());
+            } else {
+                reservation.setStockSynced(StockReservation.StockSynced.DEDUCTED);
+                coldReservations.add(reservation);
+            }
+        }
+
+        // 2. 热点SKU在内存中扣减，不占用数据库行锁，数据库库存由预占记录定时回写
+        if (!hotQuantities.isEmpty() && !hotSkuStockService.tryReserve(hotQuantities)) {
+            log.warn("热点SKU库存预占失败: orderSn={}, hotQuantities={}", orderSn, hotQuantities);
+            return false;
+        }
+
+        // 3. 普通SKU用一条条件UPDATE扣减，影响行数不足说明有SKU库存不足；
+        //    失败时立即归还已扣减的内存库存（调用方可能只回滚到保存点，事务仍会提交）
+        try {
+            if (!coldReservations.isEmpty()) {
+                int deducted = productSkuMapper.deductStock(coldReservations);
+                if (deducted != coldReservations.size()) {
+                    log.warn("库存预占失败: orderSn={}, 需扣减SKU数={}, 实际扣减SKU数={}",
+                            orderSn, coldReservations.size(), deducted);
+                    releaseHot(hotQuantities);
+                    return false;
+                }
+            }
+
+            // 4. 记录预占，用于取消或超时释放，同时作为热点SKU库存回写数据库的日志
+            stockReservationMapper.batchInsert(reservations);
+        } catch (RuntimeException e) {
+            releaseHot(hotQuantities);
+            throw e;
+        }
+
+        // 5. 预占成功后事务回滚时归还内存库存
+        if (!hotQuantities.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        hotSkuStockService.release(hotQuantities);
+                    }
+                }
+            });
+        }
+
+        log.info("库存预占成功: orderSn={}, skuQuantities={}", orderSn, skuQuantities);
+        return true;
+    }
+
+    private void releaseHot(Map<Integer, Integer> hotQuantities) {
+        if (!hotQuantities.isEmpty()) {
+            hotSkuStockService.release(hotQuantities);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int release(String orderSn) {
+        // 1. 先把预占状态改为已释放，并发释放时只有一个事务能更新成功
+        int released = stockReservationMapper.updateReservedStatus(orderSn, StockReservation.Status.RELEASED);
+        if (released <= 0) {
+            log.debug("订单无待释放的库存预占: orderSn={}", orderSn);
+            return 0;
+        }
+
+        // 2. 归还库存：普通SKU直接更新数据库并结清，热点SKU在事务提交后归还到内存计数器，
+        //    数据库库存由定时回写根据预占记录归还（尚未扣减过数据库库存的记录也留给定时回写结清）
+        List<StockReservation> reservations = stockReservationMapper.selectByOrderSnAndStatus(
+                orderSn, StockReservation.Status.RELEASED);
+        List<StockReservation> coldReservations = new ArrayList<>();
+        Map<Integer, Integer> hotQuantities = new HashMap<>();
+        for (StockReservation reservation : reservations) {
+            if (hotSkuStockService.isHot(reservation.getSkuId())) {
+                hotQuantities.put(reservation.getSkuId(), reservation.getQuantity());
+            } else if (reservation.getStockSynced() == StockReservation.StockSynced.DEDUCTED) {
+                coldReservations.add(reservation);
+            }
+        }
+        if (!coldReservations.isEmpty()) {
+            productSkuMapper.restoreStock(coldReservations);
+            stockReservationMapper.updateStockSynced(
+                    coldReservations.stream().map(StockReservation::getId).collect(Collectors.toList()),
+                    StockReservation.StockSynced.SETTLED);
+        }
+        if (!hotQuantities.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hotSkuStockService.release(hotQuantities);
+                }
+            });
+        }
+
+        log.info("释放库存预占成功: orderSn={}, SKU数={}", orderSn, reservations.size());
+        return reservations.size();
+    }
+
+    @Override
+    @Transactional
+    public boolean confirm(String orderSn) {
+        int confirmed = stockReservationMapper.updateReservedStatus(orderSn, StockReservation.Status.CONFIRMED);
+        if (confirmed > 0) {
+            return true;
+        }
+
+        // 没有可确认的预占：已释放说明订单已超时；没有任何记录则是启用预占前创建的订单
+        return stockReservationMapper.countByOrderSnAndStatus(orderSn, StockReservation.Status.RELEASED) == 0;
+    }
+}
@@ -1,12 +1,16 @@
 package com.jingdong.mall.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jingdong.mall.common.exception.BusinessException;
 import com.jingdong.mall.common.exception.ErrorCode;
+import com.jingdong.mall.common.utils.CursorUtil;
+import com.jingdong.mall.common.utils.OrderExpiryWheel;
+import com.jingdong.mall.common.utils.SnowflakeIdGenerator;
 import com.jingdong.mall.mapper.*;
 import com.jingdong.mall.model.dto.request.OrderCreateRequest;
 import com.jingdong.mall.model.dto.request.OrderCreateFromCartRequest;
+import com.jingdong.mall.model.dto.request.OrderSubmission;
 import com.jingdong.mall.model.dto.request.OrderUpdateRequest;
 import com.jingdong.mall.model.dto.response.OrderUpdateResponse;
 import com.jingdong.mall.model.dto.response.OrderCreateResponse;
@@ -15,11 +19,18 @@ import com.jingdong.mall.model.dto.response.OrderDetailResponse;
 import com.jingdong.mall.model.dto.request.OrderListRequest;
 import com.jingdong.mall.model.dto.response.OrderListResponse;
 import com.jingdong.mall.model.entity.*;
+import com.jingdong.mall.service.CartWriteBufferService;
+import com.jingdong.mall.service.InventoryService;
 import com.jingdong.mall.service.OrderService;
+import com.jingdong.mall.service.ShoppingCartService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,9 +42,25 @@ import java.util.stream.Collectors;
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    /**
+     * 订单支付超时时间（秒），超时未支付的订单会被取消并释放库存
+     */
+    private static final int PAY_TIMEOUT_SECONDS = OrderExpiryWheel.PAY_TIMEOUT_SECONDS;
+
+    /**
+     * 超时取消订单时记录的取消原因
+     */
+    private static final String TIMEOUT_CANCEL_REASON = "超时未支付，系统自动取消";
+
     @Autowired
     private ShoppingCartMapper shoppingCartMapper;
 
+    @Autowired
+    private CartWriteBufferService cartWriteBufferService;
+
+    @Autowired
+    private ShoppingCartService shoppingCartService;
+
     @Autowired
     private ProductSkuMapper productSkuMapper;
 
@@ -52,25 +79,46 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Autowired
+    private OrderExpiryWheel orderExpiryWheel;
+
     @Override
     public OrderListResponse getOrderList(Long userId, OrderListRequest request) {
         try {
             log.info("获取订单列表: userId={}, page={}, pageSize={}, status={}",
                     userId, request.getPage(), request.getPageSize(), request.getStatus());
 
-            // 1. 分页查询订单列表
+            // 1. 解析游标
+            if (request.getCursor() != null && !request.getCursor().isEmpty()) {
+                decodeOrderCursor(request);
+            }
+
+            // 2. 分页查询订单列表（多查一条用于判断是否有下一页）
             List<Order> orders = orderMapper.selectOrderList(request, userId);
 
             if (orders == null || orders.isEmpty()) {
                 return buildEmptyResponse(request);
             }
 
-            // 2. 收集订单ID
+            String nextCursor = null;
+            if (orders.size() > request.getPageSize()) {
+                orders = orders.subList(0, request.getPageSize());
+                Order last = orders.get(orders.size() - 1);
+                nextCursor = CursorUtil.encode(last.getCreatedTime(), last.getId());
+            }
+
+            // 3. 收集订单ID
             List<Long> orderIds = orders.stream()
                     .map(Order::getId)
                     .collect(Collectors.toList());
 
-            // 3. 批量查询每个订单的商品种类数
+            // 4. 批量查询每个订单的商品种类数
             List<Map<String, Object>> itemCounts = orderMapper.countItemsByOrderIds(orderIds);
             Map<Long, Integer> orderItemCountMap = new HashMap<>();
             for (Map<String, Object> item : itemCounts) {
@@ -79,7 +127,7 @@ public class OrderServiceImpl implements OrderService {
                 orderItemCountMap.put(orderId, count);
             }
 
-            // 4. 批量查询订单预览项（每个订单最多3个）
+            // 5. 批量查询订单预览项（每个订单最多3个）
             List<Map<String, Object>> previewItems = orderMapper.selectPreviewItemsByOrderIds(orderIds);
 
             // 按订单ID分组预览项
@@ -100,20 +148,22 @@ public class OrderServiceImpl implements OrderService {
                 }
             }
 
-            // 5. 构建订单预览列表
+            // 6. 构建订单预览列表
             List<OrderListResponse.OrderPreviewDTO> orderPreviews = orders.stream()
                     .map(order -> convertToOrderPreviewDTO(order, orderItemCountMap, previewItemsMap))
                     .collect(Collectors.toList());
 
-            // 6. 查询总记录数
-            Long total = orderMapper.countOrderList(request, userId);
+            // 7. 查询总记录数（客户端不需要时跳过COUNT查询）
+            Long total = Boolean.FALSE.equals(request.getWithTotal())
+                    ? null : orderMapper.countOrderList(request, userId);
 
-            // 7. 构建响应
+            // 8. 构建响应
             OrderListResponse response = new OrderListResponse();
             response.setTotal(total);
-            response.setPage(request.getPage());
+            response.setPage(request.isCursorMode() ? null : request.getPage());
             response.setPageSize(request.getPageSize());
             response.setOrders(orderPreviews);
+            response.setNextCursor(nextCursor);
 
             log.info("获取订单列表成功: userId={}, total={}, currentSize={}",
                     userId, total, orderPreviews.size());
@@ -133,13 +183,29 @@ public class OrderServiceImpl implements OrderService {
      */
     private OrderListResponse buildEmptyResponse(OrderListRequest request) {
         OrderListResponse response = new OrderListResponse();
-        response.setTotal(0L);
-        response.setPage(request.getPage());
+        response.setTotal(Boolean.FALSE.equals(request.getWithTotal()) ? null : 0L);
+        response.setPage(request.isCursorMode() ? null : request.getPage());
         response.setPageSize(request.getPageSize());
         response.setOrders(new ArrayList<>());
         return response;
     }
 
+    /**
+     * 解析订单列表游标（创建时间 + 订单ID）
+     */
+    private void decodeOrderCursor(OrderListRequest request) {
+        String[] parts = CursorUtil.decode(request.getCursor(), 2);
+        if (parts == null) {
+            throw new BusinessException(ErrorCode.ORDER_CURSOR_INVALID);
+        }
+        try {
+            request.setCursorCreatedTime(LocalDateTime.parse(parts[0]));
+            request.setCursorId(Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.ORDER_CURSOR_INVALID);
+        }
+    }
+
     /**
      * 将Order实体转换为OrderPreviewDTO
      */
@@ -182,101 +248,36 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public OrderCreateResponse createOrderFromCart(Long userId, OrderCreateFromCartRequest request) {
+        return createOrderFromCart(userId, request, snowflakeIdGenerator.nextOrderSn());
+    }
+
+    @Override
+    @Transactional
+    public OrderCreateResponse createOrderFromCart(Long userId, OrderCreateFromCartRequest request, String orderSn) {
         log.info("用户 {} 开始创建订单，购物车项ID: {}", userId, request.getCartItemIds());
 
         try {
             // 1. 验证地址
             Address address = validateAddress(userId, request.getAddressId());
 
-            // 2. 查询购物车项
-            List<ShoppingCart> cartItems = shoppingCartMapper.selectByIds(request.getCartItemIds(), userId);
-            if (cartItems == null || cartItems.isEmpty()) {
-                throw new BusinessException(ErrorCode.CART_ITEM_NOT_EXIST);
-            }
+            // 2. 查询购物车项（先回写该用户缓冲中的购物车修改，按最新数量下单）
+            List<ShoppingCart> cartItems = loadCheckoutCartItems(userId, request.getCartItemIds());
 
-            // 3. 验证库存并计算总金额
-            List<OrderItem> orderItems = new ArrayList<>();
-            BigDecimal totalAmount = BigDecimal.ZERO;
-
-            for (ShoppingCart cartItem : cartItems) {
-                // 验证SKU
-                ProductSku sku = productSkuMapper.selectBySkuId(cartItem.getSkuId());
-                if (sku == null || sku.getIsActive() != 1) {
-                    throw new BusinessException(ErrorCode.SKU_NOT_EXIST);
-                }
-
-                // 验证库存
-                if (sku.getStock() < cartItem.getQuantity()) {
-                    throw new BusinessException(ErrorCode.CART_ITEM_STOCK_NOT_ENOUGH);
-                }
+            // 3. 一次联表查询预加载所有SKU及商品信息，再逐项校验并计算总金额
+            Map<Integer, CheckoutSku> checkoutSkuMap = loadCheckoutSkus(cartItems.stream()
+                    .map(ShoppingCart::getSkuId)
+                    .collect(Collectors.toList()));
+            List<OrderItem> orderItems = buildCartOrderItems(cartItems, checkoutSkuMap);
 
-                // 查询商品信息
-                Product product = productMapper.selectById(sku.getProductId());
-                if (product == null || product.getIsActive() != 1) {
-                    throw new BusinessException(ErrorCode.PRODUCT_NOT_EXIST);
-                }
-
-                // 创建订单项
-                OrderItem orderItem = new OrderItem();
-                orderItem.setSkuId(sku.getId());
-                orderItem.setProductName(product.getName());
-                orderItem.setPrice(sku.getPrice());
-                orderItem.setQuantity(cartItem.getQuantity());
-                orderItem.setTotalPrice(sku.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
-
-                // 设置SKU规格
-                Map<String, String> specs = new HashMap<>();
-                if (sku.getOs() != null) specs.put("操作系统", sku.getOs());
-                if (sku.getCpu() != null) specs.put("处理器", sku.getCpu());
-                if (sku.getRam() != null) specs.put("内存容量", sku.getRam());
-                if (sku.getStorage() != null) specs.put("存储容量", sku.getStorage());
-                if (sku.getGpu() != null) specs.put("显卡", sku.getGpu());
-                orderItem.setSkuSpecs(objectMapper.writeValueAsString(specs));
-
-                // 设置商品主图
-                List<String> images = objectMapper.readValue(product.getMainImages(), new TypeReference<List<String>>() {});
-                orderItem.setMainImage(images != null && !images.isEmpty() ? images.get(0) : "");
-
-                orderItems.add(orderItem);
-                totalAmount = totalAmount.add(orderItem.getTotalPrice());
-            }
-
-            // 4. 计算运费和优惠（这里简化处理，实际业务需要复杂计算）
-            BigDecimal shippingFee = calculateShippingFee(totalAmount, address);
-            BigDecimal discountAmount = calculateDiscountAmount(userId, totalAmount);
-            BigDecimal payAmount = totalAmount.add(shippingFee).subtract(discountAmount);
-
-            // 5. 生成订单号
-            String orderSn = generateOrderSn();
-
-            // 6. 创建订单
-            Order order = new Order();
-            order.setOrderSn(orderSn);
-            order.setUserId(userId);
-            order.setTotalAmount(totalAmount);
-            order.setShippingFee(shippingFee);
-            order.setDiscountAmount(discountAmount);
-            order.setPayAmount(payAmount);
-
-            // 设置收货地址
-            order.setReceiverName(address.getName());
-            order.setReceiverPhone(address.getPhone());
-            order.setReceiverProvince(address.getProvince());
-            order.setReceiverCity(address.getCity());
-            order.setReceiverDistrict(address.getDistrict());
-            order.setReceiverDetail(address.getDetail());
-            order.setReceiverPostalCode(address.getPostalCode());
-
-            order.setStatus(0); // 0: 待付款
-            order.setPaymentMethod(0); // 0: 未支付
-            order.setBuyerRemark(request.getBuyerRemark());
+            // 4. 计算运费和优惠，创建订单（订单号由调用方生成）
+            Order order = buildOrder(userId, orderSn, address, orderItems, request.getBuyerRemark());
 
             int orderResult = orderMapper.insert(order);
             if (orderResult <= 0) {
                 throw new BusinessException(ErrorCode.ORDER_CREATE_FAILED);
             }
 
-            // 7. 批量插入订单项
+            // 5. 批量插入订单项
             for (OrderItem item : orderItems) {
                 item.setOrderId(order.getId());
             }
@@ -286,26 +287,22 @@ public class OrderServiceImpl implements OrderService {
                 throw new BusinessException(ErrorCode.ORDER_CREATE_FAILED);
             }
 
-            // 8. 删除购物车项
-            List<Integer> cartItemIds = cartItems.stream()
-                    .map(item -> item.getId().intValue())
-                    .collect(Collectors.toList());
-            shoppingCartMapper.batchDelete(cartItemIds, userId);
-
-            // 9. 扣减库存（实际业务可能需要预扣库存，支付成功后再真正扣减）
-            // 这里简化处理，直接扣减
-            // 注意：实际业务中需要考虑库存锁定机制
+            // 6. 删除购物车项
+            deleteCheckoutCartItems(userId, cartItems);
+            adjustCartCountAfterCheckout(userId, cartItems);
 
-            // 10. 返回响应
-            OrderCreateResponse response = new OrderCreateResponse();
-            response.setOrderSn(orderSn);
-            response.setTotalAmount(totalAmount);
-            response.setPayAmount(payAmount);
-            response.setExpiresIn(1800); // 30分钟支付时间
+            // 7. 预占库存（条件扣减，放在事务最后一步以缩短热点SKU行锁持有时间）
+            // 库存不足时抛出异常，整个事务回滚
+            LocalDateTime expireTime = LocalDateTime.now().plusSeconds(PAY_TIMEOUT_SECONDS);
+            if (!inventoryService.reserve(orderSn, orderItems, expireTime)) {
+                throw new BusinessException(ErrorCode.CART_ITEM_STOCK_NOT_ENOUGH);
+            }
+            registerExpiryAfterCommit(orderSn, expireTime);
 
-            log.info("订单创建成功: orderSn={}, userId={}, totalAmount={}", orderSn, userId, totalAmount);
+            // 8. 返回响应
+            log.info("订单创建成功: orderSn={}, userId={}, totalAmount={}", orderSn, userId, order.getTotalAmount());
 
-            return response;
+            return buildCreateResponse(order);
 
         } catch (BusinessException e) {
             log.warn("创建订单业务异常: userId={}, message={}", userId, e.getMessage());
@@ -316,6 +313,219 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    @Override
+    public void validateCartCheckout(Long userId, OrderCreateFromCartRequest request) {
+        validateAddress(userId, request.getAddressId());
+        List<ShoppingCart> cartItems = shoppingCartMapper.selectByIds(request.getCartItemIds(), userId);
+        if (cartItems == null || cartItems.isEmpty()) {
+            throw new BusinessException(ErrorCode.CART_ITEM_NOT_EXIST);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void createOrdersFromCart(List<OrderSubmission> submissions) {
+        // 1. 逐个校验地址、读取购物车条目；同一批中重复提交的购物车条目只有第一个订单能使用
+        List<OrderSubmission> candidates = new ArrayList<>();
+        Map<String, List<ShoppingCart>> cartItemsMap = new HashMap<>();
+        Map<String, Address> addressMap = new HashMap<>();
+        Set<Long> claimedCartIds = new HashSet<>();
+        for (OrderSubmission submission : submissions) {
+            try {
+                Address address = validateAddress(submission.getUserId(), submission.getRequest().getAddressId());
+                List<ShoppingCart> cartItems = loadCheckoutCartItems(
+                        submission.getUserId(), submission.getRequest().getCartItemIds());
+                for (ShoppingCart cartItem : cartItems) {
+                    if (!claimedCartIds.add(cartItem.getId())) {
+                        throw new BusinessException(ErrorCode.CART_ITEM_NOT_EXIST);
+                    }
+                }
+                addressMap.put(submission.getOrderSn(), address);
+                cartItemsMap.put(submission.getOrderSn(), cartItems);
+                candidates.add(submission);
+            } catch (BusinessException e) {
+                submission.setError(e);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        // 2. 一次联表查询整批订单涉及的SKU及商品信息
+        Map<Integer, CheckoutSku> checkoutSkuMap = loadCheckoutSkus(cartItemsMap.values().stream()
+                .flatMap(List::stream)
+                .map(ShoppingCart::getSkuId)
+                .collect(Collectors.toList()));
+
+        // 3. 逐个校验SKU并构建订单和订单项
+        List<OrderSubmission> accepted = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        List<List<OrderItem>> orderItemsList = new ArrayList<>();
+        for (OrderSubmission submission : candidates) {
+            try {
+                List<OrderItem> orderItems = buildCartOrderItems(cartItemsMap.get(submission.getOrderSn()), checkoutSkuMap);
+                orders.add(buildOrder(submission.getUserId(), submission.getOrderSn(),
+                        addressMap.get(submission.getOrderSn()), orderItems, submission.getRequest().getBuyerRemark()));
+                orderItemsList.add(orderItems);
+                accepted.add(submission);
+            } catch (BusinessException e) {
+                submission.setError(e);
+            } catch (JsonProcessingException e) {
+                log.error("异步下单构建订单项失败: orderSn={}", submission.getOrderSn(), e);
+                submission.setError(new BusinessException(ErrorCode.ORDER_CREATE_FAILED));
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // 4. 逐个删除购物车项并预占库存，每个提交一个保存点：购物车项已被并发下单删除或库存不足时
+        //    只回滚这一个提交，其余订单继续创建，不用整批回滚后逐个重试
+        LocalDateTime expireTime = LocalDateTime.now().plusSeconds(PAY_TIMEOUT_SECONDS);
+        TransactionStatus transaction = TransactionAspectSupport.currentTransactionStatus();
+        List<OrderSubmission> reserved = new ArrayList<>();
+        List<Order> reservedOrders = new ArrayList<>();
+        List<List<OrderItem>> reservedItemsList = new ArrayList<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            OrderSubmission submission = accepted.get(i);
+            List<ShoppingCart> cartItems = cartItemsMap.get(submission.getOrderSn());
+            Object savepoint = transaction.createSavepoint();
+            ErrorCode error = null;
+            if (deleteCheckoutCartItems(submission.getUserId(), cartItems) != cartItems.size()) {
+                error = ErrorCode.CART_ITEM_NOT_EXIST;
+            } else if (!inventoryService.reserve(submission.getOrderSn(), orderItemsList.get(i), expireTime)) {
+                error = ErrorCode.CART_ITEM_STOCK_NOT_ENOUGH;
+            }
+            if (error != null) {
+                transaction.rollbackToSavepoint(savepoint);
+                submission.setError(new BusinessException(error));
+                continue;
+            }
+            transaction.releaseSavepoint(savepoint);
+            reserved.add(submission);
+            reservedOrders.add(orders.get(i));
+            reservedItemsList.add(orderItemsList.get(i));
+        }
+        if (reserved.isEmpty()) {
+            return;
+        }
+
+        // 5. 整批订单一条INSERT，回填订单ID后整批订单项一条INSERT
+        if (orderMapper.batchInsert(reservedOrders) != reservedOrders.size()) {
+            throw new BusinessException(ErrorCode.ORDER_CREATE_FAILED);
+        }
+        List<OrderItem> allOrderItems = new ArrayList<>();
+        for (int i = 0; i < reservedOrders.size(); i++) {
+            for (OrderItem item : reservedItemsList.get(i)) {
+                item.setOrderId(reservedOrders.get(i).getId());
+                allOrderItems.add(item);
+            }
+        }
+        if (orderItemMapper.batchInsert(allOrderItems) != allOrderItems.size()) {
+            throw new BusinessException(ErrorCode.ORDER_CREATE_FAILED);
+        }
+
+        // 6. 事务提交后登记到期时间、扣减购物车角标
+        for (int i = 0; i < reserved.size(); i++) {
+            OrderSubmission submission = reserved.get(i);
+            registerExpiryAfterCommit(submission.getOrderSn(), expireTime);
+            adjustCartCountAfterCheckout(submission.getUserId(), cartItemsMap.get(submission.getOrderSn()));
+            submission.setResponse(buildCreateResponse(reservedOrders.get(i)));
+        }
+
+        log.info("异步下单批量创建订单: 提交数={}, 创建数={}", submissions.size(), reserved.size());
+    }
+
+    /**
+     * 读取下单的购物车条目（先回写该用户缓冲中的购物车修改，按最新数量下单）
+     */
+    private List<ShoppingCart> loadCheckoutCartItems(Long userId, List<Integer> cartItemIds) {
+        cartWriteBufferService.flushUser(userId);
+        List<ShoppingCart> cartItems = shoppingCartMapper.selectByIds(cartItemIds, userId);
+        if (cartItems == null || cartItems.isEmpty()) {
+            throw new BusinessException(ErrorCode.CART_ITEM_NOT_EXIST);
+        }
+        return cartItems;
+    }
+
+    /**
+     * 使用预加载的SKU逐项校验购物车条目并构建订单项
+     */
+    private List<OrderItem> buildCartOrderItems(List<ShoppingCart> cartItems, Map<Integer, CheckoutSku> checkoutSkuMap)
+            throws JsonProcessingException {
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (ShoppingCart cartItem : cartItems) {
+            orderItems.add(validateAndBuildOrderItem(
+                    checkoutSkuMap.get(cartItem.getSkuId()),
+                    cartItem.getQuantity(),
+                    ErrorCode.CART_ITEM_STOCK_NOT_ENOUGH));
+        }
+        return orderItems;
+    }
+
+    /**
+     * 删除已下单的购物车项
+     * @return 实际删除的条目数
+     */
+    private int deleteCheckoutCartItems(Long userId, List<ShoppingCart> cartItems) {
+        List<Integer> cartItemIds = cartItems.stream()
+                .map(item -> item.getId().intValue())
+                .collect(Collectors.toList());
+        return shoppingCartMapper.batchDelete(cartItemIds, userId);
+    }
+
+    /**
+     * 事务提交后从购物车角标数量中减去下单的数量
+     */
+    private void adjustCartCountAfterCheckout(Long userId, List<ShoppingCart> cartItems) {
+        shoppingCartService.adjustCartCount(userId,
+                -cartItems.stream().mapToInt(ShoppingCart::getQuantity).sum());
+    }
+
+    /**
+     * 计算运费和优惠并构建待付款订单（尚未写库）
+     */
+    private Order buildOrder(Long userId, String orderSn, Address address, List<OrderItem> orderItems,
+                             String buyerRemark) {
+        BigDecimal totalAmount = orderItems.stream()
+                .map(OrderItem::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal shippingFee = calculateShippingFee(totalAmount, address);
+        BigDecimal discountAmount = calculateDiscountAmount(userId, totalAmount);
+        BigDecimal payAmount = totalAmount.add(shippingFee).subtract(discountAmount);
+
+        Order order = new Order();
+        order.setOrderSn(orderSn);
+        order.setUserId(userId);
+        order.setTotalAmount(totalAmount);
+        order.setShippingFee(shippingFee);
+        order.setDiscountAmount(discountAmount);
+        order.setPayAmount(payAmount);
+
+        // 设置收货地址
+        order.setReceiverName(address.getName());
+        order.setReceiverPhone(address.getPhone());
+        order.setReceiverProvince(address.getProvince());
+        order.setReceiverCity(address.getCity());
+        order.setReceiverDistrict(address.getDistrict());
+        order.setReceiverDetail(address.getDetail());
+        order.setReceiverPostalCode(address.getPostalCode());
+
+        order.setStatus(0); // 0: 待付款
+        order.setPaymentMethod(0); // 0: 未支付
+        order.setBuyerRemark(buyerRemark);
+        return order;
+    }
+
+    private OrderCreateResponse buildCreateResponse(Order order) {
+        OrderCreateResponse response = new OrderCreateResponse();
+        response.setOrderSn(order.getOrderSn());
+        response.setTotalAmount(order.getTotalAmount());
+        response.setPayAmount(order.getPayAmount());
+        response.setExpiresIn(PAY_TIMEOUT_SECONDS); // 30分钟支付时间
+        return response;
+    }
+
     @Override
     @Transactional
     public OrderCreateResponse createOrder(Long userId, OrderCreateRequest request) {
@@ -326,87 +536,27 @@ public class OrderServiceImpl implements OrderService {
             // 1. 验证地址
             Address address = validateAddress(userId, request.getAddressId());
 
-            // 2. 验证商品规格
-            ProductSku sku = productSkuMapper.selectBySkuId(request.getSpecId());
-            if (sku == null || sku.getIsActive() != 1) {
-                throw new BusinessException(ErrorCode.SKU_NOT_EXIST);
-            }
-
-            // 3. 验证库存
-            if (sku.getStock() < request.getQuantity()) {
-                throw new BusinessException(ErrorCode.PRODUCT_STOCK_NOT_ENOUGH);
-            }
-
-            // 4. 查询商品信息
-            Product product = productMapper.selectById(sku.getProductId());
-            if (product == null || product.getIsActive() != 1) {
-                throw new BusinessException(ErrorCode.PRODUCT_NOT_EXIST);
-            }
+            // 2. 一次联表查询商品规格及商品信息
+            Map<Integer, CheckoutSku> checkoutSkuMap = loadCheckoutSkus(List.of(request.getSpecId()));
 
-            // 5. 创建订单项
+            // 3. 校验SKU、库存、商品状态并创建订单项
+            OrderItem orderItem = validateAndBuildOrderItem(
+                    checkoutSkuMap.get(request.getSpecId()),
+                    request.getQuantity(),
+                    ErrorCode.PRODUCT_STOCK_NOT_ENOUGH);
             List<OrderItem> orderItems = new ArrayList<>();
-            BigDecimal totalAmount = BigDecimal.ZERO;
-
-            // 创建订单项
-            OrderItem orderItem = new OrderItem();
-            orderItem.setSkuId(sku.getId());
-            orderItem.setProductName(product.getName());
-            orderItem.setPrice(sku.getPrice());
-            orderItem.setQuantity(request.getQuantity());
-            orderItem.setTotalPrice(sku.getPrice().multiply(BigDecimal.valueOf(request.getQuantity())));
-
-            // 设置SKU规格
-            Map<String, String> specs = new HashMap<>();
-            if (sku.getOs() != null) specs.put("操作系统", sku.getOs());
-            if (sku.getCpu() != null) specs.put("处理器", sku.getCpu());
-            if (sku.getRam() != null) specs.put("内存容量", sku.getRam());
-            if (sku.getStorage() != null) specs.put("存储容量", sku.getStorage());
-            if (sku.getGpu() != null) specs.put("显卡", sku.getGpu());
-            orderItem.setSkuSpecs(objectMapper.writeValueAsString(specs));
-
-            // 设置商品主图
-            List<String> images = objectMapper.readValue(product.getMainImages(), new TypeReference<List<String>>() {});
-            orderItem.setMainImage(images != null && !images.isEmpty() ? images.get(0) : "");
-
             orderItems.add(orderItem);
-            totalAmount = totalAmount.add(orderItem.getTotalPrice());
-
-            // 6. 计算运费和优惠
-            BigDecimal shippingFee = calculateShippingFee(totalAmount, address);
-            BigDecimal discountAmount = calculateDiscountAmount(userId, totalAmount);
-            BigDecimal payAmount = totalAmount.add(shippingFee).subtract(discountAmount);
-
-            // 7. 生成订单号
-            String orderSn = generateOrderSn();
-
-            // 8. 创建订单
-            Order order = new Order();
-            order.setOrderSn(orderSn);
-            order.setUserId(userId);
-            order.setTotalAmount(totalAmount);
-            order.setShippingFee(shippingFee);
-            order.setDiscountAmount(discountAmount);
-            order.setPayAmount(payAmount);
-
-            // 设置收货地址
-            order.setReceiverName(address.getName());
-            order.setReceiverPhone(address.getPhone());
-            order.setReceiverProvince(address.getProvince());
-            order.setReceiverCity(address.getCity());
-            order.setReceiverDistrict(address.getDistrict());
-            order.setReceiverDetail(address.getDetail());
-            order.setReceiverPostalCode(address.getPostalCode());
-
-            order.setStatus(0); // 0: 待付款
-            order.setPaymentMethod(0); // 0: 未支付
-            order.setBuyerRemark(request.getBuyerRemark());
+
+            // 4. 生成订单号，计算运费和优惠并创建订单
+            String orderSn = snowflakeIdGenerator.nextOrderSn();
+            Order order = buildOrder(userId, orderSn, address, orderItems, request.getBuyerRemark());
 
             int orderResult = orderMapper.insert(order);
             if (orderResult <= 0) {
                 throw new BusinessException(ErrorCode.ORDER_CREATE_FAILED);
             }
 
-            // 9. 批量插入订单项
+            // 5. 批量插入订单项
             for (OrderItem item : orderItems) {
                 item.setOrderId(order.getId());
             }
@@ -416,21 +566,18 @@ public class OrderServiceImpl implements OrderService {
                 throw new BusinessException(ErrorCode.ORDER_CREATE_FAILED);
             }
 
-            // 10. 扣减库存（实际业务中可能需要预扣库存，这里简化处理）
-            // TODO: 实际业务中需要考虑库存锁定机制
-
-
-            // 11. 返回响应
-            OrderCreateResponse response = new OrderCreateResponse();
-            response.setOrderSn(orderSn);
-            response.setTotalAmount(totalAmount);
-            response.setPayAmount(payAmount);
-            response.setExpiresIn(1800); // 30分钟支付时间
+            // 6. 预占库存（条件扣减，库存不足时抛出异常，整个事务回滚）
+            LocalDateTime expireTime = LocalDateTime.now().plusSeconds(PAY_TIMEOUT_SECONDS);
+            if (!inventoryService.reserve(orderSn, orderItems, expireTime)) {
+                throw new BusinessException(ErrorCode.PRODUCT_STOCK_NOT_ENOUGH);
+            }
+            registerExpiryAfterCommit(orderSn, expireTime);
 
+            // 7. 返回响应
             log.info("单个商品订单创建成功: orderSn={}, userId={}, totalAmount={}",
-                    orderSn, userId, totalAmount);
+                    orderSn, userId, order.getTotalAmount());
 
-            return response;
+            return buildCreateResponse(order);
 
         } catch (BusinessException e) {
             log.warn("创建单个商品订单业务异常: userId={}, message={}", userId, e.getMessage());
@@ -480,7 +627,23 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException(ErrorCode.ORDER_STATUS_ERROR, "订单状态更新失败");
         }
 
-        // 4. 构建响应
+        // 4. 处理库存预占（先更新订单再处理预占，与超时取消的加锁顺序保持一致）
+        if (action == 0) {
+            // 确认收货：订单完成，累加SKU和商品销量
+            increaseSales(order);
+        } else if (action == 1) {
+            // 取消订单：释放预占库存
+            inventoryService.release(orderSn);
+            unregisterExpiryAfterCommit(orderSn);
+        } else if (action == 3) {
+            // 支付订单：预占已被超时释放，不能再支付（抛出异常回滚订单状态）
+            if (!inventoryService.confirm(orderSn)) {
+                throw new BusinessException(ErrorCode.ORDER_PAY_EXPIRED);
+            }
+            unregisterExpiryAfterCommit(orderSn);
+        }
+
+        // 5. 构建响应
         OrderUpdateResponse response = new OrderUpdateResponse();
         response.setOrderSn(orderSn);
         response.setStatus(order.getStatus());
@@ -520,6 +683,85 @@ public class OrderServiceImpl implements OrderService {
         order.setCancelReason(reason);
     }
 
+    @Override
+    @Transactional
+    public int cancelTimeoutOrders(List<String> orderSns) {
+        if (orderSns == null || orderSns.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 只处理仍为待付款的订单
+        List<Order> pendingOrders = orderMapper.selectPendingByOrderSns(orderSns);
+
+        int cancelledCount = 0;
+        for (Order order : pendingOrders) {
+            // 2. 复用取消订单逻辑设置状态，再以条件更新写库（期间被支付的订单不会被取消）
+            cancelOrder(order, order.getStatus(), TIMEOUT_CANCEL_REASON);
+            if (orderMapper.cancelIfPending(order) <= 0) {
+                continue;
+            }
+
+            // 3. 释放预占库存
+            inventoryService.release(order.getOrderSn());
+            cancelledCount++;
+        }
+
+        if (cancelledCount > 0) {
+            log.info("超时订单取消完成: 待处理={}, 实际取消={}", orderSns.size(), cancelledCount);
+        }
+        return cancelledCount;
+    }
+
+    /**
+     * 订单完成时累加SKU销量和商品总销量
+     */
+    private void increaseSales(Order order) {
+        List<OrderItem> orderItems = orderItemMapper.selectByOrderId(order.getId());
+        if (orderItems.isEmpty()) {
+            return;
+        }
+
+        // 同一SKU合并数量，按SKU ID升序更新
+        Map<Integer, Integer> skuQuantities = new TreeMap<>();
+        for (OrderItem item : orderItems) {
+            skuQuantities.merge(item.getSkuId(), item.getQuantity(), Integer::sum);
+        }
+        List<OrderItem> salesItems = new ArrayList<>(skuQuantities.size());
+        for (Map.Entry<Integer, Integer> entry : skuQuantities.entrySet()) {
+            OrderItem item = new OrderItem();
+            item.setSkuId(entry.getKey());
+            item.setQuantity(entry.getValue());
+            salesItems.add(item);
+        }
+
+        productSkuMapper.increaseSalesCount(salesItems);
+        productMapper.increaseTotalSales(salesItems);
+    }
+
+    /**
+     * 事务提交后登记订单到期时间，回滚的订单不会进入时间轮
+     */
+    private void registerExpiryAfterCommit(String orderSn, LocalDateTime expireTime) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderExpiryWheel.register(orderSn, expireTime);
+            }
+        });
+    }
+
+    /**
+     * 事务提交后把已支付或已取消的订单移出时间轮
+     */
+    private void unregisterExpiryAfterCommit(String orderSn) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderExpiryWheel.unregister(orderSn);
+            }
+        });
+    }
+
     /**
      * 申请退款
      */
@@ -766,6 +1008,65 @@ public class OrderServiceImpl implements OrderService {
         return dto;
     }
 
+    /**
+     * 一次联表查询预加载下单涉及的SKU及其商品信息
+     * @param skuIds SKU ID列表
+     * @return SKU ID到下单用SKU视图的映射
+     */
+    private Map<Integer, CheckoutSku> loadCheckoutSkus(List<Integer> skuIds) {
+        List<Integer> distinctSkuIds = skuIds.stream().distinct().collect(Collectors.toList());
+        return productSkuMapper.selectCheckoutSkus(distinctSkuIds).stream()
+                .collect(Collectors.toMap(CheckoutSku::getId, sku -> sku));
+    }
+
+    /**
+     * 校验预加载的SKU（存在、上架、库存、商品状态）并构建订单项
+     * @param sku 预加载的SKU视图，不存在时为null
+     * @param quantity 购买数量
+     * @param stockErrorCode 库存不足时使用的错误码
+     * @return 订单项（尚未设置订单ID）
+     */
+    private OrderItem validateAndBuildOrderItem(CheckoutSku sku, Integer quantity, ErrorCode stockErrorCode)
+            throws JsonProcessingException {
+        // 验证SKU
+        if (sku == null || sku.getIsActive() != 1) {
+            throw new BusinessException(ErrorCode.SKU_NOT_EXIST);
+        }
+
+        // 验证库存
+        if (sku.getStock() < quantity) {
+            throw new BusinessException(stockErrorCode);
+        }
+
+        // 验证商品
+        if (sku.getProductIsActive() == null || sku.getProductIsActive() != 1) {
+            throw new BusinessException(ErrorCode.PRODUCT_NOT_EXIST);
+        }
+
+        // 创建订单项
+        OrderItem orderItem = new OrderItem();
+        orderItem.setSkuId(sku.getId());
+        orderItem.setProductName(sku.getProductName());
+        orderItem.setPrice(sku.getPrice());
+        orderItem.setQuantity(quantity);
+        orderItem.setTotalPrice(sku.getPrice().multiply(BigDecimal.valueOf(quantity)));
+
+        // 设置SKU规格
+        Map<String, String> specs = new HashMap<>();
+        if (sku.getOs() != null) specs.put("操作系统", sku.getOs());
+        if (sku.getCpu() != null) specs.put("处理器", sku.getCpu());
+        if (sku.getRam() != null) specs.put("内存容量", sku.getRam());
+        if (sku.getStorage() != null) specs.put("存储容量", sku.getStorage());
+        if (sku.getGpu() != null) specs.put("显卡", sku.getGpu());
+        orderItem.setSkuSpecs(objectMapper.writeValueAsString(specs));
+
+        // 设置商品主图
+        List<String> images = sku.getProductMainImages();
+        orderItem.setMainImage(images != null && !images.isEmpty() ? images.get(0) : "");
+
+        return orderItem;
+    }
+
     private Address validateAddress(Long userId, Integer addressId) {
         log.info("验证地址：userId={}, addressId={}", userId, addressId);
         if (addressId == null) {
@@ -800,12 +1101,4 @@ public class OrderServiceImpl implements OrderService {
         // 简化处理：无优惠
         return BigDecimal.ZERO;
     }
-
-    private String generateOrderSn() {
-        // 生成订单号：时间戳 + 随机数
-        // 实际项目中应使用分布式ID生成器
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String random = String.valueOf((int)(Math.random() * 9000) + 1000);
-        return timestamp + random;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.common.exception.ErrorCode;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.common.utils.OrderExpiryWheel;
+import com.jingdong.mall.common.utils.SnowflakeIdGenerator;
+import com.jingdong.mall.mapper.OrderMapper;
+import com.jingdong.mall.model.dto.request.OrderCreateFromCartRequest;
+import com.jingdong.mall.model.dto.request.OrderSubmission;
+import com.jingdong.mall.model.dto.response.OrderCreateResponse;
+import com.jingdong.mall.model.dto.response.OrderSubmitResponse;
+import com.jingdong.mall.model.entity.Order;
+import com.jingdong.mall.service.OrderService;
+import com.jingdong.mall.service.OrderSubmitService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class OrderSubmitServiceImpl implements OrderSubmitService {
+
+    // 工作线程等待新提交的超时时间（毫秒），超时后检查是否需要退出
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    // 应用关闭时等待工作线程处理完队列的最长时间（毫秒）
+    private static final long SHUTDOWN_WAIT_MS = 30_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Autowired
+    private LocalCache<String, OrderSubmitResponse> orderSubmitCache;
+
+    // 排队容量，队列满时拒绝新的下单请求
+    @Value("${mall.order.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // 工作线程数，同时占用的数据库连接数不超过该值
+    @Value("${mall.order.async.workers:4}")
+    private int workerCount;
+
+    // 每个工作线程一次最多取出并在一个事务中创建的订单数
+    @Value("${mall.order.async.batch-size:20}")
+    private int batchSize;
+
+    private BlockingQueue<OrderSubmission> queue;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    /**
+     * 启动时创建有界队列和工作线程
+     */
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::drainQueue, "order-submit-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("异步下单工作线程已启动: workers={}, queueCapacity={}, batchSize={}",
+                workerCount, queueCapacity, batchSize);
+    }
+
+    /**
+     * 应用关闭前停止受理新请求，等待工作线程处理完已排队的订单
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT_MS;
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        if (!queue.isEmpty()) {
+            log.error("应用关闭时仍有 {} 个排队的下单请求未处理", queue.size());
+        }
+    }
+
+    @Override
+    public OrderSubmitResponse submitOrderFromCart(Long userId, OrderCreateFromCartRequest request) {
+        // 1. 同步校验地址和购物车条目，明显无效的请求直接返回错误，不占用队列
+        orderService.validateCartCheckout(userId, request);
+
+        // 2. 分配订单号
+        OrderSubmission submission = new OrderSubmission(snowflakeIdGenerator.nextOrderSn(), userId, request);
+
+        // 3. 先登记排队状态再入队（工作线程可能立即处理完并覆盖状态），队列已满时撤销登记并拒绝
+        OrderSubmitResponse queued = new OrderSubmitResponse(
+                submission.getOrderSn(), OrderSubmitResponse.Status.QUEUED, null, null);
+        String key = statusKey(userId, submission.getOrderSn());
+        orderSubmitCache.put(key, queued);
+        if (!running || !queue.offer(submission)) {
+            orderSubmitCache.invalidate(key);
+            log.warn("下单排队已满，拒绝请求: userId={}, queueSize={}", userId, queue.size());
+            throw new BusinessException(ErrorCode.ORDER_SYSTEM_BUSY);
+        }
+
+        log.info("下单请求已受理: userId={}, orderSn={}, queueSize={}", userId, submission.getOrderSn(), queue.size());
+        return queued;
+    }
+
+    @Override
+    public OrderSubmitResponse getSubmitStatus(Long userId, String orderSn) {
+        // 1. 受理实例上的状态（缓存键包含用户ID，查不到其他用户的提交）
+        OrderSubmitResponse status = orderSubmitCache.getIfPresent(statusKey(userId, orderSn));
+        if (status != null) {
+            return status;
+        }
+
+        // 2. 状态已过期或由其他实例受理：订单已入库说明创建成功
+        Order order = orderMapper.selectByOrderSnAndUserId(orderSn, userId);
+        if (order == null) {
+            throw new BusinessException(ErrorCode.ORDER_NOT_EXIST);
+        }
+        LocalDateTime expireTime = order.getCreatedTime().plusSeconds(OrderExpiryWheel.PAY_TIMEOUT_SECONDS);
+        int expiresIn = (int) Math.max(0, Duration.between(LocalDateTime.now(), expireTime).getSeconds());
+        OrderCreateResponse created = new OrderCreateResponse(
+                order.getOrderSn(), order.getTotalAmount(), order.getPayAmount(), expiresIn);
+        return new OrderSubmitResponse(orderSn, OrderSubmitResponse.Status.SUCCESS, null, created);
+    }
+
+    /**
+     * 工作线程：每次取出一批排队的提交并创建订单，停止受理后处理完队列再退出
+     */
+    private void drainQueue() {
+        List<OrderSubmission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderSubmission first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("异步下单工作线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 创建一批订单
+     * 1. 整批在一个事务中创建（订单、订单项各一条批量INSERT），校验失败、库存不足、购物车项已被并发下单的提交单独记为失败
+     * 2. 整批回滚时（死锁、写库出错等）逐个在独立事务中重试，互不影响
+     * 3. 事务提交后再公布结果，轮询不会看到随后被回滚的订单
+     */
+    private void processBatch(List<OrderSubmission> batch) {
+        for (OrderSubmission submission : batch) {
+            publish(submission, OrderSubmitResponse.Status.PROCESSING, null, null);
+        }
+
+        // 1. 整批创建
+        try {
+            orderService.createOrdersFromCart(batch);
+            for (OrderSubmission submission : batch) {
+                publishResult(submission);
+            }
+            return;
+        } catch (Exception e) {
+            log.warn("异步下单整批创建失败，逐个重试: batchSize={}, message={}", batch.size(), e.getMessage());
+        }
+
+        // 2. 逐个重试
+        for (OrderSubmission submission : batch) {
+            submission.setResponse(null);
+            submission.setError(null);
+            try {
+                submission.setResponse(orderService.createOrderFromCart(
+                        submission.getUserId(), submission.getRequest(), submission.getOrderSn()));
+            } catch (BusinessException e) {
+                submission.setError(e);
+            } catch (Exception e) {
+                log.error("异步下单创建订单失败: orderSn={}", submission.getOrderSn(), e);
+                submission.setError(new BusinessException(ErrorCode.ORDER_CREATE_FAILED));
+            }
+            publishResult(submission);
+        }
+    }
+
+    private void publishResult(OrderSubmission submission) {
+        if (submission.getError() != null) {
+            publish(submission, OrderSubmitResponse.Status.FAILED, submission.getError().getMessage(), null);
+        } else {
+            publish(submission, OrderSubmitResponse.Status.SUCCESS, null, submission.getResponse());
+        }
+    }
+
+    private void publish(OrderSubmission submission, int status, String message, OrderCreateResponse order) {
+        orderSubmitCache.put(statusKey(submission.getUserId(), submission.getOrderSn()),
+                new OrderSubmitResponse(submission.getOrderSn(), status, message, order));
+    }
+
+    private String statusKey(Long userId, String orderSn) {
+        return userId + ":" + orderSn;
+    }
+}
@@ -6,11 +6,14 @@ import com.jingdong.mall.mapper.ProductCategoryMapper;
 import com.jingdong.mall.model.dto.request.ProductCategoryAddRequest;
 import com.jingdong.mall.model.dto.response.ProductCategoryAddResponse;
 import com.jingdong.mall.model.entity.ProductCategory;
+import com.jingdong.mall.service.CatalogService;
 import com.jingdong.mall.service.ProductCategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Slf4j
 @Service
@@ -19,6 +22,9 @@ public class ProductCategoryServiceImpl implements ProductCategoryService {
     @Autowired
     private ProductCategoryMapper productCategoryMapper;
 
+    @Autowired
+    private CatalogService catalogService;
+
     @Override
     @Transactional
     public ProductCategoryAddResponse addCategory(ProductCategoryAddRequest request) {
@@ -33,26 +39,52 @@ public class ProductCategoryServiceImpl implements ProductCategoryService {
             throw new BusinessException(ErrorCode.CATEGORY_NAME_EXIST);
         }
 
-        // 3. 构建分类实体（默认父级ID=0，层级=1，排序=0，状态=启用）
+        // 3. 校验上级分类（未指定时为一级分类），层级为上级分类层级+1
+        int parentId = request.getParentId() != null ? request.getParentId() : 0;
+        int level = 1;
+        if (parentId > 0) {
+            ProductCategory parent = productCategoryMapper.selectActiveById(parentId);
+            if (parent == null) {
+                throw new BusinessException(ErrorCode.CATEGORY_PARENT_NOT_EXIST);
+            }
+            level = parent.getLevel() + 1;
+        }
+
+        // 4. 构建分类实体（排序=0，状态=启用）
         ProductCategory category = new ProductCategory();
         category.setName(request.getName());
         category.setSubTitle(request.getSubTitle());
         category.setThemeColor(request.getThemeColor());
-        category.setParentId(0); // 一级分类
-        category.setLevel(1);
+        category.setParentId(parentId);
+        category.setLevel(level);
         category.setSortOrder(0);
         category.setIsActive(1); // 启用状态
 
-        // 4. 保存到数据库
+        // 5. 保存到数据库
         int result = productCategoryMapper.insert(category);
         if (result <= 0) {
             log.error("创建分类失败：name={}", request.getName());
             throw new BusinessException(ErrorCode.CATEGORY_CREATE_FAILED);
         }
 
-        // 5. 构建响应
+        // 6. 事务提交后立即重建分类树，新分类马上可以用于商品筛选
+        reloadCategoriesAfterCommit();
+
+        // 7. 构建响应
         ProductCategoryAddResponse response = new ProductCategoryAddResponse();
         response.setId(category.getId());
         return response;
     }
+
+    /**
+     * 事务提交后重建分类树，回滚时不重建
+     */
+    private void reloadCategoriesAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalogService.reloadCategories();
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.common.utils.FacetIndex;
+import com.jingdong.mall.common.utils.SkuAttributeStore;
+import com.jingdong.mall.model.dto.request.ProductListRequest;
+import com.jingdong.mall.model.dto.response.ProductFacetResponse;
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductCategory;
+import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.service.CatalogService;
+import com.jingdong.mall.service.ProductFacetService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+@Slf4j
+@Service
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+    private static final String CATEGORY = "category";
+
+    // 全部规格条件合并后的筛选条件名
+    private static final String SPEC = "spec";
+
+    // 价格区间边界（元）：3000以下、3000-5000、5000-8000、8000-12000、12000以上
+    private static final double[] PRICE_BOUNDARIES = {3000, 5000, 8000, 12000};
+
+    @Autowired
+    private CatalogService catalogService;
+
+    // 当前索引快照，整体替换
+    private volatile Snapshot snapshot;
+
+    @Override
+    public ProductFacetResponse getFacets(ProductListRequest request) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        FacetIndex index = current.index;
+
+        // 1. 关键词条件（所有维度都要满足）
+        long[] base = index.all();
+        if (request.getSearchProductIds() != null) {
+            base = index.select(request.getSearchProductIds());
+        } else if (StringUtils.hasText(request.getKeyword())) {
+            // 搜索索引不可用时与SQL的LIKE保持一致：名称包含关键词（不区分大小写）
+            String keyword = request.getKeyword().toLowerCase(Locale.ROOT);
+            base = index.select(id -> current.lowerNames.getOrDefault(id, "").contains(keyword));
+        }
+
+        // 2. 各维度的筛选条件
+        Map<String, long[]> filters = new LinkedHashMap<>();
+        if (request.getCategoryIds() != null) {
+            // 分类及其子分类的位图求并集
+            long[] categoryMask = new long[index.all().length];
+            for (Integer categoryId : request.getCategoryIds()) {
+                categoryMask = FacetIndex.or(categoryMask, index.match(CATEGORY, String.valueOf(categoryId)));
+            }
+            filters.put(CATEGORY, categoryMask);
+        } else if (request.getCategoryId() != null) {
+            filters.put(CATEGORY, index.match(CATEGORY, String.valueOf(request.getCategoryId())));
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            filters.put("price", index.range(
+                    request.getMinPrice() != null ? request.getMinPrice().doubleValue() : null,
+                    request.getMaxPrice() != null ? request.getMaxPrice().doubleValue() : null));
+        }
+        // 规格条件须由同一个SKU同时满足，不能对各规格的商品位图求交集，合并为一个条件在SKU上筛选
+        Map<String, String> specFilters = request.getSpecFilters();
+        if (!specFilters.isEmpty()) {
+            int[] matched = current.skuAttributes.productIdsMatching(specFilters);
+            filters.put(SPEC, index.select(id -> Arrays.binarySearch(matched, id) >= 0));
+        }
+
+        // 3. 统计每个维度时应用除该维度以外的全部条件
+        ProductFacetResponse response = new ProductFacetResponse();
+
+        Map<String, Integer> categoryCounts = index.counts(CATEGORY, maskExcluding(base, filters, CATEGORY));
+        List<ProductFacetResponse.FacetValue> categories = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : categoryCounts.entrySet()) {
+            String label = current.categoryNames.getOrDefault(Integer.valueOf(entry.getKey()), entry.getKey());
+            categories.add(new ProductFacetResponse.FacetValue(entry.getKey(), label, entry.getValue()));
+        }
+        response.setCategories(categories);
+
+        int[] priceCounts = index.rangeCounts(PRICE_BOUNDARIES, maskExcluding(base, filters, "price"));
+        response.setPriceRanges(buildPriceRanges(priceCounts));
+
+        // 规格维度：除该规格以外还有其它规格条件时，在SKU上统计（取值和其它规格须属于同一个SKU）
+        long[] productMask = maskExcluding(base, filters, SPEC);
+        List<ProductFacetResponse.SpecFacet> specs = new ArrayList<>();
+        for (Map.Entry<String, String> specName : ProductSku.SPEC_NAMES.entrySet()) {
+            Map<String, String> otherSpecs = new LinkedHashMap<>(specFilters);
+            otherSpecs.remove(specName.getKey());
+            Map<String, Integer> counts = otherSpecs.isEmpty()
+                    ? index.counts(specName.getKey(), productMask)
+                    : current.skuAttributes.productCounts(specName.getKey(), otherSpecs,
+                            id -> index.contains(productMask, id));
+            if (counts.isEmpty()) {
+                continue;
+            }
+            List<ProductFacetResponse.FacetValue> values = new ArrayList<>(counts.size());
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                values.add(new ProductFacetResponse.FacetValue(entry.getKey(), entry.getKey(), entry.getValue()));
+            }
+            specs.add(new ProductFacetResponse.SpecFacet(specName.getKey(), specName.getValue(), values));
+        }
+        response.setSpecs(specs);
+
+        return response;
+    }
+
+    /**
+     * 启动时构建分面索引（在商品目录快照加载之后）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        refresh();
+    }
+
+    /**
+     * 每60秒从商品目录快照重建一次分面索引（只读内存，不查询数据库）
+     */
+    @Override
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void refresh() {
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        if (catalog == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        Collection<Product> products = catalog.products();
+        SkuAttributeStore skuAttributes = catalog.getSkuAttributes();
+        Collection<ProductCategory> categoryList = catalog.categories();
+
+        List<Integer> productIds = new ArrayList<>(products.size());
+        Map<Integer, String> lowerNames = new HashMap<>(products.size() * 2);
+        for (Product product : products) {
+            productIds.add(product.getId());
+            lowerNames.put(product.getId(), product.getName() != null ? product.getName().toLowerCase(Locale.ROOT) : "");
+        }
+
+        FacetIndex.Builder builder = new FacetIndex.Builder(productIds);
+        for (Product product : products) {
+            if (product.getCategoryId() != null) {
+                builder.addValue(product.getId(), CATEGORY, String.valueOf(product.getCategoryId()));
+            }
+            if (product.getMinPrice() != null) {
+                builder.setNumber(product.getId(), product.getMinPrice().doubleValue());
+            }
+        }
+        // 规格取值直接从列式存储按商品去重读取，不遍历SKU对象
+        for (Integer productId : productIds) {
+            Map<String, List<String>> specs = skuAttributes.productSpecs(productId, ProductSku.SPEC_NAMES.keySet());
+            for (Map.Entry<String, List<String>> spec : specs.entrySet()) {
+                for (String value : spec.getValue()) {
+                    builder.addValue(productId, spec.getKey(), value);
+                }
+            }
+        }
+
+        Map<Integer, String> categoryNames = new HashMap<>();
+        for (ProductCategory category : categoryList) {
+            categoryNames.put(category.getId(), category.getName());
+        }
+
+        snapshot = new Snapshot(builder.build(), skuAttributes, lowerNames, categoryNames);
+        log.debug("商品分面索引重建完成: 商品数={}, SKU数={}, 耗时={}ms",
+                products.size(), skuAttributes.size(), System.currentTimeMillis() - start);
+    }
+
+    private long[] maskExcluding(long[] base, Map<String, long[]> filters, String excluded) {
+        long[] mask = base;
+        for (Map.Entry<String, long[]> filter : filters.entrySet()) {
+            if (!filter.getKey().equals(excluded)) {
+                mask = FacetIndex.and(mask, filter.getValue());
+            }
+        }
+        return mask;
+    }
+
+    private List<ProductFacetResponse.PriceRangeFacet> buildPriceRanges(int[] counts) {
+        List<ProductFacetResponse.PriceRangeFacet> ranges = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            BigDecimal min = i == 0 ? null : BigDecimal.valueOf((long) PRICE_BOUNDARIES[i - 1]);
+            // 价格筛选的最高价是闭区间，区间上界减去一分钱，避免与下一区间重叠
+            BigDecimal max = i == PRICE_BOUNDARIES.length ? null
+                    : BigDecimal.valueOf((long) PRICE_BOUNDARIES[i]).subtract(new BigDecimal("0.01"));
+            String label;
+            if (min == null) {
+                label = (long) PRICE_BOUNDARIES[0] + "以下";
+            } else if (max == null) {
+                label = (long) PRICE_BOUNDARIES[i - 1] + "以上";
+            } else {
+                label = (long) PRICE_BOUNDARIES[i - 1] + "-" + (long) PRICE_BOUNDARIES[i];
+            }
+            ranges.add(new ProductFacetResponse.PriceRangeFacet(min, max, label, counts[i]));
+        }
+        return ranges;
+    }
+
+    /**
+     * 分面索引快照（SKU列式存储与索引来自同一个目录快照）
+     */
+    private record Snapshot(FacetIndex index, SkuAttributeStore skuAttributes,
+                            Map<Integer, String> lowerNames, Map<Integer, String> categoryNames) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.utils.InvertedIndex;
+import com.jingdong.mall.common.utils.NgramTokenizer;
+import com.jingdong.mall.mapper.ProductMapper;
+import com.jingdong.mall.model.entity.ProductSearchDocument;
+import com.jingdong.mall.service.ProductSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Slf4j
+@Service
+public class ProductSearchServiceImpl implements ProductSearchService {
+
+    // 商品名称的权重（名称中的词重复计入词频）
+    private static final int NAME_WEIGHT = 3;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    // 索引是否已完成首次全量加载
+    private volatile boolean ready;
+
+    // 已同步到索引的最大更新时间
+    private volatile LocalDateTime lastSyncTime;
+
+    /**
+     * 启动时全量加载商品建立索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        List<ProductSearchDocument> documents = productMapper.selectSearchDocuments(null, null);
+
+        Map<Integer, List<String>> tokens = new HashMap<>(documents.size() * 2);
+        LocalDateTime maxUpdatedTime = null;
+        for (ProductSearchDocument document : documents) {
+            if (Integer.valueOf(1).equals(document.getIsActive())) {
+                tokens.put(document.getId(), tokenize(document));
+            }
+            maxUpdatedTime = maxTime(maxUpdatedTime, document.getUpdatedTime());
+        }
+
+        index.rebuild(tokens);
+        lastSyncTime = maxUpdatedTime;
+        ready = true;
+        log.info("商品搜索索引加载完成: 商品数={}, 词数={}, 耗时={}ms",
+                index.size(), index.termCount(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<Integer> search(String keyword, int limit) {
+        if (!ready) {
+            return null;
+        }
+        List<String> terms = NgramTokenizer.tokenizeForQuery(keyword);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return index.search(terms, limit);
+    }
+
+    @Override
+    public void reindex(Integer productId) {
+        if (!ready) {
+            return;
+        }
+        List<ProductSearchDocument> documents = productMapper.selectSearchDocuments(null, productId);
+        if (documents.isEmpty()) {
+            // 商品已被删除
+            index.update(Collections.singletonMap(productId, List.of()));
+        } else {
+            applyChanges(documents);
+        }
+    }
+
+    /**
+     * 每30秒同步一次修改过的商品（按商品及其SKU的updated_time增量拉取）
+     */
+    @Override
+    @Scheduled(fixedDelay = 30000)
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        // 使用 >= 上次的最大更新时间，避免漏掉同一秒内后提交的修改（重复处理是幂等的）
+        List<ProductSearchDocument> documents = productMapper.selectSearchDocuments(lastSyncTime, null);
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        applyChanges(documents);
+        LocalDateTime maxUpdatedTime = lastSyncTime;
+        for (ProductSearchDocument document : documents) {
+            maxUpdatedTime = maxTime(maxUpdatedTime, document.getUpdatedTime());
+        }
+        lastSyncTime = maxUpdatedTime;
+        log.debug("商品搜索索引增量同步: {} 个商品", documents.size());
+    }
+
+    private void applyChanges(List<ProductSearchDocument> documents) {
+        Map<Integer, List<String>> changes = new HashMap<>();
+        for (ProductSearchDocument document : documents) {
+            // 下架商品从索引中删除
+            changes.put(document.getId(), Integer.valueOf(1).equals(document.getIsActive())
+                    ? tokenize(document) : List.of());
+        }
+        index.update(changes);
+    }
+
+    /**
+     * 商品文档分词：名称加权，其余字段各计一次
+     */
+    private List<String> tokenize(ProductSearchDocument document) {
+        List<String> tokens = new ArrayList<>();
+        List<String> nameTokens = NgramTokenizer.tokenizeForIndex(document.getName());
+        for (int i = 0; i < NAME_WEIGHT; i++) {
+            tokens.addAll(nameTokens);
+        }
+
+        if (document.getTags() != null) {
+            tokens.addAll(NgramTokenizer.tokenizeForIndex(String.join(" ", document.getTags())));
+        }
+        tokens.addAll(NgramTokenizer.tokenizeForIndex(document.getModel()));
+        tokens.addAll(NgramTokenizer.tokenizeForIndex(document.getOs()));
+        tokens.addAll(NgramTokenizer.tokenizeForIndex(document.getPositioning()));
+        tokens.addAll(NgramTokenizer.tokenizeForIndex(document.getCpuModel()));
+        tokens.addAll(NgramTokenizer.tokenizeForIndex(document.getCpuSeries()));
+        tokens.addAll(NgramTokenizer.tokenizeForIndex(document.getGpuType()));
+        tokens.addAll(NgramTokenizer.tokenizeForIndex(document.getSkuSpecs()));
+        return tokens;
+    }
+
+    private LocalDateTime maxTime(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -1,17 +1,24 @@
 package com.jingdong.mall.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jingdong.mall.common.exception.BusinessException;
 import com.jingdong.mall.common.exception.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jingdong.mall.common.response.EncodedResponse;
+import com.jingdong.mall.common.response.Result;
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.common.utils.ProductListCursor;
 import com.jingdong.mall.mapper.ProductMapper;
-import com.jingdong.mall.mapper.ProductSkuMapper;
 import com.jingdong.mall.model.dto.request.ProductListRequest;
 import com.jingdong.mall.model.dto.response.ProductDetailResponse;
 import com.jingdong.mall.model.dto.response.ProductListResponse;
 import com.jingdong.mall.model.dto.response.ProductSimpleResponse;
 import com.jingdong.mall.model.entity.Product;
 import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.service.CatalogService;
+import com.jingdong.mall.service.ProductFacetService;
+import com.jingdong.mall.service.ProductSearchService;
 import com.jingdong.mall.service.ProductService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +26,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,15 +37,33 @@ import java.util.stream.Collectors;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    // 关键词搜索最多匹配的商品数
+    private static final int MAX_SEARCH_RESULTS = 1000;
+
     @Autowired
     private ProductMapper productMapper;
 
     @Autowired
-    private ProductSkuMapper productSkuMapper;
+    private CatalogService catalogService;
+
+    @Autowired
+    private LocalCache<Integer, ProductDetailResponse> productDetailCache;
+
+    @Autowired
+    private LocalCache<Integer, EncodedResponse> productDetailBytesCache;
+
+    @Autowired
+    private LocalCache<String, Long> productCountCache;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
     @Override
     public ProductDetailResponse getProductDetail(Integer productId) {
         // 1. 验证商品ID
@@ -42,17 +71,103 @@ public class ProductServiceImpl implements ProductService {
             throw new BusinessException(ErrorCode.PRODUCT_ID_NULL);
         }
 
-        // 2. 查询商品基本信息
-        Product product = productMapper.selectById(productId);
+        // 2. 优先读取本地缓存，未命中时查询数据库并组装（同一商品并发未命中时只查询一次）
+        return productDetailCache.get(productId, this::loadProductDetail);
+    }
+
+    @Override
+    public String getProductDetailVersion(Integer productId) {
+        if (productId == null || productId <= 0) {
+            return null;
+        }
+
+        // 1. 详情已缓存时返回缓存详情的版本（即本次会返回的内容）
+        ProductDetailResponse cached = productDetailCache.getIfPresent(productId);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+
+        // 2. 未缓存时按构建详情用的同一份数据计算，不组装详情
+        Product product = catalogService.getProduct(productId);
         if (product == null) {
-            throw new BusinessException(ErrorCode.PRODUCT_NOT_EXIST);
+            return null;
+        }
+        return computeDetailVersion(product, catalogService.getProductSkus(productId));
+    }
+
+    @Override
+    public EncodedResponse getEncodedProductDetail(Integer productId) {
+        // 1. 缓存的序列化结果与当前版本一致时直接返回，版本不一致的旧结果会被删除
+        String version = getProductDetailVersion(productId);
+        if (version != null) {
+            EncodedResponse cached = productDetailBytesCache.getIfPresent(productId,
+                    encoded -> version.equals(encoded.getVersion()));
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // 2. 组装详情并序列化（同一商品并发未命中时只序列化一次）
+        return productDetailBytesCache.get(productId, this::encodeProductDetail);
+    }
+
+    @Override
+    public void refreshProductSummary(Integer productId) {
+        productMapper.refreshMinPrice(productId);
+        productSearchService.reindex(productId);
+        evictProductDetail(productId);
+    }
+
+    @Override
+    public void evictProductDetail(Integer productId) {
+        productDetailCache.invalidate(productId);
+        productDetailBytesCache.invalidate(productId);
+        log.info("清除商品详情缓存: productId={}", productId);
+    }
+
+    @Override
+    public void evictAllProductDetails() {
+        productDetailCache.invalidateAll();
+        productDetailBytesCache.invalidateAll();
+        log.info("清除全部商品详情缓存");
+    }
+
+    /**
+     * 序列化商品详情响应
+     */
+    private EncodedResponse encodeProductDetail(Integer productId) {
+        ProductDetailResponse detail = getProductDetail(productId);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(Result.success("获取商品详情成功", detail));
+            return EncodedResponse.of(detail.getVersion(), json);
+        } catch (JsonProcessingException e) {
+            log.error("序列化商品详情失败: productId={}", productId, e);
+            throw new BusinessException("获取商品详情失败，请稍后重试");
+        }
+    }
+
+    /**
+     * 加载商品详情（优先读商品目录快照）
+     */
+    private ProductDetailResponse loadProductDetail(Integer productId) {
+        // 1. 商品在目录快照中时，商品、SKU列表和规格可选值都从同一个快照读取
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        Product cached = catalog != null ? catalog.getProduct(productId) : null;
+        if (cached != null) {
+            Map<String, List<String>> specValues = catalog.getSkuAttributes()
+                    .productSpecs(productId, ProductSku.SPEC_NAMES.keySet());
+            return buildProductDetailResponse(cached, catalog.getProductSkus(productId), specValues);
         }
 
-        // 3. 查询商品SKU列表
-        List<ProductSku> skus = productSkuMapper.selectByProductId(productId);
+        // 2. 快照未就绪或商品刚上架尚未同步时查数据库
+        Product product = catalogService.getProduct(productId);
+        if (product == null) {
+            throw new BusinessException(ErrorCode.PRODUCT_NOT_EXIST);
+        }
+        List<ProductSku> skus = catalogService.getProductSkus(productId);
 
-        // 4. 构建商品详情响应
-        return buildProductDetailResponse(product, skus);
+        // 3. 构建商品详情响应
+        return buildProductDetailResponse(product, skus, null);
     }
 
     @Override
@@ -63,24 +178,56 @@ public class ProductServiceImpl implements ProductService {
             // 1. 参数校验
             validateProductListRequest(request);
 
-            // 2. 查询商品列表
-            List<Product> products = productMapper.selectProductList(request);
+            // 2. 关键词搜索：先查内存搜索索引，只有索引未就绪（返回null）时才回退到数据库LIKE查询；
+            //    索引确定没有匹配的商品时直接返回空页，不再用LIKE全表扫描
+            if (StringUtils.hasText(request.getKeyword())) {
+                List<Integer> productIds = productSearchService.search(request.getKeyword(), MAX_SEARCH_RESULTS);
+                if (productIds != null) {
+                    request.setSearchProductIds(productIds);
+                }
+            }
+            if (request.getSearchProductIds() != null && request.getSearchProductIds().isEmpty()) {
+                log.info("商品列表查询成功, 搜索没有匹配的商品: keyword={}", request.getKeyword());
+                return buildProductListResponse(request, List.of(), 0L, null);
+            }
+            // 没有搜索结果可用时相关度排序等同于按最新创建排序
+            if ("relevance".equals(request.getSort()) && request.getSearchProductIds() == null) {
+                request.setSort("created_desc");
+            }
 
-            // 3. 统计总数
-            Long total = productMapper.countProductList(request);
+            // 3. 分类筛选包含全部子分类（子树ID在分类树中预先计算好）
+            if (request.getCategoryId() != null) {
+                request.setCategoryIds(catalogService.getCategoryScope(request.getCategoryId()));
+            }
 
-            // 4. 转换为响应对象
-            List<ProductSimpleResponse> productSimpleList = convertToProductSimpleList(products);
+            // 4. 查询商品列表（游标分页时从游标位置之后查询，多查一条判断是否还有下一页）
+            //    没有关键词和规格筛选的价格排序直接在目录快照的价格索引上分页，不查数据库
+            if (StringUtils.hasText(request.getCursor())) {
+                request.setAfterCursor(ProductListCursor.decode(request.getSort(), request.getCursor()));
+            }
+            List<Product> priceIndexed = findInPriceIndex(request);
+            List<Product> products = priceIndexed != null
+                    ? pageOfPriceIndex(request, priceIndexed)
+                    : productMapper.selectProductList(request);
+            boolean hasMore = products.size() > request.getPageSize();
+            if (hasMore) {
+                products = products.subList(0, request.getPageSize());
+            }
+
+            // 5. 统计总数：页码分页默认返回、游标分页默认不返回；相同筛选条件的总数短时间缓存
+            boolean withTotal = request.getWithTotal() != null ? request.getWithTotal() : request.getAfterCursor() == null;
+            Long total = null;
+            if (withTotal) {
+                total = priceIndexed != null
+                        ? Long.valueOf(priceIndexed.size())
+                        : productCountCache.get(request.getFilterSignature(), key -> productMapper.countProductList(request));
+            }
 
-            // 5. 构建响应
-            ProductListResponse response = new ProductListResponse();
-            response.setProductSimple(productSimpleList);
-            response.setTotal(total);
-            response.setPage(request.getPage());
-            // 将pageSize转换为字符串类型，符合OpenAPI规范
-            response.setPageSize(String.valueOf(request.getPageSize()));
+            // 6. 转换为响应对象并构建响应
+            ProductListResponse response = buildProductListResponse(request, convertToProductSimpleList(products),
+                    total, hasMore ? buildNextCursor(request, products) : null);
 
-            log.info("商品列表查询成功, 总记录数: {}, 当前页记录数: {}", total, productSimpleList.size());
+            log.info("商品列表查询成功, 总记录数: {}, 当前页记录数: {}", total, response.getProductSimple().size());
             return response;
 
         } catch (BusinessException e) {
@@ -92,6 +239,99 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    /**
+     * 构建商品列表响应
+     */
+    private ProductListResponse buildProductListResponse(ProductListRequest request,
+                                                         List<ProductSimpleResponse> productSimpleList,
+                                                         Long total, String nextCursor) {
+        ProductListResponse response = new ProductListResponse();
+        response.setProductSimple(productSimpleList);
+        response.setTotal(total);
+        response.setNextCursor(nextCursor);
+        response.setPage(request.getPage());
+        // 将pageSize转换为字符串类型，符合OpenAPI规范
+        response.setPageSize(String.valueOf(request.getPageSize()));
+        // 分面统计在内存位图上计算，不额外查询数据库；只在第一页返回，游标翻页时筛选条件不变，沿用第一页的结果
+        if (request.getAfterCursor() == null) {
+            response.setFacets(productFacetService.getFacets(request));
+        }
+        return response;
+    }
+
+    /**
+     * 从目录快照的价格索引中取出全部匹配的商品（按最低价升序）
+     * 只处理价格排序、没有关键词和规格筛选的请求，其他请求或快照未就绪时返回null，由调用方查数据库
+     */
+    private List<Product> findInPriceIndex(ProductListRequest request) {
+        if (!"price_asc".equals(request.getSort()) && !"price_desc".equals(request.getSort())) {
+            return null;
+        }
+        if (StringUtils.hasText(request.getKeyword()) || request.getSearchProductIds() != null
+                || !request.getSpecFilters().isEmpty()) {
+            return null;
+        }
+        CatalogSnapshot catalog = catalogService.getSnapshot();
+        if (catalog == null) {
+            return null;
+        }
+        return catalog.getProductsByPrice(request.getCategoryIds(), request.getMinPrice(), request.getMaxPrice());
+    }
+
+    /**
+     * 在按最低价升序的商品列表上取当前页（多取一条判断是否还有下一页）
+     * 游标位置二分查找得到；降序时从游标之前的位置倒序取
+     */
+    private List<Product> pageOfPriceIndex(ProductListRequest request, List<Product> ascending) {
+        boolean descending = "price_desc".equals(request.getSort());
+        ProductListCursor cursor = request.getAfterCursor();
+        int from = 0;
+        int to = ascending.size();
+        int skip;
+        if (cursor != null) {
+            Product position = new Product();
+            position.setMinPrice((BigDecimal) cursor.getValue());
+            position.setId(cursor.getId());
+            int index = Collections.binarySearch(ascending, position, CatalogSnapshot.PRODUCT_PRICE_ORDER);
+            if (descending) {
+                to = index >= 0 ? index : -index - 1;
+            } else {
+                from = index >= 0 ? index + 1 : -index - 1;
+            }
+            skip = cursor.getOffset() != null ? cursor.getOffset() : 0;
+        } else {
+            skip = request.getOffset();
+        }
+
+        int limit = request.getPageSize() + 1;
+        List<Product> page = new ArrayList<>(limit);
+        if (descending) {
+            for (int i = to - 1 - skip; i >= from && page.size() < limit; i--) {
+                page.add(ascending.get(i));
+            }
+        } else {
+            for (int i = from + skip; i < to && page.size() < limit; i++) {
+                page.add(ascending.get(i));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 生成下一页游标
+     */
+    private String buildNextCursor(ProductListRequest request, List<Product> products) {
+        ProductListCursor cursor = request.getAfterCursor();
+        int start;
+        if (cursor != null) {
+            start = cursor.getOffset() != null ? cursor.getOffset() : 0;
+        } else {
+            start = request.getOffset();
+        }
+        Product last = products.get(products.size() - 1);
+        return ProductListCursor.after(request.getSort(), last, start + products.size()).encode();
+    }
+
     // 在 validateProductListRequest 方法中，修正正则表达式验证：
     /**
      * 验证商品列表查询请求参数
@@ -126,9 +366,11 @@ public class ProductServiceImpl implements ProductService {
             throw new BusinessException(ErrorCode.CATEGORY_ID_INVALID);
         }
 
-        // 排序方式验证
-        if (org.springframework.util.StringUtils.hasText(request.getSort())) {
-            String[] validSorts = {"price_asc", "price_desc", "created_desc", "sales_desc"};
+        // 排序方式验证：未指定时有关键词按相关度排序，否则按创建时间排序
+        if (!StringUtils.hasText(request.getSort())) {
+            request.setSort(StringUtils.hasText(request.getKeyword()) ? "relevance" : "created_desc");
+        } else {
+            String[] validSorts = {"price_asc", "price_desc", "created_desc", "sales_desc", "relevance"};
             boolean isValid = false;
             for (String validSort : validSorts) {
                 if (validSort.equals(request.getSort())) {
@@ -177,52 +419,25 @@ public class ProductServiceImpl implements ProductService {
     }
 
     /**
-     * 从JSON字符串中提取第一张图片
+     * 提取第一张图片
      */
-    private String extractFirstImage(String mainImagesJson) {
-        if (!StringUtils.hasText(mainImagesJson)) {
-            return "https://example.com/default-product.jpg";
-        }
-
-        try {
-            List<String> images = objectMapper.readValue(
-                    mainImagesJson,
-                    new TypeReference<List<String>>() {}
-            );
-            if (images != null && !images.isEmpty()) {
-                return images.get(0);
-            }
-        } catch (Exception e) {
-            log.warn("解析商品主图JSON失败: {}", mainImagesJson, e);
-        }
-
-        return "https://example.com/default-product.jpg";
+    private String extractFirstImage(List<String> mainImages) {
+        return mainImages != null && !mainImages.isEmpty() ? mainImages.get(0) : "https://example.com/default-product.jpg";
     }
 
     /**
-     * 从JSON字符串中提取第一个标签
+     * 提取第一个标签
      */
-    private String extractFirstTag(String tagsJson) {
-        if (!StringUtils.hasText(tagsJson)) {
-            return "商品";
-        }
-
-        try {
-            List<String> tags = objectMapper.readValue(
-                    tagsJson,
-                    new TypeReference<List<String>>() {}
-            );
-            if (tags != null && !tags.isEmpty()) {
-                return tags.get(0);
-            }
-        } catch (Exception e) {
-            log.warn("解析商品标签JSON失败: {}", tagsJson, e);
-        }
-
-        return "商品";
+    private String extractFirstTag(List<String> tags) {
+        return tags != null && !tags.isEmpty() ? tags.get(0) : "商品";
     }
 
-    private ProductDetailResponse buildProductDetailResponse(Product product, List<ProductSku> skus) {
+    /**
+     * 构建商品详情
+     * @param specValues 规格字段 -> 可选值（已从列式存储统计好时传入），为null时遍历SKU时统计
+     */
+    private ProductDetailResponse buildProductDetailResponse(Product product, List<ProductSku> skus,
+                                                             Map<String, List<String>> specValues) {
         ProductDetailResponse response = new ProductDetailResponse();
 
         // 基本信息
@@ -231,97 +446,120 @@ public class ProductServiceImpl implements ProductService {
         response.setDesc(product.getDescription());
         response.setDetailHtml(product.getDetailHtml());
 
-        // 价格范围
-        BigDecimal minPrice = productSkuMapper.selectMinPrice(product.getId());
-        BigDecimal maxPrice = productSkuMapper.selectMaxPrice(product.getId());
-        response.setPriceRange(String.format("¥%.0f - ¥%.0f", minPrice, maxPrice));
+        // 主图列表（查询时已解析为不可变列表）
+        response.setMainImages(product.getMainImages() != null ? product.getMainImages() : List.of());
 
-        // 主图列表
-        try {
-            List<String> mainImages = objectMapper.readValue(
-                    product.getMainImages(),
-                    new TypeReference<List<String>>() {}
-            );
-            response.setMainImages(mainImages);
-        } catch (Exception e) {
-            log.warn("解析商品主图失败: productId={}", product.getId());
-            response.setMainImages(new ArrayList<>());
+        // 单次遍历SKU列表，同时得到价格范围、规格可选值和SKU列表，不再单独查询最低/最高价
+        BigDecimal minPrice = null;
+        BigDecimal maxPrice = null;
+        Map<String, Set<String>> specMap = specValues == null ? new LinkedHashMap<>() : null;
+        List<ProductDetailResponse.ProductSkuResponse> skuResponses = new ArrayList<>(skus.size());
+        for (ProductSku sku : skus) {
+            BigDecimal price = sku.getPrice();
+            if (price != null) {
+                if (minPrice == null || price.compareTo(minPrice) < 0) {
+                    minPrice = price;
+                }
+                if (maxPrice == null || price.compareTo(maxPrice) > 0) {
+                    maxPrice = price;
+                }
+            }
+
+            // SKU规格
+            Map<String, String> specs = new HashMap<>();
+            collectSpec(specMap, specs, "os", sku.getOs());
+            collectSpec(specMap, specs, "cpu", sku.getCpu());
+            collectSpec(specMap, specs, "ram", sku.getRam());
+            collectSpec(specMap, specs, "storage", sku.getStorage());
+            collectSpec(specMap, specs, "gpu", sku.getGpu());
+
+            skuResponses.add(buildSkuResponse(sku, specs));
         }
 
+        // 价格范围
+        response.setPriceRange(String.format("¥%.0f - ¥%.0f", minPrice, maxPrice));
+
         // 规格列表
-        response.setSpecs(buildProductSpecs(skus));
+        response.setSpecs(buildProductSpecs(specValues != null ? specValues : specMap));
 
         // SKU列表
-        response.setSkus(buildSkuResponses(skus));
+        response.setSkus(skuResponses);
 
         // 商品参数
         response.setParams(buildProductParams(product));
 
+        // 版本号
+        response.setVersion(computeDetailVersion(product, skus));
+
         return response;
     }
 
-    private List<ProductDetailResponse.ProductSpec> buildProductSpecs(List<ProductSku> skus) {
-        // 从SKU中提取所有可能的规格
-        Map<String, Set<String>> specMap = new LinkedHashMap<>();
-
-        // 定义规格名称映射
-        Map<String, String> specNameMap = new HashMap<>();
-        specNameMap.put("os", "操作系统");
-        specNameMap.put("cpu", "处理器");
-        specNameMap.put("ram", "内存容量");
-        specNameMap.put("storage", "存储容量");
-        specNameMap.put("gpu", "显卡");
-
+    /**
+     * 计算详情版本号（ETag）：商品ID-商品更新时间-SKU摘要
+     * SKU摘要是各SKU的ID、更新时间、价格、库存的SHA-1（取前8字节）；
+     * updated_time只精确到秒，同一秒内的多次库存变化只比较更新时间区分不出来，因此价格和库存按内容参与摘要
+     */
+    private String computeDetailVersion(Product product, List<ProductSku> skus) {
+        StringBuilder content = new StringBuilder();
         for (ProductSku sku : skus) {
-            addSpecValue(specMap, "os", sku.getOs());
-            addSpecValue(specMap, "cpu", sku.getCpu());
-            addSpecValue(specMap, "ram", sku.getRam());
-            addSpecValue(specMap, "storage", sku.getStorage());
-            addSpecValue(specMap, "gpu", sku.getGpu());
+            content.append(sku.getId()).append(',')
+                    .append(sku.getUpdatedTime()).append(',')
+                    .append(sku.getPrice() != null ? sku.getPrice().toPlainString() : "").append(',')
+                    .append(sku.getStock()).append(';');
         }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1摘要算法不可用", e);
+        }
+        byte[] hash = digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
 
-        // 转换为ProductSpec列表
-        return specMap.entrySet().stream()
-                .map(entry -> {
-                    ProductDetailResponse.ProductSpec spec = new ProductDetailResponse.ProductSpec();
-                    spec.setName(specNameMap.getOrDefault(entry.getKey(), entry.getKey()));
-                    spec.setValues(new ArrayList<>(entry.getValue()));
-                    return spec;
-                })
-                .collect(Collectors.toList());
+        long updated = product.getUpdatedTime() != null ? product.getUpdatedTime().toEpochSecond(ZoneOffset.UTC) : 0;
+        return "\"" + product.getId() + "-" + Long.toHexString(updated) + "-"
+                + HexFormat.of().formatHex(hash, 0, 8) + "\"";
     }
 
-    private void addSpecValue(Map<String, Set<String>> specMap, String key, String value) {
-        if (value != null && !value.trim().isEmpty()) {
+    /**
+     * 记录SKU的一个规格：写入该SKU的规格表，非空值同时加入商品的规格可选值（specMap为null时不统计）
+     */
+    private void collectSpec(Map<String, Set<String>> specMap, Map<String, String> skuSpecs, String key, String value) {
+        if (value == null) {
+            return;
+        }
+        skuSpecs.put(key, value);
+        if (specMap != null && !value.trim().isEmpty()) {
             specMap.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(value);
         }
     }
 
-    private List<ProductDetailResponse.ProductSkuResponse> buildSkuResponses(List<ProductSku> skus) {
-        return skus.stream().map(sku -> {
-            ProductDetailResponse.ProductSkuResponse skuResponse = new ProductDetailResponse.ProductSkuResponse();
-            skuResponse.setId(sku.getId());
-            skuResponse.setPrice(sku.getPrice());
-            skuResponse.setStock(sku.getStock());
+    private List<ProductDetailResponse.ProductSpec> buildProductSpecs(Map<String, ? extends Collection<String>> specMap) {
+        // 转换为ProductSpec列表
+        List<ProductDetailResponse.ProductSpec> specs = new ArrayList<>(specMap.size());
+        for (Map.Entry<String, ? extends Collection<String>> entry : specMap.entrySet()) {
+            ProductDetailResponse.ProductSpec spec = new ProductDetailResponse.ProductSpec();
+            spec.setName(ProductSku.SPEC_NAMES.getOrDefault(entry.getKey(), entry.getKey()));
+            spec.setValues(new ArrayList<>(entry.getValue()));
+            specs.add(spec);
+        }
+        return specs;
+    }
 
-            // SKU规格
-            Map<String, String> specs = new HashMap<>();
-            if (sku.getOs() != null) specs.put("os", sku.getOs());
-            if (sku.getCpu() != null) specs.put("cpu", sku.getCpu());
-            if (sku.getRam() != null) specs.put("ram", sku.getRam());
-            if (sku.getStorage() != null) specs.put("storage", sku.getStorage());
-            if (sku.getGpu() != null) specs.put("gpu", sku.getGpu());
-            skuResponse.setSpecs(specs);
-
-            // SKU特有参数
-            ProductDetailResponse.SkuDiffParams diffParams = new ProductDetailResponse.SkuDiffParams();
-            diffParams.setSsdCapacity(sku.getSsdCapacity());
-            diffParams.setGpuChip(sku.getGpuChip());
-            diffParams.setVramCapacity(sku.getVramCapacity());
-            skuResponse.setDiffParams(diffParams);
-
-            return skuResponse;
-        }).collect(Collectors.toList());
+    private ProductDetailResponse.ProductSkuResponse buildSkuResponse(ProductSku sku, Map<String, String> specs) {
+        ProductDetailResponse.ProductSkuResponse skuResponse = new ProductDetailResponse.ProductSkuResponse();
+        skuResponse.setId(sku.getId());
+        skuResponse.setPrice(sku.getPrice());
+        skuResponse.setStock(sku.getStock());
+        skuResponse.setSpecs(specs);
+
+        // SKU特有参数
+        ProductDetailResponse.SkuDiffParams diffParams = new ProductDetailResponse.SkuDiffParams();
+        diffParams.setSsdCapacity(sku.getSsdCapacity());
+        diffParams.setGpuChip(sku.getGpuChip());
+        diffParams.setVramCapacity(sku.getVramCapacity());
+        skuResponse.setDiffParams(diffParams);
+
+        return skuResponse;
     }
 
     private ProductDetailResponse.ProductParams buildProductParams(Product product) {
@@ -0,0 +1,142 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.utils.PrefixSuggester;
+import com.jingdong.mall.mapper.ProductMapper;
+import com.jingdong.mall.model.entity.ProductSearchDocument;
+import com.jingdong.mall.service.ProductSuggestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Slf4j
+@Service
+public class ProductSuggestServiceImpl implements ProductSuggestService {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    // 当前联想索引，整体替换
+    private volatile PrefixSuggester suggester = PrefixSuggester.empty();
+
+    // 上架商品ID -> 联想词来源，增量同步时修改后重新构建索引
+    private final Map<Integer, SuggestSource> sources = new HashMap<>();
+
+    // 已同步到索引的最大更新时间
+    private LocalDateTime lastSyncTime;
+
+    private volatile boolean ready;
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        return suggester.suggest(prefix, limit);
+    }
+
+    /**
+     * 启动时全量加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        reload();
+    }
+
+    /**
+     * 每小时全量重建一次，更新销量权重（确认收货累加销量不会修改商品的updated_time）
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        List<ProductSearchDocument> documents = productMapper.selectSearchDocuments(null, null);
+
+        sources.clear();
+        lastSyncTime = apply(documents, null);
+        rebuild();
+        ready = true;
+        log.info("商品联想索引加载完成: 商品数={}, 联想键数={}, 内存约{}KB, 耗时={}ms",
+                sources.size(), suggester.size(), suggester.memoryBytes() / 1024, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 每30秒同步一次新增、修改、下架的商品；有变化时才重新构建，多次修改合并为一次构建
+     */
+    @Override
+    @Scheduled(fixedDelay = 30000)
+    public synchronized void refresh() {
+        if (!ready) {
+            return;
+        }
+        // 使用 >= 上次的最大更新时间，避免漏掉同一秒内后提交的修改（重复处理是幂等的）
+        List<ProductSearchDocument> documents = productMapper.selectSearchDocuments(lastSyncTime, null);
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, SuggestSource> before = new HashMap<>();
+        for (ProductSearchDocument document : documents) {
+            before.put(document.getId(), sources.get(document.getId()));
+        }
+        lastSyncTime = apply(documents, lastSyncTime);
+
+        // 重复拉取到的商品没有变化时不重建
+        boolean changed = false;
+        for (Map.Entry<Integer, SuggestSource> entry : before.entrySet()) {
+            if (!Objects.equals(entry.getValue(), sources.get(entry.getKey()))) {
+                changed = true;
+                break;
+            }
+        }
+        if (changed) {
+            rebuild();
+            log.debug("商品联想索引增量同步: {} 个商品", documents.size());
+        }
+    }
+
+    /**
+     * 把商品变化写入联想词来源，下架商品移除
+     * @return 同步后的最大更新时间
+     */
+    private LocalDateTime apply(List<ProductSearchDocument> documents, LocalDateTime syncTime) {
+        for (ProductSearchDocument document : documents) {
+            if (Integer.valueOf(1).equals(document.getIsActive())) {
+                sources.put(document.getId(), toSource(document));
+            } else {
+                sources.remove(document.getId());
+            }
+            LocalDateTime updatedTime = document.getUpdatedTime();
+            if (updatedTime != null && (syncTime == null || updatedTime.isAfter(syncTime))) {
+                syncTime = updatedTime;
+            }
+        }
+        return syncTime;
+    }
+
+    private void rebuild() {
+        PrefixSuggester.Builder builder = new PrefixSuggester.Builder();
+        for (SuggestSource source : sources.values()) {
+            // 权重为销量，同名商品取销量最高的
+            builder.add(source.name(), source.weight());
+            builder.add(source.model(), source.weight());
+            for (String tag : source.tags()) {
+                builder.add(tag, source.weight());
+            }
+        }
+        suggester = builder.build();
+    }
+
+    private SuggestSource toSource(ProductSearchDocument document) {
+        long weight = document.getTotalSales() != null ? document.getTotalSales() : 0;
+        List<String> tags = document.getTags() != null ? document.getTags() : List.of();
+        return new SuggestSource(document.getName(), document.getModel(), tags, weight);
+    }
+
+    /**
+     * 商品的联想词来源
+     */
+    private record SuggestSource(String name, String model, List<String> tags, long weight) {
+    }
+}
@@ -1,27 +1,27 @@
 // src/main/java/com/jingdong/mall/service/impl/ShoppingCartServiceImpl.java
 package com.jingdong.mall.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jingdong.mall.common.exception.BusinessException;
 import com.jingdong.mall.common.exception.ErrorCode;
-import com.jingdong.mall.mapper.ProductMapper;
-import com.jingdong.mall.mapper.ProductSkuMapper;
+import com.jingdong.mall.common.utils.LocalCache;
 import com.jingdong.mall.mapper.ShoppingCartMapper;
 import com.jingdong.mall.model.dto.request.*;
 import com.jingdong.mall.model.dto.response.*;
 import com.jingdong.mall.model.entity.Product;
 import com.jingdong.mall.model.entity.ProductSku;
 import com.jingdong.mall.model.entity.ShoppingCart;
+import com.jingdong.mall.service.CartWriteBufferService;
+import com.jingdong.mall.service.CatalogService;
 import com.jingdong.mall.service.ShoppingCartService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -36,13 +36,13 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     private ShoppingCartMapper shoppingCartMapper;
 
     @Autowired
-    private ProductSkuMapper productSkuMapper;
+    private CatalogService catalogService;
 
     @Autowired
-    private ProductMapper productMapper;
+    private CartWriteBufferService cartWriteBufferService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private LocalCache<Long, Integer> cartCountCache;
 
     @Override
     public CartListResponse getUserCartList(Long userId) {
@@ -51,22 +51,23 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             throw new BusinessException(ErrorCode.USER_NOT_EXIST);
         }
 
-        // 2. 查询用户购物车数据
-        List<ShoppingCart> cartList = shoppingCartMapper.selectByUserId(userId);
+        // 2. 查询用户购物车数据，并应用尚未回写数据库的修改
+        List<ShoppingCart> cartList = cartWriteBufferService.applyPending(userId, shoppingCartMapper.selectByUserId(userId));
         if (cartList.isEmpty()) {
             return new CartListResponse(new ArrayList<>(), 0, BigDecimal.ZERO);
         }
 
-        // 3. 转换为响应数据
+        // 3. 转换为响应数据（失效、库存不足、价格变动的条目只做标记，不影响整个列表返回）
         List<CartItemResponse> cartItemResponses = convertToCartItemResponses(cartList);
 
-        // 4. 计算总数量和总金额
+        // 4. 计算总数量和总金额（总金额不包含已失效的条目）
         Integer totalCount = cartItemResponses.stream()
                 .mapToInt(CartItemResponse::getCount)
                 .sum();
 
         BigDecimal totalPrice = cartItemResponses.stream()
                 .filter(CartItemResponse::getSelected)
+                .filter(item -> item.getStatus() != CartItemResponse.Status.UNAVAILABLE)
                 .map(item -> item.getPrice().multiply(new BigDecimal(item.getCount())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
@@ -75,58 +76,116 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
     /**
      * 转换购物车实体列表为响应DTO列表
+     * 先批量取出SKU和商品（优先读商品目录快照），再在内存中关联，避免逐条查询
+     * SKU或商品已下架的条目标记为已失效，不抛异常（失效条目由CartSweepUtil定期清理）
      */
     private List<CartItemResponse> convertToCartItemResponses(List<ShoppingCart> cartList) {
+        // 1. 批量查询购物车涉及的SKU
+        List<Integer> skuIds = cartList.stream()
+                .map(ShoppingCart::getSkuId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Integer, ProductSku> skuMap = catalogService.getSkus(skuIds);
+
+        // 2. 批量查询SKU所属的商品
+        List<Integer> productIds = skuMap.values().stream()
+                .map(ProductSku::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Integer, Product> productMap = productIds.isEmpty()
+                ? new HashMap<>()
+                : catalogService.getProducts(productIds);
+
+        // 3. 内存中关联组装响应
         return cartList.stream()
-                .map(this::convertToCartItemResponse)
+                .map(cart -> {
+                    ProductSku sku = skuMap.get(cart.getSkuId());
+                    Product product = sku != null ? productMap.get(sku.getProductId()) : null;
+                    return buildCartItemResponse(cart, sku, product);
+                })
                 .collect(Collectors.toList());
     }
 
     /**
-     * 转换单个购物车实体为响应DTO
+     * 转换单个购物车实体为响应DTO（修改后返回条目使用，已失效的条目只做标记，如取消选中失效条目）
      */
     private CartItemResponse convertToCartItemResponse(ShoppingCart cart) {
-        CartItemResponse response = new CartItemResponse();
-        response.setId(cart.getId().intValue());
         // 修复：用skuId查单个SKU
-        ProductSku sku = productSkuMapper.selectBySkuId(cart.getSkuId());
-        if (sku == null || sku.getIsActive() != 1) {
+        ProductSku sku = catalogService.getSku(cart.getSkuId());
+        Product product = sku != null ? catalogService.getProduct(sku.getProductId()) : null;
+        return buildCartItemResponse(cart, sku, product);
+    }
+
+    /**
+     * 使用已查询到的SKU和商品转换购物车实体为响应DTO（加购、修改单个条目时使用，SKU或商品已下架时抛异常）
+     */
+    private CartItemResponse convertToCartItemResponse(ShoppingCart cart, ProductSku sku, Product product) {
+        if (!isActive(sku)) {
             throw new BusinessException(ErrorCode.SKU_NOT_EXIST);
         }
-
-        Product product = productMapper.selectById(sku.getProductId());
-        if (product == null || product.getIsActive() != 1) {
+        // getProduct/getProducts只返回上架商品，查不到即视为已下架
+        if (!isActive(product)) {
             throw new BusinessException(ErrorCode.PRODUCT_NOT_EXIST);
         }
+        return buildCartItemResponse(cart, sku, product);
+    }
+
+    /**
+     * 组装购物车条目响应DTO并标记条目状态，SKU或商品缺失时只填充能查到的字段
+     */
+    private CartItemResponse buildCartItemResponse(ShoppingCart cart, ProductSku sku, Product product) {
+        CartItemResponse response = new CartItemResponse();
+        response.setId(cart.getId().intValue());
 
         // 封装响应数据
-        response.setProductId(product.getId());
-        response.setSkuId(sku.getId());
-        response.setName(product.getName());
-        response.setImgUrl(extractFirstImage(product.getMainImages()));
-        response.setSpecs(buildSkuSpecs(sku));
-        response.setPrice(sku.getPrice());
+        response.setSkuId(cart.getSkuId());
         response.setCount(cart.getQuantity());
-        response.setStock(sku.getStock());
         response.setSelected(cart.getSelected());
+        response.setAddedPrice(cart.getAddedPrice());
+        if (sku != null) {
+            response.setProductId(sku.getProductId());
+            response.setSpecs(buildSkuSpecs(sku));
+            response.setPrice(sku.getPrice());
+            response.setStock(sku.getStock());
+        }
+        if (product != null) {
+            response.setName(product.getName());
+            response.setImgUrl(extractFirstImage(product.getMainImages()));
+        }
+        response.setStatus(resolveCartItemStatus(cart, sku, product));
 
         return response;
     }
 
     /**
-     * 从商品主图JSON中提取第一张图片
+     * 判断购物车条目状态：已失效 > 库存不足 > 价格变动
      */
-    private String extractFirstImage(String mainImagesJson) {
-        if (!StringUtils.hasText(mainImagesJson)) {
-            return "https://example.com/default-product.jpg";
+    private int resolveCartItemStatus(ShoppingCart cart, ProductSku sku, Product product) {
+        if (!isActive(sku) || !isActive(product) || sku.getPrice() == null) {
+            return CartItemResponse.Status.UNAVAILABLE;
         }
-        try {
-            List<String> images = objectMapper.readValue(mainImagesJson, new TypeReference<List<String>>() {});
-            return images != null && !images.isEmpty() ? images.get(0) : "https://example.com/default-product.jpg";
-        } catch (Exception e) {
-            log.warn("解析商品主图失败", e);
-            return "https://example.com/default-product.jpg";
+        if (sku.getStock() == null || sku.getStock() < cart.getQuantity()) {
+            return CartItemResponse.Status.STOCK_NOT_ENOUGH;
         }
+        if (cart.getAddedPrice() != null && cart.getAddedPrice().compareTo(sku.getPrice()) != 0) {
+            return CartItemResponse.Status.PRICE_CHANGED;
+        }
+        return CartItemResponse.Status.NORMAL;
+    }
+
+    private boolean isActive(ProductSku sku) {
+        return sku != null && sku.getIsActive() != null && sku.getIsActive() == 1;
+    }
+
+    private boolean isActive(Product product) {
+        return product != null && product.getIsActive() != null && product.getIsActive() == 1;
+    }
+
+    /**
+     * 提取商品第一张主图
+     */
+    private String extractFirstImage(List<String> mainImages) {
+        return mainImages != null && !mainImages.isEmpty() ? mainImages.get(0) : "https://example.com/default-product.jpg";
     }
 
     /**
@@ -158,12 +217,12 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             throw new BusinessException(ErrorCode.USER_NOT_EXIST);
         }
         // 2. 验证商品和SKU有效性
-        ProductSku sku = productSkuMapper.selectBySkuId(request.getSkuId());
+        ProductSku sku = catalogService.getSku(request.getSkuId());
         if (sku == null || sku.getIsActive() != 1) {
             throw new BusinessException(ErrorCode.SKU_NOT_EXIST);
         }
 
-        Product product = productMapper.selectById(request.getProductId());
+        Product product = catalogService.getProduct(request.getProductId());
         if (product == null || product.getIsActive() != 1) {
             throw new BusinessException(ErrorCode.PRODUCT_NOT_EXIST);
         }
@@ -173,42 +232,37 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             throw new BusinessException(ErrorCode.PRODUCT_STOCK_NOT_ENOUGH);
         }
 
-        // 4. 查询用户是否已添加该SKU
-        List<ShoppingCart> existingCart = shoppingCartMapper.selectByUserId(userId);
-        ShoppingCart targetCart = existingCart.stream()
-                .filter(cart -> cart.getSkuId().equals(request.getSkuId()))
-                .findFirst()
-                .orElse(null);
+        // 4. 单条语句新增或累加（已有该SKU时累加，累加后的数量不超过库存）
+        // 先回写该用户缓冲中的修改，累加要基于最新数量
+        cartWriteBufferService.flushUser(userId);
+        ShoppingCart targetCart = new ShoppingCart();
+        targetCart.setUserId(userId);
+        targetCart.setSkuId(request.getSkuId());
+        targetCart.setQuantity(request.getCount());
+        int rows = shoppingCartMapper.upsertAdd(targetCart);
 
-        // 5. 已存在则累加数量，不存在则新增
-        if (targetCart != null) {
-            int newCount = targetCart.getQuantity() + request.getCount();
-            if (newCount > sku.getStock()) {
-                throw new BusinessException(ErrorCode.PRODUCT_STOCK_NOT_ENOUGH);
-            }
-            targetCart.setQuantity(newCount);
-            targetCart.setUpdatedTime(LocalDateTime.now());
-            shoppingCartMapper.update(targetCart); // 需新增ShoppingCartMapper的update方法
-        } else {
-            targetCart = new ShoppingCart();
-            targetCart.setUserId(userId);
-            targetCart.setSkuId(request.getSkuId());
-            targetCart.setQuantity(request.getCount());
-            targetCart.setSelected(true); // 默认选中
-            targetCart.setCreatedTime(LocalDateTime.now());
-            targetCart.setUpdatedTime(LocalDateTime.now());
-            shoppingCartMapper.insert(targetCart); // 需新增ShoppingCartMapper的insert方法
-        }
-
-        // 6. 转换为响应DTO并返回
-        return convertToCartItemResponse(targetCart);
+        // 5. 没有写入：目录快照有几秒延迟，数据库中SKU已下架或库存已不足
+        if (rows == 0) {
+            throw new BusinessException(ErrorCode.PRODUCT_STOCK_NOT_ENOUGH);
+        }
+
+        // 6. 影响行数区分不了新增和累加（驱动默认返回匹配行数），累加前的数量也可能被库存截断，
+        // 按唯一键读回写入后的条目，角标数量下次读取时重新统计
+        invalidateCartCountAfterCommit(userId);
+        targetCart = shoppingCartMapper.selectByUserIdAndSkuId(userId, request.getSkuId());
+        if (targetCart == null) {
+            // 写入后、读回前被同一用户的其它请求删除
+            throw new BusinessException(ErrorCode.CART_ITEM_NOT_EXIST);
+        }
+
+        // 7. 使用已校验过的SKU和商品转换为响应DTO，不再重复查询
+        return convertToCartItemResponse(targetCart, sku, product);
     }
 
     /**
      * 更新购物车商品（数量/选中状态）
      */
     @Override
-    @Transactional
     public CartItemResponse updateCart(Long userId, CartUpdateRequest request) {
         // 1. 参数校验
         if (userId == null || userId <= 0) {
@@ -227,7 +281,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         // 3. 校验库存（若更新数量）
         ProductSku sku = null;
         if (request.getCount() != null) {
-            sku = productSkuMapper.selectBySkuId(cartItem.getSkuId());
+            sku = catalogService.getSku(cartItem.getSkuId());
             if (sku == null || sku.getIsActive() != 1) {
                 throw new BusinessException(ErrorCode.SKU_NOT_EXIST);
             }
@@ -237,26 +291,18 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             }
         }
 
-        // 4. 构建更新实体
-        ShoppingCart updateCart = new ShoppingCart();
-        updateCart.setId(cartItem.getId()); // 购物车ID
-        updateCart.setUserId(userId); // 用户ID（用于权限校验）
+        // 4. 修改写入缓冲（连续点击时合并为一次数据库更新，定时批量回写）
+        // 修改前的数量在合并时原子地取得，并发的 +/- 各自按自己之前的数量调整角标
+        Integer pendingQuantity = cartWriteBufferService.bufferUpdate(
+                userId, cartItem.getId(), request.getCount(), request.getSelected());
         if (request.getCount() != null) {
-            updateCart.setQuantity(request.getCount()); // 更新数量
-        }
-        if (request.getSelected() != null) {
-            updateCart.setSelected(request.getSelected()); // 更新选中状态
+            int oldQuantity = pendingQuantity != null ? pendingQuantity : cartItem.getQuantity();
+            adjustCartCount(userId, request.getCount() - oldQuantity);
         }
 
-        // 5. 执行更新
-        int updateResult = shoppingCartMapper.updateCartItem(updateCart);
-        if (updateResult <= 0) {
-            throw new BusinessException("更新购物车失败，请稍后重试");
-        }
-
-        // 6. 查询更新后的完整数据并返回
-        ShoppingCart updatedCart = shoppingCartMapper.selectByIdAndUserId(request.getId(), userId);
-        return convertToCartItemResponse(updatedCart);
+        // 5. 返回应用了本次及之前未回写修改的条目
+        cartWriteBufferService.applyPending(userId, List.of(cartItem));
+        return convertToCartItemResponse(cartItem);
     }
 
     // 新增：批量删除购物车商品
@@ -288,13 +334,20 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         log.info("用户 {} 成功删除购物车项，删除数量：{}，删除ID列表：{}",
                 userId, deletedCount, request.getIds());
 
+        // 角标数量减去被删除条目的数量（包括尚未回写的修改）
+        int removedQuantity = cartWriteBufferService.applyPending(userId, cartItems).stream()
+                .mapToInt(ShoppingCart::getQuantity)
+                .filter(quantity -> quantity > 0)
+                .sum();
+        adjustCartCount(userId, -removedQuantity);
+
         // 4. 构建并返回响应
         return new CartDeleteResponse(deletedCount);
     }
 
     /**
      * 新增：获取购物车商品总数量
-     * 逻辑：查询用户所有购物车条目，累加quantity字段得到总数量
+     * 逻辑：读取缓存的角标数量，未命中时 SELECT SUM(quantity) 统计
      */
     @Override
     public CartCountResponse getCartTotalCount(Long userId) {
@@ -303,17 +356,12 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             throw new BusinessException(ErrorCode.USER_NOT_EXIST);
         }
 
-        // 2. 查询用户购物车列表（复用现有查询逻辑，避免重复代码）
-        List<ShoppingCart> cartList = shoppingCartMapper.selectByUserId(userId);
+        // 2. 优先读取缓存的数量（加购、修改、删除、下单时增量维护），未命中时用聚合查询统计
+        Integer totalCount = cartCountCache.get(userId, this::loadCartCount);
 
-        // 3. 统计总数量（累加所有条目的quantity）
-        Integer totalCount = cartList.stream()
-                .mapToInt(ShoppingCart::getQuantity) // 提取每个条目的数量
-                .sum(); // 求和
+        log.debug("用户 {} 购物车商品总数量：{}", userId, totalCount);
 
-        log.info("用户 {} 购物车商品总数量：{}", userId, totalCount);
-
-        // 4. 封装响应数据
+        // 3. 封装响应数据
         return new CartCountResponse(totalCount);
     }
 
@@ -321,7 +369,6 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      * 批量更新购物车选中状态（全选/取消全选）
      */
     @Override
-    @Transactional
     public CartBatchSelectResponse batchUpdateSelectedStatus(Long userId, CartBatchSelectRequest request) {
         // 1. 参数校验（复用现有校验逻辑，保持一致性）
         if (userId == null || userId <= 0) {
@@ -342,15 +389,11 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             throw new BusinessException("存在无效或不属于当前用户的购物车项");
         }
 
-        // 3. 执行批量更新（复用ShoppingCartMapper新增的batchUpdateSelectedStatus方法）
-        int updatedCount = shoppingCartMapper.batchUpdateSelectedStatus(
-                request.getIds(),
-                userId,
-                request.getSelected()
-        );
-        if (updatedCount <= 0) {
-            throw new BusinessException("批量更新选中状态失败，请稍后重试");
+        // 3. 选中状态写入缓冲（与数量修改合并，定时批量回写）
+        for (ShoppingCart cartItem : cartItems) {
+            cartWriteBufferService.bufferUpdate(userId, cartItem.getId(), null, request.getSelected());
         }
+        int updatedCount = cartItems.size();
 
         log.info("用户 {} 成功批量更新购物车选中状态，更新数量：{}，目标状态：{}，更新ID列表：{}",
                 userId, updatedCount, request.getSelected(), request.getIds());
@@ -373,13 +416,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             throw new BusinessException(ErrorCode.SKU_INVALID);
         }
 
-        // 2. 校验SKU是否存在（避免删除不存在的SKU，提升用户体验）
-        ProductSku sku = productSkuMapper.selectBySkuId(skuId);
-        if (sku == null || sku.getIsActive() != 1) {
-            throw new BusinessException(ErrorCode.SKU_NOT_EXIST);
-        }
-
-        // 3. 执行删除（调用Mapper层新增方法）
+        // 2. 执行删除（按用户ID和SKU ID限定，已下架的SKU也能从购物车删除），先按唯一键读出条目用于调整角标数量
+        ShoppingCart cartItem = shoppingCartMapper.selectByUserIdAndSkuId(userId, skuId);
         int deletedCount = shoppingCartMapper.deleteByUserIdAndSkuId(userId, skuId);
         if (deletedCount <= 0) {
             throw new BusinessException(ErrorCode.SKU_NOT_IN_CART);
@@ -387,8 +425,14 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
         log.info("用户 {} 按SKU ID {} 成功删除购物车商品，删除条目数量：{}",
                 userId, skuId, deletedCount);
+        if (cartItem != null) {
+            cartWriteBufferService.applyPending(userId, List.of(cartItem));
+            adjustCartCount(userId, -cartItem.getQuantity());
+        } else {
+            invalidateCartCountAfterCommit(userId);
+        }
 
-        // 4. 封装响应结果（复用响应DTO格式）
+        // 3. 封装响应结果（复用响应DTO格式）
         return new CartDeleteBySkuResponse(deletedCount);
     }
 
@@ -412,8 +456,49 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
         // 3. 日志记录（复用现有日志格式）
         log.info("用户 {} 成功清空购物车，共删除 {} 条购物车条目", userId, clearedCount);
+        setCartCountAfterCommit(userId, 0);
 
         // 4. 封装响应结果
         return new CartClearResponse(clearedCount);
     }
+
+    @Override
+    public void adjustCartCount(Long userId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        afterCommit(() -> cartCountCache.computeIfPresent(userId, count -> Math.max(0, count + delta)));
+    }
+
+    /**
+     * 聚合统计用户购物车商品总数量（先回写缓冲中的数量修改，统计结果才包含它们）
+     */
+    private Integer loadCartCount(Long userId) {
+        cartWriteBufferService.flushUser(userId);
+        return shoppingCartMapper.sumQuantityByUserId(userId);
+    }
+
+    private void invalidateCartCountAfterCommit(Long userId) {
+        afterCommit(() -> cartCountCache.invalidate(userId));
+    }
+
+    private void setCartCountAfterCommit(Long userId, int count) {
+        afterCommit(() -> cartCountCache.put(userId, count));
+    }
+
+    /**
+     * 在事务中时等事务提交后执行（回滚时不执行），否则立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
\ No newline at end of file
@@ -117,12 +117,19 @@ CREATE TABLE product
     thickness        VARCHAR(50) COMMENT '厚度',
     software         VARCHAR(200) COMMENT '附带软件',
 
+    -- 冗余统计字段（由SKU变更和订单完成时增量维护，每晚全量重建校正）
+    min_price        DECIMAL(10, 2) NULL COMMENT '上架SKU最低价格',
+    total_sales      INT          NOT NULL DEFAULT 0 COMMENT '所有SKU销量之和',
+
     is_active        TINYINT(1)   NOT NULL DEFAULT 1 COMMENT '状态：1上架，0下架',
     created_time     DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_time     DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (id),
     INDEX idx_category_id (category_id),
-    INDEX idx_is_active (is_active),
+    INDEX idx_active_price (is_active, min_price) COMMENT '价格筛选和排序',
+    INDEX idx_active_sales (is_active, total_sales) COMMENT '销量排序',
+    INDEX idx_active_created (is_active, created_time) COMMENT '新品排序',
+    INDEX idx_updated_time (updated_time) COMMENT '商品目录快照增量同步',
     FULLTEXT INDEX idx_name (name) COMMENT '全文索引用于搜索',
     FOREIGN KEY (category_id) REFERENCES product_category (id) ON DELETE SET NULL
 ) ENGINE = InnoDB
@@ -157,6 +164,8 @@ CREATE TABLE product_sku
     is_active     TINYINT(1)              DEFAULT 1,
     created_time  DATETIME                DEFAULT CURRENT_TIMESTAMP,
     updated_time  DATETIME                DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_product_active_price (product_id, is_active, price) COMMENT '商品SKU列表和最低价计算',
+    INDEX idx_updated_time (updated_time) COMMENT '商品目录快照增量同步',
     FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4 COMMENT = '具体产品表（SKU表）';
@@ -169,6 +178,7 @@ CREATE TABLE shopping_cart
     sku_id       INT             NOT NULL COMMENT 'SKU ID',
     quantity     INT             NOT NULL DEFAULT 1 COMMENT '商品数量',
     selected     TINYINT(1)      NOT NULL DEFAULT 1 COMMENT '是否选中：1选中，0未选中',
+    added_price  DECIMAL(10, 2)  NULL COMMENT '加入购物车时的SKU单价，与当前价格不同时提示价格变动',
     created_time DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_time DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (id),
@@ -226,7 +236,7 @@ CREATE TABLE `order`
     updated_time         DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
 
     PRIMARY KEY (id),
-    INDEX idx_user_id (user_id),
+    INDEX idx_user_created (user_id, created_time, id) COMMENT '用户订单列表（游标翻页）',
     INDEX idx_order_sn (order_sn),
     INDEX idx_status (status),
     INDEX idx_created_time (created_time),
@@ -272,4 +282,34 @@ CREATE TABLE carousel
     created_at DATETIME              DEFAULT CURRENT_TIMESTAMP,
     updated_at DATETIME              DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     KEY idx_sort (sort_order)
-) COMMENT ='轮播图表';
\ No newline at end of file
+) COMMENT ='轮播图表';
+
+-- 11.库存预占表（下单时预扣库存，取消或超时未支付时释放）
+CREATE TABLE stock_reservation
+(
+    id           BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    order_sn     VARCHAR(32)     NOT NULL COMMENT '订单编号',
+    sku_id       INT             NOT NULL COMMENT 'SKU ID',
+    quantity     INT             NOT NULL COMMENT '预占数量',
+    status       TINYINT         NOT NULL DEFAULT 0 COMMENT '状态：0预占中，1已确认（已支付），2已释放',
+    stock_synced TINYINT         NOT NULL DEFAULT 1 COMMENT '数据库库存同步状态：0待扣减（热点SKU），1已扣减，2已结清',
+    expire_time  DATETIME        NOT NULL COMMENT '预占过期时间（超过该时间未支付则释放）',
+    created_time DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_time DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_order_sku (order_sn, sku_id), -- 每个订单每个SKU只有一条预占记录
+    INDEX idx_status_expire (status, expire_time),
+    INDEX idx_stock_synced_status (stock_synced, status), -- 热点SKU库存回写时查找未同步的预占记录
+    FOREIGN KEY (sku_id) REFERENCES product_sku (id) ON DELETE CASCADE
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT = '库存预占表';
+
+-- 12.订单号生成器租约表（每个机器ID一行，记录已授权使用到的时间戳，重启后等待时钟越过该时间戳再生成订单号）
+CREATE TABLE order_sn_lease
+(
+    worker_id    INT      NOT NULL COMMENT '订单号生成器机器ID',
+    lease_until  BIGINT   NOT NULL COMMENT '租约截止时间（毫秒时间戳），生成的订单号时间戳不超过该值',
+    updated_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (worker_id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT = '订单号生成器租约表';
@@ -0,0 +1,111 @@
+package com.jingdong.mall.benchmark;
+
+import com.jingdong.mall.common.utils.StripedStockCounter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点SKU库存扣减基准测试：内存分段计数器 vs 直接对同一行product_sku做条件UPDATE
+ * 分别在1、8、64个线程下测试吞吐量（次/秒）。两种方式都要写一条预占记录，这里只比较两者不同的库存扣减部分；
+ * 数据库扣减用自动提交的单条UPDATE，实际下单时行锁要持有到订单事务提交，争用只会更严重。
+ *
+ * 运行方式：
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.jingdong.mall.benchmark.HotSkuStockBenchmark
+ * 默认使用H2内存数据库，用 -Dbenchmark.jdbc-url=... -Dbenchmark.jdbc-user=... -Dbenchmark.jdbc-password=...
+ * 指向MySQL测试库可以得到与生产环境更接近的结果（会创建并删除benchmark_sku表）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotSkuStockBenchmark {
+
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbc-url",
+            "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000");
+    private static final String JDBC_USER = System.getProperty("benchmark.jdbc-user", "sa");
+    private static final String JDBC_PASSWORD = System.getProperty("benchmark.jdbc-password", "");
+
+    // 初始库存足够大，测试期间不会扣完
+    private static final int INITIAL_STOCK = 2_000_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Stock {
+
+        StripedStockCounter counter;
+
+        @Setup(Level.Trial)
+        public void setup() throws SQLException {
+            // 与 mall.hot-sku.stripes 默认值一致
+            counter = new StripedStockCounter(INITIAL_STOCK, 16);
+
+            try (Connection connection = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS benchmark_sku");
+                statement.execute("CREATE TABLE benchmark_sku (id INT PRIMARY KEY, stock INT NOT NULL, " +
+                        "is_active TINYINT NOT NULL DEFAULT 1)");
+                statement.execute("INSERT INTO benchmark_sku (id, stock) VALUES (1, " + INITIAL_STOCK + ")");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Connection connection = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS benchmark_sku");
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DbSession {
+
+        Connection connection;
+        PreparedStatement deduct;
+
+        // 依赖Stock保证建表完成后再打开连接
+        @Setup(Level.Trial)
+        public void open(Stock stock) throws SQLException {
+            connection = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+            connection.setAutoCommit(true);
+            // 与 ProductSkuSqlProvider.deductStock 相同的条件扣减
+            deduct = connection.prepareStatement(
+                    "UPDATE benchmark_sku SET stock = stock - 1 WHERE id = 1 AND is_active = 1 AND stock >= 1");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            deduct.close();
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public boolean hotCounter(Stock stock) {
+        return stock.counter.tryAcquire(1);
+    }
+
+    @Benchmark
+    public int directDb(DbSession session) throws SQLException {
+        return session.deduct.executeUpdate();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64}) {
+            new Runner(new OptionsBuilder()
+                    .include(HotSkuStockBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
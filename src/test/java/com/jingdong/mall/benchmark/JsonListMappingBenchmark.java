@@ -0,0 +1,118 @@
+package com.jingdong.mall.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jingdong.mall.common.handler.JsonStringListTypeHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品列表JSON列映射基准测试：查询一页100个商品，把main_images、tags两个JSON列转换为 List<String>
+ * typeHandler：JsonStringListTypeHandler（相同JSON只解析一次，多行共享结果）；
+ * readValue：每行取出字符串后调用ObjectMapper.readValue解析（类型处理器引入前的做法）。
+ * 两者执行同一条查询，差异只在JSON列的转换。
+ *
+ * 运行方式（类路径准备见 HotSkuStockBenchmark）：
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.jingdong.mall.benchmark.JsonListMappingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonListMappingBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:json_list;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final JsonStringListTypeHandler typeHandler = new JsonStringListTypeHandler();
+
+    private Connection connection;
+    private PreparedStatement select;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS product");
+            statement.execute("CREATE TABLE product (id INT PRIMARY KEY, name VARCHAR(200), " +
+                    "main_images VARCHAR(1000), tags VARCHAR(1000))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO product (id, name, main_images, tags) VALUES (?, ?, ?, ?)")) {
+            for (int id = 1; id <= PAGE_SIZE; id++) {
+                insert.setInt(1, id);
+                insert.setString(2, "商品" + id);
+                insert.setString(3, "[\"/images/products/" + id + "/1.jpg\",\"/images/products/" + id + "/2.jpg\"," +
+                        "\"/images/products/" + id + "/3.jpg\",\"/images/products/" + id + "/4.jpg\"]");
+                insert.setString(4, id % 2 == 0 ? "[\"新品\",\"热卖\",\"京东自营\"]" : "[\"热卖\",\"官方旗舰\"]");
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        // MySQL的JSON列通过JDBC读取时也是字符串，这里直接用VARCHAR列
+        select = connection.prepareStatement(
+                "SELECT id, name, main_images, tags FROM product ORDER BY id LIMIT " + PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        select.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS product");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<List<String>> typeHandler() throws SQLException {
+        List<List<String>> page = new ArrayList<>(PAGE_SIZE * 2);
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                page.add(typeHandler.getResult(rs, "main_images"));
+                page.add(typeHandler.getResult(rs, "tags"));
+            }
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<List<String>> readValue() throws Exception {
+        List<List<String>> page = new ArrayList<>(PAGE_SIZE * 2);
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                page.add(parse(rs.getString("main_images")));
+                page.add(parse(rs.getString("tags")));
+            }
+        }
+        return page;
+    }
+
+    private List<String> parse(String json) throws Exception {
+        return json == null || json.isBlank() ? List.of() : objectMapper.readValue(json, STRING_LIST);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonListMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.jingdong.mall.benchmark;
+
+import com.jingdong.mall.common.utils.PrefixSuggester;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索联想基准测试：10万、100万个商品名时，一次联想查询（取前10条）的耗时
+ * shortPrefix：输入一个字（匹配的键很多）；longPrefix：输入到型号（匹配的键很少）；
+ * linearScan：对照组，遍历全部商品名做前缀匹配后按权重取前10条。
+ * 构建完成后会打印联想键数、memoryBytes()估算值和构建前后的堆内存差，用于比较索引的内存占用。
+ *
+ * 运行方式（类路径准备见 HotSkuStockBenchmark）：
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.jingdong.mall.benchmark.PrefixSuggesterBenchmark
+ * 100万个商品名时构建需要较多内存，建议加 -Xmx2g
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PrefixSuggesterBenchmark {
+
+    private static final int LIMIT = 10;
+
+    private static final String[] BRANDS = {"联想", "华为", "小米", "戴尔", "惠普", "华硕", "宏碁", "苹果", "微星", "机械革命"};
+    private static final String[] SERIES = {"Pro", "Air", "Max", "Ultra", "Gaming", "Book", "Slim", "Plus"};
+
+    @Param({"100000", "1000000"})
+    private int names;
+
+    private PrefixSuggester suggester;
+
+    // 对照组数据：原始商品名（小写）和权重
+    private String[] lowerNames;
+    private long[] weights;
+
+    private String[] shortPrefixes;
+    private String[] longPrefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        List<String> generated = new ArrayList<>(names);
+        weights = new long[names];
+        for (int i = 0; i < names; i++) {
+            generated.add(BRANDS[random.nextInt(BRANDS.length)] + " " + SERIES[random.nextInt(SERIES.length)]
+                    + " " + (13 + random.nextInt(5)) + " " + Integer.toString(i, 36).toUpperCase());
+            weights[i] = random.nextInt(100_000);
+        }
+
+        long before = usedHeap();
+        suggester = build(generated, weights);
+        long after = usedHeap();
+        System.out.printf("%n商品名数=%d, 联想键数=%d, memoryBytes=%.1fMB, 堆内存增加=%.1fMB%n",
+                names, suggester.size(), suggester.memoryBytes() / 1048576.0, (after - before) / 1048576.0);
+
+        lowerNames = new String[names];
+        for (int i = 0; i < names; i++) {
+            lowerNames[i] = PrefixSuggester.normalize(generated.get(i));
+        }
+        shortPrefixes = new String[1024];
+        longPrefixes = new String[1024];
+        for (int i = 0; i < shortPrefixes.length; i++) {
+            String name = lowerNames[random.nextInt(names)];
+            shortPrefixes[i] = name.substring(0, 1);
+            longPrefixes[i] = name.substring(0, name.lastIndexOf(' ') + 2);
+        }
+    }
+
+    @Benchmark
+    public List<String> shortPrefix() {
+        return suggester.suggest(shortPrefixes[next++ & 1023], LIMIT);
+    }
+
+    @Benchmark
+    public List<String> longPrefix() {
+        return suggester.suggest(longPrefixes[next++ & 1023], LIMIT);
+    }
+
+    @Benchmark
+    public List<String> linearScan() {
+        String prefix = shortPrefixes[next++ & 1023];
+        // 保留权重最大的LIMIT条（插入排序，LIMIT很小）
+        int[] top = new int[LIMIT];
+        int count = 0;
+        for (int i = 0; i < lowerNames.length; i++) {
+            if (!lowerNames[i].startsWith(prefix)) {
+                continue;
+            }
+            if (count == LIMIT && weights[i] <= weights[top[LIMIT - 1]]) {
+                continue;
+            }
+            int j = count < LIMIT ? count++ : LIMIT - 1;
+            while (j > 0 && weights[top[j - 1]] < weights[i]) {
+                top[j] = top[j - 1];
+                j--;
+            }
+            top[j] = i;
+        }
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(lowerNames[top[i]]);
+        }
+        return result;
+    }
+
+    // 构建器在方法返回后即可回收，堆内存差只包含索引本身
+    private static PrefixSuggester build(List<String> names, long[] weights) {
+        PrefixSuggester.Builder builder = new PrefixSuggester.Builder();
+        for (int i = 0; i < names.size(); i++) {
+            builder.add(names.get(i), weights[i]);
+        }
+        return builder.build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PrefixSuggesterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
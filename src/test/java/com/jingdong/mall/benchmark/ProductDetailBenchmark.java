@@ -0,0 +1,197 @@
+package com.jingdong.mall.benchmark;
+
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.model.dto.response.ProductDetailResponse;
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.service.CatalogService;
+import com.jingdong.mall.service.impl.ProductServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品详情组装基准测试：单个商品有5、50、500个SKU时，详情缓存未命中后组装一次详情的耗时
+ * snapshot：商品在目录快照中，规格可选值从SKU列式存储读取；database：快照未就绪，遍历SKU列表统计规格
+ * 两种情况都不访问数据库（商品和SKU已在内存中），只测组装本身。
+ *
+ * 运行方式（类路径准备见 HotSkuStockBenchmark）：
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.jingdong.mall.benchmark.ProductDetailBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductDetailBenchmark {
+
+    private static final int PRODUCT_ID = 1;
+
+    @Param({"5", "50", "500"})
+    private int skuCount;
+
+    private ProductServiceImpl snapshotService;
+    private LocalCache<Integer, ProductDetailResponse> snapshotCache;
+
+    private ProductServiceImpl databaseService;
+    private LocalCache<Integer, ProductDetailResponse> databaseCache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Product product = product();
+        List<ProductSku> skus = skus(skuCount);
+
+        snapshotCache = detailCache();
+        snapshotService = productService(
+                new FixedCatalog(CatalogSnapshot.of(List.of(product), skus, List.of()), product, skus), snapshotCache);
+
+        databaseCache = detailCache();
+        databaseService = productService(new FixedCatalog(null, product, skus), databaseCache);
+    }
+
+    @Benchmark
+    public ProductDetailResponse snapshot() {
+        snapshotCache.invalidate(PRODUCT_ID);
+        return snapshotService.getProductDetail(PRODUCT_ID);
+    }
+
+    @Benchmark
+    public ProductDetailResponse database() {
+        databaseCache.invalidate(PRODUCT_ID);
+        return databaseService.getProductDetail(PRODUCT_ID);
+    }
+
+    private static LocalCache<Integer, ProductDetailResponse> detailCache() {
+        return new LocalCache<>("productDetail", 1_000_000, 60_000, detail -> 1);
+    }
+
+    private static ProductServiceImpl productService(CatalogService catalogService,
+                                                     LocalCache<Integer, ProductDetailResponse> cache) {
+        ProductServiceImpl service = new ProductServiceImpl();
+        ReflectionTestUtils.setField(service, "catalogService", catalogService);
+        ReflectionTestUtils.setField(service, "productDetailCache", cache);
+        return service;
+    }
+
+    static Product product() {
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setCategoryId(1);
+        product.setName("高性能游戏本");
+        product.setDescription("商品描述");
+        product.setDetailHtml("<p>" + "商品详情".repeat(200) + "</p>");
+        product.setMainImages(List.of("/images/1.jpg", "/images/2.jpg", "/images/3.jpg"));
+        product.setTags(List.of("新品", "热卖"));
+        product.setModel("X-2025");
+        product.setOs("Windows 11");
+        product.setCpuModel("Ultra 9 275HX");
+        product.setScreenSize("16英寸");
+        product.setIsActive(1);
+        return product;
+    }
+
+    /**
+     * 规格组合按 cpu x ram x storage x gpu 展开，SKU数较多时每个规格有多个可选值
+     */
+    static List<ProductSku> skus(int count) {
+        String[] cpus = {"Ultra 7 255HX", "Ultra 9 275HX", "i7-14650HX", "i9-14900HX", "R9 8945HX"};
+        String[] rams = {"16GB", "32GB", "64GB", "96GB", "128GB"};
+        String[] storages = {"512GB", "1TB", "2TB", "4TB"};
+        String[] gpus = {"RTX 5060", "RTX 5070", "RTX 5070 Ti", "RTX 5080", "RTX 5090"};
+        List<ProductSku> skus = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProductSku sku = new ProductSku();
+            sku.setId(i + 1);
+            sku.setProductId(PRODUCT_ID);
+            sku.setPrice(BigDecimal.valueOf(6999 + i * 100L));
+            sku.setStock(100);
+            sku.setOs("Windows 11");
+            sku.setCpu(cpus[i % cpus.length]);
+            sku.setRam(rams[(i / cpus.length) % rams.length]);
+            sku.setStorage(storages[(i / (cpus.length * rams.length)) % storages.length]);
+            sku.setGpu(gpus[(i / (cpus.length * rams.length * storages.length)) % gpus.length]);
+            sku.setSsdCapacity(sku.getStorage() + " SSD");
+            sku.setGpuChip("NVIDIA GeForce " + sku.getGpu());
+            sku.setVramCapacity("8GB");
+            sku.setIsActive(1);
+            skus.add(sku);
+        }
+        return skus;
+    }
+
+    /**
+     * 固定数据的商品目录（不用Mockito：模拟对象每次调用都要遍历调用栈，耗时比组装详情还多）
+     */
+    static final class FixedCatalog implements CatalogService {
+
+        private final CatalogSnapshot snapshot;
+        private final Product product;
+        private final List<ProductSku> skus;
+
+        FixedCatalog(CatalogSnapshot snapshot, Product product, List<ProductSku> skus) {
+            this.snapshot = snapshot;
+            this.product = product;
+            this.skus = skus;
+        }
+
+        @Override
+        public Product getProduct(Integer productId) {
+            return product;
+        }
+
+        @Override
+        public Map<Integer, Product> getProducts(Collection<Integer> productIds) {
+            return Map.of(product.getId(), product);
+        }
+
+        @Override
+        public ProductSku getSku(Integer skuId) {
+            return skus.get(skuId - 1);
+        }
+
+        @Override
+        public Map<Integer, ProductSku> getSkus(Collection<Integer> skuIds) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ProductSku> getProductSkus(Integer productId) {
+            return skus;
+        }
+
+        @Override
+        public List<Integer> getCategoryScope(Integer categoryId) {
+            return List.of(categoryId);
+        }
+
+        @Override
+        public CatalogSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public void refresh() {
+        }
+
+        @Override
+        public void reloadCategories() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductDetailBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.jingdong.mall.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.jingdong.mall.common.response.EncodedResponse;
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.controller.api.ProductController;
+import com.jingdong.mall.model.dto.response.ProductDetailResponse;
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.service.impl.ProductServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品详情接口吞吐量基准测试（次/秒）：热点商品详情已缓存时，控制器处理一次请求的吞吐量
+ * notModified：带匹配的If-None-Match，返回304；gzip：接受gzip，写出预先压缩的字节；identity：不接受压缩。
+ * 分别在1、8、64个线程下测试。不经过Tomcat和网络，只测控制器和服务层（版本计算、缓存、协商）本身，
+ * 每次调用都新建请求和响应对象，与真实请求一样。
+ *
+ * 运行方式（类路径准备见 HotSkuStockBenchmark）：
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.jingdong.mall.benchmark.ProductDetailThroughputBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductDetailThroughputBenchmark {
+
+    private static final int PRODUCT_ID = 1;
+
+    private static final int SKU_COUNT = 50;
+
+    private ProductController controller;
+
+    // 首次请求返回的ETag（弱ETag）
+    private String eTag;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // 控制器每个请求记录一条info日志，测试时关闭，只测请求处理本身
+        ((Logger) LoggerFactory.getLogger(ProductController.class)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        Product product = ProductDetailBenchmark.product();
+        List<ProductSku> skus = ProductDetailBenchmark.skus(SKU_COUNT);
+        ProductServiceImpl productService = new ProductServiceImpl();
+        ReflectionTestUtils.setField(productService, "catalogService", new ProductDetailBenchmark.FixedCatalog(
+                CatalogSnapshot.of(List.of(product), skus, List.of()), product, skus));
+        ReflectionTestUtils.setField(productService, "productDetailCache",
+                new LocalCache<Integer, ProductDetailResponse>("productDetail", 1_000_000, 600_000, detail -> 1));
+        ReflectionTestUtils.setField(productService, "productDetailBytesCache",
+                new LocalCache<Integer, EncodedResponse>("productDetailBytes", 64L * 1024 * 1024, 600_000,
+                        EncodedResponse::size));
+        ReflectionTestUtils.setField(productService, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+
+        controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "productService", productService);
+
+        ResponseEntity<byte[]> first = detail(null, null);
+        eTag = first.getHeaders().getETag();
+        if (eTag == null || first.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING) != null
+                || detail("gzip", null).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING) == null
+                || detail("gzip", eTag) != null) {
+            throw new IllegalStateException("商品详情响应不符合预期");
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> notModified() {
+        return detail("gzip, deflate, br", eTag);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> gzip() {
+        return detail("gzip, deflate, br", null);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> identity() {
+        return detail(null, null);
+    }
+
+    private ResponseEntity<byte[]> detail(String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/" + PRODUCT_ID);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return controller.getProductDetail(PRODUCT_ID, acceptEncoding,
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64}) {
+            new Runner(new OptionsBuilder()
+                    .include(ProductDetailThroughputBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
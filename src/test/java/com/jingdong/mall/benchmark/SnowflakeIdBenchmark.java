@@ -0,0 +1,51 @@
+package com.jingdong.mall.benchmark;
+
+import com.jingdong.mall.common.utils.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成基准测试：单个生成器在1、8、64个线程并发下每秒生成的ID数
+ * 不重复由 SnowflakeIdGeneratorTest 的多线程测试保证。
+ *
+ * 运行方式（类路径准备见 HotSkuStockBenchmark）：
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.jingdong.mall.benchmark.SnowflakeIdBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnowflakeIdBenchmark {
+
+    private SnowflakeIdGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        generator = new SnowflakeIdGenerator(1);
+    }
+
+    @Benchmark
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String nextOrderSn() {
+        return generator.nextOrderSn();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64}) {
+            new Runner(new OptionsBuilder()
+                    .include(SnowflakeIdBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductSku;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CatalogSnapshotTest {
+
+    private static final List<String> SPECS = List.of("cpu", "ram");
+
+    @Test
+    void skusReadSpecsFromAttributeStore() {
+        ProductSku loaded = sku(1, 10, "5999", "i7", "16GB");
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(10)),
+                List.of(loaded, sku(2, 10, "6999", "i9", "32GB")), List.of());
+
+        // 快照持有的SKU对象不再引用规格字符串
+        assertNull(loaded.getCpu());
+        assertNull(loaded.getRam());
+
+        ProductSku sku = snapshot.getSku(1);
+        assertNotSame(loaded, sku);
+        assertEquals("i7", sku.getCpu());
+        assertEquals("16GB", sku.getRam());
+        assertEquals(0, new BigDecimal("5999").compareTo(sku.getPrice()));
+        assertEquals(List.of("i7", "i9"), snapshot.getProductSkus(10).stream().map(ProductSku::getCpu).toList());
+        assertNull(snapshot.getSku(3));
+    }
+
+    @Test
+    void withChangesKeepsSpecsOfUnchangedSiblings() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(10), product(20)),
+                List.of(sku(1, 10, "5999", "i7", "16GB"), sku(2, 10, "6999", "i9", "32GB"),
+                        sku(3, 20, "3999", "R7", "16GB")), List.of());
+
+        // 1. 只改库存：列式存储不变，兄弟SKU的规格仍可读出
+        ProductSku restocked = sku(2, 10, "6999", "i9", "32GB");
+        restocked.setStock(5);
+        CatalogSnapshot stockOnly = snapshot.withChanges(List.of(), List.of(restocked), null);
+        assertSame(snapshot.getSkuAttributes(), stockOnly.getSkuAttributes());
+        assertEquals(5, stockOnly.getSku(2).getStock());
+        assertEquals("i7", stockOnly.getSku(1).getCpu());
+        assertEquals(snapshot.getSku(1), stockOnly.getSku(1));
+
+        // 2. 改规格并降价：重新编码受影响商品，排序按新价格
+        CatalogSnapshot respecced = stockOnly.withChanges(List.of(),
+                List.of(sku(2, 10, "4999", "Ultra 9", "64GB")), null);
+        assertEquals(List.of(2, 1), respecced.getProductSkus(10).stream().map(ProductSku::getId).toList());
+        assertEquals("Ultra 9", respecced.getSku(2).getCpu());
+        assertEquals("i7", respecced.getSku(1).getCpu());
+        assertEquals("R7", respecced.getSku(3).getCpu());
+        assertEquals(Map.of("cpu", List.of("Ultra 9", "i7"), "ram", List.of("64GB", "16GB")),
+                respecced.getSkuAttributes().productSpecs(10, SPECS));
+
+        // 3. 下架：行从快照和列式存储中删除
+        ProductSku removed = sku(1, 10, "5999", "i7", "16GB");
+        removed.setIsActive(0);
+        CatalogSnapshot afterRemoval = respecced.withChanges(List.of(), List.of(removed), null);
+        assertNull(afterRemoval.getSku(1));
+        assertEquals(Map.of("cpu", List.of("Ultra 9"), "ram", List.of("64GB")),
+                afterRemoval.getSkuAttributes().productSpecs(10, SPECS));
+
+        // 原快照不变
+        assertEquals("i9", snapshot.getSku(2).getCpu());
+    }
+
+    @Test
+    void productsByPriceFollowMysqlOrderWithinCategoryAndPriceRange() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(1, 100, "5999"), product(2, 100, null),
+                product(3, 200, "3999"), product(4, 100, "3999"), product(5, 200, "8999")), List.of(), List.of());
+
+        // NULL在前，价格相同按ID升序
+        assertEquals(List.of(2, 3, 4, 1, 5), ids(snapshot.getProductsByPrice(null, null, null)));
+        assertEquals(List.of(2, 4, 1), ids(snapshot.getProductsByPrice(List.of(100), null, null)));
+        assertEquals(List.of(2, 3, 4, 1, 5), ids(snapshot.getProductsByPrice(List.of(100, 200), null, null)));
+        // 有价格条件时没有价格的商品不匹配，区间两端都包含
+        assertEquals(List.of(3, 4, 1), ids(snapshot.getProductsByPrice(null, null, new BigDecimal("5999"))));
+        assertEquals(List.of(1, 5), ids(snapshot.getProductsByPrice(null, new BigDecimal("4000"), null)));
+        assertEquals(List.of(4), ids(snapshot.getProductsByPrice(List.of(100), new BigDecimal("3999"), new BigDecimal("4000"))));
+        assertEquals(List.of(), ids(snapshot.getProductsByPrice(List.of(300), null, null)));
+    }
+
+    @Test
+    void withChangesKeepsPriceAndCategoryIndexesInOrder() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(1, 100, "5999"), product(2, 100, "4999"),
+                product(3, 200, "3999")), List.of(), List.of());
+
+        // 商品1降价并换到分类200，商品2下架，新上架商品4
+        Product removed = product(2, 100, "4999");
+        removed.setIsActive(0);
+        CatalogSnapshot changed = snapshot.withChanges(List.of(product(1, 200, "2999"), removed,
+                product(4, 100, "6999")), List.of(), null);
+
+        assertEquals(List.of(1, 3, 4), ids(changed.getProductsByPrice(null, null, null)));
+        assertEquals(List.of(4), ids(changed.getProductsByPrice(List.of(100), null, null)));
+        assertEquals(List.of(1, 3), ids(changed.getProductsByPrice(List.of(200), null, null)));
+        // 原快照不变
+        assertEquals(List.of(3, 2, 1), ids(snapshot.getProductsByPrice(null, null, null)));
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static Product product(int id, int categoryId, String minPrice) {
+        Product product = product(id);
+        product.setCategoryId(categoryId);
+        product.setMinPrice(minPrice != null ? new BigDecimal(minPrice) : null);
+        return product;
+    }
+
+    private static Product product(int id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setIsActive(1);
+        return product;
+    }
+
+    private static ProductSku sku(int id, int productId, String price, String cpu, String ram) {
+        ProductSku sku = new ProductSku();
+        sku.setId(id);
+        sku.setProductId(productId);
+        sku.setPrice(new BigDecimal(price));
+        sku.setStock(10);
+        sku.setCpu(cpu);
+        sku.setRam(ram);
+        sku.setIsActive(1);
+        return sku;
+    }
+}
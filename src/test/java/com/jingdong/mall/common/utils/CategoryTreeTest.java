@@ -0,0 +1,88 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.model.entity.ProductCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CategoryTreeTest {
+
+    @Test
+    void childrenAreOrderedBySortOrderThenId() {
+        CategoryTree tree = CategoryTree.of(List.of(
+                category(1, 0, 2),
+                category(2, 0, 1),
+                category(3, 0, null), // 没有排序序号的排在最后
+                category(4, 0, 1),
+                category(5, 2, 1)));
+
+        assertEquals(List.of(2, 4, 1, 3), ids(tree.getChildren(CategoryTree.ROOT_ID)));
+        assertEquals(List.of(5), ids(tree.getChildren(2)));
+        assertTrue(tree.getChildren(5).isEmpty());
+        assertEquals(5, tree.size());
+    }
+
+    @Test
+    void subtreeIdsIncludeSelfAndAllDescendants() {
+        CategoryTree tree = CategoryTree.of(List.of(
+                category(1, 0, 1),
+                category(2, 1, 1),
+                category(3, 1, 2),
+                category(4, 2, 1),
+                category(5, 4, 1),
+                category(6, 0, 2)));
+
+        assertEquals(List.of(1, 2, 4, 5, 3), tree.getSubtreeIds(1));
+        assertEquals(List.of(4, 5), tree.getSubtreeIds(4));
+        assertEquals(List.of(6), tree.getSubtreeIds(6));
+        assertTrue(tree.getSubtreeIds(99).isEmpty());
+    }
+
+    @Test
+    void categoryWithMissingParentBecomesTopLevel() {
+        // 上级分类10已禁用（不在列表中）
+        CategoryTree tree = CategoryTree.of(List.of(
+                category(1, 0, 1),
+                category(2, 10, 1),
+                category(3, 2, 1),
+                category(4, null, 2)));
+
+        assertEquals(List.of(1, 2, 4), ids(tree.getChildren(CategoryTree.ROOT_ID)));
+        assertEquals(List.of(2, 3), tree.getSubtreeIds(2));
+        assertNull(tree.getCategory(10));
+        assertFalse(tree.contains(10));
+    }
+
+    @Test
+    void cycleDoesNotRecurseForever() {
+        // 2和3互为上级，从根遍历不到，只包含自身；自己是自己上级的分类当作一级分类
+        CategoryTree tree = CategoryTree.of(List.of(
+                category(1, 1, 1),
+                category(2, 3, 1),
+                category(3, 2, 1)));
+
+        assertEquals(List.of(1), ids(tree.getChildren(CategoryTree.ROOT_ID)));
+        assertEquals(List.of(1), tree.getSubtreeIds(1));
+        assertEquals(List.of(2), tree.getSubtreeIds(2));
+        assertEquals(List.of(3), tree.getSubtreeIds(3));
+    }
+
+    private static List<Integer> ids(List<ProductCategory> categories) {
+        return categories.stream().map(ProductCategory::getId).toList();
+    }
+
+    private static ProductCategory category(int id, Integer parentId, Integer sortOrder) {
+        ProductCategory category = new ProductCategory();
+        category.setId(id);
+        category.setName("分类" + id);
+        category.setParentId(parentId);
+        category.setSortOrder(sortOrder);
+        category.setIsActive(1);
+        return category;
+    }
+}
@@ -0,0 +1,68 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.model.entity.ProductSku;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FacetIndexTest {
+
+    @Test
+    void filtersIntersectAndCountsExcludeEmptyValues() {
+        FacetIndex index = new FacetIndex.Builder(List.of(30, 10, 20))
+                .addValue(10, "category", "1").addValue(20, "category", "1").addValue(30, "category", "2")
+                .setNumber(10, 2999).setNumber(20, 5999)
+                .build();
+
+        long[] category1 = index.match("category", "1");
+        assertTrue(index.contains(category1, 10));
+        assertFalse(index.contains(category1, 30));
+        assertFalse(index.contains(category1, 99));
+        assertEquals(0, FacetIndex.count(index.match("category", "9")));
+
+        // 价格区间两端都包含，没有价格的商品不匹配
+        long[] priced = index.range(2999.0, null);
+        assertEquals(2, FacetIndex.count(priced));
+        assertFalse(index.contains(priced, 30));
+        assertEquals(Map.of("1", 2), index.counts("category", priced));
+        assertArrayEquals(new int[]{1, 1}, index.rangeCounts(new double[]{5000}, index.all()));
+
+        assertEquals(1, FacetIndex.count(FacetIndex.and(category1, index.select(List.of(20, 30)))));
+        assertEquals(3, FacetIndex.count(FacetIndex.or(category1, index.match("category", "2"))));
+    }
+
+    @Test
+    void perSpecBitmapsCannotExpressSameSkuFilters() {
+        // 商品10有一个i7+32GB的SKU；商品20的i7和32GB分别属于两个SKU
+        List<ProductSku> skus = List.of(sku(1, 10, "i7", "32GB"), sku(2, 20, "i7", "16GB"), sku(3, 20, "i9", "32GB"));
+        FacetIndex.Builder builder = new FacetIndex.Builder(List.of(10, 20));
+        for (ProductSku sku : skus) {
+            builder.addValue(sku.getProductId(), "cpu", sku.getCpu()).addValue(sku.getProductId(), "ram", sku.getRam());
+        }
+        FacetIndex index = builder.build();
+
+        // 商品维度的位图求交集会把商品20也算进来
+        long[] intersected = FacetIndex.and(index.match("cpu", "i7"), index.match("ram", "32GB"));
+        assertTrue(index.contains(intersected, 20));
+
+        // 在SKU上筛选才只剩同一个SKU同时满足的商品10
+        int[] matched = SkuAttributeStore.of(skus).productIdsMatching(Map.of("cpu", "i7", "ram", "32GB"));
+        assertArrayEquals(new int[]{10}, matched);
+    }
+
+    private static ProductSku sku(int id, int productId, String cpu, String ram) {
+        ProductSku sku = new ProductSku();
+        sku.setId(id);
+        sku.setProductId(productId);
+        sku.setCpu(cpu);
+        sku.setRam(ram);
+        sku.setIsActive(1);
+        return sku;
+    }
+}
@@ -0,0 +1,120 @@
+package com.jingdong.mall.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    @Test
+    void partialWordQueriesMatchProductNames() {
+        InvertedIndex index = new InvertedIndex();
+        index.rebuild(Map.of(
+                1, NgramTokenizer.tokenizeForIndex("联想ThinkPad X1 Carbon"),
+                2, NgramTokenizer.tokenizeForIndex("Lenovo 拯救者Y9000P RTX4060 游戏本"),
+                3, NgramTokenizer.tokenizeForIndex("华硕天选5 RTX4070")));
+
+        assertEquals(List.of(1), search(index, "thinkp"));
+        assertEquals(List.of(2), search(index, "len"));
+        assertEquals(List.of(2), search(index, "406"));
+        assertEquals(List.of(3, 2), search(index, "rtx"));
+        assertEquals(List.of(2), search(index, "拯救者 rtx40"));
+        assertTrue(search(index, "拯救者 rtx4070").isEmpty());
+        assertTrue(search(index, "macbook").isEmpty());
+    }
+
+    @Test
+    void ranksByBm25ThenNewerDocument() {
+        InvertedIndex index = new InvertedIndex();
+        index.rebuild(Map.of(
+                1, tokens("a b c d e f"),
+                2, tokens("a a"),
+                3, tokens("a x"),
+                4, tokens("a y"),
+                5, tokens("z")));
+
+        // 词频高、文档短的在前；得分相同时ID大的在前
+        assertEquals(List.of(2, 4, 3, 1), index.search(tokens("a"), 10));
+        assertEquals(List.of(2, 4), index.search(tokens("a"), 2));
+        // 全部查询词都要命中
+        assertEquals(List.of(3), index.search(tokens("a x"), 10));
+        assertTrue(index.search(tokens("a z"), 10).isEmpty());
+        assertTrue(index.search(List.of(), 10).isEmpty());
+    }
+
+    @Test
+    void postingsRoundTripLargeIdsAndFrequencies() {
+        // ID差值和词频跨越1、2、3、4字节的变长编码
+        int[] docIds = {1, 127, 128, 16_383, 16_384, 2_097_151, 2_097_152, Integer.MAX_VALUE};
+        Map<Integer, List<String>> documents = new HashMap<>();
+        for (int docId : docIds) {
+            documents.put(docId, tokens("common"));
+        }
+        documents.put(500, Collections.nCopies(300, "common"));
+        InvertedIndex index = new InvertedIndex();
+        index.rebuild(documents);
+
+        List<Integer> result = index.search(tokens("common"), 100);
+        assertEquals(500, result.get(0));
+        assertEquals(docIds.length + 1, result.size());
+        assertTrue(result.containsAll(Arrays.stream(docIds).boxed().toList()));
+    }
+
+    @Test
+    void updateMatchesFullRebuild() {
+        Map<Integer, List<String>> documents = new HashMap<>();
+        for (int docId = 1; docId <= 50; docId++) {
+            documents.put(docId, tokens("w" + docId % 7 + " w" + docId % 3 + " common"));
+        }
+        InvertedIndex index = new InvertedIndex();
+        index.rebuild(documents);
+
+        // 修改文档10、删除文档20、新增文档99，其它文档不变
+        Map<Integer, List<String>> changes = new HashMap<>();
+        changes.put(10, tokens("changed common"));
+        changes.put(20, List.of());
+        changes.put(99, tokens("w1 brand-new"));
+        index.update(changes);
+
+        documents.putAll(changes);
+        documents.remove(20);
+        InvertedIndex rebuilt = new InvertedIndex();
+        rebuilt.rebuild(documents);
+
+        assertEquals(rebuilt.size(), index.size());
+        assertEquals(rebuilt.termCount(), index.termCount());
+        for (String query : new String[]{"common", "w3", "w1", "w6", "changed", "brand", "w1 common", "w6 w0"}) {
+            assertEquals(rebuilt.search(tokens(query), 100), index.search(tokens(query), 100), query);
+        }
+        assertEquals(List.of(10), index.search(tokens("changed"), 10));
+        assertTrue(index.search(tokens("w6 w2"), 100).stream().noneMatch(id -> id == 20));
+    }
+
+    @Test
+    void removingLastDocumentOfTermDropsTerm() {
+        InvertedIndex index = new InvertedIndex();
+        index.rebuild(Map.of(1, tokens("only shared"), 2, tokens("shared")));
+        assertEquals(2, index.termCount());
+
+        index.update(Map.of(1, List.of()));
+        assertEquals(1, index.size());
+        assertEquals(1, index.termCount());
+        assertTrue(index.search(tokens("only"), 10).isEmpty());
+        assertEquals(List.of(2), index.search(tokens("shared"), 10));
+    }
+
+    private static List<Integer> search(InvertedIndex index, String keyword) {
+        return index.search(NgramTokenizer.tokenizeForQuery(keyword), 10);
+    }
+
+    private static List<String> tokens(String text) {
+        return Arrays.asList(text.split(" "));
+    }
+}
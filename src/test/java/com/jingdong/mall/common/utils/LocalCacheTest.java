@@ -0,0 +1,273 @@
+package com.jingdong.mall.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalCacheTest {
+
+    private static final long TTL = 60_000;
+
+    // 每个字符串的权重为其长度
+    private LocalCache<String, String> newCache(long maxWeight) {
+        return new LocalCache<>("test", maxWeight, TTL, String::length);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByWeight() {
+        LocalCache<String, String> cache = newCache(10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.getIfPresent("a"); // a变为最近访问
+        cache.put("c", "cccc"); // 总权重12 > 10，淘汰最久未访问的b
+
+        assertEquals("aaaa", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("cccc", cache.getIfPresent("c"));
+        assertEquals(8, cache.weight());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void evictsInBatchDownToNinetyPercent() {
+        LocalCache<String, String> cache = newCache(100);
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, "x".repeat(10));
+        }
+        cache.getIfPresent("k0"); // k0变为最近访问
+        cache.put("k10", "x".repeat(10)); // 总权重110 > 100，淘汰到90以下
+
+        assertEquals(90, cache.weight());
+        assertEquals(2, cache.evictionCount());
+        assertNull(cache.getIfPresent("k1"));
+        assertNull(cache.getIfPresent("k2"));
+        assertEquals("xxxxxxxxxx", cache.getIfPresent("k0"));
+        assertEquals("xxxxxxxxxx", cache.getIfPresent("k3"));
+    }
+
+    @Test
+    void readsDoNotWaitForWriteLock() throws Exception {
+        LocalCache<String, String> cache = newCache(100);
+        cache.put("a", "v");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        synchronized (cache) {
+            // 写入方持有锁期间，读取仍能立即返回
+            Future<String> read = executor.submit(() -> cache.getIfPresent("a"));
+            assertEquals("v", read.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void concurrentReadsAndWritesKeepWeightConsistent() throws Exception {
+        LocalCache<String, String> cache = new LocalCache<>("test", 200, 5, String::length);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                startGate.await();
+                for (int i = 0; i < 20_000; i++) {
+                    String key = "k" + (i * 7 + thread) % 64;
+                    switch (i % 4) {
+                        case 0 -> cache.put(key, "v".repeat(1 + i % 9));
+                        case 1 -> cache.invalidate(key);
+                        default -> cache.getIfPresent(key); // 5毫秒TTL，读取时经常删除过期条目
+                    }
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Thread.sleep(10);
+        for (int i = 0; i < 64; i++) {
+            cache.getIfPresent("k" + i);
+        }
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void valueHeavierThanCapacityIsNotCached() {
+        LocalCache<String, String> cache = newCache(3);
+        cache.put("a", "aaaa");
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws InterruptedException {
+        LocalCache<String, String> cache = new LocalCache<>("test", 100, 50, String::length);
+        cache.put("a", "aaaa");
+        assertEquals("aaaa", cache.getIfPresent("a"));
+        Thread.sleep(100);
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void invalidPredicateRemovesEntry() {
+        LocalCache<String, String> cache = newCache(100);
+        cache.put("a", "v1");
+        assertNull(cache.getIfPresent("a", value -> value.equals("v2")));
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        LocalCache<String, String> cache = newCache(100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get("a", key -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "loaded";
+            })));
+        }
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100); // 让其它线程都进入等待
+        releaseLoader.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals("loaded", cache.getIfPresent("a"));
+    }
+
+    @Test
+    void loaderExceptionIsThrownAndNotCached() {
+        LocalCache<String, String> cache = newCache(100);
+        assertThrows(IllegalStateException.class, () -> cache.get("a", key -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("ok", cache.get("a", key -> "ok"));
+    }
+
+    @Test
+    void invalidationDuringLoadDiscardsResult() throws Exception {
+        LocalCache<String, String> cache = newCache(100);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> result = executor.submit(() -> cache.get("a", key -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return "stale";
+        }));
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+        cache.invalidate("a"); // 数据在加载期间被修改
+        releaseLoader.countDown();
+
+        assertEquals("stale", result.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    void invalidatingOtherKeysDuringLoadKeepsResult() throws Exception {
+        LocalCache<String, String> cache = newCache(100);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> result = executor.submit(() -> cache.get("a", key -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return "loaded";
+        }));
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+        // 其它键的修改和删除不影响正在加载的键
+        cache.put("b", "v");
+        cache.computeIfPresent("b", value -> value + "2");
+        cache.invalidate("c");
+        releaseLoader.countDown();
+
+        assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals("loaded", cache.getIfPresent("a"));
+    }
+
+    @Test
+    void reloadAfterInvalidationDoesNotWaitForStaleLoad() throws Exception {
+        LocalCache<String, String> cache = newCache(100);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> result = executor.submit(() -> cache.get("a", key -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return "stale";
+        }));
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+        cache.computeIfPresent("a", value -> value + "!"); // 未缓存时也作废正在进行的加载
+
+        // 作废后的请求重新加载，不等待也不复用旧的加载
+        assertEquals("fresh", cache.get("a", key -> "fresh"));
+        releaseLoader.countDown();
+        assertEquals("stale", result.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals("fresh", cache.getIfPresent("a"));
+    }
+
+    @Test
+    void computeIfPresentUpdatesOnlyCachedValues() {
+        LocalCache<String, Integer> cache = new LocalCache<>("count", 100, TTL, value -> 1);
+        cache.computeIfPresent("missing", count -> count + 1);
+        assertNull(cache.getIfPresent("missing"));
+
+        cache.put("a", 1);
+        cache.computeIfPresent("a", count -> count + 1);
+        assertEquals(2, cache.getIfPresent("a"));
+        cache.computeIfPresent("a", count -> null);
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    void recordsHitsMissesAndKeyStats() {
+        LocalCache<String, String> cache = new LocalCache<>("test", 100, TTL, String::length, true);
+        cache.put("hot", "v");
+        for (int i = 0; i < 3; i++) {
+            cache.getIfPresent("hot");
+        }
+        cache.getIfPresent("cold");
+
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        List<LocalCache.KeyStats<String>> top = cache.topKeyStats(1);
+        assertEquals(1, top.size());
+        assertEquals("hot", top.get(0).key());
+        assertEquals(1.0, top.get(0).hitRate());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
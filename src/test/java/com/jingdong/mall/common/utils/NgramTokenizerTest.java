@@ -0,0 +1,54 @@
+package com.jingdong.mall.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NgramTokenizerTest {
+
+    @Test
+    void indexTokensIncludeCjkNgramsAndWordPrefixes() {
+        assertEquals(List.of("拯", "拯救", "救", "救者", "者", "y", "9", "90", "900", "9000", "p",
+                        "游", "游戏", "戏", "戏本", "本"),
+                NgramTokenizer.tokenizeForIndex("拯救者Y9000P 游戏本"));
+    }
+
+    @Test
+    void queryTokensUseCjkBigramsAndWholeWords() {
+        assertEquals(List.of("拯救", "救者", "y", "9000", "p", "游戏", "戏本"),
+                NgramTokenizer.tokenizeForQuery("拯救者Y9000P 游戏本"));
+        // 单个汉字使用一元词
+        assertEquals(List.of("本", "rtx"), NgramTokenizer.tokenizeForQuery("本 RTX"));
+    }
+
+    @Test
+    void partialWordQueriesAreIndexedPrefixes() {
+        List<String> indexed = NgramTokenizer.tokenizeForIndex("Lenovo ThinkPad RTX4060");
+        for (String query : new String[]{"len", "Lenovo", "thinkp", "406", "RTX4060"}) {
+            assertTrue(indexed.containsAll(NgramTokenizer.tokenizeForQuery(query)), query);
+        }
+        // 只切前缀，单词中间的片段不会被索引
+        assertTrue(!indexed.contains("pad") && !indexed.contains("060"));
+    }
+
+    @Test
+    void prefixesAreCappedButWholeWordIsKept() {
+        String word = "a".repeat(30);
+        List<String> tokens = NgramTokenizer.tokenizeForIndex(word);
+        assertEquals(21, tokens.size());
+        assertEquals("a".repeat(20), tokens.get(19));
+        assertEquals(word, tokens.get(20));
+    }
+
+    @Test
+    void separatorsAndEmptyInput() {
+        assertTrue(NgramTokenizer.tokenizeForIndex(null).isEmpty());
+        assertTrue(NgramTokenizer.tokenizeForQuery("").isEmpty());
+        assertTrue(NgramTokenizer.tokenizeForQuery(" ,.-/ ").isEmpty());
+        assertEquals(List.of("i", "7", "13700", "h"), NgramTokenizer.tokenizeForQuery("i7-13700H"));
+        assertEquals(List.of("ddr", "5", "16", "gb"), NgramTokenizer.tokenizeForQuery("DDR5-16GB"));
+    }
+}
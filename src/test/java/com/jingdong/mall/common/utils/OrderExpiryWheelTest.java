@@ -0,0 +1,42 @@
+package com.jingdong.mall.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderExpiryWheelTest {
+
+    @Test
+    void registerAndUnregister() {
+        OrderExpiryWheel wheel = new OrderExpiryWheel();
+        assertTrue(wheel.register("A", LocalDateTime.now().plusSeconds(OrderExpiryWheel.PAY_TIMEOUT_SECONDS)));
+        assertTrue(wheel.register("B", LocalDateTime.now().plusSeconds(OrderExpiryWheel.PAY_TIMEOUT_SECONDS)));
+        assertEquals(2, wheel.size());
+        assertTrue(wheel.pollExpired().isEmpty());
+
+        wheel.unregister("A");
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void alreadyExpiredOrderIsReturnedToCaller() {
+        OrderExpiryWheel wheel = new OrderExpiryWheel();
+        assertFalse(wheel.register("A", LocalDateTime.now().minusMinutes(1)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiredOrderIsPolled() throws InterruptedException {
+        OrderExpiryWheel wheel = new OrderExpiryWheel();
+        assertTrue(wheel.register("A", LocalDateTime.now().plusNanos(100_000_000)));
+        // 最多延迟一个tick（1秒）
+        Thread.sleep(2_100);
+        assertEquals(List.of("A"), wheel.pollExpired());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,54 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.mapper.OrderSnLeaseMapper;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单号租约测试：启动时等待时钟越过上次的租约，续期只延长不缩短
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-sn-lease;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@Sql("/db/order-sn-lease-schema.sql")
+class OrderSnLeaseTest {
+
+    private static final long WORKER_ID = 7;
+
+    @Autowired
+    private OrderSnLeaseMapper orderSnLeaseMapper;
+
+    @Test
+    void restartWaitsForPreviousLeaseThenRenews() throws InterruptedException {
+        // 重启前的实例已把租约延长到300毫秒之后
+        long previousLeaseUntil = System.currentTimeMillis() + 300;
+        orderSnLeaseMapper.upsertLeaseUntil(WORKER_ID, previousLeaseUntil);
+
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID);
+        OrderSnLease lease = new OrderSnLease(generator, orderSnLeaseMapper, WORKER_ID);
+        ReflectionTestUtils.setField(lease, "leaseMillis", 3_000L);
+        lease.init();
+
+        assertTrue(System.currentTimeMillis() > previousLeaseUntil);
+        assertTrue((generator.nextId() >>> 22) + 1704067200000L > previousLeaseUntil);
+        long renewed = orderSnLeaseMapper.selectLeaseUntil(WORKER_ID);
+        assertTrue(renewed > previousLeaseUntil);
+
+        // 截止时间只增不减
+        orderSnLeaseMapper.upsertLeaseUntil(WORKER_ID, previousLeaseUntil);
+        assertEquals(renewed, orderSnLeaseMapper.selectLeaseUntil(WORKER_ID));
+    }
+}
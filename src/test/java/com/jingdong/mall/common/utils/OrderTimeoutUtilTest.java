@@ -0,0 +1,80 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 超时订单兜底扫描测试：只取消过期超过宽限期仍为预占中的订单，每个订单只提交一次
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-timeout;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        // 启动重建时间轮时需要订单表
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/order-schema.sql",
+        "mall.order.timeout-sweep-grace-seconds=120"
+})
+@Import(OrderTimeoutUtil.class)
+@Sql("/db/order-schema.sql")
+class OrderTimeoutUtilTest {
+
+    @Autowired
+    private OrderTimeoutUtil orderTimeoutUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @MockitoBean
+    private OrderExpiryWheel orderExpiryWheel;
+
+    @Test
+    void sweepCancelsOrdersWithReservationsExpiredBeyondGrace() {
+        LocalDateTime now = LocalDateTime.now();
+        reservation("EXPIRED", 1, 0, now.minusMinutes(10));
+        reservation("EXPIRED", 2, 0, now.minusMinutes(10)); // 同一订单多个SKU只取消一次
+        reservation("RELEASED", 1, 2, now.minusMinutes(10));
+        reservation("CONFIRMED", 1, 1, now.minusMinutes(10));
+        reservation("IN_GRACE", 1, 0, now.minusSeconds(30)); // 刚过期，仍由时间轮处理
+        reservation("PENDING", 1, 0, now.plusMinutes(10));
+
+        orderTimeoutUtil.sweepExpiredReservations();
+
+        verify(orderService).cancelTimeoutOrders(List.of("EXPIRED"));
+    }
+
+    @Test
+    void sweepSkipsWhenNothingExpired() {
+        reservation("PENDING", 1, 0, LocalDateTime.now().plusMinutes(10));
+
+        orderTimeoutUtil.sweepExpiredReservations();
+
+        verify(orderService, never()).cancelTimeoutOrders(anyList());
+    }
+
+    private void reservation(String orderSn, int skuId, int status, LocalDateTime expireTime) {
+        jdbcTemplate.update("INSERT INTO stock_reservation (order_sn, sku_id, quantity, status, expire_time) " +
+                "VALUES (?, ?, 1, ?, ?)", orderSn, skuId, status, expireTime);
+    }
+}
@@ -0,0 +1,85 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.model.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductListCursorTest {
+
+    @Test
+    void priceCursorRoundTrip() {
+        ProductListCursor cursor = roundTrip("price_asc", product(7, new BigDecimal("4999.00"), 3, null));
+        assertEquals(new BigDecimal("4999.00"), cursor.getValue());
+        assertEquals(7, cursor.getId());
+        assertNull(cursor.getOffset());
+    }
+
+    @Test
+    void nullPriceCursorRoundTrip() {
+        // 还没有上架SKU的商品min_price为NULL
+        for (String sort : new String[]{"price_asc", "price_desc"}) {
+            ProductListCursor cursor = roundTrip(sort, product(5, null, 0, null));
+            assertNull(cursor.getValue());
+            assertEquals(5, cursor.getId());
+        }
+    }
+
+    @Test
+    void salesAndCreatedTimeCursorRoundTrip() {
+        assertEquals(120, roundTrip("sales_desc", product(3, null, 120, null)).getValue());
+
+        LocalDateTime createdTime = LocalDateTime.of(2025, 1, 2, 10, 30, 5);
+        ProductListCursor cursor = roundTrip("created_desc", product(3, null, 0, createdTime));
+        assertEquals(createdTime, cursor.getValue());
+        assertEquals(3, cursor.getId());
+    }
+
+    @Test
+    void relevanceCursorKeepsOnlyOffset() {
+        ProductListCursor cursor = roundTrip("relevance", product(3, null, 0, null), 40);
+        assertNull(cursor.getValue());
+        assertNull(cursor.getId());
+        assertEquals(40, cursor.getOffset());
+    }
+
+    @Test
+    void cursorIsBoundToItsSort() {
+        String encoded = ProductListCursor.after("price_asc", product(1, BigDecimal.ONE, 0, null), 10).encode();
+        assertThrows(BusinessException.class, () -> ProductListCursor.decode("price_desc", encoded));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(BusinessException.class, () -> ProductListCursor.decode("price_asc", "not-a-cursor"));
+        assertThrows(BusinessException.class, () -> ProductListCursor.decode("sales_desc",
+                CursorUtil.encode("sales_desc", "abc", 1, "")));
+        assertThrows(BusinessException.class, () -> ProductListCursor.decode("relevance",
+                CursorUtil.encode("relevance", "", "", -1)));
+    }
+
+    private static ProductListCursor roundTrip(String sort, Product last) {
+        return roundTrip(sort, last, 10);
+    }
+
+    private static ProductListCursor roundTrip(String sort, Product last, int offset) {
+        ProductListCursor cursor = ProductListCursor.decode(sort, ProductListCursor.after(sort, last, offset).encode());
+        assertEquals(sort, cursor.getSort());
+        return cursor;
+    }
+
+    private static Product product(int id, BigDecimal minPrice, int totalSales, LocalDateTime createdTime) {
+        Product product = new Product();
+        product.setId(id);
+        product.setMinPrice(minPrice);
+        product.setTotalSales(totalSales);
+        product.setCreatedTime(createdTime);
+        return product;
+    }
+}
@@ -0,0 +1,155 @@
+package com.jingdong.mall.common.utils;
+
+import com.jingdong.mall.model.entity.ProductSku;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SkuAttributeStoreTest {
+
+    private static final List<String> SPECS = List.of("cpu", "ram", "gpu");
+
+    @Test
+    void productSpecsKeepRowOrderAndSkipNullOrBlank() {
+        SkuAttributeStore store = SkuAttributeStore.of(List.of(
+                sku(1, 10, "i7", "32GB", null),
+                sku(2, 10, "i9", "16GB", " "),
+                sku(3, 10, "i7", "16GB", null),
+                sku(4, 20, "R9", "64GB", "RTX 5090")));
+
+        Map<String, List<String>> specs = store.productSpecs(10, SPECS);
+        assertEquals(List.of("i7", "i9"), specs.get("cpu"));
+        assertEquals(List.of("32GB", "16GB"), specs.get("ram"));
+        assertFalse(specs.containsKey("gpu"));
+        assertTrue(store.productSpecs(99, SPECS).isEmpty());
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    void productIdsMatchingRequiresSameSku() {
+        SkuAttributeStore store = SkuAttributeStore.of(List.of(
+                sku(1, 10, "i7", "16GB", null),
+                sku(2, 10, "i9", "32GB", null), // 商品10有i7也有32GB，但不在同一个SKU
+                sku(3, 20, "i7", "32GB", null)));
+
+        assertArrayEquals(new int[]{20}, store.productIdsMatching(filters("cpu", "i7", "ram", "32GB")));
+        assertArrayEquals(new int[]{10, 20}, store.productIdsMatching(filters("cpu", "i7")));
+        assertArrayEquals(new int[0], store.productIdsMatching(filters("cpu", "i5")));
+        assertThrows(IllegalArgumentException.class, () -> store.productIdsMatching(filters("color", "red")));
+    }
+
+    @Test
+    void productCountsCountEachProductOncePerValue() {
+        SkuAttributeStore store = SkuAttributeStore.of(List.of(
+                sku(1, 10, "i7", "16GB", null),
+                sku(2, 10, "i7", "32GB", null),
+                sku(3, 10, "i9", "64GB", null),
+                sku(4, 20, "i7", "32GB", null),
+                sku(5, 30, "i9", "32GB", null)));
+
+        // 内存为32GB的SKU上的处理器取值
+        assertEquals(Map.of("i7", 2, "i9", 1), store.productCounts("cpu", filters("ram", "32GB"), id -> true));
+        assertEquals(Map.of("i7", 1), store.productCounts("cpu", filters("ram", "32GB"), id -> id == 10));
+        assertEquals(Map.of("16GB", 1, "32GB", 3, "64GB", 1), store.productCounts("ram", Map.of(), id -> true));
+        assertTrue(store.productCounts("cpu", filters("ram", "8GB"), id -> true).isEmpty());
+    }
+
+    @Test
+    void withProductsReturnsSameStoreWhenSpecsUnchanged() {
+        ProductSku sku = sku(1, 10, "i7", "16GB", "RTX 5060");
+        SkuAttributeStore store = SkuAttributeStore.of(List.of(sku, sku(2, 20, "i9", "32GB", null)));
+
+        // 只修改了库存、价格：规格列不变
+        ProductSku restocked = sku(1, 10, "i7", "16GB", "RTX 5060");
+        restocked.setStock(0);
+        assertSame(store, store.withProducts(Map.of(10, List.of(restocked))));
+    }
+
+    @Test
+    void withProductsMatchesFullRebuild() {
+        List<ProductSku> skus = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            skus.add(sku(i, i % 5, "cpu" + i % 3, "ram" + i % 4, i % 2 == 0 ? null : "gpu" + i % 6));
+        }
+        SkuAttributeStore store = SkuAttributeStore.of(skus);
+
+        // 商品1修改规格并调整行顺序，商品2全部下架，新增商品7（含新取值），其它商品不变
+        Map<Integer, List<ProductSku>> changed = new HashMap<>();
+        List<ProductSku> product1 = new ArrayList<>();
+        for (ProductSku sku : skus) {
+            if (sku.getProductId() == 1) {
+                product1.add(0, sku(sku.getId(), 1, "cpu-new", sku.getRam(), sku.getGpu()));
+            }
+        }
+        changed.put(1, product1);
+        changed.put(2, List.of());
+        changed.put(7, List.of(sku(100, 7, "cpu0", "ram-new", "gpu-new")));
+        SkuAttributeStore updated = store.withProducts(changed);
+
+        List<ProductSku> expectedRows = new ArrayList<>();
+        for (ProductSku sku : skus) {
+            if (sku.getProductId() != 1 && sku.getProductId() != 2) {
+                expectedRows.add(sku);
+            }
+        }
+        expectedRows.addAll(product1);
+        expectedRows.addAll(changed.get(7));
+        SkuAttributeStore expected = SkuAttributeStore.of(expectedRows);
+
+        assertEquals(expected.size(), updated.size());
+        for (int productId = 0; productId <= 7; productId++) {
+            assertEquals(expected.productSpecs(productId, SkuAttributeStore.ATTRIBUTES),
+                    updated.productSpecs(productId, SkuAttributeStore.ATTRIBUTES), "productId=" + productId);
+        }
+        assertArrayEquals(expected.productIdsMatching(filters("cpu", "cpu0")),
+                updated.productIdsMatching(filters("cpu", "cpu0")));
+        assertArrayEquals(new int[]{1}, updated.productIdsMatching(filters("cpu", "cpu-new")));
+        assertArrayEquals(new int[0], updated.productIdsMatching(filters("cpu", "cpu-new", "ram", "ram-new")));
+        // 原存储不变
+        assertArrayEquals(new int[0], store.productIdsMatching(filters("cpu", "cpu-new")));
+    }
+
+    @Test
+    void withProductsWidensColumnWhenDictionaryGrows() {
+        SkuAttributeStore store = SkuAttributeStore.of(List.of(sku(1, 1, "cpu0", null, null)));
+        List<ProductSku> rows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            rows.add(sku(1000 + i, 2, "cpu" + i, null, null));
+        }
+        SkuAttributeStore updated = store.withProducts(Map.of(2, rows));
+
+        assertEquals(301, updated.size());
+        assertEquals(300, updated.productSpecs(2, List.of("cpu")).get("cpu").size());
+        assertArrayEquals(new int[]{2}, updated.productIdsMatching(filters("cpu", "cpu299")));
+        assertArrayEquals(new int[]{1, 2}, updated.productIdsMatching(filters("cpu", "cpu0")));
+    }
+
+    private static Map<String, String> filters(String... pairs) {
+        Map<String, String> filters = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            filters.put(pairs[i], pairs[i + 1]);
+        }
+        return filters;
+    }
+
+    private static ProductSku sku(int id, int productId, String cpu, String ram, String gpu) {
+        ProductSku sku = new ProductSku();
+        sku.setId(id);
+        sku.setProductId(productId);
+        sku.setCpu(cpu);
+        sku.setRam(ram);
+        sku.setGpu(gpu);
+        return sku;
+    }
+}
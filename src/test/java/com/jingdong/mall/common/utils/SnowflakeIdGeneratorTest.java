@@ -0,0 +1,117 @@
+package com.jingdong.mall.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                startGate.await();
+                long last = -1;
+                boolean increasing = true;
+                for (int n = 0; n < IDS_PER_THREAD; n++) {
+                    long id = generator.nextId();
+                    increasing &= id > last;
+                    last = id;
+                    ids.add(id);
+                }
+                return increasing;
+            }));
+        }
+        // 所有线程同时开始，一毫秒内的4096个序列号必然用完，覆盖借用下一毫秒的路径
+        startGate.countDown();
+
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    void differentWorkersNeverCollide() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(first.nextId());
+            ids.add(second.nextId());
+        }
+        assertEquals(20_000, ids.size());
+    }
+
+    @Test
+    void borrowedTimestampsStayCloseToClock() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        for (int i = 0; i < 2_000_000; i++) {
+            long timestamp = timestampOf(generator.nextId());
+            // 序列号用完时借用下一毫秒，但最多领先时钟100毫秒
+            assertTrue(timestamp <= System.currentTimeMillis() + 100, "timestamp ran ahead of clock");
+        }
+    }
+
+    @Test
+    void expiredLeaseBlocksThenFails() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 200);
+        generator.extendLease(System.currentTimeMillis() - 1_000);
+        long start = System.currentTimeMillis();
+        assertThrows(IllegalStateException.class, generator::nextId);
+        assertTrue(System.currentTimeMillis() - start >= 200);
+
+        // 续期后恢复
+        long leaseUntil = System.currentTimeMillis() + 10_000;
+        generator.extendLease(leaseUntil);
+        assertTrue(timestampOf(generator.nextId()) <= leaseUntil);
+    }
+
+    @Test
+    void startupWaitsForPreviousLease() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long previousLeaseUntil = System.currentTimeMillis() + 200;
+        generator.awaitClockPast(previousLeaseUntil);
+        assertTrue(System.currentTimeMillis() > previousLeaseUntil);
+        assertTrue(timestampOf(generator.nextId()) > previousLeaseUntil);
+
+        // 时钟落后上次租约太多，拒绝生成
+        assertThrows(IllegalStateException.class,
+                () -> generator.awaitClockPast(System.currentTimeMillis() + 600_000));
+    }
+
+    @Test
+    void rejectsOutOfRangeWorkerId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+
+    // ID中的时间戳（毫秒时间戳）
+    private static long timestampOf(long id) {
+        return (id >>> 22) + 1704067200000L;
+    }
+}
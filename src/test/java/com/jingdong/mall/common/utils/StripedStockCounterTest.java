@@ -0,0 +1,126 @@
+package com.jingdong.mall.common.utils;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedStockCounterTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    void acquireAcrossStripesAndRollbackOnShortage() {
+        // 4个分段：3, 3, 2, 2
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+
+        assertFalse(counter.tryAcquire(11));
+        assertEquals(10, counter.available());
+
+        assertTrue(counter.tryAcquire(7));
+        assertEquals(3, counter.available());
+        assertTrue(counter.tryAcquire(3));
+        assertEquals(0, counter.available());
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    @RepeatedTest(20)
+    void concurrentMultiUnitAcquireNeverReportsFalseSoldOut() throws Exception {
+        // 每次扣3件，库存分散在8个分段中，大部分扣减都要跨分段凑数
+        int quantity = 3;
+        long initialStock = 200;
+        StripedStockCounter counter = new StripedStockCounter(initialStock, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                startGate.await();
+                long acquired = 0;
+                // 扣到失败为止，失败时剩余库存必须确实不够一次扣减
+                while (counter.tryAcquire(quantity)) {
+                    acquired += quantity;
+                }
+                return acquired;
+            }));
+        }
+        startGate.countDown();
+
+        long acquired = 0;
+        for (Future<Long> result : results) {
+            acquired += result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(initialStock - initialStock % quantity, acquired);
+        assertEquals(initialStock % quantity, counter.available());
+    }
+
+    @Test
+    void twoSlowPathAcquirersBothSucceedWhenStockSuffices() throws Exception {
+        // 库存6分散在8个分段（1,1,1,1,1,1,0,0），两个线程各扣3件都必须跨分段凑数
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                StripedStockCounter counter = new StripedStockCounter(6, 8);
+                CountDownLatch startGate = new CountDownLatch(1);
+                Future<Boolean> first = executor.submit(() -> {
+                    startGate.await();
+                    return counter.tryAcquire(3);
+                });
+                Future<Boolean> second = executor.submit(() -> {
+                    startGate.await();
+                    return counter.tryAcquire(3);
+                });
+                startGate.countDown();
+                assertTrue(first.get(10, TimeUnit.SECONDS), "round " + round);
+                assertTrue(second.get(10, TimeUnit.SECONDS), "round " + round);
+                assertEquals(0, counter.available());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @RepeatedTest(20)
+    void concurrentAcquireAndReleaseConserveStock() throws Exception {
+        long initialStock = 64;
+        StripedStockCounter counter = new StripedStockCounter(initialStock, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long quantity = i % 4 + 2;
+            results.add(executor.submit(() -> {
+                startGate.await();
+                for (int n = 0; n < 1_000; n++) {
+                    if (counter.tryAcquire(quantity)) {
+                        counter.release(quantity);
+                    }
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 扣减和归还成对出现，总库存不变，也没有分段被扣成负数后又补回
+        assertEquals(initialStock, counter.available());
+        assertTrue(counter.tryAcquire(initialStock));
+    }
+}
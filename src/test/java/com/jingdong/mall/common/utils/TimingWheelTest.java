@@ -0,0 +1,88 @@
+package com.jingdong.mall.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    // 与 OrderExpiryWheel 相同的配置：1秒/格，每层60格，3层（总跨度60小时）
+    private TimingWheel<String> newWheel() {
+        return new TimingWheel<>(TICK, 60, 3, 0);
+    }
+
+    @Test
+    void taskInHigherLevelExpiresWithinOneTick() {
+        TimingWheel<String> wheel = newWheel();
+        long expireAt = 1_800_500; // 30分钟后，先放在第1层，降级到第0层后到期
+        assertTrue(wheel.add("order", expireAt));
+
+        for (long now = TICK; now <= 1_800_000; now += TICK) {
+            assertTrue(wheel.advance(now).isEmpty(), "不能提前到期: now=" + now);
+        }
+        assertEquals(List.of("order"), wheel.advance(1_801_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void removedTaskNeverExpiresAndReAddReplaces() {
+        TimingWheel<String> wheel = newWheel();
+        wheel.add("paid", 5_000);
+        wheel.add("moved", 5_000);
+        assertTrue(wheel.remove("paid"));
+        assertFalse(wheel.remove("paid"));
+        wheel.add("moved", 9_000); // 同名任务替换到期时间
+
+        assertTrue(wheel.advance(8_000).isEmpty());
+        assertEquals(List.of("moved"), wheel.advance(10_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void alreadyExpiredTaskIsRejected() {
+        TimingWheel<String> wheel = newWheel();
+        wheel.advance(60_000); // 空时间轮直接跳到当前时间
+        assertFalse(wheel.add("late", 59_999));
+        assertTrue(wheel.add("current", 60_000));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void randomTasksExpireOnceNeverEarlyAndAtMostOneTickLate() {
+        Random random = new Random(42);
+        TimingWheel<String> wheel = newWheel();
+        Map<String, Long> expireAts = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            // 最远70小时，超出时间轮跨度的任务在最高层循环等待
+            long expireAt = (long) (random.nextDouble() * 70 * 3600 * 1000);
+            expireAts.put("task" + i, expireAt);
+            assertTrue(wheel.add("task" + i, expireAt));
+        }
+
+        Map<String, Long> firedAt = new HashMap<>();
+        long previous = 0;
+        long now = 0;
+        while (wheel.size() > 0) {
+            now += 1 + random.nextInt(5_000);
+            for (String key : wheel.advance(now)) {
+                // 第0层在所在tick结束后取出：不早于该tick结束，且上一次推进时该tick还没结束
+                long tickEnd = (expireAts.get(key) / TICK + 1) * TICK;
+                assertTrue(now >= tickEnd, "提前到期: " + key);
+                assertTrue(previous < tickEnd, "延迟超过一个tick: " + key);
+                assertNull(firedAt.put(key, now), "重复到期: " + key);
+            }
+            previous = now;
+        }
+        assertEquals(expireAts.size(), firedAt.size());
+    }
+}
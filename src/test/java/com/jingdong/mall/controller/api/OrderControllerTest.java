@@ -0,0 +1,76 @@
+package com.jingdong.mall.controller.api;
+
+import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.common.exception.ErrorCode;
+import com.jingdong.mall.common.handler.GlobalExceptionHandler;
+import com.jingdong.mall.common.utils.JwtUtil;
+import com.jingdong.mall.model.dto.response.OrderSubmitResponse;
+import com.jingdong.mall.service.OrderService;
+import com.jingdong.mall.service.OrderSubmitService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 异步下单接口测试：受理返回202，排队已满返回503
+ */
+class OrderControllerTest {
+
+    private static final String BODY = "{\"addressId\":1,\"cartItemIds\":[1]}";
+
+    private final OrderSubmitService orderSubmitService = mock(OrderSubmitService.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.getUserIdFromToken("token")).thenReturn("1");
+
+        OrderController controller = new OrderController();
+        ReflectionTestUtils.setField(controller, "orderService", mock(OrderService.class));
+        ReflectionTestUtils.setField(controller, "orderSubmitService", orderSubmitService);
+        ReflectionTestUtils.setField(controller, "jwtUtil", jwtUtil);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void acceptedSubmissionReturns202() throws Exception {
+        when(orderSubmitService.submitOrderFromCart(eq(1L), any())).thenReturn(
+                new OrderSubmitResponse("SN1", OrderSubmitResponse.Status.QUEUED, null, null));
+
+        mockMvc.perform(post("/api/orders/from-cart/async")
+                        .header("Authorization", "Bearer token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.orderSn").value("SN1"))
+                .andExpect(jsonPath("$.data.status").value(OrderSubmitResponse.Status.QUEUED));
+    }
+
+    @Test
+    void fullQueueReturns503() throws Exception {
+        when(orderSubmitService.submitOrderFromCart(eq(1L), any()))
+                .thenThrow(new BusinessException(ErrorCode.ORDER_SYSTEM_BUSY));
+
+        mockMvc.perform(post("/api/orders/from-cart/async")
+                        .header("Authorization", "Bearer token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value(ErrorCode.ORDER_SYSTEM_BUSY.getCode()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.jingdong.mall.mapper;
+
+import com.jingdong.mall.model.entity.Order;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 订单批量插入测试：一条INSERT写入多个订单，按顺序回填各自的自增ID
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-mapper;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@Sql("/db/order-schema.sql")
+class OrderMapperTest {
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Test
+    void batchInsertBackfillsIdsInOrder() {
+        List<Order> orders = List.of(order("SN1", 1L), order("SN2", 2L), order("SN3", 3L));
+
+        assertEquals(3, orderMapper.batchInsert(orders));
+
+        Set<Long> ids = new HashSet<>();
+        for (Order order : orders) {
+            assertNotNull(order.getId());
+            ids.add(order.getId());
+            Order stored = orderMapper.selectByOrderSnAndUserId(order.getOrderSn(), order.getUserId());
+            assertEquals(stored.getId(), order.getId());
+            assertEquals(0, order.getPayAmount().compareTo(stored.getPayAmount()));
+        }
+        assertEquals(3, ids.size());
+    }
+
+    private Order order(String orderSn, Long userId) {
+        Order order = new Order();
+        order.setOrderSn(orderSn);
+        order.setUserId(userId);
+        order.setTotalAmount(new BigDecimal("100.00").add(BigDecimal.valueOf(userId)));
+        order.setDiscountAmount(BigDecimal.ZERO);
+        order.setShippingFee(BigDecimal.ZERO);
+        order.setPayAmount(order.getTotalAmount());
+        order.setReceiverName("张三");
+        order.setReceiverPhone("13800000000");
+        order.setReceiverProvince("北京市");
+        order.setReceiverCity("北京市");
+        order.setReceiverDistrict("朝阳区");
+        order.setReceiverDetail("测试地址" + userId);
+        order.setStatus(0);
+        order.setPaymentMethod(0);
+        return order;
+    }
+}
@@ -0,0 +1,98 @@
+package com.jingdong.mall.mapper;
+
+import com.jingdong.mall.common.utils.ProductListCursor;
+import com.jingdong.mall.model.dto.request.ProductListRequest;
+import com.jingdong.mall.model.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 商品列表游标分页测试：按各种排序方式、各种页大小逐页翻完，结果必须与完整排序一致，不重复不遗漏
+ * 数据包含min_price为NULL的商品和排序字段值相同的商品（见 db/product-list-schema.sql）
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product_list;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@Sql("/db/product-list-schema.sql")
+class ProductMapperTest {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> sortOrders() {
+        // 与MySQL一致：升序时NULL在最前，降序时NULL在最后；排序字段值相同时按ID
+        List<Arguments> arguments = new ArrayList<>();
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            arguments.add(Arguments.of("price_asc", pageSize, List.of(2, 5, 8, 3, 9, 1, 4, 6, 7)));
+            arguments.add(Arguments.of("price_desc", pageSize, List.of(7, 6, 4, 1, 9, 3, 8, 5, 2)));
+            arguments.add(Arguments.of("sales_desc", pageSize, List.of(9, 4, 6, 3, 1, 8, 7, 5, 2)));
+            arguments.add(Arguments.of("created_desc", pageSize, List.of(8, 6, 4, 7, 2, 9, 5, 3, 1)));
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "{0} pageSize={1}")
+    @MethodSource("sortOrders")
+    void cursorPagesCoverFullOrderOnce(String sort, int pageSize, List<Integer> expected) {
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        for (int pages = 0; pages <= expected.size(); pages++) {
+            ProductListRequest request = new ProductListRequest();
+            request.setSort(sort);
+            request.setPageSize(pageSize);
+            if (cursor != null) {
+                // 与Service层一致：游标先编码成字符串再解析
+                request.setAfterCursor(ProductListCursor.decode(sort, cursor));
+            }
+
+            List<Product> rows = productMapper.selectProductList(request);
+            List<Product> page = rows.subList(0, Math.min(pageSize, rows.size()));
+            page.forEach(product -> ids.add(product.getId()));
+            if (rows.size() <= pageSize) {
+                cursor = null;
+                break;
+            }
+            cursor = ProductListCursor.after(sort, page.get(page.size() - 1), ids.size()).encode();
+        }
+
+        assertNull(cursor, "翻页没有结束");
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void jsonListColumnsMapThroughExplicitTypeHandler() {
+        jdbcTemplate.update("UPDATE product SET main_images = ?, tags = ? WHERE id = 1",
+                "[\"https://img/1.jpg\",\"https://img/2.jpg\"]", "[\"轻薄\"]");
+
+        Product product = productMapper.selectById(1);
+        assertEquals(List.of("https://img/1.jpg", "https://img/2.jpg"), product.getMainImages());
+        assertEquals(List.of("轻薄"), product.getTags());
+
+        Product batched = productMapper.selectByIds(List.of(1)).get(0);
+        assertEquals(product.getMainImages(), batched.getMainImages());
+        assertEquals(product.getTags(), batched.getTags());
+    }
+}
@@ -0,0 +1,95 @@
+package com.jingdong.mall.mapper;
+
+import com.jingdong.mall.model.entity.ShoppingCart;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 加入购物车upsert测试：新增、累加（不超过库存）、已达库存上限后再次加入，按唯一键读回的条目都正确
+ * 累加时通过LAST_INSERT_ID(id)回填ID是MySQL驱动的行为，H2不支持，Service层也不依赖它（总是按唯一键读回）
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@Sql("/db/cart-schema.sql")
+class ShoppingCartMapperTest {
+
+    private static final long USER_ID = 1L;
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertThenAccumulateUpToStock() {
+        ShoppingCart inserted = upsert(1, 2);
+        assertTrue(shoppingCartMapper.upsertAdd(inserted) > 0);
+        ShoppingCart line = shoppingCartMapper.selectByUserIdAndSkuId(USER_ID, 1);
+        assertEquals(line.getId(), inserted.getId());
+        assertEquals(2, line.getQuantity());
+        assertTrue(line.getSelected());
+        assertEquals(0, new BigDecimal("99.00").compareTo(line.getAddedPrice()));
+
+        // 累加，超过库存（5）时截断
+        jdbcTemplate.update("UPDATE shopping_cart SET selected = 0 WHERE id = ?", line.getId());
+        assertTrue(shoppingCartMapper.upsertAdd(upsert(1, 4)) > 0);
+        ShoppingCart accumulated = shoppingCartMapper.selectByUserIdAndSkuId(USER_ID, 1);
+        assertEquals(line.getId(), accumulated.getId());
+        assertEquals(5, accumulated.getQuantity());
+        assertTrue(accumulated.getSelected());
+    }
+
+    @Test
+    void addingAtStockCapIsNotTreatedAsFailure() {
+        ShoppingCart first = upsert(1, 5);
+        shoppingCartMapper.upsertAdd(first);
+
+        // 已达库存上限，同一秒内再次加入：条目没有变化，但不是“未写入”
+        assertTrue(shoppingCartMapper.upsertAdd(upsert(1, 1)) > 0);
+        ShoppingCart line = shoppingCartMapper.selectByUserIdAndSkuId(USER_ID, 1);
+        assertEquals(first.getId(), line.getId());
+        assertEquals(5, line.getQuantity());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM shopping_cart WHERE user_id = ?", Integer.class, USER_ID));
+    }
+
+    @Test
+    void nothingWrittenForInactiveSkuOrInsufficientStock() {
+        assertEquals(0, shoppingCartMapper.upsertAdd(upsert(2, 1)));
+        assertEquals(0, shoppingCartMapper.upsertAdd(upsert(1, 6)));
+        assertNull(shoppingCartMapper.selectByUserIdAndSkuId(USER_ID, 1));
+        assertNull(shoppingCartMapper.selectByUserIdAndSkuId(USER_ID, 2));
+
+        // 下架前加入的条目不会被累加
+        jdbcTemplate.update("UPDATE product_sku SET is_active = 0 WHERE id = 1");
+        assertEquals(0, shoppingCartMapper.upsertAdd(upsert(1, 1)));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT quantity FROM shopping_cart WHERE user_id = 2 AND sku_id = 1", Integer.class));
+    }
+
+    private static ShoppingCart upsert(int skuId, int quantity) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setUserId(USER_ID);
+        cart.setSkuId(skuId);
+        cart.setQuantity(quantity);
+        return cart;
+    }
+}
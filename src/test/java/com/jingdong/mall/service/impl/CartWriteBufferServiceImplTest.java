@@ -0,0 +1,79 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.model.entity.ShoppingCart;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartWriteBufferServiceImplTest {
+
+    private static final long USER_ID = 1L;
+
+    private static final long CART_ID = 10L;
+
+    @Test
+    void bufferUpdateReturnsPendingQuantityBeforeMerge() {
+        CartWriteBufferServiceImpl buffer = new CartWriteBufferServiceImpl();
+        assertNull(buffer.bufferUpdate(USER_ID, CART_ID, 3, null));
+        assertEquals(3, buffer.bufferUpdate(USER_ID, CART_ID, null, false));
+        // 只修改选中状态时保留之前的数量
+        assertEquals(3, buffer.bufferUpdate(USER_ID, CART_ID, 5, null));
+        assertNull(buffer.bufferUpdate(USER_ID, CART_ID + 1, 1, null));
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.setId(CART_ID);
+        cart.setQuantity(1);
+        cart.setSelected(true);
+        buffer.applyPending(USER_ID, List.of(cart));
+        assertEquals(5, cart.getQuantity());
+        assertEquals(false, cart.getSelected());
+    }
+
+    @Test
+    void concurrentUpdatesProduceConsistentDeltas() throws Exception {
+        // 每个请求按“新数量 - 修改前的数量”调整角标，并发时各次调整之和必须等于最终数量与初始数量之差
+        CartWriteBufferServiceImpl buffer = new CartWriteBufferServiceImpl();
+        int persistedQuantity = 1;
+        int threads = 8;
+        int updatesPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                long delta = 0;
+                for (int i = 0; i < updatesPerThread; i++) {
+                    int quantity = 1 + (offset + i) % 9;
+                    Integer previous = buffer.bufferUpdate(USER_ID, CART_ID, quantity, null);
+                    delta += quantity - (previous != null ? previous : persistedQuantity);
+                }
+                return delta;
+            }));
+        }
+        start.countDown();
+        long totalDelta = 0;
+        for (Future<Long> future : futures) {
+            totalDelta += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.setId(CART_ID);
+        cart.setQuantity(persistedQuantity);
+        buffer.applyPending(USER_ID, List.of(cart));
+        assertEquals(cart.getQuantity() - persistedQuantity, totalDelta);
+    }
+}
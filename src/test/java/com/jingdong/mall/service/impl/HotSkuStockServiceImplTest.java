@@ -0,0 +1,118 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.model.entity.OrderItem;
+import com.jingdong.mall.model.entity.StockReservation;
+import com.jingdong.mall.service.HotSkuStockService;
+import com.jingdong.mall.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热点SKU库存回写测试：启动时补齐异常退出前未回写的预占记录，运行中按预占记录回写扣减和归还
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hotsku;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        // 启动加载热点SKU之前建表并写入异常退出时留下的预占记录
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/inventory-schema.sql",
+        "spring.sql.init.data-locations=classpath:db/hot-sku-data.sql",
+        "mall.hot-sku.ids=1"
+})
+@Import({HotSkuStockServiceImpl.class, InventoryServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotSkuStockServiceImplTest {
+
+    private static final int SKU_ID = 1;
+
+    // 20 - 3（CRASH1） - 2（CRASH2） + 1（CRASH4）
+    private static final int RECOVERED_STOCK = 16;
+
+    @Autowired
+    private HotSkuStockService hotSkuStockService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void startupSyncsJournalBeforeLoadingStock() {
+        assertTrue(hotSkuStockService.isHot(SKU_ID));
+        assertEquals(RECOVERED_STOCK, dbStock());
+        assertEquals(StockReservation.StockSynced.DEDUCTED, stockSynced("CRASH1"));
+        assertEquals(StockReservation.StockSynced.DEDUCTED, stockSynced("CRASH2"));
+        assertEquals(StockReservation.StockSynced.SETTLED, stockSynced("CRASH3"));
+        assertEquals(StockReservation.StockSynced.SETTLED, stockSynced("CRASH4"));
+        assertEquals(StockReservation.StockSynced.DEDUCTED, stockSynced("CRASH5"));
+
+        // 内存库存按补齐后的数据库库存加载：能全部预占，再多一件就失败
+        assertTrue(hotSkuStockService.tryReserve(Map.of(SKU_ID, RECOVERED_STOCK)));
+        assertFalse(hotSkuStockService.tryReserve(Map.of(SKU_ID, 1)));
+        hotSkuStockService.release(Map.of(SKU_ID, RECOVERED_STOCK));
+    }
+
+    @Test
+    void reserveAndReleaseAreWrittenBackThroughJournal() {
+        int before = dbStock();
+
+        // 1. 预占只扣减内存库存，记录为待扣减
+        Boolean reserved = transactionTemplate.execute(status -> inventoryService.reserve(
+                "HOT1", List.of(orderItem(SKU_ID, 5)), LocalDateTime.now().plusMinutes(15)));
+        assertTrue(reserved);
+        assertEquals(before, dbStock());
+        assertEquals(StockReservation.StockSynced.PENDING, stockSynced("HOT1"));
+
+        // 2. 回写扣减数据库库存
+        hotSkuStockService.flush();
+        assertEquals(before - 5, dbStock());
+        assertEquals(StockReservation.StockSynced.DEDUCTED, stockSynced("HOT1"));
+
+        // 3. 释放后回写归还数据库库存
+        assertEquals(1, inventoryService.release("HOT1"));
+        assertEquals(before - 5, dbStock());
+        hotSkuStockService.flush();
+        assertEquals(before, dbStock());
+        assertEquals(StockReservation.StockSynced.SETTLED, stockSynced("HOT1"));
+    }
+
+    private int dbStock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM product_sku WHERE id = ?", Integer.class, SKU_ID);
+    }
+
+    private int stockSynced(String orderSn) {
+        return jdbcTemplate.queryForObject(
+                "SELECT stock_synced FROM stock_reservation WHERE order_sn = ?", Integer.class, orderSn);
+    }
+
+    private OrderItem orderItem(int skuId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setSkuId(skuId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,142 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.model.entity.OrderItem;
+import com.jingdong.mall.service.HotSkuStockService;
+import com.jingdong.mall.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 库存预占并发测试：多个线程同时抢同一个SKU，成功数必须等于库存数，不能超卖
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory;MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@Import(InventoryServiceImpl.class)
+@Sql("/db/inventory-schema.sql")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // 每个线程在自己的事务中预占
+class InventoryServiceImplTest {
+
+    private static final int SKU_ID = 1;
+    private static final int STOCK = 20;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private HotSkuStockService hotSkuStockService; // 默认返回false，全部走数据库扣减
+
+    @Test
+    void concurrentReserveNeverOversells() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String orderSn = "TEST" + i;
+            results.add(executor.submit(() -> {
+                startGate.await();
+                // reserve要求在事务中调用，预占失败时回滚，与下单流程一致
+                return transactionTemplate.execute(status -> {
+                    boolean reserved = inventoryService.reserve(orderSn, List.of(orderItem(SKU_ID, 1)),
+                            LocalDateTime.now().plusMinutes(15));
+                    if (!reserved) {
+                        status.setRollbackOnly();
+                    }
+                    return reserved;
+                });
+            }));
+        }
+        startGate.countDown();
+
+        int successes = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                successes++;
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(STOCK, successes);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT stock FROM product_sku WHERE id = ?", Integer.class, SKU_ID));
+        assertEquals(STOCK, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_reservation WHERE sku_id = ?", Integer.class, SKU_ID));
+    }
+
+    @Test
+    void coldShortfallReturnsHotStockExactlyOnce() {
+        // SKU 2为热点SKU，内存扣减成功；SKU 1库存只有20，扣减21失败
+        int hotSkuId = 2;
+        when(hotSkuStockService.isHot(hotSkuId)).thenReturn(true);
+        when(hotSkuStockService.tryReserve(anyMap())).thenReturn(true);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Boolean reserved = transactionTemplate.execute(status -> {
+            boolean result = inventoryService.reserve("HOT1",
+                    List.of(orderItem(SKU_ID, STOCK + 1), orderItem(hotSkuId, 1)),
+                    LocalDateTime.now().plusMinutes(15));
+            if (!result) {
+                status.setRollbackOnly();
+            }
+            return result;
+        });
+
+        // reserve失败时自行归还内存库存，事务回滚后不会再归还一次
+        assertFalse(reserved);
+        verify(hotSkuStockService, times(1)).release(Map.of(hotSkuId, 1));
+        assertEquals(STOCK, jdbcTemplate.queryForObject(
+                "SELECT stock FROM product_sku WHERE id = ?", Integer.class, SKU_ID));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_reservation WHERE order_sn = 'HOT1'", Integer.class));
+    }
+
+    private OrderItem orderItem(int skuId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setSkuId(skuId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
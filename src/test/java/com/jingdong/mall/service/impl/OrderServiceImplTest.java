@@ -0,0 +1,142 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.exception.ErrorCode;
+import com.jingdong.mall.common.utils.OrderExpiryWheel;
+import com.jingdong.mall.common.utils.SnowflakeIdGenerator;
+import com.jingdong.mall.model.dto.request.OrderCreateFromCartRequest;
+import com.jingdong.mall.model.dto.request.OrderSubmission;
+import com.jingdong.mall.service.CartWriteBufferService;
+import com.jingdong.mall.service.HotSkuStockService;
+import com.jingdong.mall.service.OrderService;
+import com.jingdong.mall.service.ShoppingCartService;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 异步下单批量创建测试：库存不足的提交只回滚自己的保存点，同一批的其它订单照常创建
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class, JacksonAutoConfiguration.class})
+@Sql("/db/order-schema.sql")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // 与工作线程一样由createOrdersFromCart自己开启事务
+class OrderServiceImplTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private HotSkuStockService hotSkuStockService; // 默认返回false，全部走数据库扣减
+
+    @MockitoBean
+    private CartWriteBufferService cartWriteBufferService;
+
+    @MockitoBean
+    private ShoppingCartService shoppingCartService;
+
+    @MockitoBean
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @MockitoBean
+    private OrderExpiryWheel orderExpiryWheel;
+
+    @Test
+    void outOfStockSubmissionFailsAloneInBatch() {
+        // 用户1先抢到2台SKU 1（库存3），用户2的2台库存不足；用户3买SKU 2
+        OrderSubmission first = submission("SN1", 1, 1, 11);
+        OrderSubmission outOfStock = submission("SN2", 2, 2, 21);
+        OrderSubmission other = submission("SN3", 3, 3, 31);
+
+        orderService.createOrdersFromCart(List.of(first, outOfStock, other));
+
+        // 1. 失败的提交只记录原因，购物车项保留
+        assertNull(outOfStock.getResponse());
+        assertEquals(ErrorCode.CART_ITEM_STOCK_NOT_ENOUGH.getCode(), outOfStock.getError().getCode());
+        assertEquals(1, count("SELECT COUNT(*) FROM shopping_cart WHERE id = 21"));
+        assertEquals(0, count("SELECT COUNT(*) FROM `order` WHERE order_sn = 'SN2'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM stock_reservation WHERE order_sn = 'SN2'"));
+
+        // 2. 其余订单在同一事务中创建：订单、订单项、预占记录都已写入，购物车项已删除
+        for (OrderSubmission created : List.of(first, other)) {
+            assertNull(created.getError());
+            assertNotNull(created.getResponse());
+            Long orderId = jdbcTemplate.queryForObject(
+                    "SELECT id FROM `order` WHERE order_sn = ?", Long.class, created.getOrderSn());
+            assertEquals(1, count("SELECT COUNT(*) FROM order_item WHERE order_id = " + orderId));
+            assertEquals(1, count("SELECT COUNT(*) FROM stock_reservation WHERE order_sn = '"
+                    + created.getOrderSn() + "'"));
+            verify(orderExpiryWheel).register(eq(created.getOrderSn()), any(LocalDateTime.class));
+        }
+        assertEquals(0, count("SELECT COUNT(*) FROM shopping_cart WHERE id IN (11, 31)"));
+        assertEquals(1, count("SELECT stock FROM product_sku WHERE id = 1"));
+        assertEquals(99, count("SELECT stock FROM product_sku WHERE id = 2"));
+
+        // 3. 订单项关联到各自的订单，主图取自商品主图JSON数组的第一张
+        assertEquals("https://img/1.jpg", jdbcTemplate.queryForObject("SELECT oi.main_image FROM order_item oi "
+                + "JOIN `order` o ON o.id = oi.order_id WHERE o.order_sn = 'SN1'", String.class));
+        assertEquals(1, count("SELECT oi.sku_id FROM order_item oi JOIN `order` o ON o.id = oi.order_id "
+                + "WHERE o.order_sn = 'SN1'"));
+        assertEquals(2, count("SELECT oi.sku_id FROM order_item oi JOIN `order` o ON o.id = oi.order_id "
+                + "WHERE o.order_sn = 'SN3'"));
+
+        // 4. 只为创建成功的订单调整角标、登记到期时间
+        verify(shoppingCartService).adjustCartCount(1L, -2);
+        verify(shoppingCartService).adjustCartCount(3L, -1);
+        verify(shoppingCartService, never()).adjustCartCount(eq(2L), any(Integer.class));
+        verify(orderExpiryWheel, never()).register(eq("SN2"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void cartItemClaimedTwiceInBatchOnlyServesFirst() {
+        OrderSubmission first = submission("SN1", 1, 1, 11);
+        OrderSubmission duplicate = submission("SN2", 1, 1, 11);
+
+        orderService.createOrdersFromCart(List.of(first, duplicate));
+
+        assertNotNull(first.getResponse());
+        assertEquals(ErrorCode.CART_ITEM_NOT_EXIST.getCode(), duplicate.getError().getCode());
+        assertEquals(1, count("SELECT COUNT(*) FROM `order`"));
+        assertEquals(1, count("SELECT stock FROM product_sku WHERE id = 1"));
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    private static OrderSubmission submission(String orderSn, long userId, int addressId, Integer... cartItemIds) {
+        OrderCreateFromCartRequest request = new OrderCreateFromCartRequest();
+        request.setAddressId(addressId);
+        request.setCartItemIds(List.of(cartItemIds));
+        return new OrderSubmission(orderSn, userId, request);
+    }
+}
@@ -0,0 +1,127 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.common.exception.ErrorCode;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.common.utils.SnowflakeIdGenerator;
+import com.jingdong.mall.mapper.OrderMapper;
+import com.jingdong.mall.model.dto.request.OrderCreateFromCartRequest;
+import com.jingdong.mall.model.dto.request.OrderSubmission;
+import com.jingdong.mall.model.dto.response.OrderCreateResponse;
+import com.jingdong.mall.model.dto.response.OrderSubmitResponse;
+import com.jingdong.mall.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异步下单受理测试：队列满时拒绝并撤销排队状态；同一批中失败的提交单独公布失败，其余公布成功
+ */
+class OrderSubmitServiceImplTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+
+    private final SnowflakeIdGenerator snowflakeIdGenerator = mock(SnowflakeIdGenerator.class);
+
+    private final LocalCache<String, OrderSubmitResponse> orderSubmitCache =
+            new LocalCache<>("orderSubmitTest", 100, 60_000, value -> 1);
+
+    private OrderSubmitServiceImpl orderSubmitService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        orderSubmitService.stop();
+    }
+
+    @Test
+    void fullQueueRejectsWithSystemBusy() {
+        // 没有工作线程，队列容量1：第一个请求排队，第二个被拒绝
+        orderSubmitService = start(1, 0);
+        when(snowflakeIdGenerator.nextOrderSn()).thenReturn("SN1", "SN2");
+
+        OrderSubmitResponse queued = orderSubmitService.submitOrderFromCart(1L, request());
+        assertEquals(OrderSubmitResponse.Status.QUEUED, queued.getStatus());
+        assertEquals(OrderSubmitResponse.Status.QUEUED, orderSubmitCache.getIfPresent("1:SN1").getStatus());
+
+        BusinessException rejected = assertThrows(BusinessException.class,
+                () -> orderSubmitService.submitOrderFromCart(2L, request()));
+        assertEquals(ErrorCode.ORDER_SYSTEM_BUSY.getCode(), rejected.getCode());
+        assertNull(orderSubmitCache.getIfPresent("2:SN2"));
+    }
+
+    @Test
+    void failedSubmissionIsPublishedAloneWithoutRetry() {
+        orderSubmitService = start(10, 1);
+        when(snowflakeIdGenerator.nextOrderSn()).thenReturn("SN1", "SN2");
+        OrderCreateResponse created = new OrderCreateResponse("SN1", BigDecimal.TEN, BigDecimal.TEN, 900);
+        doAnswer(invocation -> {
+            List<OrderSubmission> batch = invocation.getArgument(0);
+            for (OrderSubmission submission : batch) {
+                if ("SN1".equals(submission.getOrderSn())) {
+                    submission.setResponse(created);
+                } else {
+                    submission.setError(new BusinessException(ErrorCode.CART_ITEM_STOCK_NOT_ENOUGH));
+                }
+            }
+            return null;
+        }).when(orderService).createOrdersFromCart(anyList());
+
+        orderSubmitService.submitOrderFromCart(1L, request());
+        orderSubmitService.submitOrderFromCart(2L, request());
+
+        verify(orderService, timeout(5_000).atLeastOnce()).createOrdersFromCart(anyList());
+        awaitStatus("1:SN1", OrderSubmitResponse.Status.SUCCESS);
+        awaitStatus("2:SN2", OrderSubmitResponse.Status.FAILED);
+        assertEquals(created, orderSubmitCache.getIfPresent("1:SN1").getOrder());
+        assertEquals(ErrorCode.CART_ITEM_STOCK_NOT_ENOUGH.getMessage(),
+                orderSubmitCache.getIfPresent("2:SN2").getMessage());
+        verify(orderService, never()).createOrderFromCart(any(), any(), any());
+    }
+
+    private OrderSubmitServiceImpl start(int queueCapacity, int workerCount) {
+        OrderSubmitServiceImpl service = new OrderSubmitServiceImpl();
+        ReflectionTestUtils.setField(service, "orderService", orderService);
+        ReflectionTestUtils.setField(service, "orderMapper", mock(OrderMapper.class));
+        ReflectionTestUtils.setField(service, "snowflakeIdGenerator", snowflakeIdGenerator);
+        ReflectionTestUtils.setField(service, "orderSubmitCache", orderSubmitCache);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "workerCount", workerCount);
+        ReflectionTestUtils.setField(service, "batchSize", 20);
+        service.start();
+        return service;
+    }
+
+    private void awaitStatus(String key, int status) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            OrderSubmitResponse response = orderSubmitCache.getIfPresent(key);
+            if (response != null && response.getStatus() == status) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        assertEquals(status, orderSubmitCache.getIfPresent(key).getStatus());
+    }
+
+    private static OrderCreateFromCartRequest request() {
+        OrderCreateFromCartRequest request = new OrderCreateFromCartRequest();
+        request.setAddressId(1);
+        request.setCartItemIds(List.of(1));
+        return request;
+    }
+}
@@ -0,0 +1,123 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.model.dto.request.ProductListRequest;
+import com.jingdong.mall.model.dto.response.ProductFacetResponse;
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductCategory;
+import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.service.CatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分面统计测试：多个规格条件须由同一个SKU同时满足，统计某个规格时其它规格条件也按SKU判断
+ */
+class ProductFacetServiceImplTest {
+
+    private final CatalogService catalogService = mock(CatalogService.class);
+
+    private final ProductFacetServiceImpl productFacetService = new ProductFacetServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productFacetService, "catalogService", catalogService);
+
+        // 商品10有i7+32GB的SKU；商品20的i7和32GB分别属于两个SKU；商品30只有R7
+        CatalogSnapshot snapshot = CatalogSnapshot.of(
+                List.of(product(10, 1, "5999"), product(20, 1, "4999"), product(30, 2, "3999")),
+                List.of(sku(1, 10, "i7", "32GB"), sku(2, 20, "i7", "16GB"), sku(3, 20, "i9", "32GB"),
+                        sku(4, 30, "R7", "16GB")),
+                List.of(category(1, "游戏本"), category(2, "轻薄本")));
+        when(catalogService.getSnapshot()).thenReturn(snapshot);
+        productFacetService.refresh();
+    }
+
+    @Test
+    void specFiltersMatchOnSameSku() {
+        ProductListRequest request = new ProductListRequest();
+        request.setCpu("i7");
+        request.setRam("32GB");
+
+        ProductFacetResponse facets = productFacetService.getFacets(request);
+
+        // 只有商品10匹配，商品20不计入分类和价格区间
+        assertEquals(Map.of("1", 1), categoryCounts(facets));
+        assertEquals(1, facets.getPriceRanges().size());
+        assertEquals("5000-8000", facets.getPriceRanges().get(0).getLabel());
+        assertEquals(1, facets.getPriceRanges().get(0).getCount());
+
+        // 统计CPU时保留ram=32GB：商品10的i7、商品20的i9各自与32GB在同一个SKU上
+        assertEquals(Map.of("i7", 1, "i9", 1), specCounts(facets, "cpu"));
+        // 统计内存时保留cpu=i7：商品20的i7只有16GB
+        assertEquals(Map.of("32GB", 1, "16GB", 1), specCounts(facets, "ram"));
+    }
+
+    @Test
+    void singleSpecFilterCountsOtherDimensions() {
+        ProductListRequest request = new ProductListRequest();
+        request.setRam("16GB");
+
+        ProductFacetResponse facets = productFacetService.getFacets(request);
+
+        assertEquals(Map.of("1", 1, "2", 1), categoryCounts(facets));
+        // 商品20的i9只在32GB的SKU上，不计入
+        assertEquals(Map.of("i7", 1, "R7", 1), specCounts(facets, "cpu"));
+        // 统计内存本身时不应用内存条件
+        assertEquals(Map.of("16GB", 2, "32GB", 2), specCounts(facets, "ram"));
+    }
+
+    private static Map<String, Integer> categoryCounts(ProductFacetResponse facets) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        facets.getCategories().forEach(value -> counts.put(value.getValue(), value.getCount()));
+        return counts;
+    }
+
+    private static Map<String, Integer> specCounts(ProductFacetResponse facets, String key) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        facets.getSpecs().stream()
+                .filter(spec -> key.equals(spec.getKey()))
+                .flatMap(spec -> spec.getValues().stream())
+                .forEach(value -> counts.put(value.getValue(), value.getCount()));
+        return counts;
+    }
+
+    private static Product product(int id, int categoryId, String minPrice) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategoryId(categoryId);
+        product.setName("商品" + id);
+        product.setMinPrice(new BigDecimal(minPrice));
+        product.setIsActive(1);
+        return product;
+    }
+
+    private static ProductSku sku(int id, int productId, String cpu, String ram) {
+        ProductSku sku = new ProductSku();
+        sku.setId(id);
+        sku.setProductId(productId);
+        sku.setPrice(BigDecimal.ONE);
+        sku.setCpu(cpu);
+        sku.setRam(ram);
+        sku.setIsActive(1);
+        return sku;
+    }
+
+    private static ProductCategory category(int id, String name) {
+        ProductCategory category = new ProductCategory();
+        category.setId(id);
+        category.setName(name);
+        category.setIsActive(1);
+        return category;
+    }
+}
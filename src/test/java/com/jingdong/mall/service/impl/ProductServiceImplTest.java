@@ -0,0 +1,192 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.utils.CatalogSnapshot;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.mapper.ProductMapper;
+import com.jingdong.mall.model.dto.request.ProductListRequest;
+import com.jingdong.mall.model.dto.response.ProductDetailResponse;
+import com.jingdong.mall.model.dto.response.ProductFacetResponse;
+import com.jingdong.mall.model.dto.response.ProductListResponse;
+import com.jingdong.mall.model.dto.response.ProductSimpleResponse;
+import com.jingdong.mall.model.entity.Product;
+import com.jingdong.mall.model.entity.ProductSku;
+import com.jingdong.mall.service.CatalogService;
+import com.jingdong.mall.service.ProductFacetService;
+import com.jingdong.mall.service.ProductSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品列表测试：价格排序在目录快照的价格索引上分页，结果与数据库排序一致；其他查询仍查数据库；
+ * 分面统计只在第一页计算；详情版本号在同一秒内的库存变化后也会变化
+ */
+class ProductServiceImplTest {
+
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+
+    private final CatalogService catalogService = mock(CatalogService.class);
+
+    private final ProductFacetService productFacetService = mock(ProductFacetService.class);
+
+    private final ProductServiceImpl productService = new ProductServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productService, "productMapper", productMapper);
+        ReflectionTestUtils.setField(productService, "catalogService", catalogService);
+        ReflectionTestUtils.setField(productService, "productFacetService", productFacetService);
+        ReflectionTestUtils.setField(productService, "productSearchService", mock(ProductSearchService.class));
+        ReflectionTestUtils.setField(productService, "productCountCache",
+                new LocalCache<String, Long>("productCountTest", 100, 60_000, value -> 1));
+        ReflectionTestUtils.setField(productService, "productDetailCache",
+                new LocalCache<Integer, ProductDetailResponse>("productDetailTest", 100, 60_000, value -> 1));
+
+        // 分类1下有子分类2；商品5没有价格，商品6在分类3
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(product(1, 1, "5999"), product(2, 2, "3999"),
+                product(3, 1, "3999"), product(4, 2, "7999"), product(5, 1, null), product(6, 3, "1999")),
+                List.of(), List.of());
+        when(catalogService.getSnapshot()).thenReturn(snapshot);
+        when(catalogService.getCategoryScope(1)).thenReturn(List.of(1, 2));
+    }
+
+    @Test
+    void priceSortPagesThroughSnapshotWithCursor() {
+        // 升序：NULL在前，价格相同按ID升序
+        assertEquals(List.of(5, 2, 3, 1, 4), collectPages("price_asc"));
+        // 降序：整体反转，NULL在最后
+        assertEquals(List.of(4, 1, 3, 2, 5), collectPages("price_desc"));
+        verify(productMapper, never()).selectProductList(any());
+        verify(productMapper, never()).countProductList(any());
+    }
+
+    @Test
+    void facetsAreComputedOnlyForFirstPage() {
+        ProductFacetResponse facets = new ProductFacetResponse();
+        when(productFacetService.getFacets(any())).thenReturn(facets);
+
+        ProductListResponse first = productService.getProductList(request("price_asc"));
+        ProductListRequest next = request("price_asc");
+        next.setCursor(first.getNextCursor());
+        ProductListResponse second = productService.getProductList(next);
+
+        assertSame(facets, first.getFacets());
+        assertNull(second.getFacets());
+        verify(productFacetService, times(1)).getFacets(any());
+    }
+
+    @Test
+    void priceRangeAndPageNumberUseSnapshot() {
+        ProductListRequest request = request("price_desc");
+        request.setMinPrice(new BigDecimal("3999"));
+        request.setPage(2);
+
+        ProductListResponse response = productService.getProductList(request);
+
+        assertEquals(List.of(3, 2), ids(response));
+        assertEquals(4L, response.getTotal());
+        assertNull(response.getNextCursor());
+        verify(productMapper, never()).selectProductList(any());
+    }
+
+    @Test
+    void specFilterFallsBackToDatabase() {
+        ProductListRequest request = request("price_asc");
+        request.setCpu("i7");
+        when(productMapper.selectProductList(request)).thenReturn(List.of(product(1, 1, "5999")));
+        when(productMapper.countProductList(request)).thenReturn(1L);
+
+        ProductListResponse response = productService.getProductList(request);
+
+        assertEquals(List.of(1), ids(response));
+        assertEquals(1L, response.getTotal());
+        verify(productMapper).selectProductList(request);
+    }
+
+    @Test
+    void detailVersionChangesWithStockWithinSameSecond() {
+        LocalDateTime updated = LocalDateTime.of(2026, 10, 18, 12, 0, 0);
+        Product product = product(1, 1, "5999");
+        product.setUpdatedTime(updated);
+        when(catalogService.getProduct(1)).thenReturn(product);
+
+        when(catalogService.getProductSkus(1)).thenReturn(List.of(sku(11, 10, updated), sku(12, 5, updated)));
+        String version = productService.getProductDetailVersion(1);
+        assertEquals(version, productService.getProductDetailVersion(1));
+
+        // 同一秒内库存变化，更新时间不变，版本号也要变化
+        when(catalogService.getProductSkus(1)).thenReturn(List.of(sku(11, 9, updated), sku(12, 5, updated)));
+        String afterStockChange = productService.getProductDetailVersion(1);
+        assertNotEquals(version, afterStockChange);
+        assertTrue(afterStockChange.startsWith("\"1-"));
+
+        // SKU下架（列表变化）
+        when(catalogService.getProductSkus(1)).thenReturn(List.of(sku(11, 9, updated)));
+        assertNotEquals(afterStockChange, productService.getProductDetailVersion(1));
+    }
+
+    /**
+     * 每页2条，按游标翻完全部页
+     */
+    private List<Integer> collectPages(String sort) {
+        List<Integer> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductListRequest request = request(sort);
+            request.setCursor(cursor);
+            ProductListResponse response = productService.getProductList(request);
+            all.addAll(ids(response));
+            cursor = response.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    private static ProductListRequest request(String sort) {
+        ProductListRequest request = new ProductListRequest();
+        request.setCategoryId(1);
+        request.setSort(sort);
+        request.setPage(1);
+        request.setPageSize(2);
+        return request;
+    }
+
+    private static List<Integer> ids(ProductListResponse response) {
+        return response.getProductSimple().stream().map(ProductSimpleResponse::getId).toList();
+    }
+
+    private static ProductSku sku(int id, int stock, LocalDateTime updatedTime) {
+        ProductSku sku = new ProductSku();
+        sku.setId(id);
+        sku.setProductId(1);
+        sku.setPrice(new BigDecimal("5999.00"));
+        sku.setStock(stock);
+        sku.setUpdatedTime(updatedTime);
+        return sku;
+    }
+
+    private static Product product(int id, int categoryId, String minPrice) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategoryId(categoryId);
+        product.setMinPrice(minPrice != null ? new BigDecimal(minPrice) : null);
+        product.setIsActive(1);
+        return product;
+    }
+}
@@ -0,0 +1,69 @@
+package com.jingdong.mall.service.impl;
+
+import com.jingdong.mall.common.exception.BusinessException;
+import com.jingdong.mall.common.exception.ErrorCode;
+import com.jingdong.mall.common.utils.LocalCache;
+import com.jingdong.mall.mapper.ShoppingCartMapper;
+import com.jingdong.mall.model.dto.response.CartDeleteBySkuResponse;
+import com.jingdong.mall.model.entity.ShoppingCart;
+import com.jingdong.mall.service.CartWriteBufferService;
+import com.jingdong.mall.service.CatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 按SKU删除购物车商品测试：删除只按用户ID和SKU ID限定，已下架的SKU也能删除
+ */
+class ShoppingCartServiceImplTest {
+
+    private final ShoppingCartMapper shoppingCartMapper = mock(ShoppingCartMapper.class);
+
+    private final CatalogService catalogService = mock(CatalogService.class);
+
+    private final LocalCache<Long, Integer> cartCountCache = new LocalCache<>("cartCountTest", 100, 60_000, value -> 1);
+
+    private final ShoppingCartServiceImpl shoppingCartService = new ShoppingCartServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(shoppingCartService, "shoppingCartMapper", shoppingCartMapper);
+        ReflectionTestUtils.setField(shoppingCartService, "catalogService", catalogService);
+        ReflectionTestUtils.setField(shoppingCartService, "cartWriteBufferService", mock(CartWriteBufferService.class));
+        ReflectionTestUtils.setField(shoppingCartService, "cartCountCache", cartCountCache);
+    }
+
+    @Test
+    void discontinuedSkuCanBeDeleted() {
+        // 目录中已经没有这个SKU（已下架）
+        ShoppingCart item = new ShoppingCart();
+        item.setUserId(1L);
+        item.setSkuId(9);
+        item.setQuantity(2);
+        when(shoppingCartMapper.selectByUserIdAndSkuId(1L, 9)).thenReturn(item);
+        when(shoppingCartMapper.deleteByUserIdAndSkuId(1L, 9)).thenReturn(1);
+        cartCountCache.put(1L, 5);
+
+        CartDeleteBySkuResponse response = shoppingCartService.deleteCartBySkuId(1L, 9);
+
+        assertEquals(1, response.getDeletedCount());
+        assertEquals(3, cartCountCache.getIfPresent(1L));
+        verify(catalogService, never()).getSku(anyInt());
+    }
+
+    @Test
+    void skuNotInCartIsRejected() {
+        when(shoppingCartMapper.deleteByUserIdAndSkuId(1L, 9)).thenReturn(0);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> shoppingCartService.deleteCartBySkuId(1L, 9));
+        assertEquals(ErrorCode.SKU_NOT_IN_CART.getCode(), e.getCode());
+    }
+}
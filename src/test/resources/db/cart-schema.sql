@@ -0,0 +1,32 @@
+-- 购物车测试用表结构（H2 MySQL兼容模式，只保留加入购物车用到的列）
+DROP TABLE IF EXISTS shopping_cart;
+DROP TABLE IF EXISTS product_sku;
+
+CREATE TABLE product_sku
+(
+    id           INT PRIMARY KEY AUTO_INCREMENT,
+    product_id   INT            NOT NULL,
+    price        DECIMAL(10, 2) NOT NULL,
+    stock        INT            NOT NULL DEFAULT 0,
+    is_active    TINYINT                 DEFAULT 1,
+    created_time DATETIME                DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME                DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE shopping_cart
+(
+    id           BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id      INT            NOT NULL,
+    sku_id       INT            NOT NULL,
+    quantity     INT            NOT NULL DEFAULT 1,
+    selected     TINYINT        NOT NULL DEFAULT 1,
+    added_price  DECIMAL(10, 2) NULL,
+    created_time DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_user_sku UNIQUE (user_id, sku_id)
+);
+
+INSERT INTO product_sku (id, product_id, price, stock, is_active) VALUES (1, 1, 99.00, 5, 1);
+INSERT INTO product_sku (id, product_id, price, stock, is_active) VALUES (2, 1, 199.00, 100, 0);
+-- 其它用户已有的条目
+INSERT INTO shopping_cart (id, user_id, sku_id, quantity, selected, added_price) VALUES (100, 2, 1, 1, 1, 99.00);
@@ -0,0 +1,7 @@
+-- 模拟应用异常退出时留下的预占记录（SKU 1为热点SKU，数据库库存20只包含已同步的扣减）
+INSERT INTO stock_reservation (order_sn, sku_id, quantity, status, stock_synced, expire_time)
+VALUES ('CRASH1', 1, 3, 0, 0, DATEADD('MINUTE', 15, NOW())), -- 预占中，未扣减数据库库存
+       ('CRASH2', 1, 2, 1, 0, DATEADD('MINUTE', 15, NOW())), -- 已支付，未扣减数据库库存
+       ('CRASH3', 1, 4, 2, 0, DATEADD('MINUTE', 15, NOW())), -- 未扣减就已释放，不影响数据库库存
+       ('CRASH4', 1, 1, 2, 1, DATEADD('MINUTE', 15, NOW())), -- 已扣减后释放，未归还数据库库存
+       ('CRASH5', 1, 7, 0, 1, DATEADD('MINUTE', 15, NOW())); -- 已扣减，数据库库存已包含
@@ -0,0 +1,31 @@
+-- 库存预占测试用表结构（H2 MySQL兼容模式，只保留库存相关的列）
+DROP TABLE IF EXISTS stock_reservation;
+DROP TABLE IF EXISTS product_sku;
+
+CREATE TABLE product_sku
+(
+    id           INT PRIMARY KEY AUTO_INCREMENT,
+    product_id   INT            NOT NULL,
+    price        DECIMAL(10, 2) NOT NULL,
+    stock        INT            NOT NULL DEFAULT 0,
+    sales_count  INT                     DEFAULT 0,
+    is_active    TINYINT                 DEFAULT 1,
+    created_time DATETIME                DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME                DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE stock_reservation
+(
+    id           BIGINT PRIMARY KEY AUTO_INCREMENT,
+    order_sn     VARCHAR(32) NOT NULL,
+    sku_id       INT         NOT NULL,
+    quantity     INT         NOT NULL,
+    status       TINYINT     NOT NULL DEFAULT 0,
+    stock_synced TINYINT     NOT NULL DEFAULT 1,
+    expire_time  DATETIME    NOT NULL,
+    created_time DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_order_sku UNIQUE (order_sn, sku_id)
+);
+
+INSERT INTO product_sku (id, product_id, price, stock) VALUES (1, 1, 99.00, 20);
@@ -0,0 +1,139 @@
+-- 下单测试用表结构（H2 MySQL兼容模式，只保留下单用到的列）
+DROP TABLE IF EXISTS stock_reservation;
+DROP TABLE IF EXISTS order_item;
+DROP TABLE IF EXISTS `order`;
+DROP TABLE IF EXISTS shopping_cart;
+DROP TABLE IF EXISTS product_sku;
+DROP TABLE IF EXISTS product;
+DROP TABLE IF EXISTS user_address;
+
+CREATE TABLE user_address
+(
+    id           INT PRIMARY KEY AUTO_INCREMENT,
+    user_id      INT          NOT NULL,
+    name         VARCHAR(50)  NOT NULL,
+    phone        VARCHAR(20)  NOT NULL,
+    province     VARCHAR(50)  NOT NULL,
+    city         VARCHAR(50)  NOT NULL,
+    district     VARCHAR(50)  NOT NULL,
+    detail       VARCHAR(255) NOT NULL,
+    postal_code  VARCHAR(10),
+    is_default   TINYINT      NOT NULL DEFAULT 0,
+    status       TINYINT      NOT NULL DEFAULT 1,
+    created_time DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE product
+(
+    id          INT PRIMARY KEY AUTO_INCREMENT,
+    name        VARCHAR(200) NOT NULL,
+    main_images VARCHAR(1000),
+    is_active   TINYINT DEFAULT 1
+);
+
+CREATE TABLE product_sku
+(
+    id           INT PRIMARY KEY AUTO_INCREMENT,
+    product_id   INT            NOT NULL,
+    price        DECIMAL(10, 2) NOT NULL,
+    stock        INT            NOT NULL DEFAULT 0,
+    sales_count  INT                     DEFAULT 0,
+    os           VARCHAR(100),
+    cpu          VARCHAR(100),
+    ram          VARCHAR(50),
+    storage      VARCHAR(50),
+    gpu          VARCHAR(100),
+    is_active    TINYINT                 DEFAULT 1,
+    created_time DATETIME                DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME                DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE shopping_cart
+(
+    id           BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id      INT            NOT NULL,
+    sku_id       INT            NOT NULL,
+    quantity     INT            NOT NULL DEFAULT 1,
+    selected     TINYINT        NOT NULL DEFAULT 1,
+    added_price  DECIMAL(10, 2) NULL,
+    created_time DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_user_sku UNIQUE (user_id, sku_id)
+);
+
+CREATE TABLE `order`
+(
+    id                   BIGINT PRIMARY KEY AUTO_INCREMENT,
+    order_sn             VARCHAR(32)    NOT NULL UNIQUE,
+    user_id              INT            NOT NULL,
+    total_amount         DECIMAL(10, 2) NOT NULL,
+    discount_amount      DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    shipping_fee         DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
+    pay_amount           DECIMAL(10, 2) NOT NULL,
+    receiver_name        VARCHAR(50)    NOT NULL,
+    receiver_phone       VARCHAR(20)    NOT NULL,
+    receiver_province    VARCHAR(50)    NOT NULL,
+    receiver_city        VARCHAR(50)    NOT NULL,
+    receiver_district    VARCHAR(50)    NOT NULL,
+    receiver_detail      VARCHAR(255)   NOT NULL,
+    receiver_postal_code VARCHAR(10),
+    status               TINYINT        NOT NULL,
+    payment_method       TINYINT        NOT NULL DEFAULT 0,
+    buyer_remark         VARCHAR(500),
+    created_time         DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time         DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE order_item
+(
+    id                BIGINT PRIMARY KEY AUTO_INCREMENT,
+    order_id          BIGINT         NOT NULL,
+    sku_id            INT            NOT NULL,
+    product_name      VARCHAR(200)   NOT NULL,
+    sku_specs         VARCHAR(1000)  NOT NULL,
+    main_image        VARCHAR(255)   NOT NULL,
+    price             DECIMAL(10, 2) NOT NULL,
+    quantity          INT            NOT NULL,
+    total_price       DECIMAL(10, 2) NOT NULL,
+    after_sale_status TINYINT        NOT NULL DEFAULT 0,
+    created_time      DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time      DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (order_id) REFERENCES `order` (id) ON DELETE CASCADE
+);
+
+CREATE TABLE stock_reservation
+(
+    id           BIGINT PRIMARY KEY AUTO_INCREMENT,
+    order_sn     VARCHAR(32) NOT NULL,
+    sku_id       INT         NOT NULL,
+    quantity     INT         NOT NULL,
+    status       TINYINT     NOT NULL DEFAULT 0,
+    stock_synced TINYINT     NOT NULL DEFAULT 1,
+    expire_time  DATETIME    NOT NULL,
+    created_time DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_order_sku UNIQUE (order_sn, sku_id)
+);
+
+-- 用户1、2、3各有一个收货地址
+INSERT INTO user_address (id, user_id, name, phone, province, city, district, detail)
+VALUES (1, 1, '张三', '13800000001', '北京市', '北京市', '朝阳区', '一号路1号'),
+       (2, 2, '李四', '13800000002', '上海市', '上海市', '浦东新区', '二号路2号'),
+       (3, 3, '王五', '13800000003', '广东省', '深圳市', '南山区', '三号路3号');
+
+INSERT INTO product (id, name, main_images, is_active)
+VALUES (1, '秒杀笔记本', '["https://img/1.jpg"]', 1),
+       (2, '普通笔记本', '["https://img/2.jpg"]', 1);
+
+-- SKU 1库存3（秒杀），SKU 2库存100
+INSERT INTO product_sku (id, product_id, price, stock, cpu, ram)
+VALUES (1, 1, 4999.00, 3, 'i7', '16GB'),
+       (2, 2, 59.00, 100, 'i5', '8GB');
+
+-- 用户1、2都想买2台SKU 1，用户3买SKU 2
+INSERT INTO shopping_cart (id, user_id, sku_id, quantity, added_price)
+VALUES (11, 1, 1, 2, 4999.00),
+       (21, 2, 1, 2, 4999.00),
+       (31, 3, 2, 1, 59.00),
+       (32, 3, 1, 1, 4999.00);
@@ -0,0 +1,8 @@
+DROP TABLE IF EXISTS order_sn_lease;
+
+CREATE TABLE order_sn_lease
+(
+    worker_id    INT      NOT NULL PRIMARY KEY,
+    lease_until  BIGINT   NOT NULL,
+    updated_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,29 @@
+-- 商品列表游标分页测试用表结构和数据（H2 MySQL兼容模式，只保留列表查询用到的列）
+-- 数据包含min_price为NULL的商品，以及价格、销量、创建时间相同的商品
+DROP TABLE IF EXISTS product;
+
+CREATE TABLE product
+(
+    id           INT PRIMARY KEY AUTO_INCREMENT,
+    category_id  INT,
+    name         VARCHAR(200)   NOT NULL,
+    main_images  VARCHAR(1000),
+    tags         VARCHAR(1000),
+    min_price    DECIMAL(10, 2) NULL,
+    total_sales  INT            NOT NULL DEFAULT 0,
+    is_active    TINYINT        NOT NULL DEFAULT 1,
+    created_time DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO product (id, category_id, name, min_price, total_sales, is_active, created_time)
+VALUES (1, 1, '商品1', 4999.00, 10, 1, '2025-01-01 10:00:00'),
+       (2, 1, '商品2', NULL, 0, 1, '2025-01-02 10:00:00'),
+       (3, 1, '商品3', 3999.00, 10, 1, '2025-01-01 10:00:00'),
+       (4, 1, '商品4', 4999.00, 20, 1, '2025-01-03 10:00:00'),
+       (5, 1, '商品5', NULL, 0, 1, '2025-01-01 10:00:00'),
+       (6, 1, '商品6', 4999.00, 10, 1, '2025-01-03 10:00:00'),
+       (7, 1, '商品7', 5999.00, 5, 1, '2025-01-02 10:00:00'),
+       (8, 1, '商品8', NULL, 5, 1, '2025-01-03 10:00:00'),
+       (9, 1, '商品9', 3999.00, 20, 1, '2025-01-01 10:00:00'),
+       (10, 1, '已下架商品', 4999.00, 10, 0, '2025-01-03 10:00:00');